@@ -2,6 +2,7 @@ package com.example.eduwheels.Config;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.cloud.storage.Storage;
 import com.google.cloud.storage.StorageOptions;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -9,7 +10,9 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 
+// Only needed when photos go to GCS (blobstore.type=gcs); the local store runs without credentials
 @Configuration
+@ConditionalOnProperty(name = "blobstore.type", havingValue = "gcs", matchIfMissing = true)
 public class GcsConfig {
 
     @Bean
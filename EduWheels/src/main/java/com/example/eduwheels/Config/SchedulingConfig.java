@@ -0,0 +1,11 @@
+package com.example.eduwheels.Config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Runs the @Scheduled jobs (pending booking expiry, seat index pruning, idempotency key purge,
+// photo blob GC, JWT revocation refresh and purge, refresh token purge)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
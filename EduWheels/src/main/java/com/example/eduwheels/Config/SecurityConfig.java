@@ -5,15 +5,18 @@ import com.example.eduwheels.Utils.JwtAuthenticationFilter;
 import com.example.eduwheels.Utils.JwtUtil;
 import com.example.eduwheels.Handler.CustomOAuth2SuccessHandler; // Ensure this handler is correctly implemented
 
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
@@ -23,6 +26,7 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
@@ -50,10 +54,14 @@ public class SecurityConfig {
 
 
     // --- Define PasswordEncoder Bean ---
+    // BCrypt at passwords.bcrypt.cost, stored as "{bcrypt}$2a$<cost>$...". Hashes without the prefix are
+    // still checked as BCrypt. Called through PasswordHashingService, which also rehashes at the new cost.
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        // Uses BCrypt by default, which is recommended
-        return PasswordEncoderFactories.createDelegatingPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${passwords.bcrypt.cost:10}") int cost) {
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt",
+                Map.of("bcrypt", new BCryptPasswordEncoder(cost)));
+        encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder(cost));
+        return encoder;
     }
     // ---
 
@@ -64,9 +72,14 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(authz -> authz
+                        // The async re-dispatch that closes an SSE stream was already authorized on the way in
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(
                                 "/users/login",
                                 "/users/signup",
+                                // Called with an expired access token; they check what they're given themselves
+                                "/users/refresh",
+                                "/users/logout",
                                 "/oauth2/**",
                                 "/login",
                                 "/complete-profile",
@@ -122,6 +135,8 @@ public class SecurityConfig {
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS", "PATCH")); // Added PATCH
         // Allow all headers (you might want to restrict this in production)
         configuration.setAllowedHeaders(List.of("*")); // Allows common headers + Authorization
+        // Let the pages read the keyset cursor of GET /api/bookings, idempotent replays and Retry-After on 429/503
+        configuration.setExposedHeaders(List.of("X-Next-Cursor", "Idempotent-Replayed", "Retry-After"));
         // Allow credentials (cookies, authorization headers)
         configuration.setAllowCredentials(true);
         // How long the results of a preflight request can be cached
@@ -1,46 +1,205 @@
 package com.example.eduwheels.Controller;
 
+import com.example.eduwheels.Dto.BatchBookingResult;
+import com.example.eduwheels.Dto.BookingSummary;
+import com.example.eduwheels.Dto.BulkStatusResult;
 import com.example.eduwheels.Entity.BookingEntity;
 import com.example.eduwheels.Service.BookingService;
+import com.example.eduwheels.Service.IdempotencyService;
+import com.example.eduwheels.Service.TableVersions;
+import com.example.eduwheels.Utils.GeoPoint;
+import com.example.eduwheels.Utils.KeysetPage;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/bookings")
 @CrossOrigin(origins = "*")
 public class BookingController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int MAX_BATCH_SIZE = 200;
+    private static final int MAX_BULK_STATUS_SIZE = 1000;
+    private static final double MAX_NEAR_RADIUS_M = 10_000;
+    private static final int MAX_NEAR_DAYS = 31;
+    // Everything a BookingSummary shows: the booking, its vehicle, its rider and whether it was reviewed
+    private static final TableVersions.Table[] SUMMARY_TABLES = {TableVersions.Table.BOOKINGS,
+            TableVersions.Table.VEHICLES, TableVersions.Table.USERS, TableVersions.Table.REVIEWS};
+
     @Autowired
     private BookingService bookingService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private TableVersions tableVersions;
+
+    // Keyset-paginated listing: the body stays a plain array and the cursor for the
+    // next page (if any) comes back in the X-Next-Cursor header.
     @GetMapping
-    public ResponseEntity<?> getAllBookings() {
-        return ResponseEntity.ok(bookingService.getAllBookings());
+    public ResponseEntity<?> getAllBookings(
+            @RequestParam(required = false) BookingEntity.Status status,
+            @RequestParam(required = false) Long vehicleId,
+            @RequestParam(required = false) Long userId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body(Map.of("message", "limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        try {
+            KeysetPage<BookingSummary> page = bookingService.getBookingsPage(status, vehicleId, userId, from, to, cursor, limit);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.getNextCursor() != null) {
+                response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            return response.body(page.getItems());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    // Pickups within radiusM of a point, nearest first. Without from/to it looks at today;
+    // with only from, at the 24 hours after it.
+    @GetMapping("/near")
+    public ResponseEntity<?> getBookingsNear(
+            @RequestParam double lat,
+            @RequestParam double lng,
+            @RequestParam(defaultValue = "500") double radiusM,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "50") int limit) {
+        if (!GeoPoint.isValid(lat, lng)) {
+            return ResponseEntity.badRequest().body(Map.of("message", "lat must be within [-90, 90] and lng within [-180, 180]"));
+        }
+        if (!(radiusM > 0 && radiusM <= MAX_NEAR_RADIUS_M)) {
+            return ResponseEntity.badRequest().body(Map.of("message", "radiusM must be greater than 0 and at most " + (int) MAX_NEAR_RADIUS_M));
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body(Map.of("message", "limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        LocalDateTime start = from != null ? from : LocalDate.now().atStartOfDay();
+        LocalDateTime end = to != null ? to : start.plusDays(1);
+        if (!end.isAfter(start) || end.isAfter(start.plusDays(MAX_NEAR_DAYS))) {
+            return ResponseEntity.badRequest().body(Map.of("message", "to must be after from and at most " + MAX_NEAR_DAYS + " days later"));
+        }
+        return ResponseEntity.ok(bookingService.getBookingsNear(lat, lng, radiusM, start, end, limit));
+    }
+
+    // Admin planning view: proposed shared runs for the day's Pending bookings (nothing is saved)
+    @GetMapping("/pools")
+    public ResponseEntity<?> planRidePools(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        try {
+            return ResponseEntity.ok(bookingService.planRidePools(date));
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    // Admin: re-pack the day's Pending bookings onto the fleet (moves bookings between vehicles)
+    @PostMapping("/reassign")
+    public ResponseEntity<?> reoptimizeFleet(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        try {
+            return ResponseEntity.ok(bookingService.reoptimizeFleet(date));
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("message", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+        }
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<?> getBookingById(@PathVariable Long id) {
-        return bookingService.getBookingById(id)
+        return bookingService.getBookingSummary(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // Retries that repeat the Idempotency-Key header get the first response back instead of
+    // a second booking (and a second seat reservation). Leave plateNumber out to let the
+    // server pick the vehicle.
     @PostMapping
-    public ResponseEntity<BookingEntity> createBooking(@RequestBody BookingRequest bookingRequest) {
-        BookingEntity createdBooking = bookingService.createBooking(bookingRequest);
-        return new ResponseEntity<>(createdBooking, HttpStatus.CREATED);
+    public ResponseEntity<?> createBooking(@RequestBody BookingRequest bookingRequest,
+                                           @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey) {
+        if (idempotencyKey == null) {
+            BookingEntity createdBooking = bookingService.createBooking(bookingRequest);
+            return new ResponseEntity<>(BookingSummary.from(createdBooking, false), HttpStatus.CREATED);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > IdempotencyService.MAX_KEY_LENGTH) {
+            return ResponseEntity.badRequest().body(Map.of("message",
+                    IdempotencyService.HEADER + " must be 1 to " + IdempotencyService.MAX_KEY_LENGTH + " characters"));
+        }
+        try {
+            IdempotencyService.StoredResponse response = idempotencyService.execute(idempotencyKey, bookingRequest,
+                    HttpStatus.CREATED, () -> BookingSummary.from(bookingService.createBooking(bookingRequest), false));
+            return ResponseEntity.status(response.getStatus())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(IdempotencyService.REPLAYED_HEADER, String.valueOf(response.isReplayed()))
+                    .body(response.getBody());
+        } catch (IdempotencyService.ConflictException e) {
+            return ResponseEntity.status(e.getStatus()).body(Map.of("message", e.getMessage()));
+        }
     }
 
+    // Group trips: 201 when every booking was created, 409 when an all-or-nothing batch was
+    // rejected (nothing saved), 200 when a best-effort batch created only some of them.
+    @PostMapping("/batch")
+    public ResponseEntity<?> createBookings(@RequestBody BatchBookingRequest batchRequest) {
+        List<BookingRequest> bookings = batchRequest.getBookings();
+        if (bookings == null || bookings.isEmpty() || bookings.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().body(Map.of("message", "bookings must contain between 1 and " + MAX_BATCH_SIZE + " items"));
+        }
+        BatchBookingResult result = bookingService.createBookings(bookings, batchRequest.isAllOrNothing());
+        if (result.getRejected() == 0) {
+            return new ResponseEntity<>(result, HttpStatus.CREATED);
+        }
+        return ResponseEntity.status(result.isAllOrNothing() ? HttpStatus.CONFLICT : HttpStatus.OK).body(result);
+    }
+
+    // Admin approve/reject in one go; every distinct ID gets an UPDATED, UNCHANGED, NOT_FOUND or NO_SEATS entry
+    @PostMapping("/bulk-status")
+    public ResponseEntity<?> updateStatuses(@RequestBody BulkStatusRequest bulkRequest) {
+        List<Long> ids = bulkRequest.getIds();
+        if (ids == null || ids.isEmpty() || ids.size() > MAX_BULK_STATUS_SIZE || ids.contains(null)) {
+            return ResponseEntity.badRequest().body(Map.of("message", "ids must contain between 1 and " + MAX_BULK_STATUS_SIZE + " booking IDs"));
+        }
+        if (bulkRequest.getStatus() == null) {
+            return ResponseEntity.badRequest().body(Map.of("message", "status is required"));
+        }
+        try {
+            BulkStatusResult result = bookingService.updateStatuses(ids, bulkRequest.getStatus());
+            return ResponseEntity.ok(result);
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("message", e.getMessage()));
+        }
+    }
+
+    // 409 when the edit would put more riders on the vehicle than it has seats for
     @PutMapping("/{id}")
-    public ResponseEntity<BookingEntity> updateBooking(@PathVariable Long id, @RequestBody BookingEntity updatedBooking) {
-        BookingEntity booking = bookingService.updateBooking(id, updatedBooking);
+    public ResponseEntity<?> updateBooking(@PathVariable Long id, @RequestBody BookingEntity updatedBooking) {
+        BookingEntity booking;
+        try {
+            booking = bookingService.updateBooking(id, updatedBooking);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+        }
         if (booking != null) {
-            return ResponseEntity.ok(booking);
+            return ResponseEntity.of(bookingService.getBookingSummary(id));
         } else {
             return ResponseEntity.notFound().build();
         }
@@ -54,9 +213,16 @@ public class BookingController {
 
     // --- New Endpoint to Get Bookings for the Current User ---
     @GetMapping("/my") // Or /user/me, or similar, but /my is common
-    public ResponseEntity<List<BookingEntity>> getMyBookings() {
+    public ResponseEntity<List<BookingSummary>> getMyBookings(WebRequest request) {
+        // Same counters, different list per user: the caller goes into the ETag too.
+        // A matching If-None-Match gets a 304 before the user or any booking is loaded.
+        String caller = request.getUserPrincipal() != null ? request.getUserPrincipal().getName() : "";
+        if (tableVersions.notModified(request,
+                tableVersions.etag("my" + TableVersions.callerScope(caller), SUMMARY_TABLES))) {
+            return null;
+        }
         try {
-            List<BookingEntity> myBookings = bookingService.getBookingsForCurrentUser();
+            List<BookingSummary> myBookings = bookingService.getBookingsForCurrentUser();
             return ResponseEntity.ok(myBookings);
         } catch (IllegalStateException e) {
             // Handle case where user is not authenticated (though typically handled by Security config)
@@ -67,6 +233,13 @@ public class BookingController {
         }
     }
 
+    // Server-Sent Events: "booking-status" for each status change, "resync" when the client fell
+    // too far behind and should re-fetch, plus a heartbeat comment so proxies keep it open
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamStatusChanges() {
+        return bookingService.subscribeToStatusChanges();
+    }
+
     // 🧹 Cleaner Request DTO
     public static class BookingRequest {
         private LocalDateTime startDate;
@@ -135,4 +308,30 @@ public class BookingController {
 
         public void setDropOff(String dropOff) { this.dropOff = dropOff; }
     }
+
+    public static class BatchBookingRequest {
+        private List<BookingRequest> bookings;
+        private boolean allOrNothing = true;
+
+        public List<BookingRequest> getBookings() { return bookings; }
+
+        public void setBookings(List<BookingRequest> bookings) { this.bookings = bookings; }
+
+        public boolean isAllOrNothing() { return allOrNothing; }
+
+        public void setAllOrNothing(boolean allOrNothing) { this.allOrNothing = allOrNothing; }
+    }
+
+    public static class BulkStatusRequest {
+        private List<Long> ids;
+        private BookingEntity.Status status;
+
+        public List<Long> getIds() { return ids; }
+
+        public void setIds(List<Long> ids) { this.ids = ids; }
+
+        public BookingEntity.Status getStatus() { return status; }
+
+        public void setStatus(BookingEntity.Status status) { this.status = status; }
+    }
 }
@@ -0,0 +1,164 @@
+package com.example.eduwheels.Controller;
+
+import com.example.eduwheels.Service.LocalBlobStore;
+import com.example.eduwheels.Service.VehicleService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Serves photos stored by {@link LocalBlobStore} (blobstore.type=local).
+ *
+ * On Tomcat's NIO connector the bytes never pass through the JVM: the file is handed to the
+ * connector's sendfile support, which has the kernel copy it from the page cache to the socket
+ * once this method returns. Elsewhere (TLS, other containers, tests) it falls back to
+ * {@link FileChannel#transferTo} into the response stream. Single byte ranges are honoured, so large photos can resume.
+ * Object names are content hashes and never change meaning, so responses may be cached for a year.
+ * Staged uploads (digest not known yet, possibly half-written or abandoned) and in-progress
+ * ".part" files are not published objects and are always 404.
+ */
+@RestController
+@RequestMapping("/api/vehicles/uploads")
+@ConditionalOnProperty(name = "blobstore.type", havingValue = "local")
+public class LocalBlobController {
+
+    // Set by Tomcat when the connector can sendfile; the other three are read by it after we return
+    static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final String CACHE_FOREVER = "public, max-age=31536000, immutable";
+    private static final long[] UNSATISFIABLE = new long[0];
+    private static final Path STAGING = Path.of(VehicleService.STAGING_PREFIX);
+
+    @Autowired
+    private LocalBlobStore localBlobStore;
+
+    @GetMapping("/{*name}")
+    public void serve(@PathVariable String name, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String objectName = name.startsWith("/") ? name.substring(1) : name;
+        Path file = isPublished(objectName) ? localBlobStore.find(objectName) : null;
+        if (file == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long length = attributes.size();
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(attributes.lastModifiedTime().toMillis()) + "\"";
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_FOREVER);
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, attributes.lastModifiedTime().toMillis());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (etag.equals(request.getHeader(HttpHeaders.IF_NONE_MATCH))) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setContentType(MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+
+        long start = 0;
+        long end = length; // exclusive
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(etag))) {
+            long[] bounds = parseRange(range, length);
+            if (bounds == UNSATISFIABLE) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return;
+            }
+            if (bounds != null) {
+                start = bounds[0];
+                end = bounds[1];
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + (end - 1) + "/" + length);
+            }
+        }
+        response.setContentLengthLong(end - start);
+        if ("HEAD".equals(request.getMethod()) || start == end) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position < end) {
+                position += channel.transferTo(position, end - position, out);
+            }
+        }
+    }
+
+    // Compared after normalizing, so "vehicles/./staging/x" or "vehicles//staging/x" don't slip through
+    static boolean isPublished(String name) {
+        try {
+            Path path = Path.of(name).normalize();
+            Path fileName = path.getFileName();
+            return !path.startsWith(STAGING) && fileName != null && !fileName.toString().endsWith(".part");
+        } catch (InvalidPathException e) {
+            return false;
+        }
+    }
+
+    /**
+     * [start, end) for a single "bytes=" range, UNSATISFIABLE if it starts past the end, or null
+     * to ignore it and send the whole file (malformed, other units, or several ranges, which
+     * browsers don't ask for when loading images).
+     */
+    static long[] parseRange(String header, long length) {
+        if (!header.startsWith("bytes=") || header.indexOf(',') >= 0) {
+            return null;
+        }
+        String spec = header.substring("bytes=".length()).trim();
+        int dash = spec.indexOf('-');
+        if (dash < 0) {
+            return null;
+        }
+        try {
+            String first = spec.substring(0, dash).trim();
+            String last = spec.substring(dash + 1).trim();
+            if (first.isEmpty()) { // bytes=-500: the last 500 bytes
+                long suffix = Long.parseLong(last);
+                if (suffix <= 0) {
+                    return suffix == 0 ? UNSATISFIABLE : null;
+                }
+                return length == 0 ? UNSATISFIABLE : new long[]{Math.max(0, length - suffix), length};
+            }
+            long start = Long.parseLong(first);
+            if (!last.isEmpty() && Long.parseLong(last) < start) {
+                return null;
+            }
+            if (start >= length) {
+                return UNSATISFIABLE;
+            }
+            long end = last.isEmpty() ? length : Math.min(length, Long.parseLong(last) + 1);
+            return new long[]{start, end};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package com.example.eduwheels.Controller;
 
+import com.example.eduwheels.Dto.ReviewSummary;
 import com.example.eduwheels.Entity.BookingEntity;
 import com.example.eduwheels.Entity.ReportEntity;
 import com.example.eduwheels.Entity.UserEntity;
 import com.example.eduwheels.Service.BookingService;
 import com.example.eduwheels.Service.ReportService;
+import com.example.eduwheels.Service.TableVersions;
 import com.example.eduwheels.Service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -12,6 +14,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -21,6 +24,9 @@ import java.util.Optional;
 @RequestMapping("/api/reviews")
 public class ReportController {
 
+    private static final TableVersions.Table[] SUMMARY_TABLES = {TableVersions.Table.REVIEWS,
+            TableVersions.Table.USERS, TableVersions.Table.BOOKINGS, TableVersions.Table.VEHICLES};
+
     @Autowired
     private ReportService reportService;
 
@@ -30,14 +36,25 @@ public class ReportController {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private TableVersions tableVersions;
+
+    // Summaries also carry the reviewer's name and the booked vehicle, so those tables count too.
+    // A matching If-None-Match gets a 304 before anything is loaded.
     @GetMapping
-    public List<ReportEntity> getAllReviews() {
-        return reportService.getAllReports();
+    public List<ReviewSummary> getAllReviews(WebRequest request) {
+        if (tableVersions.notModified(request, tableVersions.etag(null, SUMMARY_TABLES))) {
+            return null;
+        }
+        return reportService.getAllReviewSummaries();
     }
 
     @GetMapping("/{id}")
-    public Optional<ReportEntity> getReviewById(@PathVariable Integer id) {
-        return reportService.getReportById(id);
+    public Optional<ReviewSummary> getReviewById(@PathVariable Integer id, WebRequest request) {
+        if (tableVersions.notModified(request, tableVersions.etag("review" + id, SUMMARY_TABLES))) {
+            return null;
+        }
+        return reportService.getReviewSummaryById(id);
     }
 
     @PostMapping
@@ -80,7 +97,7 @@ public class ReportController {
         review.setBooking(existingBooking); // ensure reference is correct
 
         ReportEntity createdReview = reportService.createReport(review);
-        return new ResponseEntity<>(createdReview, HttpStatus.CREATED);
+        return new ResponseEntity<>(ReviewSummary.from(createdReview), HttpStatus.CREATED);
     }
 
     @PutMapping("/{id}")
@@ -97,7 +114,7 @@ public class ReportController {
         existingReview.setComment(updatedReview.getComment());
 
         ReportEntity savedReview = reportService.updateReport(existingReview);
-        return new ResponseEntity<>(savedReview, HttpStatus.OK);
+        return new ResponseEntity<>(ReviewSummary.from(savedReview), HttpStatus.OK);
     }
 
     @DeleteMapping("/{id}")
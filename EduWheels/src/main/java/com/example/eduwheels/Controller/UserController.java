@@ -4,14 +4,21 @@ import com.example.eduwheels.Config.SecurityConfig;
 import com.example.eduwheels.Entity.UserEntity;
 import com.example.eduwheels.Repository.UserRepository;
 import com.example.eduwheels.Service.GoogleOAuth2UserService;
+import com.example.eduwheels.Service.LoginRateLimiter;
+import com.example.eduwheels.Service.PasswordHashingService;
+import com.example.eduwheels.Service.RefreshTokenService;
+import com.example.eduwheels.Service.TableVersions;
+import com.example.eduwheels.Service.TokenRevocationService;
 import com.example.eduwheels.Service.UserService;
 import com.example.eduwheels.Utils.JwtAuthenticationFilter;
 import com.example.eduwheels.Utils.JwtUtil;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import jakarta.servlet.http.Cookie;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -20,14 +27,17 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.access.prepost.PreAuthorize;
 
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
 
 @RestController
 @RequestMapping("/users")
@@ -43,11 +53,24 @@ public class UserController {
     private UserRepository userRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private TableVersions tableVersions;
+
+    // BCrypt runs on its own bounded pool; the endpoints that hash return its future instead of blocking
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
 
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
     public static class CompleteProfileRequest {
         private String schoolid;
         private String password;
@@ -60,7 +83,7 @@ public class UserController {
     }
 
     @PostMapping("/complete-profile")
-    public ResponseEntity<?> completeProfile(
+    public CompletableFuture<ResponseEntity<?>> completeProfile(
             @RequestBody CompleteProfileRequest requestData,
             HttpSession session,
             HttpServletRequest request,
@@ -70,69 +93,72 @@ public class UserController {
         Map<String, String> pending = (Map<String, String>)
                 session.getAttribute(SecurityConfig.PENDING_OAUTH2_USER_ATTRIBUTE_KEY);
         if (pending == null || pending.get("email") == null) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("message", "Missing user information. Please retry Google login."));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("message", "Missing user information. Please retry Google login.")));
         }
 
         String rawSchoolId = Optional.ofNullable(requestData.getSchoolid()).orElse("").replace("-", "");
         if (rawSchoolId.length() != 9) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("message", "Invalid School ID format."));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("message", "Invalid School ID format.")));
         }
 
         String rawPassword = Optional.ofNullable(requestData.getPassword()).orElse("");
         if (rawPassword.length() < 8) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("message", "Password must be at least 8 characters."));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("message", "Password must be at least 8 characters.")));
         }
 
-        try {
-            String email = pending.get("email");
-            if (userRepository.findByEmail(email).isPresent()) {
-                session.removeAttribute(SecurityConfig.PENDING_OAUTH2_USER_ATTRIBUTE_KEY);
-                return ResponseEntity.status(HttpStatus.CONFLICT)
-                        .body(Map.of("message", "User already exists."));
-            }
-
-            // Build and save the new user
-            UserEntity newUser = new UserEntity();
-            newUser.setEmail(email);
-            newUser.setFirstName(pending.get("firstName"));
-            newUser.setLastName(pending.get("lastName"));
-            String username = pending.getOrDefault("username", pending.get("firstName") + pending.get("lastName"));
-            newUser.setUsername(username);
-            newUser.setPassword(passwordEncoder.encode(rawPassword));
-            newUser.setSchoolid(rawSchoolId);
-            newUser.setRole("User");
-
-            googleOAuth2UserService.saveUserProfile(newUser);
+        String email = pending.get("email");
+        if (userRepository.findByEmail(email).isPresent()) {
             session.removeAttribute(SecurityConfig.PENDING_OAUTH2_USER_ATTRIBUTE_KEY);
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("message", "User already exists.")));
+        }
+
+        return withHashedPassword(rawPassword, encodedPassword -> {
+            try {
+                // Build and save the new user
+                UserEntity newUser = new UserEntity();
+                newUser.setEmail(email);
+                newUser.setFirstName(pending.get("firstName"));
+                newUser.setLastName(pending.get("lastName"));
+                String username = pending.getOrDefault("username", pending.get("firstName") + pending.get("lastName"));
+                newUser.setUsername(username);
+                newUser.setPassword(encodedPassword);
+                newUser.setSchoolid(rawSchoolId);
+                newUser.setRole("User");
+
+                googleOAuth2UserService.saveUserProfile(newUser);
+                session.removeAttribute(SecurityConfig.PENDING_OAUTH2_USER_ATTRIBUTE_KEY);
 
-            // Generate JWT including email & username
-            String token = jwtUtil.generateToken(newUser.getEmail(), newUser.getUsername());
+                // Generate JWT including email & username, and a refresh token for the next ones
+                RefreshTokenService.Tokens tokens = refreshTokenService.issue(newUser);
 
-            // Prepare response payload
-            Map<String, Object> resp = new HashMap<>();
-            resp.put("token", token);  // ← NEW: return the JWT
-            resp.put("message", "Profile completed successfully.");
+                // Prepare response payload
+                Map<String, Object> resp = new HashMap<>();
+                resp.put("token", tokens.accessToken());  // ← NEW: return the JWT
+                resp.put("refreshToken", tokens.refreshToken());
+                resp.put("message", "Profile completed successfully.");
 
-            Map<String, Object> userDetails = new HashMap<>();
-            userDetails.put("id", newUser.getUserid());
-            userDetails.put("name", newUser.getFirstName() + " " + newUser.getLastName());
-            userDetails.put("email", newUser.getEmail());
-            userDetails.put("username", newUser.getUsername());         // ← NEW
-            userDetails.put("schoolid", newUser.getSchoolid());
-            userDetails.put("role", newUser.getRole());
-            userDetails.put("isProfileComplete", true);
+                Map<String, Object> userDetails = new HashMap<>();
+                userDetails.put("id", newUser.getUserid());
+                userDetails.put("name", newUser.getFirstName() + " " + newUser.getLastName());
+                userDetails.put("email", newUser.getEmail());
+                userDetails.put("username", newUser.getUsername());         // ← NEW
+                userDetails.put("schoolid", newUser.getSchoolid());
+                userDetails.put("role", newUser.getRole());
+                userDetails.put("isProfileComplete", true);
 
-            resp.put("user", userDetails);
+                resp.put("user", userDetails);
 
-            return ResponseEntity.ok(resp);
+                return ResponseEntity.ok(resp);
 
-        } catch (Exception e) {
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("message", "Error saving profile. Please try again."));
-        }
+            } catch (Exception e) {
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(Map.of("message", "Error saving profile. Please try again."));
+            }
+        });
     }
 
     @GetMapping("/me")
@@ -219,8 +245,9 @@ public class UserController {
         if (updatedData.containsKey("username")) {
             user.setUsername(updatedData.get("username"));
         }
-        if (updatedData.containsKey("role")) {
-            user.setRole(updatedData.get("role"));
+        // Roles are only changed by admins (PUT /users/{id}); echoing the current one back is fine
+        if (updatedData.containsKey("role") && !Objects.equals(user.getRole(), updatedData.get("role"))) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("message", "You cannot change your own role."));
         }
         if (updatedData.containsKey("schoolId")) {
             String rawSchoolId = updatedData.get("schoolId").replace("-", "");
@@ -232,6 +259,7 @@ public class UserController {
 
         try {
             userRepository.save(user);
+            tableVersions.changed(TableVersions.Table.USERS); // names show up in booking and review summaries
             Map<String, Object> userDetails = new HashMap<>();
             userDetails.put("id", user.getUserid());
             userDetails.put("name", user.getFirstName() + " " + user.getLastName());
@@ -260,65 +288,138 @@ public class UserController {
 //    }
 
     @PostMapping("/signup")
-    public ResponseEntity<?> signUp(@RequestBody UserEntity user) {
+    public CompletableFuture<ResponseEntity<?>> signUp(@RequestBody UserEntity user) {
         if (userService.userExists(user.getEmail())) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("message", "Email already in use"));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("message", "Email already in use")));
         }
         if (user.getPassword() == null || user.getPassword().isEmpty()) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("message", "Password is required for standard signup."));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("message", "Password is required for standard signup.")));
         }
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
 
         if (user.getSchoolid() == null || user.getSchoolid().trim().isEmpty()) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("message", "School ID is required for standard signup."));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("message", "School ID is required for standard signup.")));
         }
         user.setSchoolid(user.getSchoolid().replace("-", ""));
 
         if (userRepository.findBySchoolid(user.getSchoolid()).isPresent()) {
-            return ResponseEntity.status(HttpStatus.CONFLICT)
-                    .body(Map.of("message", "School ID already in use"));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("message", "School ID already in use")));
         }
 
-        UserEntity created = userService.createUser(user);
-        return ResponseEntity.status(HttpStatus.CREATED).body(created);
+        // Hashed last, so a signup that is turned away anyway costs no BCrypt time
+        return withHashedPassword(user.getPassword(), encodedPassword -> {
+            user.setPassword(encodedPassword);
+            UserEntity created = userService.createUser(user);
+            return ResponseEntity.status(HttpStatus.CREATED).body(created);
+        });
     }
 
     @PostMapping("/login")
-    public ResponseEntity<?> loginUser(@RequestBody Map<String, String> payload) {
+    public CompletableFuture<ResponseEntity<?>> loginUser(@RequestBody Map<String, String> payload,
+                                                         HttpServletRequest request) {
         String schoolid = payload.get("schoolid");
         String password = payload.get("password");
 
-        Optional<UserEntity> userOpt = userRepository.findBySchoolid(schoolid);
-        if (userOpt.isPresent()) {
-            UserEntity user = userOpt.get();
-            if (passwordEncoder.matches(password, user.getPassword())) {
+        // Throttled per IP and per account before the lookup and the hash
+        long retryAfter = loginRateLimiter.check(schoolid, request.getRemoteAddr());
+        if (retryAfter > 0) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                    .body(Map.of("message", "Too many login attempts. Please try again later.")));
+        }
 
-                // 1) Issue a JWT embedding both email & username:
-                String token = jwtUtil.generateToken(user.getEmail(), user.getUsername());
+        Optional<UserEntity> userOpt = userRepository.findBySchoolid(schoolid);
+        if (userOpt.isEmpty()) {
+            return CompletableFuture.completedFuture(invalidCredentials());
+        }
+        UserEntity user = userOpt.get();
 
-                // 2) Build the response with token + user details
-                Map<String, Object> resp = new HashMap<>();
-                resp.put("token", token);                                // ← NEW
-                resp.put("user", Map.of(
-                        "id", user.getUserid(),
-                        "name", user.getFirstName() + " " + user.getLastName(),
-                        "email", user.getEmail(),
-                        "username", user.getUsername(),
-                        "role", user.getRole(),// ← NEW
-                        "schoolid", user.getSchoolid(),
-                        "isProfileComplete", user.getSchoolid() != null && !user.getSchoolid().isBlank()
-                ));
-                return ResponseEntity.ok(resp);
-            }
+        CompletableFuture<PasswordHashingService.Verification> verification;
+        try {
+            verification = passwordHashingService.verify(password, user.getPassword());
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(hashingBusy());
         }
+        return verification.thenApply(result -> {
+            if (!result.matches()) {
+                return invalidCredentials();
+            }
+            if (result.upgradedHash() != null) { // made at an older cost
+                userRepository.upgradePassword(user.getUserid(), user.getPassword(), result.upgradedHash());
+            }
+
+            // 1) Issue a JWT embedding both email & username, plus a refresh token:
+            RefreshTokenService.Tokens tokens = refreshTokenService.issue(user);
+
+            // 2) Build the response with tokens + user details
+            Map<String, Object> resp = new HashMap<>();
+            resp.put("token", tokens.accessToken());                 // ← NEW
+            resp.put("refreshToken", tokens.refreshToken());
+            resp.put("user", Map.of(
+                    "id", user.getUserid(),
+                    "name", user.getFirstName() + " " + user.getLastName(),
+                    "email", user.getEmail(),
+                    "username", user.getUsername(),
+                    "role", user.getRole(),// ← NEW
+                    "schoolid", user.getSchoolid(),
+                    "isProfileComplete", user.getSchoolid() != null && !user.getSchoolid().isBlank()
+            ));
+            return ResponseEntity.ok(resp);
+        });
+    }
 
+    private ResponseEntity<?> invalidCredentials() {
         return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                 .body(Map.of("message", "Invalid credentials"));
     }
 
+    // Hashes the password off the request thread, then carries on with the rest of the request
+    private CompletableFuture<ResponseEntity<?>> withHashedPassword(String rawPassword,
+                                                                    Function<String, ResponseEntity<?>> then) {
+        try {
+            return passwordHashingService.encode(rawPassword).thenApply(then);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(hashingBusy());
+        }
+    }
+
+    // Every hashing thread is busy and the queue is full: better to ask for a retry than to pile up
+    private ResponseEntity<?> hashingBusy() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(passwordHashingService.retryAfterSeconds()))
+                .body(Map.of("message", "Too many sign-ins right now, please try again shortly."));
+    }
+
+    // Trades a refresh token for a new access token and the refresh token to use next time
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refreshToken(@RequestBody(required = false) Map<String, String> payload) {
+        RefreshTokenService.Tokens tokens = refreshTokenService.rotate(payload != null ? payload.get("refreshToken") : null);
+        if (tokens == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("message", "Invalid or expired refresh token. Please log in again."));
+        }
+        return ResponseEntity.ok(Map.of("token", tokens.accessToken(), "refreshToken", tokens.refreshToken()));
+    }
+
+    // Revokes the token the request was made with, and the refresh token if given; the client drops them too
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logoutUser(@RequestHeader(value = "Authorization", required = false) String authHeader,
+                                           @RequestBody(required = false) Map<String, String> payload) {
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            Claims claims = jwtUtil.verify(authHeader.substring(7));
+            if (claims != null && claims.getId() != null) {
+                tokenRevocationService.revokeToken(claims.getId(), claims.getExpiration());
+            }
+        }
+        if (payload != null) {
+            refreshTokenService.revoke(payload.get("refreshToken"));
+        }
+        return ResponseEntity.noContent().build();
+    }
+
 //    @DeleteMapping("/{id}")
 //    public ResponseEntity<Void> deleteUser(@PathVariable Long id) {
 //        userService.deleteUser(id);
@@ -348,19 +449,19 @@ public class UserController {
     // For simplicity here, we modify /signup to check role or create a new POST /users
     @PostMapping // Changed from /signup to POST /users for admin creation
     @PreAuthorize("hasRole('Admin')") // Secure this endpoint
-    public ResponseEntity<?> createUserByAdmin(@RequestBody UserEntity user) {
+    public CompletableFuture<ResponseEntity<?>> createUserByAdmin(@RequestBody UserEntity user) {
         // Basic validation (you might want more comprehensive validation)
         if (userService.userExists(user.getEmail())) {
-            return ResponseEntity.status(HttpStatus.CONFLICT)
-                    .body(Map.of("message", "Email already in use"));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("message", "Email already in use")));
         }
         if (user.getPassword() == null || user.getPassword().isEmpty()) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("message", "Password is required"));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("message", "Password is required")));
         }
         if (user.getSchoolid() == null || user.getSchoolid().trim().isEmpty() || user.getSchoolid().replace("-", "").length() != 9) {
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("message", "Valid School ID (9 digits) is required"));
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("message", "Valid School ID (9 digits) is required")));
         }
         // Optional: Check School ID uniqueness if still required for admin creation
         // if (userRepository.findBySchoolid(user.getSchoolid().replace("-", "")).isPresent()) {
@@ -374,19 +475,21 @@ public class UserController {
             user.setRole("User"); // Default role or validate
         }
 
-        // Encode password and format schoolId
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
+        // Format schoolId and encode password
         user.setSchoolid(user.getSchoolid().replace("-", ""));
 
-        try {
-            UserEntity createdUser = userService.createUser(user);
-            // Return the full user object including the generated ID
-            return ResponseEntity.status(HttpStatus.CREATED).body(createdUser);
-        } catch (Exception e) {
-            // Log the exception e
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
-                    .body(Map.of("message", "Error creating user."));
-        }
+        return withHashedPassword(user.getPassword(), encodedPassword -> {
+            user.setPassword(encodedPassword);
+            try {
+                UserEntity createdUser = userService.createUser(user);
+                // Return the full user object including the generated ID
+                return ResponseEntity.status(HttpStatus.CREATED).body(createdUser);
+            } catch (Exception e) {
+                // Log the exception e
+                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body(Map.of("message", "Error creating user."));
+            }
+        });
     }
 
     // UPDATE User (Admin Endpoint)
@@ -399,6 +502,9 @@ public class UserController {
         }
 
         UserEntity user = userOptional.get();
+        // Tokens carry the email and role, so changing either revokes the ones already issued
+        String previousEmail = user.getEmail();
+        String previousRole = user.getRole();
 
         // Apply updates selectively
         if (updates.containsKey("firstName")) {
@@ -439,6 +545,11 @@ public class UserController {
 
         try {
             UserEntity updatedUser = userRepository.save(user);
+            tableVersions.changed(TableVersions.Table.USERS);
+            if (!Objects.equals(previousEmail, updatedUser.getEmail())
+                    || !Objects.equals(previousRole, updatedUser.getRole())) {
+                tokenRevocationService.revokeUser(id);
+            }
             // Return the full updated user object
             return ResponseEntity.ok(updatedUser);
         } catch (Exception e) {
@@ -458,6 +569,7 @@ public class UserController {
             return ResponseEntity.notFound().build();
         }
         userService.deleteUser(id);
+        tokenRevocationService.revokeUser(id);
         return ResponseEntity.noContent().build(); // Correct: returns 204
     }
 }
\ No newline at end of file
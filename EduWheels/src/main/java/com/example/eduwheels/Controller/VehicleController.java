@@ -1,18 +1,33 @@
 package com.example.eduwheels.Controller;
 
 import com.example.eduwheels.Entity.VehicleEntity;
+import com.example.eduwheels.Service.PhotoCache;
+import com.example.eduwheels.Service.PhotoRenditionService;
+import com.example.eduwheels.Service.TableVersions;
 import com.example.eduwheels.Service.VehicleService;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/vehicles")
@@ -21,17 +36,107 @@ public class VehicleController {
     @Autowired
     private VehicleService vehicleService;
 
+    @Autowired
+    private TableVersions tableVersions;
+
+    @Autowired
+    private PhotoRenditionService photoRenditionService;
+
+    @Autowired
+    private PhotoCache photoCache;
+
+    // Conditional GET: a matching If-None-Match gets a 304 before anything is loaded
     @GetMapping
-    public List<VehicleEntity> getAllVehicles() {
+    public List<VehicleEntity> getAllVehicles(WebRequest request) {
+        if (tableVersions.notModified(request, tableVersions.etag(null, TableVersions.Table.VEHICLES))) {
+            return null;
+        }
         return vehicleService.getAllVehicles();
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<VehicleEntity> getVehicleById(@PathVariable Long id) {
+    public ResponseEntity<VehicleEntity> getVehicleById(@PathVariable Long id, WebRequest request) {
+        if (tableVersions.notModified(request, tableVersions.etag("vehicle" + id, TableVersions.Table.VEHICLES))) {
+            return null;
+        }
         VehicleEntity vehicle = vehicleService.getVehicleById(id);
         return (vehicle != null) ? ResponseEntity.ok(vehicle) : ResponseEntity.notFound().build();
     }
 
+    // Where the vehicle's photo is in the rendition pipeline, for the admin page to poll after an upload
+    @GetMapping("/{id}/photo")
+    public ResponseEntity<?> getPhotoStatus(@PathVariable Long id) {
+        VehicleEntity vehicle = vehicleService.getVehicleById(id);
+        if (vehicle == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Map<String, Object> photo = new HashMap<>();
+        photo.put("vehicleId", vehicle.getVehicleId());
+        photo.put("status", vehicle.getPhotoStatus());
+        photo.put("originalUrl", vehicle.getPhotoPath());
+        photo.put("thumbnailUrl", vehicle.getPhotoThumbnailUrl());
+        photo.put("cardUrl", vehicle.getPhotoCardUrl());
+        photo.put("fullUrl", vehicle.getPhotoFullUrl());
+        PhotoRenditionService.Job job = photoRenditionService.getJob(id); // only since this server started
+        if (job != null) {
+            photo.put("submittedAt", job.getSubmittedAt());
+            photo.put("startedAt", job.getStartedAt());
+            photo.put("finishedAt", job.getFinishedAt());
+            photo.put("error", job.getError());
+        }
+        return ResponseEntity.ok(photo);
+    }
+
+    // Vehicle photos through the local disk cache (photos.public-url points here); names are content
+    // hashes, so browsers may keep them for good
+    @GetMapping("/photos/{*name}")
+    public void getPhoto(@PathVariable String name, HttpServletResponse response) throws IOException {
+        name = name.startsWith("/") ? name.substring(1) : name;
+        if (!name.startsWith("vehicles/") || name.startsWith("vehicles/staging/") || !photoCache.isValidName(name)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        FileChannel photo = photoCache.open(name);
+        if (photo == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        try (photo) {
+            long length = photo.size();
+            response.setContentType(MediaTypeFactory.getMediaType(name).orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+            response.setContentLengthLong(length);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable");
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < length) {
+                position += photo.transferTo(position, length - position, out);
+            }
+        }
+    }
+
+    @GetMapping("/{id}/availability")
+    public ResponseEntity<?> getAvailability(
+            @PathVariable Long id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        if (!to.isAfter(from)) {
+            return ResponseEntity.badRequest().body(Map.of("message", "'to' must be after 'from'."));
+        }
+        VehicleEntity vehicle = vehicleService.getVehicleById(id);
+        if (vehicle == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Map<String, Object> availability = new HashMap<>();
+        availability.put("vehicleId", vehicle.getVehicleId());
+        availability.put("from", from);
+        availability.put("to", to);
+        availability.put("capacity", vehicle.getCapacity());
+        availability.put("availableSeats", vehicleService.getAvailableSeats(vehicle, from, to));
+        return ResponseEntity.ok(availability);
+    }
+
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasRole('Admin')")
     public ResponseEntity<VehicleEntity> createVehicle(@RequestBody VehicleEntity vehicle) {
@@ -82,15 +187,32 @@ public class VehicleController {
                 return ResponseEntity.badRequest().body(Map.of("message", "Plate number and vehicle name are required."));
             }
 
-            String photoUrl = null;
+            // The photo is only taken off the request here; renditions are made in the background
+            PhotoRenditionService.Job job = null;
             if (photo != null && !photo.isEmpty()) {
-                photoUrl = vehicleService.uploadImageToGCS(photo);
+                job = photoRenditionService.accept(photo);
             }
 
-            VehicleEntity vehicle = new VehicleEntity(plateNumber, type, capacity, availableSeats, status, photoUrl, vehicleName);
-            VehicleEntity created = vehicleService.createVehicle(vehicle);
+            VehicleEntity created;
+            try {
+                VehicleEntity vehicle = new VehicleEntity(plateNumber, type, capacity, availableSeats, status, null, vehicleName);
+                created = vehicleService.createVehicle(vehicle);
+            } catch (RuntimeException e) {
+                if (job != null) {
+                    photoRenditionService.discard(job);
+                }
+                throw e;
+            }
+            if (job != null) {
+                photoRenditionService.start(job, created);
+            }
             return ResponseEntity.status(HttpStatus.CREATED).body(created);
 
+        } catch (RejectedExecutionException ex) {
+            return photoQueueFull();
+        } catch (MaxUploadSizeExceededException ex) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body(Map.of("message", "Photo is larger than " + ex.getMaxUploadSize() / (1024 * 1024) + " MB."));
         } catch (IOException ex) {
             ex.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -127,14 +249,36 @@ public class VehicleController {
             existing.setStatus(status);
             existing.setVehicleName(vehicleName);
 
+            PhotoRenditionService.Job job = null;
             if (photo != null && !photo.isEmpty()) {
-                String photoUrl = vehicleService.uploadImageToGCS(photo);
-                existing.setPhotoPath(photoUrl);
+                job = photoRenditionService.accept(photo);
             }
 
-            VehicleEntity updated = vehicleService.updateVehicle(id, existing);
+            VehicleEntity updated;
+            try {
+                updated = vehicleService.updateVehicle(id, existing);
+            } catch (RuntimeException e) {
+                if (job != null) {
+                    photoRenditionService.discard(job);
+                }
+                throw e;
+            }
+            if (updated == null) { // deleted in the meantime
+                if (job != null) {
+                    photoRenditionService.discard(job);
+                }
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Vehicle not found with ID: " + id));
+            }
+            if (job != null) {
+                photoRenditionService.start(job, updated); // photoPath switches over once the new one is ready
+            }
             return ResponseEntity.ok(updated);
 
+        } catch (RejectedExecutionException ex) {
+            return photoQueueFull();
+        } catch (MaxUploadSizeExceededException ex) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE)
+                    .body(Map.of("message", "Photo is larger than " + ex.getMaxUploadSize() / (1024 * 1024) + " MB."));
         } catch (IOException ex) {
             ex.printStackTrace();
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -146,7 +290,11 @@ public class VehicleController {
         }
     }
 
-    // REMOVE the getImage endpoint as you'll be serving directly from GCS
-    // @GetMapping("/uploads/{filename:.+}")
-    // public ResponseEntity<Resource> getImage(@PathVariable String filename) { ... }
+    private ResponseEntity<?> photoQueueFull() {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "10")
+                .body(Map.of("message", "Too many photos are being processed, please try again shortly."));
+    }
+
+    // Photos in the local blob store are served by LocalBlobController under /api/vehicles/uploads
 }
\ No newline at end of file
@@ -0,0 +1,60 @@
+package com.example.eduwheels.Dto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Response of POST /api/bookings/batch: one entry per requested booking, in request order.
+ */
+public class BatchBookingResult {
+
+    private final boolean allOrNothing;
+    private final List<Item> items = new ArrayList<>();
+
+    public BatchBookingResult(boolean allOrNothing) {
+        this.allOrNothing = allOrNothing;
+    }
+
+    public void add(Item item) {
+        items.add(item);
+    }
+
+    public boolean isAllOrNothing() { return allOrNothing; }
+    public List<Item> getItems() { return Collections.unmodifiableList(items); }
+
+    public int getCreated() {
+        return (int) items.stream().filter(Item::isCreated).count();
+    }
+
+    public int getRejected() {
+        return items.size() - getCreated();
+    }
+
+    public static class Item {
+        private final int index;
+        private final boolean created;
+        private final BookingSummary booking;
+        private final String message;
+
+        private Item(int index, boolean created, BookingSummary booking, String message) {
+            this.index = index;
+            this.created = created;
+            this.booking = booking;
+            this.message = message;
+        }
+
+        public static Item created(int index, BookingSummary booking) {
+            return new Item(index, true, booking, null);
+        }
+
+        public static Item rejected(int index, String message) {
+            return new Item(index, false, null, message);
+        }
+
+        public int getIndex() { return index; }
+        public boolean isCreated() { return created; }
+        public BookingSummary getBooking() { return booking; }
+        public String getMessage() { return message; }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.eduwheels.Dto;
+
+import com.example.eduwheels.Entity.BookingEntity;
+
+import java.time.LocalDateTime;
+
+/**
+ * One booking status transition as pushed on GET /api/bookings/stream.
+ */
+public class BookingStatusEvent {
+
+    private final Long bookingID;
+    private final Long userid;
+    private final BookingEntity.Status previousStatus;
+    private final BookingEntity.Status status;
+    private final LocalDateTime changedAt;
+
+    public BookingStatusEvent(Long bookingID, Long userid, BookingEntity.Status previousStatus,
+                              BookingEntity.Status status, LocalDateTime changedAt) {
+        this.bookingID = bookingID;
+        this.userid = userid;
+        this.previousStatus = previousStatus;
+        this.status = status;
+        this.changedAt = changedAt;
+    }
+
+    public static BookingStatusEvent of(BookingEntity booking, BookingEntity.Status previousStatus) {
+        return new BookingStatusEvent(booking.getBookingID(), booking.getUser().getUserid(), previousStatus,
+                booking.getStatus(), LocalDateTime.now());
+    }
+
+    /**
+     * This event folded onto an older, still unsent one for the same booking: the subscriber
+     * sees a single jump from the older event's previous status to this status.
+     */
+    public BookingStatusEvent coalescedAfter(BookingStatusEvent older) {
+        return new BookingStatusEvent(bookingID, userid, older.previousStatus, status, changedAt);
+    }
+
+    public Long getBookingID() { return bookingID; }
+    public Long getUserid() { return userid; }
+    public BookingEntity.Status getPreviousStatus() { return previousStatus; }
+    public BookingEntity.Status getStatus() { return status; }
+    public LocalDateTime getChangedAt() { return changedAt; }
+}
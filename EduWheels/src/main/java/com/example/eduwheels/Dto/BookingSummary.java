@@ -0,0 +1,123 @@
+package com.example.eduwheels.Dto;
+
+import com.example.eduwheels.Entity.BookingEntity;
+import com.example.eduwheels.Entity.UserEntity;
+import com.example.eduwheels.Entity.VehicleEntity;
+
+import java.time.LocalDateTime;
+
+/**
+ * What booking endpoints send back instead of {@link BookingEntity}.
+ *
+ * Loaded with a single constructor-expression SELECT over tblbooking joined to the user and
+ * vehicle columns it needs, so no password hash, photo_path TEXT or second entity graph is
+ * ever read or serialized. The JSON keeps the nested {@code user} / {@code vehicle} shape the
+ * frontend already reads, just with far fewer fields.
+ */
+public class BookingSummary {
+
+    private final Long bookingID;
+    private final String pickUp;
+    private final String dropOff;
+    private final Integer numberOfPassengers;
+    private final LocalDateTime requestDate;
+    private final LocalDateTime startDate;
+    private final LocalDateTime endDate;
+    private final Double routeDistanceMeters;
+    private final Integer routeDurationSeconds;
+    private final BookingEntity.Status status;
+    private final UserRef user;
+    private final VehicleRef vehicle;
+    private final boolean hasReviewed;
+
+    // Used by the JPQL constructor expressions in BookingRepository
+    public BookingSummary(Long bookingID, String pickUp, String dropOff, Integer numberOfPassengers,
+                          LocalDateTime requestDate, LocalDateTime startDate, LocalDateTime endDate,
+                          Double routeDistanceMeters, Integer routeDurationSeconds, BookingEntity.Status status,
+                          Long userid, String email, String username, String firstName, String lastName,
+                          Long vehicleId, String plateNumber, String vehicleName, String type,
+                          Boolean hasReviewed) {
+        this.bookingID = bookingID;
+        this.pickUp = pickUp;
+        this.dropOff = dropOff;
+        this.numberOfPassengers = numberOfPassengers;
+        this.requestDate = requestDate;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.routeDistanceMeters = routeDistanceMeters;
+        this.routeDurationSeconds = routeDurationSeconds;
+        this.status = status;
+        this.user = new UserRef(userid, email, username, firstName, lastName);
+        this.vehicle = new VehicleRef(vehicleId, plateNumber, vehicleName, type);
+        this.hasReviewed = Boolean.TRUE.equals(hasReviewed);
+    }
+
+    /**
+     * For responses built from an entity that is already loaded (create / update).
+     */
+    public static BookingSummary from(BookingEntity booking, boolean hasReviewed) {
+        UserEntity u = booking.getUser();
+        VehicleEntity v = booking.getVehicle();
+        return new BookingSummary(booking.getBookingID(), booking.getPickUp(), booking.getDropOff(),
+                booking.getNumberOfPassengers(), booking.getRequestDate(), booking.getStartDate(),
+                booking.getEndDate(), booking.getRouteDistanceMeters(), booking.getRouteDurationSeconds(), booking.getStatus(),
+                u.getUserid(), u.getEmail(), u.getUsername(), u.getFirstName(), u.getLastName(),
+                v.getVehicleId(), v.getPlateNumber(), v.getVehicleName(), v.getType(),
+                hasReviewed);
+    }
+
+    public Long getBookingID() { return bookingID; }
+    public String getPickUp() { return pickUp; }
+    public String getDropOff() { return dropOff; }
+    public Integer getNumberOfPassengers() { return numberOfPassengers; }
+    public LocalDateTime getRequestDate() { return requestDate; }
+    public LocalDateTime getStartDate() { return startDate; }
+    public LocalDateTime getEndDate() { return endDate; }
+    public Double getRouteDistanceMeters() { return routeDistanceMeters; }
+    public Integer getRouteDurationSeconds() { return routeDurationSeconds; }
+    public BookingEntity.Status getStatus() { return status; }
+    public UserRef getUser() { return user; }
+    public VehicleRef getVehicle() { return vehicle; }
+    public boolean isHasReviewed() { return hasReviewed; }
+
+    public static class UserRef {
+        private final Long userid;
+        private final String email;
+        private final String username;
+        private final String firstName;
+        private final String lastName;
+
+        public UserRef(Long userid, String email, String username, String firstName, String lastName) {
+            this.userid = userid;
+            this.email = email;
+            this.username = username;
+            this.firstName = firstName;
+            this.lastName = lastName;
+        }
+
+        public Long getUserid() { return userid; }
+        public String getEmail() { return email; }
+        public String getUsername() { return username; }
+        public String getFirstName() { return firstName; }
+        public String getLastName() { return lastName; }
+    }
+
+    public static class VehicleRef {
+        private final Long vehicleId;
+        private final String plateNumber;
+        private final String vehicleName;
+        private final String type;
+
+        public VehicleRef(Long vehicleId, String plateNumber, String vehicleName, String type) {
+            this.vehicleId = vehicleId;
+            this.plateNumber = plateNumber;
+            this.vehicleName = vehicleName;
+            this.type = type;
+        }
+
+        public Long getVehicleId() { return vehicleId; }
+        public String getPlateNumber() { return plateNumber; }
+        public String getVehicleName() { return vehicleName; }
+        public String getType() { return type; }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.eduwheels.Dto;
+
+import com.example.eduwheels.Entity.BookingEntity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Response of POST /api/bookings/bulk-status: one entry per distinct requested ID, in request order.
+ */
+public class BulkStatusResult {
+
+    // NO_SEATS: a windowed booking restored to a holding status, but its vehicle is full for that window
+    public enum Outcome { UPDATED, UNCHANGED, NOT_FOUND, NO_SEATS }
+
+    private final BookingEntity.Status status;
+    private final List<Item> items = new ArrayList<>();
+
+    public BulkStatusResult(BookingEntity.Status status) {
+        this.status = status;
+    }
+
+    public void add(Long bookingID, Outcome outcome, BookingEntity.Status previousStatus) {
+        items.add(new Item(bookingID, outcome, previousStatus));
+    }
+
+    public BookingEntity.Status getStatus() { return status; }
+    public List<Item> getItems() { return Collections.unmodifiableList(items); }
+
+    public int getUpdated() {
+        return (int) items.stream().filter(item -> item.outcome == Outcome.UPDATED).count();
+    }
+
+    public static class Item {
+        private final Long bookingID;
+        private final Outcome outcome;
+        private final BookingEntity.Status previousStatus;
+
+        private Item(Long bookingID, Outcome outcome, BookingEntity.Status previousStatus) {
+            this.bookingID = bookingID;
+            this.outcome = outcome;
+            this.previousStatus = previousStatus;
+        }
+
+        public Long getBookingID() { return bookingID; }
+        public Outcome getOutcome() { return outcome; }
+        public BookingEntity.Status getPreviousStatus() { return previousStatus; }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.eduwheels.Dto;
+
+import java.time.LocalDate;
+
+/**
+ * Response of POST /api/bookings/reassign: what re-packing one day's Pending bookings onto
+ * the fleet changed.
+ */
+public class FleetAssignmentResult {
+
+    private final LocalDate date;
+    private final int bookings;
+    private final int moved;
+    private final int unplaced;
+    private final int vehiclesBefore;
+    private final int vehiclesAfter;
+    private final long elapsedMillis;
+
+    public FleetAssignmentResult(LocalDate date, int bookings, int moved, int unplaced,
+                                 int vehiclesBefore, int vehiclesAfter, long elapsedMillis) {
+        this.date = date;
+        this.bookings = bookings;
+        this.moved = moved;
+        this.unplaced = unplaced;
+        this.vehiclesBefore = vehiclesBefore;
+        this.vehiclesAfter = vehiclesAfter;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public LocalDate getDate() { return date; }
+    public int getBookings() { return bookings; }
+    public int getMoved() { return moved; }
+    // Did not fit on any Available vehicle in the new plan; these stay where they were
+    public int getUnplaced() { return unplaced; }
+    // Distinct vehicles carrying the day's Pending bookings before and after
+    public int getVehiclesBefore() { return vehiclesBefore; }
+    public int getVehiclesAfter() { return vehiclesAfter; }
+    public long getElapsedMillis() { return elapsedMillis; }
+}
@@ -0,0 +1,18 @@
+package com.example.eduwheels.Dto;
+
+/**
+ * One hit of GET /api/bookings/near: the booking and how far its pickup is from the query point.
+ */
+public class NearbyBooking {
+
+    private final BookingSummary booking;
+    private final double distanceMeters;
+
+    public NearbyBooking(BookingSummary booking, double distanceMeters) {
+        this.booking = booking;
+        this.distanceMeters = distanceMeters;
+    }
+
+    public BookingSummary getBooking() { return booking; }
+    public double getDistanceMeters() { return distanceMeters; }
+}
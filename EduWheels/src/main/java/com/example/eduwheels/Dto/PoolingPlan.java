@@ -0,0 +1,63 @@
+package com.example.eduwheels.Dto;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Response of GET /api/bookings/pools: proposed shared vehicle runs for one day's Pending
+ * bookings. Nothing is saved; an admin applies a run by approving its bookings on its vehicle.
+ */
+public class PoolingPlan {
+
+    private final LocalDate date;
+    private final int bookings;
+    private final long elapsedMillis;
+    private final List<Run> runs;
+
+    public PoolingPlan(LocalDate date, int bookings, long elapsedMillis, List<Run> runs) {
+        this.date = date;
+        this.bookings = bookings;
+        this.elapsedMillis = elapsedMillis;
+        this.runs = runs;
+    }
+
+    public LocalDate getDate() { return date; }
+    public int getBookings() { return bookings; }
+    public long getElapsedMillis() { return elapsedMillis; }
+    public List<Run> getRuns() { return runs; }
+
+    public int getPooledBookings() {
+        return runs.stream().filter(run -> run.bookingIDs.size() > 1).mapToInt(run -> run.bookingIDs.size()).sum();
+    }
+
+    public static class Run {
+        private final Long vehicleId;
+        private final String plateNumber;
+        private final Integer capacity;
+        private final int seats;
+        private final LocalDateTime startDate;
+        private final LocalDateTime endDate;
+        private final List<Long> bookingIDs;
+
+        public Run(Long vehicleId, String plateNumber, Integer capacity, int seats,
+                   LocalDateTime startDate, LocalDateTime endDate, List<Long> bookingIDs) {
+            this.vehicleId = vehicleId;
+            this.plateNumber = plateNumber;
+            this.capacity = capacity;
+            this.seats = seats;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.bookingIDs = bookingIDs;
+        }
+
+        // Null vehicle: every vehicle big enough is already on another run at that time
+        public Long getVehicleId() { return vehicleId; }
+        public String getPlateNumber() { return plateNumber; }
+        public Integer getCapacity() { return capacity; }
+        public int getSeats() { return seats; }
+        public LocalDateTime getStartDate() { return startDate; }
+        public LocalDateTime getEndDate() { return endDate; }
+        public List<Long> getBookingIDs() { return bookingIDs; }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.eduwheels.Dto;
+
+import com.example.eduwheels.Entity.BookingEntity;
+import com.example.eduwheels.Entity.ReportEntity;
+
+import java.time.LocalDateTime;
+
+/**
+ * What review endpoints send back instead of {@link ReportEntity}, which would otherwise drag
+ * the booking, its user and its vehicle along. Loaded with one constructor-expression SELECT.
+ */
+public class ReviewSummary {
+
+    private final Integer reportID;
+    private final int rating;
+    private final String comment;
+    private final LocalDateTime reviewDate;
+    private final UserRef user;
+    private final BookingRef booking;
+
+    // Used by the JPQL constructor expressions in ReportRepository
+    public ReviewSummary(Integer reportID, int rating, String comment, LocalDateTime reviewDate,
+                         Long userid, String email, String username,
+                         Long bookingID, Long vehicleId, String plateNumber) {
+        this.reportID = reportID;
+        this.rating = rating;
+        this.comment = comment;
+        this.reviewDate = reviewDate;
+        this.user = new UserRef(userid, email, username);
+        this.booking = new BookingRef(bookingID, vehicleId, plateNumber);
+    }
+
+    public static ReviewSummary from(ReportEntity report) {
+        BookingEntity b = report.getBooking();
+        return new ReviewSummary(report.getReportID(), report.getRating(), report.getComment(), report.getReviewDate(),
+                report.getUser().getUserid(), report.getUser().getEmail(), report.getUser().getUsername(),
+                b.getBookingID(), b.getVehicle().getVehicleId(), b.getVehicle().getPlateNumber());
+    }
+
+    public Integer getReportID() { return reportID; }
+    public int getRating() { return rating; }
+    public String getComment() { return comment; }
+    public LocalDateTime getReviewDate() { return reviewDate; }
+    public UserRef getUser() { return user; }
+    public BookingRef getBooking() { return booking; }
+
+    public static class UserRef {
+        private final Long userid;
+        private final String email;
+        private final String username;
+
+        public UserRef(Long userid, String email, String username) {
+            this.userid = userid;
+            this.email = email;
+            this.username = username;
+        }
+
+        public Long getUserid() { return userid; }
+        public String getEmail() { return email; }
+        public String getUsername() { return username; }
+    }
+
+    public static class BookingRef {
+        private final Long bookingID;
+        private final Long vehicleId;
+        private final String plateNumber;
+
+        public BookingRef(Long bookingID, Long vehicleId, String plateNumber) {
+            this.bookingID = bookingID;
+            this.vehicleId = vehicleId;
+            this.plateNumber = plateNumber;
+        }
+
+        public Long getBookingID() { return bookingID; }
+        public Long getVehicleId() { return vehicleId; }
+        public String getPlateNumber() { return plateNumber; }
+    }
+}
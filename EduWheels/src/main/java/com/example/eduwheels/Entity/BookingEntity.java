@@ -1,10 +1,17 @@
 package com.example.eduwheels.Entity;
 
+import com.example.eduwheels.Utils.GeoPoint;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "tblbooking")
+@Table(name = "tblbooking", indexes = {
+        // One index per admin listing filter, each ending in the keyset order (requestDate, bookingID)
+        @Index(name = "idx_booking_request", columnList = "requestDate, bookingID"),
+        @Index(name = "idx_booking_status_request", columnList = "status, requestDate, bookingID"),
+        @Index(name = "idx_booking_vehicle_request", columnList = "vehicleID, requestDate, bookingID"),
+        @Index(name = "idx_booking_user_request", columnList = "userID, requestDate, bookingID")
+})
 public class BookingEntity {
 
     @Id
@@ -21,6 +28,17 @@ public class BookingEntity {
 
     private String pickUp;
     private String dropOff;
+
+    // Parsed from pickUp/dropOff on every save; null when the text is not "lat, lng"
+    private Double pickUpLat;
+    private Double pickUpLng;
+    private Double dropOffLat;
+    private Double dropOffLng;
+
+    // Road distance and ETA between pickUp and dropOff, set by RoutingService; null without a route
+    private Double routeDistanceMeters;
+    private Integer routeDurationSeconds;
+
     private int numberOfPassengers;
     private LocalDateTime requestDate;
     private LocalDateTime startDate;
@@ -50,6 +68,17 @@ public class BookingEntity {
         this.status = status;
     }
 
+    @PrePersist
+    @PreUpdate
+    public void syncCoordinates() {
+        GeoPoint pickUpPoint = GeoPoint.parse(pickUp);
+        pickUpLat = pickUpPoint != null ? pickUpPoint.getLat() : null;
+        pickUpLng = pickUpPoint != null ? pickUpPoint.getLng() : null;
+        GeoPoint dropOffPoint = GeoPoint.parse(dropOff);
+        dropOffLat = dropOffPoint != null ? dropOffPoint.getLat() : null;
+        dropOffLng = dropOffPoint != null ? dropOffPoint.getLng() : null;
+    }
+
     // Getters and Setters
     public Long getBookingID() {
         return bookingID;
@@ -83,6 +112,22 @@ public class BookingEntity {
 
     public void setDropOff(String dropOff) { this.dropOff = dropOff; }
 
+    public Double getPickUpLat() { return pickUpLat; }
+
+    public Double getPickUpLng() { return pickUpLng; }
+
+    public Double getDropOffLat() { return dropOffLat; }
+
+    public Double getDropOffLng() { return dropOffLng; }
+
+    public Double getRouteDistanceMeters() { return routeDistanceMeters; }
+
+    public void setRouteDistanceMeters(Double routeDistanceMeters) { this.routeDistanceMeters = routeDistanceMeters; }
+
+    public Integer getRouteDurationSeconds() { return routeDurationSeconds; }
+
+    public void setRouteDurationSeconds(Integer routeDurationSeconds) { this.routeDurationSeconds = routeDurationSeconds; }
+
     public Integer getNumberOfPassengers() { return numberOfPassengers; }
 
     public void setNumberOfPassengers(Integer numberOfPassengers) { this.numberOfPassengers = numberOfPassengers; }
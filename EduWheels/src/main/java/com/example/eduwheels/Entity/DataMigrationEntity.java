@@ -0,0 +1,28 @@
+package com.example.eduwheels.Entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// A one-time data fix that has already run; its row keeps it from running again on the next boot
+@Entity
+@Table(name = "tbldata_migration")
+public class DataMigrationEntity {
+
+    @Id
+    @Column(length = 64)
+    private String name;
+
+    @Column(nullable = false)
+    private LocalDateTime appliedAt;
+
+    public DataMigrationEntity() {
+    }
+
+    public DataMigrationEntity(String name, LocalDateTime appliedAt) {
+        this.name = name;
+        this.appliedAt = appliedAt;
+    }
+
+    public String getName() { return name; }
+    public LocalDateTime getAppliedAt() { return appliedAt; }
+}
@@ -0,0 +1,49 @@
+package com.example.eduwheels.Entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "tblidempotency_key", indexes = {
+        // Purging expired keys is a range delete on this index, never a table scan
+        @Index(name = "idx_idempotency_expires", columnList = "expiresAt")
+})
+public class IdempotencyKeyEntity {
+
+    // SHA-256 (hex) of the caller and the Idempotency-Key header
+    @Id
+    @Column(length = 64)
+    private String keyHash;
+
+    // SHA-256 (hex) of the request body, to refuse a key reused for a different request
+    @Column(length = 64, nullable = false)
+    private String requestHash;
+
+    private int responseStatus;
+
+    @Column(columnDefinition = "TEXT")
+    private String responseBody;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime expiresAt;
+
+    public IdempotencyKeyEntity() {
+    }
+
+    public IdempotencyKeyEntity(String keyHash, String requestHash, int responseStatus, String responseBody,
+                                LocalDateTime createdAt, LocalDateTime expiresAt) {
+        this.keyHash = keyHash;
+        this.requestHash = requestHash;
+        this.responseStatus = responseStatus;
+        this.responseBody = responseBody;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getKeyHash() { return keyHash; }
+    public String getRequestHash() { return requestHash; }
+    public int getResponseStatus() { return responseStatus; }
+    public String getResponseBody() { return responseBody; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+}
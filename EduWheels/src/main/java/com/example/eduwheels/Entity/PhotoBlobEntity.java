@@ -0,0 +1,38 @@
+package com.example.eduwheels.Entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// One row per content-addressed photo object in the bucket, with how many vehicle columns point at it
+@Entity
+@Table(name = "tblphoto_blob", indexes = {
+        // The GC sweep looks for refCount = 0 older than the grace period
+        @Index(name = "idx_photo_blob_collectable", columnList = "refCount, lastTouched")
+})
+public class PhotoBlobEntity {
+
+    // e.g. vehicles/<sha256>.jpg or vehicles/<sha256>-card.jpg
+    @Id
+    private String objectName;
+
+    private long sizeBytes;
+
+    private int refCount;
+
+    // Last time an upload reused or created it, or its last reference went away
+    private LocalDateTime lastTouched;
+
+    public PhotoBlobEntity() {
+    }
+
+    public PhotoBlobEntity(String objectName, long sizeBytes, LocalDateTime lastTouched) {
+        this.objectName = objectName;
+        this.sizeBytes = sizeBytes;
+        this.lastTouched = lastTouched;
+    }
+
+    public String getObjectName() { return objectName; }
+    public long getSizeBytes() { return sizeBytes; }
+    public int getRefCount() { return refCount; }
+    public LocalDateTime getLastTouched() { return lastTouched; }
+}
@@ -0,0 +1,58 @@
+package com.example.eduwheels.Entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// One refresh token, by the SHA-256 of its value; the value itself is only ever held by the client.
+// Every token rotated out of the same login shares a familyId, so reuse of an old one can end them all.
+@Entity
+@Table(name = "tblrefresh_token", indexes = {
+        @Index(name = "idx_refresh_token_family", columnList = "familyId"),
+        @Index(name = "idx_refresh_token_expires_at", columnList = "expiresAt")
+})
+public class RefreshTokenEntity {
+
+    @Id
+    @Column(length = 64)
+    private String tokenHash;
+
+    @Column(nullable = false, length = 36)
+    private String familyId;
+
+    @Column(nullable = false)
+    private Long userid;
+
+    @Column(nullable = false)
+    private LocalDateTime issuedAt;
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    // Set once it has been exchanged for its successor; presenting it again means it was copied
+    private LocalDateTime usedAt;
+
+    private LocalDateTime revokedAt;
+
+    public RefreshTokenEntity() {
+    }
+
+    public RefreshTokenEntity(String tokenHash, String familyId, Long userid, LocalDateTime issuedAt, LocalDateTime expiresAt) {
+        this.tokenHash = tokenHash;
+        this.familyId = familyId;
+        this.userid = userid;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getTokenHash() { return tokenHash; }
+    public String getFamilyId() { return familyId; }
+    public Long getUserid() { return userid; }
+    public LocalDateTime getIssuedAt() { return issuedAt; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+
+    public LocalDateTime getUsedAt() { return usedAt; }
+    public void setUsedAt(LocalDateTime usedAt) { this.usedAt = usedAt; }
+
+    public LocalDateTime getRevokedAt() { return revokedAt; }
+    public void setRevokedAt(LocalDateTime revokedAt) { this.revokedAt = revokedAt; }
+}
@@ -0,0 +1,42 @@
+package com.example.eduwheels.Entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+// A revoked JWT ("jti:<id>") or every token a user was issued before revokedAt ("user:<userid>")
+@Entity
+@Table(name = "tblrevoked_token", indexes = {
+        // Each instance polls for rows revoked since its last look
+        @Index(name = "idx_revoked_token_revoked_at", columnList = "revokedAt"),
+        @Index(name = "idx_revoked_token_expires_at", columnList = "expiresAt")
+})
+public class RevokedTokenEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String revokedKey;
+
+    @Column(nullable = false)
+    private LocalDateTime revokedAt;
+
+    // Once every token it could apply to has expired the row can go
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    public RevokedTokenEntity() {
+    }
+
+    public RevokedTokenEntity(String revokedKey, LocalDateTime revokedAt, LocalDateTime expiresAt) {
+        this.revokedKey = revokedKey;
+        this.revokedAt = revokedAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public Long getId() { return id; }
+    public String getRevokedKey() { return revokedKey; }
+    public LocalDateTime getRevokedAt() { return revokedAt; }
+    public LocalDateTime getExpiresAt() { return expiresAt; }
+}
@@ -31,6 +31,19 @@ public class VehicleEntity {
     @Column(name = "vehicle_name", nullable = false)
     private String vehicleName;
 
+    // Photo renditions, written only by PhotoRenditionService (hence not updatable through save)
+    @Column(updatable = false)
+    private String photoStatus; // Processing, Ready, Failed; null without a photo
+
+    @Column(columnDefinition = "TEXT", updatable = false)
+    private String photoThumbnailUrl;
+
+    @Column(columnDefinition = "TEXT", updatable = false)
+    private String photoCardUrl;
+
+    @Column(columnDefinition = "TEXT", updatable = false)
+    private String photoFullUrl;
+
     // Constructors
     public VehicleEntity() {
     }
@@ -111,4 +124,36 @@ public class VehicleEntity {
     public void setVehicleName(String vehicleName) {
         this.vehicleName = vehicleName;
     }
-}
\ No newline at end of file
+
+    public String getPhotoStatus() {
+        return photoStatus;
+    }
+
+    public void setPhotoStatus(String photoStatus) {
+        this.photoStatus = photoStatus;
+    }
+
+    public String getPhotoThumbnailUrl() {
+        return photoThumbnailUrl;
+    }
+
+    public void setPhotoThumbnailUrl(String photoThumbnailUrl) {
+        this.photoThumbnailUrl = photoThumbnailUrl;
+    }
+
+    public String getPhotoCardUrl() {
+        return photoCardUrl;
+    }
+
+    public void setPhotoCardUrl(String photoCardUrl) {
+        this.photoCardUrl = photoCardUrl;
+    }
+
+    public String getPhotoFullUrl() {
+        return photoFullUrl;
+    }
+
+    public void setPhotoFullUrl(String photoFullUrl) {
+        this.photoFullUrl = photoFullUrl;
+    }
+}
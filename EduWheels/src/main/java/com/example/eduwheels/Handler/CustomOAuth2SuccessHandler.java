@@ -2,7 +2,7 @@ package com.example.eduwheels.Handler;
 
 import com.example.eduwheels.Entity.UserEntity;
 import com.example.eduwheels.Service.GoogleOAuth2UserService;
-import com.example.eduwheels.Utils.JwtUtil;
+import com.example.eduwheels.Service.RefreshTokenService;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -21,11 +21,11 @@ import java.util.Map;
 public class CustomOAuth2SuccessHandler implements AuthenticationSuccessHandler {
 
     private final GoogleOAuth2UserService googleOAuth2UserService;
-    private final JwtUtil jwtUtil;
+    private final RefreshTokenService refreshTokenService;
 
-    public CustomOAuth2SuccessHandler(GoogleOAuth2UserService googleOAuth2UserService, JwtUtil jwtUtil) {
+    public CustomOAuth2SuccessHandler(GoogleOAuth2UserService googleOAuth2UserService, RefreshTokenService refreshTokenService) {
         this.googleOAuth2UserService = googleOAuth2UserService;
-        this.jwtUtil = jwtUtil;
+        this.refreshTokenService = refreshTokenService;
     }
 
     @Override
@@ -61,12 +61,13 @@ public class CustomOAuth2SuccessHandler implements AuthenticationSuccessHandler
             return;
         }
 
-        // Otherwise the user is fully onboarded → issue a token
-        String token = jwtUtil.generateToken(user.getEmail(), user.getUsername());
-        String encodedToken = URLEncoder.encode(token, StandardCharsets.UTF_8);
+        // Otherwise the user is fully onboarded → issue an access and a refresh token
+        RefreshTokenService.Tokens tokens = refreshTokenService.issue(user);
+        String encodedToken = URLEncoder.encode(tokens.accessToken(), StandardCharsets.UTF_8);
+        String encodedRefreshToken = URLEncoder.encode(tokens.refreshToken(), StandardCharsets.UTF_8);
 
-        // Redirect to the same callback, passing the token
-        String redirectUrl = frontendCallback + "?token=" + encodedToken;
+        // Redirect to the same callback, passing the tokens
+        String redirectUrl = frontendCallback + "?token=" + encodedToken + "&refreshToken=" + encodedRefreshToken;
         response.sendRedirect(redirectUrl);
     }
 }
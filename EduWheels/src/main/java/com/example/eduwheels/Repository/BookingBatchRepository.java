@@ -0,0 +1,23 @@
+package com.example.eduwheels.Repository;
+
+import com.example.eduwheels.Entity.BookingEntity;
+
+import java.util.List;
+
+// Spring Data fragment for writes that JPA cannot batch (IDENTITY keys disable Hibernate insert batching)
+public interface BookingBatchRepository {
+
+    /**
+     * Inserts all bookings as one JDBC batch and sets their generated bookingIDs.
+     * The bookings are not attached to the persistence context.
+     */
+    void insertAll(List<BookingEntity> bookings);
+
+    /**
+     * Fills the coordinate columns of rows saved before they existed, parsing pickUp/dropOff
+     * in keyset-ordered chunks of {@code chunkSize}. Rows whose text does not parse are left null.
+     *
+     * @return how many rows got coordinates
+     */
+    int backfillCoordinates(int chunkSize);
+}
@@ -0,0 +1,133 @@
+package com.example.eduwheels.Repository;
+
+import com.example.eduwheels.Entity.BookingEntity;
+import com.example.eduwheels.Utils.GeoPoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class BookingBatchRepositoryImpl implements BookingBatchRepository {
+
+    private static final String INSERT = "INSERT INTO tblbooking (userid, vehicleid, pick_up, drop_off, " +
+            "pick_up_lat, pick_up_lng, drop_off_lat, drop_off_lng, route_distance_meters, route_duration_seconds, " +
+            "number_of_passengers, request_date, start_date, end_date, status) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String SELECT_UNPARSED = "SELECT bookingid, pick_up, drop_off FROM tblbooking " +
+            "WHERE bookingid > ? AND pick_up_lat IS NULL AND drop_off_lat IS NULL " +
+            "AND (pick_up IS NOT NULL OR drop_off IS NOT NULL) ORDER BY bookingid LIMIT ?";
+
+    private static final String UPDATE_COORDINATES = "UPDATE tblbooking SET pick_up_lat = ?, pick_up_lng = ?, " +
+            "drop_off_lat = ?, drop_off_lng = ? WHERE bookingid = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void insertAll(List<BookingEntity> bookings) {
+        if (bookings.isEmpty()) {
+            return;
+        }
+        bookings.forEach(BookingEntity::syncCoordinates); // no JPA callbacks on this path
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                con -> con.prepareStatement(INSERT, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        BookingEntity b = bookings.get(i);
+                        ps.setLong(1, b.getUser().getUserid());
+                        ps.setLong(2, b.getVehicle().getVehicleId());
+                        ps.setString(3, b.getPickUp());
+                        ps.setString(4, b.getDropOff());
+                        setDouble(ps, 5, b.getPickUpLat());
+                        setDouble(ps, 6, b.getPickUpLng());
+                        setDouble(ps, 7, b.getDropOffLat());
+                        setDouble(ps, 8, b.getDropOffLng());
+                        setDouble(ps, 9, b.getRouteDistanceMeters());
+                        if (b.getRouteDurationSeconds() == null) {
+                            ps.setNull(10, Types.INTEGER);
+                        } else {
+                            ps.setInt(10, b.getRouteDurationSeconds());
+                        }
+                        ps.setInt(11, b.getNumberOfPassengers());
+                        setTimestamp(ps, 12, b.getRequestDate());
+                        setTimestamp(ps, 13, b.getStartDate());
+                        setTimestamp(ps, 14, b.getEndDate());
+                        ps.setString(15, b.getStatus().name());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return bookings.size();
+                    }
+                },
+                keys);
+
+        List<Map<String, Object>> generated = keys.getKeyList();
+        for (int i = 0; i < bookings.size() && i < generated.size(); i++) {
+            Object id = generated.get(i).values().iterator().next();
+            bookings.get(i).setBookingID(((Number) id).longValue());
+        }
+    }
+
+    @Override
+    public int backfillCoordinates(int chunkSize) {
+        long after = 0;
+        int filled = 0;
+        while (true) {
+            List<Object[]> updates = new ArrayList<>();
+            long[] last = {after};
+            int[] seen = {0};
+            jdbcTemplate.query(SELECT_UNPARSED, rs -> {
+                long id = rs.getLong(1);
+                last[0] = id;
+                seen[0]++;
+                GeoPoint pickUp = GeoPoint.parse(rs.getString(2));
+                GeoPoint dropOff = GeoPoint.parse(rs.getString(3));
+                if (pickUp != null || dropOff != null) {
+                    updates.add(new Object[]{
+                            pickUp != null ? pickUp.getLat() : null, pickUp != null ? pickUp.getLng() : null,
+                            dropOff != null ? dropOff.getLat() : null, dropOff != null ? dropOff.getLng() : null, id});
+                }
+            }, after, chunkSize);
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_COORDINATES, updates,
+                        new int[]{Types.DOUBLE, Types.DOUBLE, Types.DOUBLE, Types.DOUBLE, Types.BIGINT});
+                filled += updates.size();
+            }
+            if (seen[0] < chunkSize) {
+                return filled;
+            }
+            after = last[0];
+        }
+    }
+
+    private static void setDouble(PreparedStatement ps, int index, Double value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.DOUBLE);
+        } else {
+            ps.setDouble(index, value);
+        }
+    }
+
+    private static void setTimestamp(PreparedStatement ps, int index, LocalDateTime value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.TIMESTAMP);
+        } else {
+            ps.setTimestamp(index, Timestamp.valueOf(value));
+        }
+    }
+}
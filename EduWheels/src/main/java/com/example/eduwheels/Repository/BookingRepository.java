@@ -1,13 +1,158 @@
 package com.example.eduwheels.Repository;
 
+import com.example.eduwheels.Dto.BookingSummary;
 import com.example.eduwheels.Entity.BookingEntity;
+import org.springframework.data.domain.Limit;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import com.example.eduwheels.Entity.UserEntity;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface BookingRepository extends JpaRepository<BookingEntity, Long> {
+public interface BookingRepository extends JpaRepository<BookingEntity, Long>, BookingBatchRepository {
     List<BookingEntity> findByUser(UserEntity user);
+
+    // Flat column list for BookingSummary; hasReviewed is an EXISTS on tblreport's unique bookingID
+    String SUMMARY_SELECT = "SELECT new com.example.eduwheels.Dto.BookingSummary(" +
+            "b.bookingID, b.pickUp, b.dropOff, b.numberOfPassengers, b.requestDate, b.startDate, b.endDate, " +
+            "b.routeDistanceMeters, b.routeDurationSeconds, b.status, " +
+            "u.userid, u.email, u.username, u.firstName, u.lastName, " +
+            "v.vehicleId, v.plateNumber, v.vehicleName, v.type, " +
+            "CASE WHEN EXISTS (SELECT r.reportID FROM ReportEntity r WHERE r.booking = b) THEN true ELSE false END) " +
+            "FROM BookingEntity b JOIN b.user u JOIN b.vehicle v ";
+
+    @Query(SUMMARY_SELECT + "WHERE b.bookingID = :id")
+    Optional<BookingSummary> findSummaryById(@Param("id") Long id);
+
+    @Query(SUMMARY_SELECT + "WHERE u.email = :email ORDER BY b.requestDate DESC, b.bookingID DESC")
+    List<BookingSummary> findSummariesByUserEmail(@Param("email") String email);
+
+    // Keyset page ordered by (requestDate DESC, bookingID DESC). Every filter is optional;
+    // the seek predicate replaces OFFSET so deep pages cost the same as the first one.
+    @Query(SUMMARY_SELECT +
+            "WHERE (:status IS NULL OR b.status = :status) " +
+            "AND (:vehicleId IS NULL OR b.vehicle.vehicleId = :vehicleId) " +
+            "AND (:userId IS NULL OR b.user.userid = :userId) " +
+            "AND (:from IS NULL OR b.requestDate >= :from) " +
+            "AND (:to IS NULL OR b.requestDate < :to) " +
+            "AND (:afterDate IS NULL OR b.requestDate < :afterDate " +
+            "     OR (b.requestDate = :afterDate AND b.bookingID < :afterId)) " +
+            "ORDER BY b.requestDate DESC, b.bookingID DESC")
+    List<BookingSummary> findSummaryPage(@Param("status") BookingEntity.Status status,
+                                        @Param("vehicleId") Long vehicleId,
+                                        @Param("userId") Long userId,
+                                        @Param("from") LocalDateTime from,
+                                        @Param("to") LocalDateTime to,
+                                        @Param("afterDate") LocalDateTime afterDate,
+                                        @Param("afterId") Long afterId,
+                                        Limit limit);
+
+    // Only the columns the seat availability index needs, for bookings still holding seats.
+    @Query("SELECT b.bookingID AS bookingID, b.vehicle.vehicleId AS vehicleId, b.startDate AS startDate, " +
+            "b.endDate AS endDate, b.numberOfPassengers AS numberOfPassengers FROM BookingEntity b " +
+            "WHERE b.status IN :statuses AND b.startDate IS NOT NULL AND b.endDate > :endingAfter")
+    List<SeatWindow> findSeatWindows(@Param("statuses") Collection<BookingEntity.Status> statuses,
+                                     @Param("endingAfter") LocalDateTime endingAfter);
+
+    // Seat windows overlapping [from, to): the load a fleet re-plan has to work around
+    @Query("SELECT b.bookingID AS bookingID, b.vehicle.vehicleId AS vehicleId, b.startDate AS startDate, " +
+            "b.endDate AS endDate, b.numberOfPassengers AS numberOfPassengers FROM BookingEntity b " +
+            "WHERE b.status IN :statuses AND b.startDate < :to AND b.endDate > :from")
+    List<SeatWindow> findSeatWindowsBetween(@Param("statuses") Collection<BookingEntity.Status> statuses,
+                                            @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    interface SeatWindow {
+        Long getBookingID();
+        Long getVehicleId();
+        LocalDateTime getStartDate();
+        LocalDateTime getEndDate();
+        Integer getNumberOfPassengers();
+    }
+
+    // Seeds the pending-expiry timing wheel; served by idx_booking_status_request
+    @Query("SELECT b.bookingID AS bookingID, b.requestDate AS requestDate FROM BookingEntity b " +
+            "WHERE b.status = :status AND b.requestDate IS NOT NULL")
+    List<RequestTime> findRequestTimesByStatus(@Param("status") BookingEntity.Status status);
+
+    // Row-locks the bookings that are still Pending and past the hold time, so an approval
+    // racing the expiry either wins before this or waits until the expiry commits
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM BookingEntity b WHERE b.bookingID IN :ids " +
+            "AND b.status = com.example.eduwheels.Entity.BookingEntity.Status.Pending AND b.requestDate <= :cutoff")
+    List<BookingEntity> lockExpiredPending(@Param("ids") Collection<Long> ids, @Param("cutoff") LocalDateTime cutoff);
+
+    // Fleet re-plan: the day's Pending trips with a time window, locked so approvals wait for it
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM BookingEntity b LEFT JOIN FETCH b.vehicle WHERE b.status = :status " +
+            "AND b.startDate >= :from AND b.startDate < :to AND b.endDate > b.startDate")
+    List<BookingEntity> lockByStatusStartingBetween(@Param("status") BookingEntity.Status status,
+                                                    @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Modifying
+    @Query("UPDATE BookingEntity b SET b.status = :status WHERE b.bookingID IN :ids")
+    int updateStatus(@Param("ids") Collection<Long> ids, @Param("status") BookingEntity.Status status);
+
+    // Bulk status changes: lock every row up front, vehicles fetched in the same query
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM BookingEntity b LEFT JOIN FETCH b.vehicle WHERE b.bookingID IN :ids")
+    List<BookingEntity> lockAllById(@Param("ids") Collection<Long> ids);
+
+    // Same timestamp rules as updateBooking: first approval stamps the start, Done stamps the end
+    @Modifying
+    @Query("UPDATE BookingEntity b SET b.startDate = :now WHERE b.bookingID IN :ids AND b.startDate IS NULL")
+    int stampStartDate(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE BookingEntity b SET b.endDate = :now WHERE b.bookingID IN :ids AND b.endDate IS NULL")
+    int stampEndDate(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    // Seeds BookingLocationIndex
+    @Query("SELECT b.bookingID AS bookingID, b.pickUpLat AS lat, b.pickUpLng AS lng, " +
+            "COALESCE(b.startDate, b.requestDate) AS pickUpTime FROM BookingEntity b " +
+            "WHERE b.pickUpLat IS NOT NULL AND COALESCE(b.startDate, b.requestDate) IS NOT NULL")
+    List<PickUpPoint> findPickUpPoints();
+
+    @Query(SUMMARY_SELECT + "WHERE b.bookingID IN :ids")
+    List<BookingSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+
+    // Pending trips of one day that can take part in ride pooling
+    @Query("SELECT b.bookingID AS bookingID, b.pickUpLat AS pickUpLat, b.pickUpLng AS pickUpLng, " +
+            "b.dropOffLat AS dropOffLat, b.dropOffLng AS dropOffLng, b.startDate AS startDate, b.endDate AS endDate, " +
+            "b.numberOfPassengers AS numberOfPassengers FROM BookingEntity b " +
+            "WHERE b.status = :status AND b.startDate >= :from AND b.startDate < :to AND b.endDate IS NOT NULL " +
+            "AND b.pickUpLat IS NOT NULL AND b.dropOffLat IS NOT NULL")
+    List<PoolCandidate> findPoolCandidates(@Param("status") BookingEntity.Status status,
+                                           @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    interface PoolCandidate {
+        Long getBookingID();
+        Double getPickUpLat();
+        Double getPickUpLng();
+        Double getDropOffLat();
+        Double getDropOffLng();
+        LocalDateTime getStartDate();
+        LocalDateTime getEndDate();
+        Integer getNumberOfPassengers();
+    }
+
+    interface PickUpPoint {
+        Long getBookingID();
+        Double getLat();
+        Double getLng();
+        LocalDateTime getPickUpTime();
+    }
+
+    interface RequestTime {
+        Long getBookingID();
+        LocalDateTime getRequestDate();
+    }
 }
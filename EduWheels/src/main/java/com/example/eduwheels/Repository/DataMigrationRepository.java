@@ -0,0 +1,9 @@
+package com.example.eduwheels.Repository;
+
+import com.example.eduwheels.Entity.DataMigrationEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DataMigrationRepository extends JpaRepository<DataMigrationEntity, String> {
+}
@@ -0,0 +1,43 @@
+package com.example.eduwheels.Repository;
+
+import com.example.eduwheels.Entity.PhotoBlobEntity;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PhotoBlobRepository extends JpaRepository<PhotoBlobEntity, String> {
+
+    // 0 means there's no such blob (or the sweep just took it): upload it
+    @Modifying
+    @Query("UPDATE PhotoBlobEntity b SET b.lastTouched = :now WHERE b.objectName = :name")
+    int touch(@Param("name") String name, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE PhotoBlobEntity b SET b.refCount = b.refCount + 1 WHERE b.objectName IN :names")
+    int addReference(@Param("names") Collection<String> names);
+
+    @Modifying
+    @Query("UPDATE PhotoBlobEntity b SET b.refCount = b.refCount - 1, b.lastTouched = :now " +
+            "WHERE b.objectName IN :names AND b.refCount > 0")
+    int removeReference(@Param("names") Collection<String> names, @Param("now") LocalDateTime now);
+
+    @Query("SELECT b.objectName FROM PhotoBlobEntity b WHERE b.refCount = 0 AND b.lastTouched < :cutoff " +
+            "ORDER BY b.lastTouched")
+    List<String> findCollectable(@Param("cutoff") LocalDateTime cutoff, Pageable page);
+
+    // Re-checked under a row lock, so an upload reusing the blob either touches it first or waits and re-uploads
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM PhotoBlobEntity b WHERE b.objectName = :name AND b.refCount = 0 AND b.lastTouched < :cutoff")
+    Optional<PhotoBlobEntity> lockCollectable(@Param("name") String name, @Param("cutoff") LocalDateTime cutoff);
+}
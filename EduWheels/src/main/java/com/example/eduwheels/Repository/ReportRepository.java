@@ -1,8 +1,11 @@
 package com.example.eduwheels.Repository;
 
+import com.example.eduwheels.Dto.ReviewSummary;
 import com.example.eduwheels.Entity.BookingEntity;
 import com.example.eduwheels.Entity.ReportEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -17,4 +20,15 @@ public interface ReportRepository extends JpaRepository<ReportEntity, Integer> {
 
     // New method to check if a review exists for a booking
     boolean existsByBooking(BookingEntity booking);
+
+    String SUMMARY_SELECT = "SELECT new com.example.eduwheels.Dto.ReviewSummary(" +
+            "r.reportID, r.rating, r.comment, r.reviewDate, u.userid, u.email, u.username, " +
+            "b.bookingID, v.vehicleId, v.plateNumber) " +
+            "FROM ReportEntity r JOIN r.user u JOIN r.booking b JOIN b.vehicle v ";
+
+    @Query(SUMMARY_SELECT + "ORDER BY r.reviewDate DESC")
+    List<ReviewSummary> findAllSummaries();
+
+    @Query(SUMMARY_SELECT + "WHERE r.reportID = :id")
+    Optional<ReviewSummary> findSummaryById(@Param("id") Integer id);
 }
\ No newline at end of file
@@ -2,7 +2,11 @@ package com.example.eduwheels.Repository; // ✅ Ensure package name is lowercas
 
 import com.example.eduwheels.Entity.UserEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -13,4 +17,11 @@ public interface UserRepository extends JpaRepository<UserEntity, Long> {
     Optional<UserEntity> findByEmail(String email);
     Optional<UserEntity> findByUsername(String username);
 
+    // Rehash at the current cost after a login. Only if the hash is still the one that was checked,
+    // so a password changed meanwhile isn't overwritten. Runs on hashing threads, hence its own transaction.
+    @Transactional
+    @Modifying
+    @Query("UPDATE UserEntity u SET u.password = :newHash WHERE u.userid = :userid AND u.password = :oldHash")
+    int upgradePassword(@Param("userid") Long userid, @Param("oldHash") String oldHash, @Param("newHash") String newHash);
+
 }
\ No newline at end of file
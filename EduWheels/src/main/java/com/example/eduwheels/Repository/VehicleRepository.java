@@ -1,11 +1,79 @@
 package com.example.eduwheels.Repository;
 
+import com.example.eduwheels.Entity.BookingEntity;
 import com.example.eduwheels.Entity.VehicleEntity;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface VehicleRepository extends JpaRepository<VehicleEntity, Long> {
     Optional<VehicleEntity> findByPlateNumber(String plateNumber);
+
+    List<VehicleEntity> findByPlateNumberIn(Collection<String> plateNumbers);
+
+    List<VehicleEntity> findByStatus(String status);
+
+    // Just what ranking vehicles by free seats needs; the chosen one is loaded on its own.
+    // A record rather than an interface projection: it is read a few hundred times per booking.
+    @Query("SELECT new com.example.eduwheels.Repository.VehicleRepository$SeatCapacity(" +
+            "v.vehicleId, v.capacity, v.availableSeats) FROM VehicleEntity v WHERE v.status = :status")
+    List<SeatCapacity> findSeatCapacitiesByStatus(@Param("status") String status);
+
+    record SeatCapacity(Long vehicleId, int capacity, int availableSeats) {
+    }
+
+    // Conditional decrement: only matches the row while enough seats are left, so two
+    // concurrent bookers can never both take the last seats.
+    @Modifying
+    @Query("UPDATE VehicleEntity v SET v.availableSeats = v.availableSeats - :seats " +
+            "WHERE v.vehicleId = :vehicleId AND v.availableSeats >= :seats")
+    int reserveSeats(@Param("vehicleId") Long vehicleId, @Param("seats") int seats);
+
+    @Modifying
+    @Query("UPDATE VehicleEntity v SET v.availableSeats = v.availableSeats + :seats WHERE v.vehicleId = :vehicleId")
+    int releaseSeats(@Param("vehicleId") Long vehicleId, @Param("seats") int seats);
+
+    // Vehicles created by a booking before they were given a capacity: everything their bookings
+    // took came off availableSeats, so adding it back gives what they started with
+    @Modifying
+    @Query("UPDATE VehicleEntity v SET v.capacity = v.availableSeats + (SELECT COALESCE(SUM(b.numberOfPassengers), 0) " +
+            "FROM BookingEntity b WHERE b.vehicle = v AND b.status <> :canceled) " +
+            "WHERE v.capacity <= 0")
+    int sizeUnsizedVehicles(@Param("canceled") BookingEntity.Status canceled);
+
+    // Recount of the global counter from the bookings it tracks: those without a usable
+    // time window (see SeatAvailabilityIndex.Hold.isWindowed) that still hold their seats
+    @Modifying
+    @Query("UPDATE VehicleEntity v SET v.availableSeats = v.capacity - (SELECT COALESCE(SUM(b.numberOfPassengers), 0) " +
+            "FROM BookingEntity b WHERE b.vehicle = v AND b.status <> :canceled " +
+            "AND (b.startDate IS NULL OR b.endDate IS NULL OR b.endDate <= b.startDate)) " +
+            "WHERE v.capacity > 0")
+    int recountAvailableSeats(@Param("canceled") BookingEntity.Status canceled);
+
+    // Photo reference changes lock the vehicle so a delete and a finishing upload can't count the same photo twice
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT v FROM VehicleEntity v WHERE v.vehicleId = :vehicleId")
+    Optional<VehicleEntity> lockById(@Param("vehicleId") Long vehicleId);
+
+    // Photo pipeline state only, so a rendition finishing can't undo an admin edit made meanwhile.
+    // Null URLs keep the current ones: a vehicle shows its previous photo until the new one is ready,
+    // and still does if the new one fails. Runs on worker threads, hence its own transaction.
+    @Transactional
+    @Modifying
+    @Query("UPDATE VehicleEntity v SET v.photoStatus = :status, " +
+            "v.photoPath = COALESCE(:original, v.photoPath), " +
+            "v.photoThumbnailUrl = COALESCE(:thumbnail, v.photoThumbnailUrl), " +
+            "v.photoCardUrl = COALESCE(:card, v.photoCardUrl), " +
+            "v.photoFullUrl = COALESCE(:full, v.photoFullUrl) WHERE v.vehicleId = :vehicleId")
+    int updatePhoto(@Param("vehicleId") Long vehicleId, @Param("status") String status, @Param("original") String original,
+                    @Param("thumbnail") String thumbnail, @Param("card") String card, @Param("full") String full);
 }
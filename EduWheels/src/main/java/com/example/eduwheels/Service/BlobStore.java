@@ -0,0 +1,37 @@
+package com.example.eduwheels.Service;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Where photo objects live. {@code blobstore.type} picks the implementation per profile:
+ * {@link GcsBlobStore} (a bucket, the default) or {@link LocalBlobStore} (a directory served
+ * by the app itself, for running without Google credentials).
+ *
+ * Names are bucket-style paths like {@code vehicles/<sha256>.jpg}.
+ */
+public interface BlobStore {
+
+    /**
+     * Starts writing an object. Nothing is visible under the name until the upload is closed;
+     * call {@link Upload#abort()} instead to give up on it.
+     */
+    Upload create(String name, String contentType) throws IOException;
+
+    // Reads a whole object, or null if there is no such object
+    ReadableByteChannel open(String name) throws IOException;
+
+    // Server-side copy; the target is replaced if it exists
+    void copy(String sourceName, String targetName) throws IOException;
+
+    // False if there was nothing to delete
+    boolean delete(String name) throws IOException;
+
+    // Absolute URL clients load the object from
+    String publicUrl(String name);
+
+    interface Upload extends WritableByteChannel {
+        void abort();
+    }
+}
@@ -0,0 +1,364 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Dto.BookingStatusEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans booking status changes out to GET /api/bookings/stream subscribers: each user gets
+ * their own bookings, admins get every booking.
+ *
+ * Connections are plain async {@link SseEmitter}s, so an idle subscriber holds no thread.
+ * Events go into a small per-subscriber buffer keyed by booking, so rapid transitions of one
+ * booking collapse into a single event from its first previous status to its latest status.
+ * A few shared sender threads drain buffers; one shared timer adds a heartbeat comment to
+ * every connection. A subscriber that falls more than the buffer size behind loses the oldest
+ * events and gets a "resync" event telling it to re-fetch.
+ *
+ * A send is a blocking servlet write, so a client that stops reading would keep a sender thread
+ * until the container gives up on the socket. A watchdog on the timer closes any subscriber whose
+ * send has taken longer than {@code booking.stream.send-timeout}, interrupts its sender, and adds
+ * a sender thread for as long as the stuck one is gone, so other subscribers keep their events
+ * and heartbeats.
+ */
+@Service
+public class BookingEventHub {
+
+    public static final String STATUS_EVENT = "booking-status";
+    public static final String RESYNC_EVENT = "resync";
+
+    @Value("${booking.stream.buffer-size:64}")
+    private int bufferSize;
+
+    @Value("${booking.stream.heartbeat:PT25S}")
+    private Duration heartbeatInterval;
+
+    @Value("${booking.stream.timeout:PT30M}")
+    private Duration connectionTimeout;
+
+    @Value("${booking.stream.sender-threads:4}")
+    private int senderThreads;
+
+    @Value("${booking.stream.send-timeout:PT10S}")
+    private Duration sendTimeout;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<Long, Set<Subscriber>> byUser = new ConcurrentHashMap<>();
+    private final Set<Subscriber> admins = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscribers = new AtomicInteger();
+
+    private ThreadPoolExecutor senders;
+    private ScheduledExecutorService heartbeats;
+    private Counter coalesced;
+    private Counter dropped;
+    private Counter stalled;
+
+    @PostConstruct
+    void start() {
+        senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), daemonThreads("booking-stream-send-"));
+        heartbeats = Executors.newSingleThreadScheduledExecutor(daemonThreads("booking-stream-heartbeat-"));
+        heartbeats.scheduleAtFixedRate(this::heartbeat, heartbeatInterval.toMillis(), heartbeatInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+        long watchdogMillis = Math.max(50, sendTimeout.toMillis() / 4);
+        heartbeats.scheduleAtFixedRate(this::closeStalled, watchdogMillis, watchdogMillis, TimeUnit.MILLISECONDS);
+
+        meterRegistry.gauge("bookings.stream.subscribers", subscribers);
+        coalesced = Counter.builder("bookings.stream.coalesced")
+                .description("Status events folded into a newer unsent event for the same booking")
+                .register(meterRegistry);
+        dropped = Counter.builder("bookings.stream.dropped")
+                .description("Status events dropped because a subscriber's buffer was full")
+                .register(meterRegistry);
+        stalled = Counter.builder("bookings.stream.stalled")
+                .description("Subscribers closed because a send took longer than the send timeout")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        heartbeats.shutdownNow();
+        senders.shutdownNow();
+        admins.forEach(s -> s.emitter.complete());
+        byUser.values().forEach(set -> set.forEach(s -> s.emitter.complete()));
+    }
+
+    public SseEmitter subscribe(Long userId, boolean admin) {
+        return subscribe(userId, admin, new SseEmitter(connectionTimeout.toMillis()));
+    }
+
+    SseEmitter subscribe(Long userId, boolean admin, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter, userId, admin);
+        if (admin) {
+            admins.add(subscriber);
+        } else {
+            // Added inside compute so close() can't drop the set between lookup and add
+            byUser.compute(userId, (id, own) -> {
+                Set<Subscriber> set = own != null ? own : ConcurrentHashMap.<Subscriber>newKeySet();
+                set.add(subscriber);
+                return set;
+            });
+        }
+        subscribers.incrementAndGet();
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        return emitter;
+    }
+
+    /**
+     * Publishes once the surrounding transaction commits (right away when there is none), so
+     * nobody hears about a change that is later rolled back.
+     */
+    public void publishAfterCommit(BookingStatusEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(event);
+            }
+        });
+    }
+
+    public void publish(BookingStatusEvent event) {
+        Set<Subscriber> owners = byUser.get(event.getUserid());
+        if (owners != null) {
+            owners.forEach(s -> s.offer(event));
+        }
+        admins.forEach(s -> s.offer(event));
+    }
+
+    int subscriberCount() {
+        return subscribers.get();
+    }
+
+    private void heartbeat() {
+        admins.forEach(Subscriber::ping);
+        byUser.values().forEach(set -> set.forEach(Subscriber::ping));
+    }
+
+    private void closeStalled() {
+        long now = System.nanoTime();
+        admins.forEach(s -> s.closeIfStalled(now));
+        byUser.values().forEach(set -> set.forEach(s -> s.closeIfStalled(now)));
+    }
+
+    // A stuck sender is written off while it is stuck, so the pool keeps senderThreads usable threads
+    private synchronized void resizeSenders(int delta) {
+        if (delta > 0) {
+            senders.setMaximumPoolSize(senders.getMaximumPoolSize() + delta);
+            senders.setCorePoolSize(senders.getCorePoolSize() + delta);
+        } else {
+            senders.setCorePoolSize(senders.getCorePoolSize() + delta);
+            senders.setMaximumPoolSize(senders.getMaximumPoolSize() + delta);
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        private final Long userId;
+        private final boolean admin;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        // Guarded by this: unsent events in arrival order, at most one per booking
+        private final LinkedHashMap<Long, BookingStatusEvent> pending = new LinkedHashMap<>();
+        private boolean overflowed;
+        private boolean pingDue;
+
+        // Also guarded by this: the send in progress, if any, and whether the watchdog gave up on it
+        private Thread sender;
+        private long sendStartedAt;
+        private boolean sendStalled;
+
+        private Subscriber(SseEmitter emitter, Long userId, boolean admin) {
+            this.emitter = emitter;
+            this.userId = userId;
+            this.admin = admin;
+        }
+
+        void offer(BookingStatusEvent event) {
+            synchronized (this) {
+                BookingStatusEvent older = pending.remove(event.getBookingID());
+                if (older != null) {
+                    event = event.coalescedAfter(older);
+                    coalesced.increment();
+                } else if (pending.size() >= bufferSize) {
+                    Iterator<BookingStatusEvent> oldest = pending.values().iterator();
+                    oldest.next();
+                    oldest.remove();
+                    overflowed = true;
+                    dropped.increment();
+                }
+                pending.put(event.getBookingID(), event);
+            }
+            drainLater();
+        }
+
+        void ping() {
+            synchronized (this) {
+                pingDue = true;
+            }
+            drainLater();
+        }
+
+        private void drainLater() {
+            if (!closed.get() && draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RuntimeException e) {
+                    draining.set(false); // executor shut down
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                while (!closed.get()) {
+                    List<BookingStatusEvent> batch;
+                    boolean resync;
+                    boolean ping;
+                    synchronized (this) {
+                        batch = new ArrayList<>(pending.values());
+                        pending.clear();
+                        resync = overflowed;
+                        overflowed = false;
+                        ping = pingDue;
+                        pingDue = false;
+                    }
+                    if (batch.isEmpty() && !resync && !ping) {
+                        break;
+                    }
+                    if (resync) {
+                        send(SseEmitter.event().name(RESYNC_EVENT).data("{}"));
+                    }
+                    for (BookingStatusEvent event : batch) {
+                        String data;
+                        try {
+                            data = objectMapper.writeValueAsString(event);
+                        } catch (JsonProcessingException e) {
+                            e.printStackTrace(); // skip this event; the rest of the stream is still good
+                            continue;
+                        }
+                        send(SseEmitter.event().name(STATUS_EVENT)
+                                .id(String.valueOf(event.getBookingID()))
+                                .data(data));
+                    }
+                    if (ping && batch.isEmpty() && !resync) {
+                        send(SseEmitter.event().comment("heartbeat"));
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // Client went away (or its send timed out); the emitter callbacks may never fire for a dead socket
+                close();
+                emitter.completeWithError(e);
+            } finally {
+                draining.set(false);
+            }
+            boolean more;
+            synchronized (this) {
+                more = !pending.isEmpty() || overflowed || pingDue;
+            }
+            if (more) {
+                drainLater();
+            }
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            synchronized (this) {
+                sender = Thread.currentThread();
+                sendStartedAt = System.nanoTime();
+            }
+            try {
+                emitter.send(event);
+            } finally {
+                boolean givenBack;
+                synchronized (this) {
+                    sender = null;
+                    givenBack = sendStalled;
+                    sendStalled = false;
+                }
+                if (givenBack) {
+                    Thread.interrupted(); // the watchdog's interrupt, not meant for the pool's next task
+                    resizeSenders(-1);
+                }
+            }
+        }
+
+        void closeIfStalled(long now) {
+            Thread stuck;
+            synchronized (this) {
+                if (sender == null || sendStalled || now - sendStartedAt < sendTimeout.toNanos()) {
+                    return;
+                }
+                sendStalled = true;
+                stuck = sender;
+            }
+            stalled.increment();
+            resizeSenders(1);
+            close();
+            stuck.interrupt();
+            emitter.completeWithError(new IOException("Booking stream send timed out after " + sendTimeout));
+        }
+
+        void close() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            if (admin) {
+                admins.remove(this);
+            } else {
+                byUser.computeIfPresent(userId, (id, own) -> {
+                    own.remove(this);
+                    return own.isEmpty() ? null : own;
+                });
+            }
+            subscribers.decrementAndGet();
+        }
+    }
+}
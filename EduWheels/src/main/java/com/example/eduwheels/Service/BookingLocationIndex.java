@@ -0,0 +1,231 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Entity.BookingEntity;
+import com.example.eduwheels.Repository.BookingRepository;
+import com.example.eduwheels.Utils.GeoGrid;
+import com.example.eduwheels.Utils.GeoPoint;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory spatial index of booking pickup points for GET /api/bookings/near.
+ *
+ * Pickups are bucketed by {@link GeoGrid} cell and by day of pickup (start date, or request
+ * date while there is none). A query only opens the buckets of the cells around the point for
+ * the days asked for, so its cost follows the number of nearby bookings, not the table size.
+ * Each bucket keeps its entries in parallel primitive arrays to stay small at a million rows.
+ *
+ * tblbooking stays the source of truth: the index is rebuilt at startup (after backfilling
+ * coordinates of old rows) and {@link BookingService} applies each change once it commits.
+ */
+@Service
+public class BookingLocationIndex {
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int DAY_BITS = 21;
+
+    @Value("${booking.location.backfill-chunk:1000}")
+    private int backfillChunk;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private final Map<Long, Bucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        bookingRepository.backfillCoordinates(backfillChunk);
+        buckets.clear();
+        size.set(0);
+        for (BookingRepository.PickUpPoint point : bookingRepository.findPickUpPoints()) {
+            add(new Location(point.getBookingID(), point.getLat(), point.getLng(), point.getPickUpTime()));
+        }
+    }
+
+    /**
+     * Where and when a booking is picked up, or null when it has no usable coordinates.
+     * Take it before editing a booking and hand it to {@link #replaceAfterCommit}.
+     */
+    public static Location locationOf(BookingEntity booking) {
+        GeoPoint point = GeoPoint.parse(booking.getPickUp());
+        LocalDateTime time = booking.getStartDate() != null ? booking.getStartDate() : booking.getRequestDate();
+        if (booking.getBookingID() == null || point == null || time == null) {
+            return null;
+        }
+        return new Location(booking.getBookingID(), point.getLat(), point.getLng(), time);
+    }
+
+    /**
+     * Moves a booking from its old location to its new one once the transaction commits (right
+     * away when there is none); either side may be null.
+     */
+    public void replaceAfterCommit(Location before, Location after) {
+        if (Objects.equals(before, after)) {
+            return;
+        }
+        Runnable apply = () -> {
+            if (before != null) {
+                remove(before);
+            }
+            if (after != null) {
+                add(after);
+            }
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                apply.run();
+            }
+        });
+    }
+
+    /**
+     * Bookings picked up within {@code radiusM} meters of (lat, lng) between {@code from}
+     * (inclusive) and {@code to} (exclusive), nearest first.
+     */
+    public List<Hit> near(double lat, double lng, double radiusM, LocalDateTime from, LocalDateTime to, int limit) {
+        long fromMinute = minuteOf(from);
+        long toMinute = minuteOf(to);
+        long firstDay = Math.floorDiv(fromMinute, MINUTES_PER_DAY);
+        long lastDay = Math.floorDiv(toMinute - 1, MINUTES_PER_DAY);
+        List<Hit> hits = new ArrayList<>();
+        GeoGrid.forEachCellWithin(lat, lng, radiusM, cell -> {
+            for (long day = firstDay; day <= lastDay; day++) {
+                Bucket bucket = buckets.get(key(cell, day));
+                if (bucket != null) {
+                    bucket.collect(lat, lng, radiusM, fromMinute, toMinute, hits);
+                }
+            }
+        });
+        hits.sort(Comparator.comparingDouble(Hit::distanceMeters));
+        return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    void add(Location location) {
+        buckets.computeIfAbsent(key(location), k -> new Bucket()).add(location);
+        size.incrementAndGet();
+    }
+
+    private void remove(Location location) {
+        Bucket bucket = buckets.get(key(location));
+        if (bucket != null && bucket.remove(location.bookingId)) {
+            size.decrementAndGet();
+        }
+    }
+
+    private static long key(Location location) {
+        return key(GeoGrid.cell(location.lat, location.lng), Math.floorDiv(location.minute, MINUTES_PER_DAY));
+    }
+
+    private static long key(long cell, long day) {
+        return (cell << DAY_BITS) | (day & ((1L << DAY_BITS) - 1));
+    }
+
+    private static long minuteOf(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    public record Hit(Long bookingId, double distanceMeters) {
+    }
+
+    public static final class Location {
+        private final Long bookingId;
+        private final double lat;
+        private final double lng;
+        private final long minute;
+
+        Location(Long bookingId, double lat, double lng, LocalDateTime time) {
+            this.bookingId = bookingId;
+            this.lat = lat;
+            this.lng = lng;
+            this.minute = minuteOf(time);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Location other)) return false;
+            return bookingId.equals(other.bookingId) && lat == other.lat && lng == other.lng && minute == other.minute;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(bookingId, lat, lng, minute);
+        }
+    }
+
+    // One cell-day of pickups as parallel arrays
+    private static final class Bucket {
+        private long[] ids = new long[4];
+        private double[] lats = new double[4];
+        private double[] lngs = new double[4];
+        private long[] minutes = new long[4];
+        private int count;
+
+        synchronized void add(Location location) {
+            if (count == ids.length) {
+                int capacity = count * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                lats = Arrays.copyOf(lats, capacity);
+                lngs = Arrays.copyOf(lngs, capacity);
+                minutes = Arrays.copyOf(minutes, capacity);
+            }
+            ids[count] = location.bookingId;
+            lats[count] = location.lat;
+            lngs[count] = location.lng;
+            minutes[count] = location.minute;
+            count++;
+        }
+
+        synchronized boolean remove(long bookingId) {
+            for (int i = 0; i < count; i++) {
+                if (ids[i] == bookingId) {
+                    count--;
+                    ids[i] = ids[count];
+                    lats[i] = lats[count];
+                    lngs[i] = lngs[count];
+                    minutes[i] = minutes[count];
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        synchronized void collect(double lat, double lng, double radiusM, long fromMinute, long toMinute, List<Hit> hits) {
+            for (int i = 0; i < count; i++) {
+                if (minutes[i] < fromMinute || minutes[i] >= toMinute) {
+                    continue;
+                }
+                double distance = GeoPoint.distanceMeters(lat, lng, lats[i], lngs[i]);
+                if (distance <= radiusM) {
+                    hits.add(new Hit(ids[i], distance));
+                }
+            }
+        }
+    }
+}
@@ -1,5 +1,12 @@
 package com.example.eduwheels.Service;
 
+import com.example.eduwheels.Dto.BatchBookingResult;
+import com.example.eduwheels.Dto.BookingStatusEvent;
+import com.example.eduwheels.Dto.BookingSummary;
+import com.example.eduwheels.Dto.BulkStatusResult;
+import com.example.eduwheels.Dto.FleetAssignmentResult;
+import com.example.eduwheels.Dto.NearbyBooking;
+import com.example.eduwheels.Dto.PoolingPlan;
 import com.example.eduwheels.Entity.BookingEntity;
 import com.example.eduwheels.Entity.VehicleEntity;
 import com.example.eduwheels.Entity.UserEntity;
@@ -7,16 +14,32 @@ import com.example.eduwheels.Repository.BookingRepository;
 import com.example.eduwheels.Repository.VehicleRepository;
 import com.example.eduwheels.Repository.UserRepository;
 import com.example.eduwheels.Controller.BookingController.BookingRequest;
+import com.example.eduwheels.Utils.KeysetPage;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 @Transactional
@@ -31,54 +54,87 @@ public class BookingService {
     @Autowired
     private UserRepository userRepository;
 
-    public List<BookingEntity> getAllBookings() {
-        return bookingRepository.findAll();
+    @Autowired
+    private SeatReservationEngine seatReservationEngine;
+
+    @Autowired
+    private PendingBookingExpiryService pendingBookingExpiryService;
+
+    @Autowired
+    private BookingEventHub bookingEventHub;
+
+    @Autowired
+    private BookingLocationIndex bookingLocationIndex;
+
+    @Autowired
+    private RidePoolingService ridePoolingService;
+
+    @Autowired
+    private FleetAssignmentService fleetAssignmentService;
+
+    @Autowired
+    private RoutingService routingService;
+
+    @Autowired
+    private VehicleCatalogCache vehicleCatalogCache;
+
+    @Autowired
+    private TableVersions tableVersions;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * One page of the admin booking listing, newest first. All filters are optional; pass the
+     * previous page's cursor to continue after it.
+     */
+    @Transactional(readOnly = true)
+    public KeysetPage<BookingSummary> getBookingsPage(BookingEntity.Status status, Long vehicleId, Long userId,
+                                                     LocalDateTime from, LocalDateTime to, String cursor, int limit) {
+        KeysetPage.Position after = (cursor != null && !cursor.isBlank()) ? KeysetPage.decodeCursor(cursor) : null;
+
+        // Fetch one extra row to learn whether another page exists
+        List<BookingSummary> rows = bookingRepository.findSummaryPage(status, vehicleId, userId, from, to,
+                after != null ? after.getTimestamp() : null,
+                after != null ? after.getId() : null,
+                Limit.of(limit + 1));
+
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            BookingSummary last = rows.get(limit - 1);
+            nextCursor = KeysetPage.encodeCursor(last.getRequestDate(), last.getBookingID());
+        }
+        return new KeysetPage<>(rows, nextCursor);
     }
 
     public Optional<BookingEntity> getBookingById(Long id) {
         return bookingRepository.findById(id);
     }
 
-    public BookingEntity createBooking(BookingRequest bookingRequest) {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication == null || !authentication.isAuthenticated()) {
-            throw new IllegalStateException("User must be authenticated to create a booking.");
-        }
-
-        String username;
-        Object principal = authentication.getPrincipal();
-
-        if (principal instanceof UserDetails) {
-            username = ((UserDetails) principal).getUsername();
-        } else if (principal instanceof String) {
-            username = (String) principal;
-        } else {
-            throw new IllegalStateException("Could not determine username from authentication principal.");
-        }
+    @Transactional(readOnly = true)
+    public Optional<BookingSummary> getBookingSummary(Long id) {
+        return bookingRepository.findSummaryById(id);
+    }
 
-        UserEntity currentUser = userRepository.findByEmail(username)
-                .orElseThrow(() -> new RuntimeException("Authenticated user not found in database: " + username));
+    /**
+     * Creates a booking for the current user. Without a plate number the vehicle is picked by
+     * {@link FleetAssignmentService}.
+     */
+    public BookingEntity createBooking(BookingRequest bookingRequest) {
+        UserEntity currentUser = currentUser();
 
-        if (bookingRequest.getPlateNumber() == null || bookingRequest.getPlateNumber().isEmpty()) {
-            throw new IllegalArgumentException("Vehicle plate number is required for creating a booking.");
-        }
-        VehicleEntity vehicle = vehicleRepository.findByPlateNumber(bookingRequest.getPlateNumber())
+        boolean autoAssign = bookingRequest.getPlateNumber() == null || bookingRequest.getPlateNumber().isEmpty();
+        VehicleEntity vehicle = autoAssign ? null : vehicleRepository.findByPlateNumber(bookingRequest.getPlateNumber())
                 .orElseGet(() -> {
                     if (bookingRequest.getVehicleAvailableSeats() == null) {
                         throw new IllegalArgumentException("Available seats must be provided for a new vehicle.");
                     }
-                    VehicleEntity newVehicle = new VehicleEntity();
-                    newVehicle.setPlateNumber(bookingRequest.getPlateNumber());
-                    newVehicle.setAvailableSeats(bookingRequest.getVehicleAvailableSeats());
-                    return vehicleRepository.save(newVehicle);
+                    VehicleEntity saved = vehicleRepository.save(newVehicle(bookingRequest));
+                    vehicleCatalogCache.invalidate(saved.getVehicleId());
+                    return saved;
                 });
 
-        if (vehicle.getAvailableSeats() < bookingRequest.getNumberOfPassengers()) {
-            throw new IllegalArgumentException("Not enough seats available in vehicle with plate number: " + vehicle.getPlateNumber());
-        }
-        vehicle.setAvailableSeats(vehicle.getAvailableSeats() - bookingRequest.getNumberOfPassengers());
-        vehicleRepository.save(vehicle);
-
         BookingEntity booking = new BookingEntity();
         booking.setPickUp(bookingRequest.getPickUp());
         booking.setDropOff(bookingRequest.getDropOff());
@@ -91,33 +147,210 @@ public class BookingService {
         } catch (IllegalArgumentException e) {
             throw new IllegalArgumentException("Invalid booking status provided: " + bookingRequest.getStatus());
         }
-        booking.setVehicle(vehicle);
         booking.setUser(currentUser);
+        routingService.attachRoute(booking);
 
-        return bookingRepository.save(booking);
+        if (autoAssign) {
+            fleetAssignmentService.assign(booking);
+        } else {
+            booking.setVehicle(vehicle);
+            seatReservationEngine.reserve(booking);
+        }
+
+        BookingEntity saved = bookingRepository.save(booking);
+        pendingBookingExpiryService.track(saved);
+        bookingLocationIndex.replaceAfterCommit(null, BookingLocationIndex.locationOf(saved));
+        tableVersions.changed(TableVersions.Table.BOOKINGS);
+        return saved;
+    }
+
+    /**
+     * Creates a group of bookings for the current user in one transaction. The user is looked
+     * up once, vehicles are loaded with one query, seats are reserved once per vehicle and the
+     * rows go in as a single JDBC batch.
+     *
+     * With {@code allOrNothing} any invalid or unseatable item rejects the whole batch and rolls
+     * back whatever was reserved; otherwise every item that fits is created and the others are
+     * reported with the reason. Items without a plate number are placed by
+     * {@link FleetAssignmentService} after the others have their seats.
+     */
+    public BatchBookingResult createBookings(List<BookingRequest> requests, boolean allOrNothing) {
+        UserEntity currentUser = currentUser();
+        LocalDateTime now = LocalDateTime.now();
+
+        Set<String> plates = new HashSet<>();
+        for (BookingRequest request : requests) {
+            if (request.getPlateNumber() != null && !request.getPlateNumber().isEmpty()) {
+                plates.add(request.getPlateNumber());
+            }
+        }
+        Map<String, VehicleEntity> vehicles = new HashMap<>();
+        for (VehicleEntity vehicle : vehicleRepository.findByPlateNumberIn(plates)) {
+            vehicles.put(vehicle.getPlateNumber(), vehicle);
+        }
+
+        String[] problems = new String[requests.size()];
+        BookingEntity[] bookings = new BookingEntity[requests.size()];
+        for (int i = 0; i < requests.size(); i++) {
+            BookingRequest request = requests.get(i);
+            try {
+                BookingEntity booking = new BookingEntity();
+                booking.setPickUp(request.getPickUp());
+                booking.setDropOff(request.getDropOff());
+                booking.setRequestDate(now);
+                booking.setStartDate(request.getStartDate());
+                booking.setEndDate(request.getEndDate());
+                booking.setNumberOfPassengers(request.getNumberOfPassengers());
+                booking.setStatus(parseStatus(request.getStatus()));
+                booking.setVehicle(resolveVehicle(request, vehicles));
+                booking.setUser(currentUser);
+                routingService.attachRoute(booking);
+                if (booking.getNumberOfPassengers() < 0) {
+                    throw new IllegalArgumentException("Number of passengers cannot be negative.");
+                }
+                bookings[i] = booking;
+            } catch (IllegalArgumentException e) {
+                problems[i] = e.getMessage();
+            }
+        }
+
+        if (!allOrNothing || Arrays.stream(problems).allMatch(Objects::isNull)) {
+            List<BookingEntity> candidates = new ArrayList<>();
+            List<Integer> positions = new ArrayList<>();
+            List<Integer> unassigned = new ArrayList<>();
+            for (int i = 0; i < bookings.length; i++) {
+                if (bookings[i] != null && bookings[i].getVehicle() == null) {
+                    unassigned.add(i);
+                } else if (bookings[i] != null) {
+                    candidates.add(bookings[i]);
+                    positions.add(i);
+                }
+            }
+            boolean[] granted = seatReservationEngine.reserveAll(candidates, allOrNothing);
+            for (int k = 0; k < granted.length; k++) {
+                if (!granted[k]) {
+                    int i = positions.get(k);
+                    problems[i] = "Not enough seats available in vehicle with plate number: " + requests.get(i).getPlateNumber();
+                    bookings[i] = null;
+                }
+            }
+            boolean rejected = allOrNothing && Arrays.stream(problems).anyMatch(Objects::nonNull);
+            for (int i : unassigned) {
+                if (rejected) {
+                    break;
+                }
+                try {
+                    fleetAssignmentService.assign(bookings[i]);
+                } catch (IllegalArgumentException e) {
+                    problems[i] = e.getMessage();
+                    bookings[i] = null;
+                    rejected = allOrNothing;
+                }
+            }
+        }
+
+        BatchBookingResult result = new BatchBookingResult(allOrNothing);
+        boolean failed = Arrays.stream(problems).anyMatch(Objects::nonNull);
+        if (allOrNothing && failed) {
+            // Undo seat reservations and any vehicles created above
+            TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+            for (int i = 0; i < requests.size(); i++) {
+                result.add(BatchBookingResult.Item.rejected(i,
+                        problems[i] != null ? problems[i] : "Not created: another booking in the batch was rejected."));
+            }
+            return result;
+        }
+
+        List<BookingEntity> accepted = Arrays.stream(bookings).filter(Objects::nonNull).toList();
+        bookingRepository.insertAll(accepted);
+        tableVersions.changed(TableVersions.Table.BOOKINGS);
+        for (BookingEntity booking : accepted) {
+            pendingBookingExpiryService.track(booking);
+            bookingLocationIndex.replaceAfterCommit(null, BookingLocationIndex.locationOf(booking));
+        }
+        for (int i = 0; i < requests.size(); i++) {
+            result.add(bookings[i] != null
+                    ? BatchBookingResult.Item.created(i, BookingSummary.from(bookings[i], false))
+                    : BatchBookingResult.Item.rejected(i, problems[i]));
+        }
+        return result;
+    }
+
+    // A vehicle first seen in a booking; the seats given are all it has, so they are also its
+    // capacity, which windowed bookings are checked against
+    private static VehicleEntity newVehicle(BookingRequest request) {
+        int seats = request.getVehicleAvailableSeats();
+        return new VehicleEntity(request.getPlateNumber(), "Unspecified", seats, seats,
+                FleetAssignmentService.AVAILABLE, null, request.getPlateNumber());
+    }
+
+    // Null when the request leaves the choice to FleetAssignmentService
+    private VehicleEntity resolveVehicle(BookingRequest request, Map<String, VehicleEntity> vehicles) {
+        if (request.getPlateNumber() == null || request.getPlateNumber().isEmpty()) {
+            return null;
+        }
+        VehicleEntity vehicle = vehicles.get(request.getPlateNumber());
+        if (vehicle == null) {
+            if (request.getVehicleAvailableSeats() == null) {
+                throw new IllegalArgumentException("Available seats must be provided for a new vehicle.");
+            }
+            vehicle = vehicleRepository.save(newVehicle(request));
+            vehicleCatalogCache.invalidate(vehicle.getVehicleId());
+            vehicles.put(vehicle.getPlateNumber(), vehicle);
+        }
+        return vehicle;
+    }
+
+    private BookingEntity.Status parseStatus(String status) {
+        try {
+            return BookingEntity.Status.valueOf(status);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            throw new IllegalArgumentException("Invalid booking status provided: " + status);
+        }
+    }
+
+    private void requireAdmin(String message) {
+        if (!"Admin".equals(currentUser().getRole())) {
+            throw new AccessDeniedException(message);
+        }
+    }
+
+    private UserEntity currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            throw new IllegalStateException("User must be authenticated to create a booking.");
+        }
+
+        String username;
+        Object principal = authentication.getPrincipal();
+
+        if (principal instanceof UserDetails) {
+            username = ((UserDetails) principal).getUsername();
+        } else if (principal instanceof String) {
+            username = (String) principal;
+        } else {
+            throw new IllegalStateException("Could not determine username from authentication principal.");
+        }
+
+        return userRepository.findByEmail(username)
+                .orElseThrow(() -> new RuntimeException("Authenticated user not found in database: " + username));
     }
 
     public void deleteBooking(Long id) {
         bookingRepository.findById(id).ifPresent(booking -> {
-            VehicleEntity vehicle = booking.getVehicle();
-            if (vehicle != null) {
-                vehicle.setAvailableSeats(vehicle.getAvailableSeats() + booking.getNumberOfPassengers());
-                vehicleRepository.save(vehicle);
-            }
+            seatReservationEngine.release(booking);
             bookingRepository.deleteById(id);
+            pendingBookingExpiryService.forget(id);
+            bookingLocationIndex.replaceAfterCommit(BookingLocationIndex.locationOf(booking), null);
+            tableVersions.changed(TableVersions.Table.BOOKINGS);
         });
     }
 
     public BookingEntity updateBooking(Long id, BookingEntity updatedBooking) {
         return bookingRepository.findById(id).map(existingBooking -> {
-            if (existingBooking.getStatus() != BookingEntity.Status.Canceled &&
-                    updatedBooking.getStatus() == BookingEntity.Status.Canceled) {
-                VehicleEntity vehicle = existingBooking.getVehicle();
-                if (vehicle != null) {
-                    vehicle.setAvailableSeats(vehicle.getAvailableSeats() + existingBooking.getNumberOfPassengers());
-                    vehicleRepository.save(vehicle);
-                }
-            }
+            SeatReservationEngine.Snapshot seatsBefore = seatReservationEngine.snapshot(existingBooking);
+            BookingEntity.Status previousStatus = existingBooking.getStatus();
+            BookingLocationIndex.Location locationBefore = BookingLocationIndex.locationOf(existingBooking);
 
             // --- Check for status changes and set timestamps ---
             if (existingBooking.getStatus() != BookingEntity.Status.Approved &&
@@ -141,12 +374,157 @@ public class BookingService {
             existingBooking.setNumberOfPassengers(updatedBooking.getNumberOfPassengers());
             existingBooking.setStatus(updatedBooking.getStatus());
 
-            return bookingRepository.save(existingBooking);
+            seatReservationEngine.reconcile(seatsBefore, existingBooking);
+
+            BookingEntity saved = bookingRepository.save(existingBooking);
+            pendingBookingExpiryService.track(saved);
+            bookingLocationIndex.replaceAfterCommit(locationBefore, BookingLocationIndex.locationOf(saved));
+            tableVersions.changed(TableVersions.Table.BOOKINGS);
+            if (saved.getStatus() != previousStatus) {
+                bookingEventHub.publishAfterCommit(BookingStatusEvent.of(saved, previousStatus));
+            }
+            return saved;
         }).orElse(null);
     }
 
+    /**
+     * Moves many bookings to one status with the same timestamp and seat rules as
+     * {@link #updateBooking}, but as one locking SELECT, at most three set-based UPDATEs and one
+     * seat release per vehicle instead of a find/copy/save round trip per booking. Bookings whose
+     * vehicle has no room left for them are reported as NO_SEATS and left untouched.
+     */
+    public BulkStatusResult updateStatuses(List<Long> ids, BookingEntity.Status status) {
+        requireAdmin("Only admins can change booking statuses in bulk.");
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        Map<Long, BookingEntity> found = new HashMap<>();
+        for (BookingEntity booking : bookingRepository.lockAllById(requested)) {
+            found.put(booking.getBookingID(), booking);
+        }
+
+        List<Long> changedIds = new ArrayList<>();
+        List<BookingEntity> changed = new ArrayList<>();
+        List<SeatReservationEngine.Snapshot> seatsBefore = new ArrayList<>();
+        List<BookingEntity.Status> previous = new ArrayList<>();
+        List<BookingLocationIndex.Location> locationsBefore = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (Long id : requested) {
+            BookingEntity booking = found.get(id);
+            if (booking == null || booking.getStatus() == status) {
+                continue;
+            }
+            seatsBefore.add(seatReservationEngine.snapshot(booking));
+            previous.add(booking.getStatus());
+            locationsBefore.add(BookingLocationIndex.locationOf(booking));
+
+            // The rows are written by the UPDATEs below; mirror the change on a detached copy
+            // only to work out seats, events and expiry
+            entityManager.detach(booking);
+            if (status == BookingEntity.Status.Approved && booking.getStartDate() == null) {
+                booking.setStartDate(now);
+            }
+            if (status == BookingEntity.Status.Done && booking.getEndDate() == null) {
+                booking.setEndDate(now);
+            }
+            booking.setStatus(status);
+            changedIds.add(id);
+            changed.add(booking);
+        }
+        boolean[] seated = seatReservationEngine.reconcileAll(seatsBefore, changed);
+        Map<Long, Integer> positions = new HashMap<>();
+        for (int i = 0; i < changedIds.size(); i++) {
+            positions.put(changedIds.get(i), i);
+        }
+
+        BulkStatusResult result = new BulkStatusResult(status);
+        List<Long> updatedIds = new ArrayList<>();
+        for (Long id : requested) {
+            Integer k = positions.get(id);
+            if (k != null) {
+                result.add(id, seated[k] ? BulkStatusResult.Outcome.UPDATED : BulkStatusResult.Outcome.NO_SEATS, previous.get(k));
+                if (seated[k]) {
+                    updatedIds.add(id);
+                }
+            } else if (found.containsKey(id)) {
+                result.add(id, BulkStatusResult.Outcome.UNCHANGED, status);
+            } else {
+                result.add(id, BulkStatusResult.Outcome.NOT_FOUND, null);
+            }
+        }
+        if (updatedIds.isEmpty()) {
+            return result;
+        }
+
+        bookingRepository.updateStatus(updatedIds, status);
+        if (status == BookingEntity.Status.Approved) {
+            bookingRepository.stampStartDate(updatedIds, now);
+        } else if (status == BookingEntity.Status.Done) {
+            bookingRepository.stampEndDate(updatedIds, now);
+        }
+        tableVersions.changed(TableVersions.Table.BOOKINGS);
+
+        for (int i = 0; i < changed.size(); i++) {
+            if (!seated[i]) {
+                continue;
+            }
+            BookingEntity booking = changed.get(i);
+            pendingBookingExpiryService.track(booking);
+            bookingLocationIndex.replaceAfterCommit(locationsBefore.get(i), BookingLocationIndex.locationOf(booking));
+            bookingEventHub.publishAfterCommit(BookingStatusEvent.of(booking, previous.get(i)));
+        }
+        return result;
+    }
+
+    /**
+     * Bookings picked up within {@code radiusM} meters of a point between {@code from} and
+     * {@code to}, nearest first. The spatial lookup is served from {@link BookingLocationIndex};
+     * only the matching rows are read from the database.
+     */
+    @Transactional(readOnly = true)
+    public List<NearbyBooking> getBookingsNear(double lat, double lng, double radiusM,
+                                               LocalDateTime from, LocalDateTime to, int limit) {
+        List<BookingLocationIndex.Hit> hits = bookingLocationIndex.near(lat, lng, radiusM, from, to, limit);
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, BookingSummary> summaries = new HashMap<>();
+        for (BookingSummary summary : bookingRepository.findSummariesByIdIn(
+                hits.stream().map(BookingLocationIndex.Hit::bookingId).toList())) {
+            summaries.put(summary.getBookingID(), summary);
+        }
+        List<NearbyBooking> nearby = new ArrayList<>();
+        for (BookingLocationIndex.Hit hit : hits) {
+            BookingSummary summary = summaries.get(hit.bookingId());
+            if (summary != null) {
+                nearby.add(new NearbyBooking(summary, hit.distanceMeters()));
+            }
+        }
+        return nearby;
+    }
+
+    @Transactional(readOnly = true)
+    public PoolingPlan planRidePools(LocalDate date) {
+        requireAdmin("Only admins can plan ride pools.");
+        return ridePoolingService.plan(date);
+    }
+
+    /**
+     * Re-packs the Pending bookings starting on {@code date} onto the fleet; see
+     * {@link FleetAssignmentService#reoptimize}.
+     */
+    public FleetAssignmentResult reoptimizeFleet(LocalDate date) {
+        requireAdmin("Only admins can re-optimize vehicle assignments.");
+        return fleetAssignmentService.reoptimize(date);
+    }
+
+    // Admins hear about every booking, everyone else only about their own
     @Transactional(readOnly = true)
-    public List<BookingEntity> getBookingsForCurrentUser() {
+    public SseEmitter subscribeToStatusChanges() {
+        UserEntity user = currentUser();
+        return bookingEventHub.subscribe(user.getUserid(), "Admin".equals(user.getRole()));
+    }
+
+    @Transactional(readOnly = true)
+    public List<BookingSummary> getBookingsForCurrentUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated()) {
             throw new IllegalStateException("User must be authenticated to view their bookings.");
@@ -163,9 +541,7 @@ public class BookingService {
             throw new IllegalStateException("Could not determine username from authentication principal.");
         }
 
-        UserEntity currentUser = userRepository.findByEmail(username)
-                .orElseThrow(() -> new RuntimeException("Authenticated user not found in database: " + username));
-
-        return bookingRepository.findByUser(currentUser);
+        // One SELECT keyed on the user's email; no separate user lookup needed
+        return bookingRepository.findSummariesByUserEmail(username);
     }
 }
\ No newline at end of file
@@ -0,0 +1,213 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Dto.FleetAssignmentResult;
+import com.example.eduwheels.Entity.BookingEntity;
+import com.example.eduwheels.Entity.VehicleEntity;
+import com.example.eduwheels.Repository.BookingRepository;
+import com.example.eduwheels.Repository.VehicleRepository;
+import com.example.eduwheels.Utils.FleetPacker;
+import com.example.eduwheels.Utils.SeatTimeline;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Server-side vehicle choice for bookings that come in without a plate number.
+ *
+ * A new booking goes on the Available vehicle it fits best: the one left with the fewest free
+ * seats over the booking's window (or, without a window, on the global seat counter). Full
+ * vehicles fill up before an empty one is started, which keeps the shuttles that do run full
+ * instead of spreading a handful of riders over the whole fleet. Free seats come from
+ * {@link SeatAvailabilityIndex}, so ranking a few hundred vehicles reads no booking rows.
+ *
+ * {@link #reoptimize} re-packs a whole day of Pending bookings with {@link FleetPacker}, for
+ * when first-come placement has drifted from what a planner would pick.
+ */
+@Service
+public class FleetAssignmentService {
+
+    public static final String AVAILABLE = "Available";
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private SeatReservationEngine seatReservationEngine;
+
+    @Autowired
+    private SeatAvailabilityIndex seatAvailabilityIndex;
+
+    @Autowired
+    private TableVersions tableVersions;
+
+    /**
+     * Puts the booking on the best fitting Available vehicle and takes its seats. When a
+     * concurrent booker takes the seats first the next best vehicle is tried.
+     *
+     * @return the chosen vehicle, also set on the booking
+     */
+    @Transactional
+    public VehicleEntity assign(BookingEntity booking) {
+        if (booking.getNumberOfPassengers() < 0) {
+            throw new IllegalArgumentException("Number of passengers cannot be negative.");
+        }
+        for (Long vehicleId : rankByFit(vehicleRepository.findSeatCapacitiesByStatus(AVAILABLE), booking)) {
+            VehicleEntity vehicle = vehicleRepository.findById(vehicleId).orElse(null);
+            if (vehicle == null) {
+                continue; // deleted since the ranking query
+            }
+            booking.setVehicle(vehicle);
+            if (seatReservationEngine.tryReserve(booking)) {
+                return vehicle;
+            }
+        }
+        booking.setVehicle(null);
+        if (isWindowed(booking)) {
+            throw new IllegalArgumentException("No available vehicle has " + booking.getNumberOfPassengers()
+                    + " seats free between " + booking.getStartDate() + " and " + booking.getEndDate());
+        }
+        throw new IllegalArgumentException("No available vehicle has " + booking.getNumberOfPassengers() + " seats free");
+    }
+
+    /**
+     * IDs of the vehicles the booking fits on, best fit first: fewest seats left over, then
+     * the smaller vehicle.
+     */
+    List<Long> rankByFit(List<VehicleRepository.SeatCapacity> vehicles, BookingEntity booking) {
+        boolean windowed = isWindowed(booking);
+        int seats = booking.getNumberOfPassengers();
+        List<Fit> fits = new ArrayList<>();
+        for (VehicleRepository.SeatCapacity vehicle : vehicles) {
+            int free = windowed
+                    ? seatAvailabilityIndex.availableSeats(vehicle.vehicleId(), vehicle.capacity(),
+                            booking.getStartDate(), booking.getEndDate())
+                    : vehicle.availableSeats();
+            if (free >= seats) {
+                fits.add(new Fit(vehicle.vehicleId(), vehicle.capacity(), free - seats));
+            }
+        }
+        fits.sort(Comparator.comparingInt(Fit::left).thenComparingInt(Fit::capacity).thenComparing(Fit::vehicleId));
+        return fits.stream().map(Fit::vehicleId).toList();
+    }
+
+    /**
+     * Re-packs the Pending bookings starting on {@code date} onto the Available vehicles with
+     * best fit decreasing. Approved and Going trips, and Pending ones of other days that
+     * overlap, stay where they are and count as fixed load. Bookings that fit nowhere in the
+     * new plan keep their vehicle.
+     *
+     * Moves are applied with the same capacity check as new bookings; if a booking made
+     * meanwhile took seats the plan relied on, nothing is changed and an
+     * {@link IllegalStateException} asks the caller to try again.
+     */
+    @Transactional
+    public FleetAssignmentResult reoptimize(LocalDate date) {
+        long started = System.nanoTime();
+        List<BookingEntity> pending = bookingRepository.lockByStatusStartingBetween(BookingEntity.Status.Pending,
+                date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+        if (pending.isEmpty()) {
+            return new FleetAssignmentResult(date, 0, 0, 0, 0, 0, (System.nanoTime() - started) / 1_000_000);
+        }
+
+        Map<Long, VehicleEntity> vehicles = new HashMap<>();
+        List<FleetPacker.Vehicle> fleet = new ArrayList<>();
+        for (VehicleEntity vehicle : vehicleRepository.findByStatus(AVAILABLE)) {
+            vehicles.put(vehicle.getVehicleId(), vehicle);
+            fleet.add(new FleetPacker.Vehicle(vehicle.getVehicleId(), vehicle.getCapacity()));
+        }
+        FleetPacker packer = new FleetPacker(fleet);
+
+        Set<Long> ids = new HashSet<>();
+        List<FleetPacker.Trip> trips = new ArrayList<>();
+        LocalDateTime from = null;
+        LocalDateTime to = null;
+        for (BookingEntity booking : pending) {
+            ids.add(booking.getBookingID());
+            trips.add(new FleetPacker.Trip(booking.getBookingID(),
+                    booking.getVehicle() != null ? booking.getVehicle().getVehicleId() : FleetPacker.NONE,
+                    SeatTimeline.floorMinute(booking.getStartDate()), SeatTimeline.ceilMinute(booking.getEndDate()),
+                    booking.getNumberOfPassengers()));
+            from = from == null || booking.getStartDate().isBefore(from) ? booking.getStartDate() : from;
+            to = to == null || booking.getEndDate().isAfter(to) ? booking.getEndDate() : to;
+        }
+        for (BookingRepository.SeatWindow window : bookingRepository.findSeatWindowsBetween(
+                SeatAvailabilityIndex.HOLDING_STATUSES, from, to)) {
+            if (!ids.contains(window.getBookingID()) && window.getVehicleId() != null) {
+                packer.hold(window.getVehicleId(), SeatTimeline.floorMinute(window.getStartDate()),
+                        SeatTimeline.ceilMinute(window.getEndDate()), window.getNumberOfPassengers());
+            }
+        }
+
+        Map<Long, Long> placed = packer.pack(trips);
+
+        Set<Long> usedBefore = new HashSet<>();
+        Set<Long> usedAfter = new HashSet<>();
+        List<BookingEntity> moving = new ArrayList<>();
+        List<VehicleEntity> targets = new ArrayList<>();
+        int unplaced = 0;
+        for (BookingEntity booking : pending) {
+            Long current = booking.getVehicle() != null ? booking.getVehicle().getVehicleId() : null;
+            Long target = placed.get(booking.getBookingID());
+            if (current != null) {
+                usedBefore.add(current);
+            }
+            if (target == null) {
+                unplaced++;
+                if (current != null) {
+                    usedAfter.add(current);
+                }
+                continue;
+            }
+            usedAfter.add(target);
+            if (!Objects.equals(current, target)) {
+                moving.add(booking);
+                targets.add(vehicles.get(target));
+            }
+        }
+
+        // Give back every old seat first so that two bookings trading vehicles do not block
+        // each other, then take the new ones with the usual capacity check
+        for (BookingEntity booking : moving) {
+            SeatAvailabilityIndex.Hold before = SeatAvailabilityIndex.Hold.of(booking);
+            if (before != null) {
+                seatAvailabilityIndex.release(before);
+            }
+        }
+        for (int i = 0; i < moving.size(); i++) {
+            BookingEntity booking = moving.get(i);
+            booking.setVehicle(targets.get(i));
+            SeatAvailabilityIndex.Hold after = SeatAvailabilityIndex.Hold.of(booking);
+            if (after != null && !seatAvailabilityIndex.tryHold(after, targets.get(i).getCapacity())) {
+                // Rolling back restores every hold released or taken above
+                throw new IllegalStateException("Seats changed while re-optimizing the fleet; try again.");
+            }
+        }
+        bookingRepository.saveAll(moving);
+        tableVersions.changed(TableVersions.Table.BOOKINGS);
+
+        return new FleetAssignmentResult(date, pending.size(), moving.size(), unplaced,
+                usedBefore.size(), usedAfter.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private record Fit(Long vehicleId, int capacity, int left) {
+    }
+
+    private static boolean isWindowed(BookingEntity booking) {
+        return booking.getStartDate() != null && booking.getEndDate() != null
+                && booking.getEndDate().isAfter(booking.getStartDate());
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.eduwheels.Service;
+
+import com.google.cloud.WriteChannel;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+// Photos in a Google Cloud Storage bucket, served by GCS itself
+@Service
+@ConditionalOnProperty(name = "blobstore.type", havingValue = "gcs", matchIfMissing = true)
+public class GcsBlobStore implements BlobStore {
+
+    private final Storage storage;
+    private final String bucketName;
+    private final int chunkBytes; // bytes a resumable upload sends per request; GCS wants a multiple of 256 KiB
+
+    public GcsBlobStore(Storage storage,
+                        @Value("${gcs.bucket.name}") String bucketName,
+                        @Value("${uploads.photo.chunk-bytes:1048576}") int chunkBytes) {
+        this.storage = storage;
+        this.bucketName = bucketName;
+        this.chunkBytes = chunkBytes;
+    }
+
+    @Override
+    public Upload create(String name, String contentType) {
+        BlobInfo blobInfo = BlobInfo.newBuilder(BlobId.of(bucketName, name))
+                .setContentType(contentType)
+                .build();
+        WriteChannel writer = storage.writer(blobInfo);
+        writer.setChunkSize(chunkBytes); // write() blocks while a chunk is in flight
+        return new Upload() {
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                return writer.write(src);
+            }
+
+            @Override
+            public boolean isOpen() {
+                return writer.isOpen();
+            }
+
+            @Override
+            public void close() throws IOException {
+                writer.close();
+            }
+
+            @Override
+            public void abort() {
+                // Closing is what makes the object appear, so an abandoned upload is just left as an
+                // unfinished resumable session, which GCS throws away by itself
+            }
+        };
+    }
+
+    @Override
+    public ReadableByteChannel open(String name) {
+        Blob blob = storage.get(BlobId.of(bucketName, name));
+        return blob != null ? blob.reader() : null;
+    }
+
+    @Override
+    public void copy(String sourceName, String targetName) {
+        storage.copy(Storage.CopyRequest.of(bucketName, sourceName, BlobId.of(bucketName, targetName))).getResult();
+    }
+
+    @Override
+    public boolean delete(String name) {
+        return storage.delete(BlobId.of(bucketName, name));
+    }
+
+    @Override
+    public String publicUrl(String name) {
+        return String.format("https://storage.googleapis.com/%s/%s", bucketName, name);
+    }
+}
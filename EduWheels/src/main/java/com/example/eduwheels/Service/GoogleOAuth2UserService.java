@@ -15,6 +15,9 @@ public class GoogleOAuth2UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TableVersions tableVersions;
+
     /**
      * Fetches an existing user by email or prepares a transient (unsaved)
      * UserEntity object for a new user based on OAuth2 details.
@@ -70,7 +73,9 @@ public class GoogleOAuth2UserService {
         if (user.getUserid() == null && userRepository.findByEmail(user.getEmail()).isPresent()) {
             throw new IllegalStateException("Cannot save new user, email already exists: " + user.getEmail());
         }
-        return userRepository.save(user);
+        UserEntity saved = userRepository.save(user);
+        tableVersions.changed(TableVersions.Table.USERS);
+        return saved;
     }
 
     /**
@@ -0,0 +1,275 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Entity.IdempotencyKeyEntity;
+import com.example.eduwheels.Repository.IdempotencyKeyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Makes a POST safe to retry: the first request with a given Idempotency-Key runs, every
+ * replay within the TTL gets the stored response back without running the action again.
+ *
+ * Keys are scoped to the signed-in user. Recent keys live in a bounded in-memory map; the
+ * table behind it covers restarts and other instances, and its primary key is what finally
+ * stops two instances from both running the same request. A double tap that arrives while
+ * the first request is still running waits for it instead of racing it.
+ *
+ * Every key has the same TTL, so insertion order is expiry order and the in-memory store
+ * evicts from the head of a FIFO queue: O(1) per lookup and per eviction, no scans.
+ */
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    public static final int MAX_KEY_LENGTH = 255;
+
+    @Value("${idempotency.ttl:PT24H}")
+    private Duration ttl;
+
+    @Value("${idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${idempotency.in-flight-wait:PT10S}")
+    private Duration inFlightWait;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> expiryOrder = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Runs {@code action} once per key and stores its result as the response, or replays the
+     * stored response. The action and the key row commit in the same transaction.
+     *
+     * @throws ConflictException when the key was used for a different request (422) or the
+     *                           original request is still running after the wait (409)
+     */
+    public StoredResponse execute(String key, Object request, HttpStatus status, Supplier<Object> action) {
+        String keyHash = sha256(scope() + "\n" + key);
+        String requestHash = sha256(toJson(request));
+        evictExpired();
+
+        while (true) {
+            long now = System.currentTimeMillis();
+            Entry existing = entries.get(keyHash);
+            if (existing != null && !existing.isExpired(now)) {
+                StoredResponse replay = await(existing, requestHash);
+                if (replay != null) {
+                    return replay;
+                }
+                continue; // the original failed and left; try again as the first request
+            }
+            if (existing != null) {
+                entries.remove(keyHash, existing);
+            }
+
+            Optional<IdempotencyKeyEntity> stored = findLive(keyHash);
+            if (stored.isPresent()) {
+                return replay(stored.get(), requestHash);
+            }
+
+            Entry mine = new Entry(keyHash, requestHash, now + ttl.toMillis());
+            if (entries.putIfAbsent(keyHash, mine) != null) {
+                continue;
+            }
+            expiryOrder.add(mine);
+            evictExpired();
+
+            try {
+                StoredResponse response = new TransactionTemplate(transactionManager).execute(tx -> {
+                    String body = toJson(action.get());
+                    LocalDateTime created = LocalDateTime.now();
+                    // A key reused after its TTL can still have its old row until the next purge
+                    idempotencyKeyRepository.deleteIfExpired(keyHash, created);
+                    entityManager.persist(new IdempotencyKeyEntity(keyHash, requestHash, status.value(), body,
+                            created, created.plus(ttl)));
+                    entityManager.flush();
+                    return new StoredResponse(status.value(), body, false);
+                });
+                mine.result.complete(response);
+                return response;
+            } catch (RuntimeException e) {
+                entries.remove(keyHash, mine);
+                mine.result.complete(null);
+                // Another instance may have committed the same key first; then this run was rolled back
+                Optional<IdempotencyKeyEntity> winner = findLive(keyHash);
+                if (winner.isPresent()) {
+                    return replay(winner.get(), requestHash);
+                }
+                throw e;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval:PT1H}")
+    @Transactional
+    public int purgeExpired() {
+        evictExpired();
+        return idempotencyKeyRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    int cachedKeys() {
+        return entries.size();
+    }
+
+    private StoredResponse await(Entry entry, String requestHash) {
+        if (!entry.requestHash.equals(requestHash)) {
+            throw new ConflictException(HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency-Key was already used for a different request.");
+        }
+        try {
+            StoredResponse original = entry.result.get(inFlightWait.toMillis(), TimeUnit.MILLISECONDS);
+            return original != null ? original.asReplay() : null;
+        } catch (TimeoutException e) {
+            throw new ConflictException(HttpStatus.CONFLICT, "A request with this Idempotency-Key is still being processed.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException(HttpStatus.CONFLICT, "A request with this Idempotency-Key is still being processed.");
+        } catch (ExecutionException e) {
+            return null;
+        }
+    }
+
+    private StoredResponse replay(IdempotencyKeyEntity stored, String requestHash) {
+        Entry entry = new Entry(stored.getKeyHash(), stored.getRequestHash(), System.currentTimeMillis()
+                + Math.max(0, Duration.between(LocalDateTime.now(), stored.getExpiresAt()).toMillis()));
+        StoredResponse response = new StoredResponse(stored.getResponseStatus(), stored.getResponseBody(), false);
+        entry.result.complete(response);
+        if (entries.putIfAbsent(entry.keyHash, entry) == null) {
+            expiryOrder.add(entry);
+        }
+        if (!stored.getRequestHash().equals(requestHash)) {
+            throw new ConflictException(HttpStatus.UNPROCESSABLE_ENTITY, "Idempotency-Key was already used for a different request.");
+        }
+        return response.asReplay();
+    }
+
+    private Optional<IdempotencyKeyEntity> findLive(String keyHash) {
+        return idempotencyKeyRepository.findById(keyHash).filter(k -> k.getExpiresAt().isAfter(LocalDateTime.now()));
+    }
+
+    // Drops expired keys, then the oldest ones while over capacity. Entries replayed from the
+    // table can expire a little before the ones ahead of them; lookups check expiry anyway.
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        Entry head;
+        while ((head = expiryOrder.peek()) != null && (head.isExpired(now) || entries.size() > maxEntries)) {
+            if (expiryOrder.remove(head)) {
+                entries.remove(head.keyHash, head);
+            }
+        }
+    }
+
+    private String scope() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null ? authentication.getName() : "anonymous";
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize idempotent request/response", e);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Entry {
+        private final String keyHash;
+        private final String requestHash;
+        private final long expiresAtMillis;
+        private final CompletableFuture<StoredResponse> result = new CompletableFuture<>();
+
+        private Entry(String keyHash, String requestHash, long expiresAtMillis) {
+            this.keyHash = keyHash;
+            this.requestHash = requestHash;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAtMillis;
+        }
+    }
+
+    /**
+     * The response to send: the original one or a replay of it. The body is already JSON.
+     */
+    public static final class StoredResponse {
+        private final int status;
+        private final String body;
+        private final boolean replayed;
+
+        private StoredResponse(int status, String body, boolean replayed) {
+            this.status = status;
+            this.body = body;
+            this.replayed = replayed;
+        }
+
+        private StoredResponse asReplay() {
+            return new StoredResponse(status, body, true);
+        }
+
+        public int getStatus() { return status; }
+        public String getBody() { return body; }
+        public boolean isReplayed() { return replayed; }
+    }
+
+    public static class ConflictException extends RuntimeException {
+        private final HttpStatus status;
+
+        public ConflictException(HttpStatus status, String message) {
+            super(message);
+            this.status = status;
+        }
+
+        public HttpStatus getStatus() {
+            return status;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.eduwheels.Service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+/**
+ * Photos in a local directory ({@code blobstore.local.root}), served by
+ * {@link com.example.eduwheels.Controller.LocalBlobController} under
+ * {@code blobstore.local.public-url}. Uploads go to a ".part" file next to the target and are
+ * moved into place on close, so a reader never sees half an object.
+ */
+@Service
+@ConditionalOnProperty(name = "blobstore.type", havingValue = "local")
+public class LocalBlobStore implements BlobStore {
+
+    private final Path root;
+    private final String publicUrl;
+
+    public LocalBlobStore(@Value("${blobstore.local.root:uploads}") String root,
+                          @Value("${blobstore.local.public-url:http://localhost:8080/api/vehicles/uploads}") String publicUrl)
+            throws IOException {
+        this.root = Files.createDirectories(Paths.get(root)).toAbsolutePath().normalize();
+        this.publicUrl = publicUrl.endsWith("/") ? publicUrl.substring(0, publicUrl.length() - 1) : publicUrl;
+    }
+
+    @Override
+    public Upload create(String name, String contentType) throws IOException {
+        Path target = resolve(name);
+        Files.createDirectories(target.getParent());
+        Path part = target.resolveSibling(target.getFileName() + "." + UUID.randomUUID() + ".part");
+        FileChannel file = FileChannel.open(part, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        return new Upload() {
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                return file.write(src);
+            }
+
+            @Override
+            public boolean isOpen() {
+                return file.isOpen();
+            }
+
+            @Override
+            public void close() throws IOException {
+                if (!file.isOpen()) {
+                    return;
+                }
+                file.close();
+                Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+
+            @Override
+            public void abort() {
+                try {
+                    file.close();
+                    Files.deleteIfExists(part);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        };
+    }
+
+    @Override
+    public ReadableByteChannel open(String name) throws IOException {
+        Path file = find(name);
+        return file != null ? FileChannel.open(file) : null;
+    }
+
+    @Override
+    public void copy(String sourceName, String targetName) throws IOException {
+        Path target = resolve(targetName);
+        Files.createDirectories(target.getParent());
+        Path part = target.resolveSibling(target.getFileName() + "." + UUID.randomUUID() + ".part");
+        try {
+            Files.copy(resolve(sourceName), part);
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(part);
+        }
+    }
+
+    @Override
+    public boolean delete(String name) throws IOException {
+        return Files.deleteIfExists(resolve(name));
+    }
+
+    @Override
+    public String publicUrl(String name) {
+        return publicUrl + "/" + name;
+    }
+
+    /**
+     * The file behind an object, or null if there is none (including names that would point
+     * outside the root, or at an upload still in progress).
+     */
+    public Path find(String name) {
+        try {
+            Path path = resolve(name);
+            return !path.getFileName().toString().endsWith(".part") && Files.isRegularFile(path) ? path : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private Path resolve(String name) {
+        Path path = root.resolve(name).normalize();
+        if (!path.startsWith(root) || path.equals(root)) {
+            throw new IllegalArgumentException("Invalid object name: " + name);
+        }
+        return path;
+    }
+}
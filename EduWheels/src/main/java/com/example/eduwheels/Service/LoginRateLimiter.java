@@ -0,0 +1,100 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Utils.TokenBucketLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles POST /users/login per client IP and per account (schoolid), in memory, before the
+ * user lookup and the BCrypt check. Credential stuffing from one address runs into the IP limit;
+ * guessing one account's password from many addresses runs into the account limit.
+ *
+ * The IP is checked first, so attempts an address isn't allowed don't use up the account's
+ * allowance as well. Each instance counts on its own, so behind N instances the limits are up to N
+ * times higher.
+ */
+@Service
+public class LoginRateLimiter {
+
+    @Value("${login.rate-limit.ip.capacity:20}")
+    private int ipCapacity;
+
+    @Value("${login.rate-limit.ip.refill:PT3S}")
+    private Duration ipRefill;
+
+    @Value("${login.rate-limit.account.capacity:10}")
+    private int accountCapacity;
+
+    @Value("${login.rate-limit.account.refill:PT30S}")
+    private Duration accountRefill;
+
+    @Value("${login.rate-limit.max-entries:100000}")
+    private int maxEntries;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private TokenBucketLimiter byIp;
+    private TokenBucketLimiter byAccount;
+    private Counter allowed;
+    private Counter rejectedByIp;
+    private Counter rejectedByAccount;
+
+    @PostConstruct
+    void init() {
+        int stripes = 64;
+        byIp = new TokenBucketLimiter(ipCapacity, ipRefill, maxEntries, stripes);
+        byAccount = new TokenBucketLimiter(accountCapacity, accountRefill, maxEntries, stripes);
+        allowed = Counter.builder("login.rate-limit.allowed")
+                .description("Login attempts let through to the lookup")
+                .register(meterRegistry);
+        rejectedByIp = Counter.builder("login.rate-limit.rejected")
+                .description("Login attempts refused with 429 before any lookup or hashing")
+                .tag("limit", "ip")
+                .register(meterRegistry);
+        rejectedByAccount = Counter.builder("login.rate-limit.rejected")
+                .description("Login attempts refused with 429 before any lookup or hashing")
+                .tag("limit", "account")
+                .register(meterRegistry);
+        Gauge.builder("login.rate-limit.buckets", byIp, TokenBucketLimiter::size)
+                .tag("limit", "ip")
+                .register(meterRegistry);
+        Gauge.builder("login.rate-limit.buckets", byAccount, TokenBucketLimiter::size)
+                .tag("limit", "account")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Counts one login attempt: 0 if it may go ahead, otherwise the seconds to wait (Retry-After).
+     */
+    public long check(String schoolid, String clientIp) {
+        long wait = clientIp != null ? byIp.tryAcquire(clientIp) : 0;
+        if (wait > 0) {
+            rejectedByIp.increment();
+            return seconds(wait);
+        }
+        // Stored without dashes, so "21-0001-001" and "210001001" are the same account and share a bucket
+        String account = schoolid != null ? schoolid.trim().replace("-", "") : "";
+        if (!account.isEmpty()) {
+            wait = byAccount.tryAcquire(account);
+            if (wait > 0) {
+                rejectedByAccount.increment();
+                return seconds(wait);
+            }
+        }
+        allowed.increment();
+        return 0;
+    }
+
+    private static long seconds(long nanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(nanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.eduwheels.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt off the request threads. A hash takes tens of milliseconds of CPU on purpose, so a burst of
+ * logins at the start of term used to occupy every Tomcat thread and stall unrelated endpoints.
+ *
+ * Hashing runs on {@code passwords.workers} threads with at most {@code passwords.queue-capacity}
+ * hashes waiting. Past that, {@link #encode} and {@link #verify} throw RejectedExecutionException
+ * straight away, and the controller answers 503 with {@link #retryAfterSeconds}. Controllers return
+ * the future, so the request thread is free while the hash waits and runs.
+ *
+ * The returned futures complete on a separate pool of {@code passwords.callback-threads}, so what the
+ * caller chains on them (user lookups, token inserts) waits on the database without holding a hashing
+ * thread.
+ *
+ * A password that checks out against a hash made at a different cost ({@code passwords.bcrypt.cost})
+ * is rehashed in the same task, and the caller stores the new hash.
+ */
+@Service
+public class PasswordHashingService {
+
+    // "$2a$10$..." after the optional "{bcrypt}" id
+    private static final Pattern BCRYPT_COST = Pattern.compile("^(?:\\{bcrypt})?\\$2[abxy]?\\$(\\d{2})\\$");
+
+    public record Verification(boolean matches, String upgradedHash) {
+    }
+
+    @Value("${passwords.workers:2}")
+    private int workers;
+
+    @Value("${passwords.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${passwords.callback-threads:8}")
+    private int callbackThreads;
+
+    @Value("${passwords.bcrypt.cost:10}")
+    private int cost;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ThreadPoolExecutor pool;
+    private ExecutorService callbacks;
+    private Timer encoding;
+    private Timer verifying;
+    private Timer queueWait;
+    private Counter rejected;
+    private Counter upgraded;
+
+    @PostConstruct
+    void start() {
+        pool = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), daemonThreads("password-hash-"));
+        // Unbounded, but fed no faster than the hashing pool finishes
+        callbacks = Executors.newFixedThreadPool(callbackThreads, daemonThreads("password-then-"));
+        encoding = hashTimer("encode");
+        verifying = hashTimer("verify");
+        queueWait = Timer.builder("passwords.queue.wait")
+                .description("Time a password waited for a hashing thread")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        rejected = Counter.builder("passwords.rejected")
+                .description("Logins and signups turned away with 503 because the hashing queue was full")
+                .register(meterRegistry);
+        upgraded = Counter.builder("passwords.upgraded")
+                .description("Stored hashes redone at the configured cost after a login")
+                .register(meterRegistry);
+        Gauge.builder("passwords.queue.size", pool, p -> p.getQueue().size())
+                .register(meterRegistry);
+        Gauge.builder("passwords.active", pool, ThreadPoolExecutor::getActiveCount)
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void stop() {
+        pool.shutdownNow();
+        callbacks.shutdownNow();
+    }
+
+    /**
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public CompletableFuture<String> encode(String rawPassword) {
+        return submit(encoding, () -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Whether the password matches; if it does and the hash was made at another cost, the new hash
+     * to store in its place.
+     *
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public CompletableFuture<Verification> verify(String rawPassword, String storedHash) {
+        if (rawPassword == null || storedHash == null || storedHash.isEmpty()) {
+            return CompletableFuture.completedFuture(new Verification(false, null));
+        }
+        return submit(verifying, () -> {
+            if (!passwordEncoder.matches(rawPassword, storedHash)) {
+                return new Verification(false, null);
+            }
+            if (!needsUpgrade(storedHash)) {
+                return new Verification(true, null);
+            }
+            upgraded.increment();
+            return new Verification(true, passwordEncoder.encode(rawPassword));
+        });
+    }
+
+    // Stored without the {bcrypt} id, or at a cost other than the configured one (up or down)
+    boolean needsUpgrade(String storedHash) {
+        if (passwordEncoder.upgradeEncoding(storedHash)) {
+            return true;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(storedHash);
+        return !matcher.find() || Integer.parseInt(matcher.group(1)) != cost;
+    }
+
+    // About how long until the queue ahead of a new request has drained, for Retry-After
+    public long retryAfterSeconds() {
+        double perHash = verifying.count() > 0 ? verifying.mean(TimeUnit.SECONDS) : 0.1;
+        double seconds = (pool.getQueue().size() + workers) * perHash / workers;
+        return Math.max(1, (long) Math.ceil(seconds));
+    }
+
+    private <T> CompletableFuture<T> submit(Timer timer, Supplier<T> work) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        long queuedAt = System.nanoTime();
+        try {
+            pool.execute(() -> {
+                long started = System.nanoTime();
+                queueWait.record(started - queuedAt, TimeUnit.NANOSECONDS);
+                T value = null;
+                RuntimeException failure = null;
+                try {
+                    value = work.get();
+                } catch (RuntimeException e) {
+                    failure = e;
+                } finally {
+                    timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                }
+                // Completing here would run the caller's continuation on this hashing thread
+                T hashed = value;
+                RuntimeException failed = failure;
+                callbacks.execute(() -> {
+                    if (failed != null) {
+                        result.completeExceptionally(failed);
+                    } else {
+                        result.complete(hashed);
+                    }
+                });
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw e;
+        }
+        return result;
+    }
+
+    private Timer hashTimer(String operation) {
+        return Timer.builder("passwords.hash")
+                .description("Time spent hashing or checking one password")
+                .tag("operation", operation)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
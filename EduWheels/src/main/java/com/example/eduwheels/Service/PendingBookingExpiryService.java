@@ -0,0 +1,200 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Dto.BookingStatusEvent;
+import com.example.eduwheels.Entity.BookingEntity;
+import com.example.eduwheels.Repository.BookingRepository;
+import com.example.eduwheels.Utils.HierarchicalTimingWheel;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cancels Pending bookings that nobody approved or rejected within the hold time, giving
+ * their seats back.
+ *
+ * Deadlines live in a {@link HierarchicalTimingWheel} seeded from tblbooking at startup and
+ * kept current by {@link BookingService} on every create, update and delete, so nothing ever
+ * scans the booking table on a timer. Each second the wheel hands over the bookings that came
+ * due; they are re-checked and canceled in batches of one locking SELECT, one UPDATE and one
+ * seat release per vehicle.
+ *
+ * A booking that stops being Pending is only dropped from {@link #deadlines}; its wheel entry
+ * stays until it fires and is then skipped. A batch that fails (lock timeout, lost connection)
+ * goes back on the wheel {@code booking.expiry-retry} later; the other batches of the pass still run.
+ */
+@Service
+public class PendingBookingExpiryService {
+
+    private static final long TICK_MILLIS = 1000;
+    // 4 levels of 64 slots at 1s per tick cover about 194 days before the overflow list
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_LEVELS = 4;
+
+    @Value("${booking.pending-hold:PT48H}")
+    private Duration holdTime;
+
+    @Value("${booking.expiry-batch-size:500}")
+    private int batchSize;
+
+    @Value("${booking.expiry-retry:PT30S}")
+    private Duration retryDelay;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private SeatReservationEngine seatReservationEngine;
+
+    @Autowired
+    private BookingEventHub bookingEventHub;
+
+    @Autowired
+    private TableVersions tableVersions;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final HierarchicalTimingWheel<Due> wheel =
+            new HierarchicalTimingWheel<>(TICK_MILLIS, WHEEL_BITS, WHEEL_LEVELS, System.currentTimeMillis());
+    private final Map<Long, Long> deadlines = new ConcurrentHashMap<>();
+
+    private Counter expiredCounter;
+    private Counter failedCounter;
+    private Timer expiryLag;
+
+    @PostConstruct
+    void registerMetrics() {
+        meterRegistry.gauge("bookings.pending.expiry.queue", deadlines, Map::size);
+        expiredCounter = Counter.builder("bookings.pending.expired")
+                .description("Pending bookings canceled because the hold time ran out")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("bookings.pending.expiry.failed")
+                .description("Expiry batches that failed and were put back for a retry")
+                .register(meterRegistry);
+        expiryLag = Timer.builder("bookings.pending.expiry.lag")
+                .description("Time between a booking's expiry deadline and its cancellation")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        for (BookingRepository.RequestTime pending : bookingRepository.findRequestTimesByStatus(BookingEntity.Status.Pending)) {
+            schedule(pending.getBookingID(), pending.getRequestDate());
+        }
+    }
+
+    /**
+     * Starts, keeps or stops the expiry clock of a saved booking according to its status.
+     */
+    public void track(BookingEntity booking) {
+        if (booking.getBookingID() == null) {
+            return;
+        }
+        if (booking.getStatus() == BookingEntity.Status.Pending && booking.getRequestDate() != null) {
+            schedule(booking.getBookingID(), booking.getRequestDate());
+        } else {
+            deadlines.remove(booking.getBookingID());
+        }
+    }
+
+    public void forget(Long bookingId) {
+        deadlines.remove(bookingId);
+    }
+
+    @Scheduled(fixedDelay = TICK_MILLIS)
+    public void expireDue() {
+        long now = System.currentTimeMillis();
+        List<Long> due = new ArrayList<>();
+        synchronized (wheel) {
+            wheel.advance(now, entry -> {
+                // Skip bookings that were approved, deleted or rescheduled since
+                if (deadlines.remove(entry.bookingId, entry.deadline)) {
+                    due.add(entry.bookingId);
+                    expiryLag.record(Math.max(0, now - entry.deadline), TimeUnit.MILLISECONDS);
+                }
+            });
+        }
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<Long> batch = due.subList(from, Math.min(due.size(), from + batchSize));
+            try {
+                expire(batch);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                failedCounter.increment();
+                retryLater(batch, now + retryDelay.toMillis());
+            }
+        }
+    }
+
+    // Keeps a deadline set by an update in the meantime; one that is no longer Pending fails the re-check
+    private void retryLater(List<Long> ids, long deadline) {
+        for (Long id : ids) {
+            if (deadlines.putIfAbsent(id, deadline) == null) {
+                synchronized (wheel) {
+                    wheel.schedule(new Due(id, deadline), deadline);
+                }
+            }
+        }
+    }
+
+    int queued() {
+        return deadlines.size();
+    }
+
+    private void expire(List<Long> ids) {
+        Integer expired = new TransactionTemplate(transactionManager).execute(tx -> {
+            // Re-check in the database: the booking may have changed on another instance
+            LocalDateTime cutoff = LocalDateTime.now().minus(holdTime);
+            List<BookingEntity> bookings = bookingRepository.lockExpiredPending(ids, cutoff);
+            if (bookings.isEmpty()) {
+                return 0;
+            }
+            seatReservationEngine.releaseAll(bookings);
+            int updated = bookingRepository.updateStatus(bookings.stream().map(BookingEntity::getBookingID).toList(),
+                    BookingEntity.Status.Canceled);
+            tableVersions.changed(TableVersions.Table.BOOKINGS);
+            LocalDateTime changedAt = LocalDateTime.now();
+            for (BookingEntity booking : bookings) {
+                bookingEventHub.publishAfterCommit(new BookingStatusEvent(booking.getBookingID(),
+                        booking.getUser().getUserid(), BookingEntity.Status.Pending, BookingEntity.Status.Canceled,
+                        changedAt));
+            }
+            return updated;
+        });
+        expiredCounter.increment(expired != null ? expired : 0);
+    }
+
+    private void schedule(Long bookingId, LocalDateTime requestDate) {
+        long deadline = requestDate.plus(holdTime).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        Long previous = deadlines.put(bookingId, deadline);
+        if (previous == null || previous != deadline) {
+            synchronized (wheel) {
+                wheel.schedule(new Due(bookingId, deadline), deadline);
+            }
+        }
+    }
+
+    private record Due(Long bookingId, long deadline) {
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Entity.PhotoBlobEntity;
+import com.example.eduwheels.Repository.PhotoBlobRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Reference counts for the content-addressed photo objects in the bucket.
+ *
+ * A blob gets a row once it is fully uploaded, with no references; vehicles add and drop
+ * references in the same transaction that changes their photo columns. Blobs at zero for longer
+ * than photos.gc.grace are deleted by a background sweep. The grace period covers the gap between
+ * an upload reusing or storing a blob (which touches it) and the vehicle recording it, and gives
+ * a photo removed by mistake a little while to come back without another transfer.
+ *
+ * Objects that aren't in the table (photos from before content addressing) are never touched.
+ */
+@Service
+public class PhotoBlobService {
+
+    @Value("${photos.gc.grace:PT1H}")
+    private Duration grace;
+
+    @Value("${photos.gc.batch-size:500}")
+    private int batchSize;
+
+    @Autowired
+    private PhotoBlobRepository photoBlobRepository;
+
+    @Autowired
+    private BlobStore blobStore;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter reused;
+    private Counter collected;
+
+    @PostConstruct
+    void registerMeters() {
+        reused = Counter.builder("photos.blobs.reused")
+                .description("Photo uploads skipped because the same content was already stored")
+                .register(meterRegistry);
+        collected = Counter.builder("photos.blobs.collected")
+                .description("Unreferenced photo objects deleted from the bucket")
+                .register(meterRegistry);
+    }
+
+    /**
+     * True if the object is stored and registered, in which case it is safe from the sweep for
+     * the grace period and the caller can use it without uploading.
+     */
+    @Transactional
+    public boolean reuse(String objectName) {
+        boolean stored = photoBlobRepository.touch(objectName, LocalDateTime.now()) > 0;
+        if (stored) {
+            reused.increment();
+        }
+        return stored;
+    }
+
+    // Called once the object is fully uploaded
+    public void register(String objectName, long sizeBytes) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        try {
+            tx.executeWithoutResult(status -> {
+                if (photoBlobRepository.touch(objectName, LocalDateTime.now()) == 0) {
+                    photoBlobRepository.saveAndFlush(new PhotoBlobEntity(objectName, sizeBytes, LocalDateTime.now()));
+                }
+            });
+        } catch (DataIntegrityViolationException e) { // same content uploaded at the same time elsewhere
+            tx.executeWithoutResult(status -> photoBlobRepository.touch(objectName, LocalDateTime.now()));
+        }
+    }
+
+    // Names that aren't registered are ignored
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addReferences(Collection<String> objectNames) {
+        if (!objectNames.isEmpty()) {
+            photoBlobRepository.addReference(objectNames);
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void removeReferences(Collection<String> objectNames) {
+        if (!objectNames.isEmpty()) {
+            photoBlobRepository.removeReference(objectNames, LocalDateTime.now());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${photos.gc.interval:PT15M}", initialDelayString = "${photos.gc.interval:PT15M}")
+    public int collectGarbage() {
+        return sweep(LocalDateTime.now().minus(grace));
+    }
+
+    /**
+     * Deletes blobs unreferenced since before the cutoff. Each one is deleted from the bucket while
+     * its row is locked, and the row only goes once that succeeded, so a concurrent upload of the
+     * same content either keeps it alive or waits and uploads it afresh.
+     */
+    int sweep(LocalDateTime cutoff) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        int deleted = 0;
+        List<String> names;
+        do {
+            names = photoBlobRepository.findCollectable(cutoff, PageRequest.of(0, batchSize));
+            for (String name : names) {
+                Boolean gone = tx.execute(status -> photoBlobRepository.lockCollectable(name, cutoff)
+                        .map(blob -> {
+                            try {
+                                blobStore.delete(name); // false if already gone, which is fine
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                            photoBlobRepository.delete(blob);
+                            return true;
+                        })
+                        .orElse(false));
+                if (Boolean.TRUE.equals(gone)) {
+                    deleted++;
+                    collected.increment();
+                }
+            }
+        } while (names.size() == batchSize);
+        return deleted;
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.eduwheels.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Local disk copy of the photo objects clients load through {@code GET /api/vehicles/photos/**},
+ * so a carousel render costs a file read instead of a round trip to the bucket.
+ *
+ * At most {@code photos.cache.max-bytes} are kept under {@code photos.cache.dir}; the least
+ * recently served objects are deleted to make room. Which files are there, their sizes and the
+ * LRU order live in memory, rebuilt from the directory (oldest file first) on startup. Concurrent
+ * misses for the same object share one fetch from the {@link BlobStore}.
+ *
+ * Objects are named by their content hash and never change, so nothing is ever invalidated; an
+ * object the blob GC has deleted just ages out of here like any other.
+ */
+@Service
+public class PhotoCache {
+
+    private final BlobStore blobStore;
+    private final Path root;
+    private final long maxBytes;
+
+    // Guarded by itself, like the total below; access order, so the first entry is the next to go
+    private final LinkedHashMap<String, Long> sizes = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+    private final Map<String, CompletableFuture<Boolean>> fills = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter bytesSaved;
+    private final Counter evictions;
+
+    public PhotoCache(BlobStore blobStore,
+                      MeterRegistry meterRegistry,
+                      @Value("${photos.cache.dir:${java.io.tmpdir}/eduwheels-photo-cache}") String dir,
+                      @Value("${photos.cache.max-bytes:536870912}") long maxBytes) throws IOException {
+        this.blobStore = blobStore;
+        this.root = Files.createDirectories(Paths.get(dir)).toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+
+        hits = Counter.builder("photos.cache.hits")
+                .description("Photos served from the local disk cache, including misses that joined another request's fetch")
+                .register(meterRegistry);
+        misses = Counter.builder("photos.cache.misses")
+                .description("Photos fetched from the blob store")
+                .register(meterRegistry);
+        bytesSaved = Counter.builder("photos.cache.bytes.saved")
+                .description("Bytes served from the cache that would otherwise have come from the blob store")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        evictions = meterRegistry.counter("photos.cache.evictions");
+        Gauge.builder("photos.cache.hit.ratio", this, PhotoCache::hitRatio)
+                .register(meterRegistry);
+        Gauge.builder("photos.cache.size", this, PhotoCache::sizeBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        load();
+    }
+
+    /**
+     * The cached file for an object, opened for reading, or null if the blob store doesn't have it.
+     * The channel stays readable even if the file is evicted while the caller is still sending it.
+     */
+    public FileChannel open(String name) throws IOException {
+        Path file = resolve(name);
+        for (int attempt = 0; attempt < 3; attempt++) {
+            boolean cached;
+            synchronized (sizes) {
+                cached = sizes.get(name) != null; // also moves it to the back of the LRU order
+            }
+            if (cached) {
+                try {
+                    FileChannel channel = FileChannel.open(file);
+                    hits.increment();
+                    bytesSaved.increment(channel.size());
+                    return channel;
+                } catch (NoSuchFileException e) { // evicted since, or removed behind our back
+                    forget(name);
+                    continue;
+                }
+            }
+
+            CompletableFuture<Boolean> fill = new CompletableFuture<>();
+            CompletableFuture<Boolean> running = fills.putIfAbsent(name, fill);
+            boolean joined = running != null;
+            if (!joined) {
+                try {
+                    fill.complete(fetch(name, file));
+                } catch (IOException | RuntimeException e) {
+                    fill.completeExceptionally(e);
+                } finally {
+                    fills.remove(name, fill);
+                }
+                running = fill;
+            }
+            boolean found;
+            try {
+                found = running.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof IOException io) {
+                    throw io;
+                }
+                throw e;
+            }
+            if (!found) {
+                return null;
+            }
+            try {
+                FileChannel channel = FileChannel.open(file);
+                if (joined) {
+                    hits.increment();
+                    bytesSaved.increment(channel.size());
+                }
+                return channel;
+            } catch (NoSuchFileException e) {
+                forget(name); // evicted straight away by other fills; go round again
+            }
+        }
+        throw new IOException("Photo " + name + " keeps getting evicted; photos.cache.max-bytes is too small");
+    }
+
+    // Names that would land outside the cache directory, or clash with a fill in progress
+    public boolean isValidName(String name) {
+        try {
+            resolve(name);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    public double hitRatio() {
+        double served = hits.count() + misses.count();
+        return served == 0 ? 0 : hits.count() / served;
+    }
+
+    public long sizeBytes() {
+        synchronized (sizes) {
+            return totalBytes;
+        }
+    }
+
+    // Copies the object from the blob store; false if it isn't there
+    private boolean fetch(String name, Path file) throws IOException {
+        synchronized (sizes) {
+            if (sizes.containsKey(name)) { // filled between our lookup and taking the fill over
+                return true;
+            }
+        }
+        misses.increment();
+        Files.createDirectories(file.getParent());
+        Path part = file.resolveSibling(file.getFileName() + "." + UUID.randomUUID() + ".part");
+        long size;
+        try (ReadableByteChannel in = blobStore.open(name)) {
+            if (in == null) {
+                return false;
+            }
+            try (FileChannel out = FileChannel.open(part, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+                while (in.read(buffer) != -1) {
+                    buffer.flip();
+                    while (buffer.hasRemaining()) {
+                        out.write(buffer);
+                    }
+                    buffer.clear();
+                }
+                size = out.size();
+            }
+            Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(part);
+        }
+        add(name, size);
+        return true;
+    }
+
+    // Records a file and evicts from the front until everything fits, except the new file itself
+    private void add(String name, long size) {
+        List<String> evicted;
+        synchronized (sizes) {
+            Long previous = sizes.put(name, size);
+            totalBytes += size - (previous != null ? previous : 0);
+            evicted = new ArrayList<>();
+            Iterator<Map.Entry<String, Long>> eldest = sizes.entrySet().iterator();
+            while (totalBytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<String, Long> entry = eldest.next();
+                if (entry.getKey().equals(name)) {
+                    continue;
+                }
+                totalBytes -= entry.getValue();
+                evicted.add(entry.getKey());
+                eldest.remove();
+            }
+        }
+        for (String old : evicted) { // readers that already opened it keep their channel
+            try {
+                Files.deleteIfExists(resolve(old));
+                evictions.increment();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void forget(String name) {
+        synchronized (sizes) {
+            Long size = sizes.remove(name);
+            if (size != null) {
+                totalBytes -= size;
+            }
+        }
+    }
+
+    // Picks up what an earlier run left behind, least recently written first
+    private void load() throws IOException {
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(root)) {
+            files = walk.filter(Files::isRegularFile).toList();
+        }
+        List<Path> kept = new ArrayList<>();
+        for (Path file : files) {
+            if (file.getFileName().toString().endsWith(".part")) {
+                Files.deleteIfExists(file); // interrupted fill
+            } else {
+                kept.add(file);
+            }
+        }
+        kept.sort(Comparator.comparing(PhotoCache::lastModified));
+        for (Path file : kept) {
+            add(root.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/"), Files.size(file));
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path resolve(String name) {
+        Path path = root.resolve(name).normalize();
+        if (!path.startsWith(root) || path.equals(root) || name.endsWith(".part")) {
+            throw new IllegalArgumentException("Invalid object name: " + name);
+        }
+        return path;
+    }
+}
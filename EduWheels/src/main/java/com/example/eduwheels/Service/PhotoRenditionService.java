@@ -0,0 +1,305 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Entity.VehicleEntity;
+import com.example.eduwheels.Utils.ImageRenditions;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Turns uploaded vehicle photos into thumbnail/card/full JPEG renditions in the background.
+ *
+ * The upload request only spools the photo to a temp file and queues a job, so it returns as
+ * soon as the bytes are in. A fixed pool of workers then decodes it, stores the original and the
+ * renditions in the bucket and records their URLs on the vehicle. At most workers + queue-capacity
+ * photos are accepted at a time (each one holds a temp file); past that {@link #accept} refuses
+ * rather than letting the backlog and the disk grow without bound.
+ *
+ * Photos are content-addressed: the SHA-256 is taken while the upload is spooled, and the
+ * original and each rendition are named after it. A photo that was uploaded before (the same
+ * picture sent again with a vehicle edit, or for another vehicle) is neither decoded nor
+ * transferred again; the vehicle just points at the stored objects.
+ *
+ * Only the latest job per vehicle writes its result: a photo replaced while still processing
+ * finishes quietly, and whatever it stored is collected by {@link PhotoBlobService} later.
+ */
+@Service
+public class PhotoRenditionService {
+
+    public static final String PROCESSING = "Processing";
+    public static final String READY = "Ready";
+    public static final String FAILED = "Failed";
+
+    public static final ImageRenditions.Size THUMBNAIL = new ImageRenditions.Size("thumbnail", 160, 120);
+    public static final ImageRenditions.Size CARD = new ImageRenditions.Size("card", 640, 480);
+    public static final ImageRenditions.Size FULL = new ImageRenditions.Size("full", 1600, 1200);
+    // Rendition objects are named <sha256>-<size name>.jpg and reused by that name, so changing a
+    // size or the quality needs new size names, or old renditions keep being served
+    private static final List<ImageRenditions.Size> SIZES = List.of(THUMBNAIL, CARD, FULL);
+
+    @Value("${photos.workers:2}")
+    private int workers;
+
+    @Value("${photos.queue-capacity:50}")
+    private int queueCapacity;
+
+    @Value("${photos.jpeg-quality:0.82}")
+    private float jpegQuality;
+
+    @Autowired
+    private VehicleService vehicleService;
+
+    @Autowired
+    private PhotoBlobService photoBlobService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Latest job per vehicle; also what GET /api/vehicles/{id}/photo reports
+    private final Map<Long, Job> jobs = new ConcurrentHashMap<>();
+
+    private ExecutorService pool;
+    private Semaphore slots;
+    private Timer processing;
+    private Counter failed;
+
+    @PostConstruct
+    void start() {
+        pool = Executors.newFixedThreadPool(workers, daemonThreads("vehicle-photo-"));
+        slots = new Semaphore(workers + queueCapacity);
+        processing = Timer.builder("photos.renditions")
+                .description("Time from a photo being queued to its renditions being recorded")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        failed = Counter.builder("photos.renditions.failed")
+                .description("Photos that could not be decoded or stored")
+                .register(meterRegistry);
+        meterRegistry.gauge("photos.renditions.pending", slots,
+                s -> workers + queueCapacity - s.availablePermits());
+    }
+
+    @PreDestroy
+    void stop() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Takes the photo off the request (into a temp file) and reserves a place for it in the queue.
+     * Follow up with {@link #start} once the vehicle exists, or {@link #discard} if it won't.
+     *
+     * @throws RejectedExecutionException if the queue is full
+     */
+    public Job accept(MultipartFile photo) throws IOException {
+        vehicleService.checkPhotoSize(photo.getSize());
+        if (!slots.tryAcquire()) {
+            throw new RejectedExecutionException("Too many photos are being processed.");
+        }
+        Path source = null;
+        try {
+            source = Files.createTempFile("vehicle-photo-", ".upload");
+            MessageDigest sha256 = VehicleService.sha256();
+            try (InputStream in = new DigestInputStream(photo.getInputStream(), sha256)) {
+                Files.copy(in, source, StandardCopyOption.REPLACE_EXISTING);
+            }
+            vehicleService.checkPhotoSize(Files.size(source));
+            return new Job(source, HexFormat.of().formatHex(sha256.digest()), photo.getOriginalFilename(),
+                    photo.getContentType());
+        } catch (IOException | RuntimeException e) {
+            if (source != null) {
+                Files.deleteIfExists(source);
+            }
+            slots.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Queues the job for the vehicle and marks the vehicle as processing (in the database and on
+     * the entity passed in, which is usually about to be returned to the client).
+     */
+    public void start(Job job, VehicleEntity vehicle) {
+        Long vehicleId = vehicle.getVehicleId();
+        job.vehicleId = vehicleId;
+        jobs.put(vehicleId, job);
+        vehicleService.recordPhoto(vehicleId, () -> isCurrent(job), PROCESSING, null, null, null, null);
+        vehicle.setPhotoStatus(PROCESSING);
+        try {
+            pool.execute(() -> process(job));
+        } catch (RejectedExecutionException e) { // shutting down
+            finish(job, FAILED, "Server is shutting down.", null, null);
+        }
+    }
+
+    public void discard(Job job) {
+        deleteSource(job);
+        slots.release();
+    }
+
+    public Job getJob(Long vehicleId) {
+        return jobs.get(vehicleId);
+    }
+
+    private void process(Job job) {
+        job.startedAt = Instant.now();
+        try {
+            String prefix = "vehicles/" + job.sha256;
+            Map<String, String> urls = new HashMap<>();
+            List<ImageRenditions.Size> missing = new ArrayList<>();
+            for (ImageRenditions.Size size : SIZES) {
+                String name = prefix + "-" + size.name() + ".jpg";
+                if (photoBlobService.reuse(name)) {
+                    urls.put(size.name(), vehicleService.publicUrl(name));
+                } else {
+                    missing.add(size);
+                }
+            }
+
+            // Decode before storing anything: no point keeping an original that isn't a usable image
+            List<ImageRenditions.Rendition> renditions = missing.isEmpty()
+                    ? List.of() : ImageRenditions.render(job.source, missing, jpegQuality);
+            String originalName = VehicleService.photoObjectName(job.sha256, job.originalFilename);
+            String original;
+            if (photoBlobService.reuse(originalName)) {
+                original = vehicleService.publicUrl(originalName);
+            } else {
+                try (InputStream in = Files.newInputStream(job.source)) {
+                    original = vehicleService.storeImage(originalName, job.contentType, in);
+                }
+            }
+            for (ImageRenditions.Rendition rendition : renditions) {
+                String name = prefix + "-" + rendition.size().name() + ".jpg";
+                urls.put(rendition.size().name(), vehicleService.storeImage(name, "image/jpeg",
+                        new ByteArrayInputStream(rendition.jpeg())));
+            }
+            finish(job, READY, null, original, urls);
+        } catch (IllegalArgumentException e) {
+            finish(job, FAILED, e.getMessage(), null, null);
+        } catch (Exception e) {
+            e.printStackTrace();
+            finish(job, FAILED, "Could not process photo: " + e.getMessage(), null, null);
+        }
+    }
+
+    private void finish(Job job, String status, String error, String original, Map<String, String> urls) {
+        try {
+            job.error = error;
+            job.finishedAt = Instant.now();
+            job.status = status;
+            if (FAILED.equals(status)) {
+                failed.increment();
+            }
+            if (isCurrent(job)) {
+                vehicleService.recordPhoto(job.vehicleId, () -> isCurrent(job), status, original,
+                        urls != null ? urls.get(THUMBNAIL.name()) : null,
+                        urls != null ? urls.get(CARD.name()) : null,
+                        urls != null ? urls.get(FULL.name()) : null);
+            }
+        } catch (RuntimeException e) {
+            e.printStackTrace(); // e.g. the vehicle was deleted meanwhile; the job status still says what happened
+        } finally {
+            processing.record(Duration.between(job.submittedAt, job.finishedAt));
+            deleteSource(job);
+            slots.release();
+            job.done.countDown();
+        }
+    }
+
+    // Asked again by recordPhoto once it holds the vehicle's row lock: a newer job queued in between
+    // writes after this one, so skipping the stale write there keeps the newest result on the vehicle
+    private boolean isCurrent(Job job) {
+        return jobs.get(job.vehicleId) == job;
+    }
+
+    private static void deleteSource(Job job) {
+        try {
+            Files.deleteIfExists(job.source);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    public static final class Job {
+        private final Path source;
+        private final String sha256;
+        private final String originalFilename;
+        private final String contentType;
+        private final Instant submittedAt = Instant.now();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Long vehicleId;
+        private volatile String status = PROCESSING;
+        private volatile String error;
+        private volatile Instant startedAt;
+        private volatile Instant finishedAt;
+
+        private Job(Path source, String sha256, String originalFilename, String contentType) {
+            this.source = source;
+            this.sha256 = sha256;
+            this.originalFilename = originalFilename != null ? originalFilename : "photo";
+            this.contentType = contentType;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public Instant getSubmittedAt() {
+            return submittedAt;
+        }
+
+        public Instant getStartedAt() {
+            return startedAt;
+        }
+
+        public Instant getFinishedAt() {
+            return finishedAt;
+        }
+
+        boolean await(Duration timeout) throws InterruptedException {
+            return done.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+}
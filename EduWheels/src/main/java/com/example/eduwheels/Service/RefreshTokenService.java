@@ -0,0 +1,171 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Entity.RefreshTokenEntity;
+import com.example.eduwheels.Entity.UserEntity;
+import com.example.eduwheels.Repository.RefreshTokenRepository;
+import com.example.eduwheels.Repository.UserRepository;
+import com.example.eduwheels.Utils.JwtUtil;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Access tokens last {@code jwt.access-token-lifetime} (minutes) and are checked in memory only;
+ * this is how clients get the next one without logging in again.
+ *
+ * A login hands out a random refresh token alongside the JWT. Exchanging it on POST /users/refresh
+ * rotates it: the client gets a new pair and the old refresh token is spent. Only its SHA-256 is
+ * stored, in tblrefresh_token, together with the family (the chain of tokens descending from one
+ * login) it belongs to. A spent token coming back means two parties hold the chain, so the whole
+ * family is revoked and so are the user's outstanding access tokens; both will have to log in.
+ *
+ * Rows are kept until they expire, spent ones included (that's what reuse is detected by), and
+ * then purged every {@code jwt.refresh.purge-interval}.
+ */
+@Service
+public class RefreshTokenService {
+
+    public record Tokens(String accessToken, String refreshToken) {
+    }
+
+    @Value("${jwt.refresh-token-lifetime:P14D}")
+    private Duration refreshTokenLifetime;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final SecureRandom random = new SecureRandom();
+    private Counter issued;
+    private Timer refreshes;
+
+    @PostConstruct
+    void init() {
+        issued = Counter.builder("jwt.refresh.issued")
+                .description("Refresh token families started by a login")
+                .register(meterRegistry);
+        refreshes = Timer.builder("jwt.refresh.latency")
+                .description("Time to exchange a refresh token, whatever the outcome")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    // A login: the JWT plus the first refresh token of a new family
+    @Transactional
+    public Tokens issue(UserEntity user) {
+        issued.increment();
+        return new Tokens(jwtUtil.generateToken(user),
+                store(UUID.randomUUID().toString(), user.getUserid(), LocalDateTime.now()));
+    }
+
+    /**
+     * Spends the refresh token for a new access and refresh token, or returns null if it can't be
+     * used (unknown, expired, revoked, already spent). Outcomes are counted under jwt.refresh.
+     */
+    @Transactional
+    public Tokens rotate(String refreshToken) {
+        long start = System.nanoTime();
+        String outcome = "unknown";
+        try {
+            if (refreshToken == null || refreshToken.isBlank()) {
+                return null;
+            }
+            Optional<RefreshTokenEntity> found = refreshTokenRepository.lockByTokenHash(sha256(refreshToken));
+            if (found.isEmpty()) {
+                return null;
+            }
+            RefreshTokenEntity current = found.get();
+            LocalDateTime now = LocalDateTime.now();
+            if (current.getRevokedAt() != null) {
+                outcome = "revoked";
+                return null;
+            }
+            if (current.getUsedAt() != null) {
+                outcome = "reused";
+                refreshTokenRepository.revokeFamily(current.getFamilyId(), now);
+                tokenRevocationService.revokeUser(current.getUserid());
+                return null;
+            }
+            if (current.getExpiresAt().isBefore(now)) {
+                outcome = "expired";
+                return null;
+            }
+            // Read again so the new access token has the current email and role
+            Optional<UserEntity> user = userRepository.findById(current.getUserid());
+            if (user.isEmpty()) {
+                outcome = "revoked";
+                refreshTokenRepository.revokeFamily(current.getFamilyId(), now);
+                return null;
+            }
+            current.setUsedAt(now);
+            outcome = "rotated";
+            return new Tokens(jwtUtil.generateToken(user.get()),
+                    store(current.getFamilyId(), current.getUserid(), now));
+        } finally {
+            meterRegistry.counter("jwt.refresh", "outcome", outcome).increment();
+            refreshes.record(Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    // Logout: this token and every other one of its family
+    @Transactional
+    public void revoke(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank()) {
+            return;
+        }
+        refreshTokenRepository.findById(sha256(refreshToken)).ifPresent(token ->
+                refreshTokenRepository.revokeFamily(token.getFamilyId(), LocalDateTime.now()));
+    }
+
+    @Scheduled(fixedDelayString = "${jwt.refresh.purge-interval:PT1H}", initialDelayString = "${jwt.refresh.purge-interval:PT1H}")
+    @Transactional
+    public int purgeExpired() {
+        return refreshTokenRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    private String store(String familyId, Long userid, LocalDateTime now) {
+        byte[] bytes = new byte[32];
+        random.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        refreshTokenRepository.save(new RefreshTokenEntity(sha256(token), familyId, userid,
+                now, now.plus(refreshTokenLifetime)));
+        return token;
+    }
+
+    private static String sha256(String token) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
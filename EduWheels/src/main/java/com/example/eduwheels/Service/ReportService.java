@@ -1,5 +1,6 @@
 package com.example.eduwheels.Service;
 
+import com.example.eduwheels.Dto.ReviewSummary;
 import com.example.eduwheels.Entity.BookingEntity;
 import com.example.eduwheels.Entity.ReportEntity;
 import com.example.eduwheels.Repository.ReportRepository;
@@ -13,10 +14,12 @@ import java.util.Optional;
 public class ReportService {
 
     private final ReportRepository reportRepository;
+    private final TableVersions tableVersions;
 
     @Autowired
-    public ReportService(ReportRepository reportRepository) {
+    public ReportService(ReportRepository reportRepository, TableVersions tableVersions) {
         this.reportRepository = reportRepository;
+        this.tableVersions = tableVersions;
     }
 
     // Get all reviews
@@ -24,6 +27,15 @@ public class ReportService {
         return reportRepository.findAll();
     }
 
+    // Lean listing for the API: one SELECT, no entity graph
+    public List<ReviewSummary> getAllReviewSummaries() {
+        return reportRepository.findAllSummaries();
+    }
+
+    public Optional<ReviewSummary> getReviewSummaryById(Integer reportId) {
+        return reportRepository.findSummaryById(reportId);
+    }
+
     // Get review by ID
     public Optional<ReportEntity> getReportById(Integer reportId) {
         return reportRepository.findById(reportId);
@@ -31,17 +43,22 @@ public class ReportService {
 
     // Create a review
     public ReportEntity createReport(ReportEntity report) {
-        return reportRepository.save(report);
+        ReportEntity saved = reportRepository.save(report);
+        tableVersions.changed(TableVersions.Table.REVIEWS);
+        return saved;
     }
 
     // Update a review
     public ReportEntity updateReport(ReportEntity report) {
-        return reportRepository.save(report);
+        ReportEntity saved = reportRepository.save(report);
+        tableVersions.changed(TableVersions.Table.REVIEWS);
+        return saved;
     }
 
     // Delete review by ID
     public void deleteReport(Integer reportId) {
         reportRepository.deleteById(reportId);
+        tableVersions.changed(TableVersions.Table.REVIEWS);
     }
 
     // Get all reviews for a specific vehicle
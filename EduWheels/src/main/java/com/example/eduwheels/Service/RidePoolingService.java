@@ -0,0 +1,87 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Dto.PoolingPlan;
+import com.example.eduwheels.Entity.BookingEntity;
+import com.example.eduwheels.Entity.VehicleEntity;
+import com.example.eduwheels.Repository.BookingRepository;
+import com.example.eduwheels.Repository.VehicleRepository;
+import com.example.eduwheels.Utils.RidePooler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Proposes shared vehicle runs for a day's Pending bookings so that riders going from the same
+ * place to the same place at the same time share one vehicle instead of each taking seats on
+ * their own. See {@link RidePooler} for the matching rules.
+ *
+ * Only bookings with a start and end date and with coordinates take part; vehicles are the
+ * ones marked Available, and runs of other days or already approved trips are not considered.
+ */
+@Service
+public class RidePoolingService {
+
+    @Value("${pooling.radius-m:400}")
+    private double radiusM;
+
+    @Value("${pooling.max-start-gap:PT30M}")
+    private Duration maxStartGap;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Transactional(readOnly = true)
+    public PoolingPlan plan(LocalDate date) {
+        long started = System.nanoTime();
+        List<RidePooler.Trip> trips = new ArrayList<>();
+        for (BookingRepository.PoolCandidate candidate : bookingRepository.findPoolCandidates(
+                BookingEntity.Status.Pending, date.atStartOfDay(), date.plusDays(1).atStartOfDay())) {
+            trips.add(new RidePooler.Trip(candidate.getBookingID(),
+                    candidate.getPickUpLat(), candidate.getPickUpLng(), candidate.getDropOffLat(), candidate.getDropOffLng(),
+                    minuteOf(candidate.getStartDate()), minuteOf(candidate.getEndDate()), candidate.getNumberOfPassengers()));
+        }
+        Map<Long, VehicleEntity> vehicles = new HashMap<>();
+        List<RidePooler.Vehicle> fleet = new ArrayList<>();
+        for (VehicleEntity vehicle : vehicleRepository.findByStatus("Available")) {
+            vehicles.put(vehicle.getVehicleId(), vehicle);
+            fleet.add(new RidePooler.Vehicle(vehicle.getVehicleId(), vehicle.getCapacity()));
+        }
+
+        List<RidePooler.Run> runs = new RidePooler(radiusM, maxStartGap.toMinutes(), ForkJoinPool.commonPool())
+                .plan(trips, fleet);
+
+        List<PoolingPlan.Run> proposed = new ArrayList<>(runs.size());
+        for (RidePooler.Run run : runs) {
+            VehicleEntity vehicle = run.getVehicle() != null ? vehicles.get(run.getVehicle().id()) : null;
+            proposed.add(new PoolingPlan.Run(
+                    vehicle != null ? vehicle.getVehicleId() : null,
+                    vehicle != null ? vehicle.getPlateNumber() : null,
+                    vehicle != null ? vehicle.getCapacity() : null,
+                    run.getSeats(), timeOf(run.getStartMinute()), timeOf(run.getEndMinute()),
+                    run.getTrips().stream().map(RidePooler.Trip::id).toList()));
+        }
+        return new PoolingPlan(date, trips.size(), (System.nanoTime() - started) / 1_000_000, proposed);
+    }
+
+    private static long minuteOf(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    private static LocalDateTime timeOf(long minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+    }
+}
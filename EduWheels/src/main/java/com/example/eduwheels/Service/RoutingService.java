@@ -0,0 +1,126 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Entity.BookingEntity;
+import com.example.eduwheels.Utils.GeoPoint;
+import com.example.eduwheels.Utils.RoadGraph;
+import com.example.eduwheels.Utils.RoutePlanner;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Trip distance and ETA over the road network in {@code routing.graph-path}.
+ *
+ * The graph file is memory-mapped once at startup ({@link RoadGraph}) and queried in process
+ * with {@link RoutePlanner}. Pickups and drop-offs are snapped to the nearest road node, and
+ * routes between snapped node pairs are kept in an LRU cache, since most trips run between the
+ * same few dorms, gates and buildings.
+ *
+ * Without a graph file routing is off: {@link #route} is always empty and bookings simply
+ * carry no distance or ETA.
+ */
+@Service
+public class RoutingService {
+
+    @Value("${routing.graph-path:}")
+    private String graphPath;
+
+    @Value("${routing.cache-size:20000}")
+    private int cacheSize;
+
+    @Value("${routing.snap-radius-m:300}")
+    private double snapRadiusM;
+
+    @Value("${routing.landmarks:16}")
+    private int landmarks;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private RoadGraph graph;
+    private RoutePlanner planner;
+    private Map<Long, Optional<RoutePlanner.Route>> cache;
+    private Counter cacheHits;
+    private Counter cacheMisses;
+
+    @PostConstruct
+    void load() throws IOException {
+        cacheHits = meterRegistry.counter("routing.cache.hits");
+        cacheMisses = meterRegistry.counter("routing.cache.misses");
+        // Access-ordered LinkedHashMap as the LRU; a get reorders entries, so reads lock too
+        cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Optional<RoutePlanner.Route>> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        if (graphPath != null && !graphPath.isBlank()) {
+            use(RoadGraph.open(Path.of(graphPath)));
+        }
+    }
+
+    // Package-private so tests can route over a generated graph
+    void use(RoadGraph graph) {
+        this.graph = graph;
+        this.planner = graph != null ? new RoutePlanner(graph, landmarks) : null;
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    public boolean isEnabled() {
+        return graph != null;
+    }
+
+    /**
+     * Fastest road route between two points, or empty when routing is off, either point is
+     * further than {@code routing.snap-radius-m} from a road, or there is no connection.
+     */
+    public Optional<RoutePlanner.Route> route(double fromLat, double fromLng, double toLat, double toLng) {
+        RoadGraph current = graph;
+        if (current == null) {
+            return Optional.empty();
+        }
+        int from = current.nearestNode(fromLat, fromLng, snapRadiusM);
+        int to = current.nearestNode(toLat, toLng, snapRadiusM);
+        if (from < 0 || to < 0) {
+            return Optional.empty();
+        }
+        long key = ((long) from << 32) | (to & 0xffffffffL);
+        synchronized (cache) {
+            Optional<RoutePlanner.Route> cached = cache.get(key);
+            if (cached != null) {
+                cacheHits.increment();
+                return cached;
+            }
+        }
+        cacheMisses.increment();
+        Optional<RoutePlanner.Route> route = Optional.ofNullable(planner.route(from, to));
+        synchronized (cache) {
+            cache.put(key, route);
+        }
+        return route;
+    }
+
+    /**
+     * Sets the booking's road distance and ETA from its pickUp/dropOff coordinates, or clears
+     * them when there is no route.
+     */
+    public void attachRoute(BookingEntity booking) {
+        GeoPoint pickUp = GeoPoint.parse(booking.getPickUp());
+        GeoPoint dropOff = GeoPoint.parse(booking.getDropOff());
+        Optional<RoutePlanner.Route> route = pickUp == null || dropOff == null ? Optional.empty()
+                : route(pickUp.getLat(), pickUp.getLng(), dropOff.getLat(), dropOff.getLng());
+        booking.setRouteDistanceMeters(route.map(r -> (double) Math.round(r.meters())).orElse(null));
+        booking.setRouteDurationSeconds(route.map(r -> (int) Math.round(r.seconds())).orElse(null));
+    }
+}
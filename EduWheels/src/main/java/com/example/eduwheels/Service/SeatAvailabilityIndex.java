@@ -0,0 +1,258 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Entity.BookingEntity;
+import com.example.eduwheels.Repository.BookingRepository;
+import com.example.eduwheels.Utils.SeatTimeline;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of booked seats per vehicle and time window.
+ *
+ * Rebuilt from tblbooking at startup and kept current by {@link SeatReservationEngine}, so
+ * "how many seats are free on vehicle V between t1 and t2" never scans bookings. Changes made
+ * inside a transaction are undone if that transaction rolls back. Windows that have ended are
+ * dropped by a periodic sweep, so the index only grows with bookings still ahead.
+ *
+ * The index is per JVM: it assumes a single backend instance owns the booking table.
+ */
+@Service
+public class SeatAvailabilityIndex {
+
+    /** Statuses that keep a booking's seats taken for its time window. */
+    public static final Set<BookingEntity.Status> HOLDING_STATUSES = EnumSet.of(
+            BookingEntity.Status.Pending, BookingEntity.Status.Approved, BookingEntity.Status.Going);
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private final Map<Long, SeatTimeline> timelines = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        timelines.clear();
+        for (BookingRepository.SeatWindow window : bookingRepository.findSeatWindows(HOLDING_STATUSES, LocalDateTime.now())) {
+            Hold hold = new Hold(window.getVehicleId(), window.getStartDate(), window.getEndDate(), window.getNumberOfPassengers());
+            if (hold.isValid()) {
+                apply(hold, hold.seats);
+            }
+        }
+    }
+
+    // Gives back the timeline nodes of everything that has ended; queries never look back that far
+    @Scheduled(fixedDelayString = "${booking.seat-index.prune-interval:PT1H}",
+            initialDelayString = "${booking.seat-index.prune-interval:PT1H}")
+    public void pruneEnded() {
+        long now = SeatTimeline.floorMinute(LocalDateTime.now());
+        for (SeatTimeline timeline : timelines.values()) {
+            synchronized (timeline) {
+                timeline.discardBefore(now);
+            }
+        }
+    }
+
+    /**
+     * Highest number of seats booked at any moment of [from, to).
+     */
+    public int bookedSeats(Long vehicleId, LocalDateTime from, LocalDateTime to) {
+        SeatTimeline timeline = timelines.get(vehicleId);
+        if (timeline == null) {
+            return 0;
+        }
+        synchronized (timeline) {
+            return timeline.maxBooked(from, to);
+        }
+    }
+
+    public int availableSeats(Long vehicleId, int capacity, LocalDateTime from, LocalDateTime to) {
+        return Math.max(0, capacity - bookedSeats(vehicleId, from, to));
+    }
+
+    /**
+     * Books the hold only if the vehicle stays within {@code capacity} for the whole window.
+     * Check and insert happen under the vehicle's lock, so concurrent callers cannot both win.
+     */
+    public boolean tryHold(Hold hold, int capacity) {
+        SeatTimeline timeline = timelines.computeIfAbsent(hold.vehicleId, id -> new SeatTimeline());
+        synchronized (timeline) {
+            if (timeline.maxBooked(hold.from, hold.to) + hold.seats > capacity) {
+                return false;
+            }
+            timeline.add(hold.from, hold.to, hold.seats);
+        }
+        undoOnRollback(hold, -hold.seats);
+        return true;
+    }
+
+    /**
+     * {@link #tryHold} for several holds on the same vehicle under a single lock, in order.
+     * With {@code allOrNothing} the first hold that does not fit undoes the ones before it.
+     *
+     * @return which holds were booked
+     */
+    public boolean[] tryHoldAll(Long vehicleId, List<Hold> holds, int capacity, boolean allOrNothing) {
+        boolean[] granted = new boolean[holds.size()];
+        SeatTimeline timeline = timelines.computeIfAbsent(vehicleId, id -> new SeatTimeline());
+        synchronized (timeline) {
+            for (int i = 0; i < holds.size(); i++) {
+                Hold hold = holds.get(i);
+                if (timeline.maxBooked(hold.from, hold.to) + hold.seats <= capacity) {
+                    timeline.add(hold.from, hold.to, hold.seats);
+                    granted[i] = true;
+                } else if (allOrNothing) {
+                    for (int j = 0; j < i; j++) {
+                        timeline.add(holds.get(j).from, holds.get(j).to, -holds.get(j).seats);
+                    }
+                    return new boolean[holds.size()];
+                }
+            }
+        }
+        for (int i = 0; i < holds.size(); i++) {
+            if (granted[i]) {
+                undoOnRollback(holds.get(i), -holds.get(i).seats);
+            }
+        }
+        return granted;
+    }
+
+    public void release(Hold hold) {
+        apply(hold, -hold.seats);
+        undoOnRollback(hold, hold.seats);
+    }
+
+    /**
+     * Moves a booking from its old hold to its new one (either may be null), as long as the new
+     * one fits within {@code capacity} once the old one is given back. Shrinking a hold always
+     * succeeds, even on a vehicle that is already over capacity.
+     *
+     * @return false, with nothing changed, if the new hold does not fit
+     */
+    public boolean tryReplace(Hold before, Hold after, int capacity) {
+        if (Objects.equals(before, after)) {
+            return true;
+        }
+        if (after == null) {
+            release(before);
+            return true;
+        }
+        if (before == null) {
+            return tryHold(after, capacity);
+        }
+        if (!before.vehicleId.equals(after.vehicleId)) {
+            // Take the new seats first so the old ones are never free while the new ones may still fail
+            if (!tryHold(after, capacity)) {
+                return false;
+            }
+            release(before);
+            return true;
+        }
+        SeatTimeline timeline = timelines.computeIfAbsent(after.vehicleId, id -> new SeatTimeline());
+        synchronized (timeline) {
+            timeline.add(before.from, before.to, -before.seats);
+            if (!after.within(before) && timeline.maxBooked(after.from, after.to) + after.seats > capacity) {
+                timeline.add(before.from, before.to, before.seats);
+                return false;
+            }
+            timeline.add(after.from, after.to, after.seats);
+        }
+        undoOnRollback(before, before.seats);
+        undoOnRollback(after, -after.seats);
+        return true;
+    }
+
+    private void apply(Hold hold, int seats) {
+        SeatTimeline timeline = timelines.computeIfAbsent(hold.vehicleId, id -> new SeatTimeline());
+        synchronized (timeline) {
+            timeline.add(hold.from, hold.to, seats);
+        }
+    }
+
+    private void undoOnRollback(Hold hold, int seats) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    apply(hold, seats);
+                }
+            }
+        });
+    }
+
+    /**
+     * The seats one booking occupies on one vehicle for [from, to).
+     */
+    public static final class Hold {
+        private final Long vehicleId;
+        private final long from;
+        private final long to;
+        private final int seats;
+
+        public Hold(Long vehicleId, LocalDateTime from, LocalDateTime to, Integer seats) {
+            this.vehicleId = vehicleId;
+            this.from = from != null ? SeatTimeline.floorMinute(from) : 0;
+            this.to = to != null ? SeatTimeline.ceilMinute(to) : 0;
+            this.seats = seats != null ? seats : 0;
+        }
+
+        /**
+         * The hold of a booking, or null when the booking has no usable time window or its
+         * status no longer takes seats.
+         */
+        public static Hold of(BookingEntity booking) {
+            if (!isWindowed(booking) || !HOLDING_STATUSES.contains(booking.getStatus())) {
+                return null;
+            }
+            Hold hold = new Hold(booking.getVehicle().getVehicleId(), booking.getStartDate(),
+                    booking.getEndDate(), booking.getNumberOfPassengers());
+            return hold.isValid() ? hold : null;
+        }
+
+        /**
+         * Bookings with a start and end are tracked per time window; the others still use the
+         * vehicle's global availableSeats counter.
+         */
+        public static boolean isWindowed(BookingEntity booking) {
+            return booking.getVehicle() != null
+                    && booking.getStartDate() != null
+                    && booking.getEndDate() != null
+                    && booking.getEndDate().isAfter(booking.getStartDate());
+        }
+
+        // Same vehicle, no more seats, no longer a window
+        boolean within(Hold other) {
+            return vehicleId.equals(other.vehicleId) && seats <= other.seats && from >= other.from && to <= other.to;
+        }
+
+        boolean isValid() {
+            return vehicleId != null && from < to && seats > 0;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Hold other)) return false;
+            return from == other.from && to == other.to && seats == other.seats && vehicleId.equals(other.vehicleId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(vehicleId, from, to, seats);
+        }
+    }
+}
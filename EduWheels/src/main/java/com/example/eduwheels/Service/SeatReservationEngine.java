@@ -0,0 +1,353 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Entity.BookingEntity;
+import com.example.eduwheels.Entity.DataMigrationEntity;
+import com.example.eduwheels.Entity.VehicleEntity;
+import com.example.eduwheels.Repository.DataMigrationRepository;
+import com.example.eduwheels.Repository.VehicleRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Single place where vehicle seats are taken and given back.
+ *
+ * Every change is one conditional UPDATE on tblvehicles instead of the old
+ * findByPlateNumber -> compare -> setAvailableSeats -> save sequence, so the row lock
+ * serializes concurrent bookers of the same vehicle and a reservation can only succeed
+ * while enough seats are left. This also holds across several app instances.
+ *
+ * Bookings that carry a start and end date are instead checked against
+ * {@link SeatAvailabilityIndex}, so a Tuesday trip no longer blocks the same vehicle on Friday.
+ * Only bookings without a time window still draw from the global counter, which was recounted
+ * from those bookings once (see {@link #recountAvailableSeats}).
+ */
+@Service
+public class SeatReservationEngine {
+
+    static final String RECOUNT_MIGRATION = "seat-counter-recount";
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private SeatAvailabilityIndex seatAvailabilityIndex;
+
+    @Autowired
+    private VehicleCatalogCache vehicleCatalogCache;
+
+    @Autowired
+    private DataMigrationRepository dataMigrationRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * One-time fix of the global counter once windowed bookings moved to the window index.
+     * Windowed bookings made before that still had their seats taken from the counter, and
+     * canceling them now does not give them back. Vehicles created by a booking are first given
+     * the capacity they never had; then every vehicle's availableSeats is set to its capacity
+     * minus the seats of its non-canceled bookings without a time window, the only ones the
+     * counter tracks. Runs on the first boot only, so counters set by an admin afterwards stay.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void recountAvailableSeats() {
+        if (dataMigrationRepository.existsById(RECOUNT_MIGRATION)) {
+            return;
+        }
+        vehicleRepository.sizeUnsizedVehicles(BookingEntity.Status.Canceled);
+        vehicleRepository.recountAvailableSeats(BookingEntity.Status.Canceled);
+        dataMigrationRepository.save(new DataMigrationEntity(RECOUNT_MIGRATION, LocalDateTime.now()));
+        vehicleCatalogCache.invalidateAll();
+    }
+
+    /**
+     * Takes the seats a new booking needs: from its time window when it has one, otherwise
+     * from the vehicle's global counter.
+     */
+    @Transactional
+    public void reserve(BookingEntity booking) {
+        VehicleEntity vehicle = booking.getVehicle();
+        if (!SeatAvailabilityIndex.Hold.isWindowed(booking)) {
+            reserve(vehicle, booking.getNumberOfPassengers());
+            return;
+        }
+        if (!tryReserve(booking)) {
+            throw new IllegalArgumentException("Not enough seats available in vehicle with plate number: "
+                    + vehicle.getPlateNumber() + " between " + booking.getStartDate() + " and " + booking.getEndDate());
+        }
+    }
+
+    /**
+     * Same as {@link #reserve(BookingEntity)} but reports a full vehicle instead of failing,
+     * so the caller can try another one.
+     *
+     * @return false if the booking's vehicle does not have enough seats left
+     */
+    @Transactional
+    public boolean tryReserve(BookingEntity booking) {
+        VehicleEntity vehicle = booking.getVehicle();
+        if (!SeatAvailabilityIndex.Hold.isWindowed(booking)) {
+            return tryReserve(vehicle, booking.getNumberOfPassengers());
+        }
+        if (booking.getNumberOfPassengers() < 0) {
+            throw new IllegalArgumentException("Number of passengers cannot be negative.");
+        }
+        SeatAvailabilityIndex.Hold hold = SeatAvailabilityIndex.Hold.of(booking);
+        return hold == null || seatAvailabilityIndex.tryHold(hold, vehicle.getCapacity());
+    }
+
+    /**
+     * Takes the seats for a whole batch of new bookings, touching each vehicle once: one
+     * conditional UPDATE for the summed seats of its bookings without a window, and one lock on
+     * its timeline for the windowed ones. When the summed UPDATE does not fit, best-effort
+     * batches fall back to granting bookings one by one in request order.
+     *
+     * With {@code allOrNothing} reservation stops at the first booking that does not fit; the
+     * caller must then roll back the transaction to give back what was already taken.
+     *
+     * @return which bookings got their seats, in the order given
+     */
+    @Transactional
+    public boolean[] reserveAll(List<BookingEntity> bookings, boolean allOrNothing) {
+        boolean[] granted = new boolean[bookings.size()];
+        Map<VehicleEntity, List<Integer>> byVehicle = new LinkedHashMap<>();
+        for (int i = 0; i < bookings.size(); i++) {
+            byVehicle.computeIfAbsent(bookings.get(i).getVehicle(), v -> new ArrayList<>()).add(i);
+        }
+
+        for (Map.Entry<VehicleEntity, List<Integer>> entry : byVehicle.entrySet()) {
+            VehicleEntity vehicle = entry.getKey();
+            List<Integer> counted = new ArrayList<>();
+            List<Integer> windowed = new ArrayList<>();
+            List<SeatAvailabilityIndex.Hold> holds = new ArrayList<>();
+            for (int i : entry.getValue()) {
+                BookingEntity booking = bookings.get(i);
+                if (!SeatAvailabilityIndex.Hold.isWindowed(booking)) {
+                    counted.add(i);
+                    continue;
+                }
+                SeatAvailabilityIndex.Hold hold = SeatAvailabilityIndex.Hold.of(booking);
+                if (hold == null) {
+                    granted[i] = true; // nothing to hold, same as reserve(booking)
+                } else {
+                    windowed.add(i);
+                    holds.add(hold);
+                }
+            }
+
+            if (!holds.isEmpty()) {
+                boolean[] held = seatAvailabilityIndex.tryHoldAll(vehicle.getVehicleId(), holds, vehicle.getCapacity(), allOrNothing);
+                for (int k = 0; k < held.length; k++) {
+                    granted[windowed.get(k)] = held[k];
+                    if (!held[k] && allOrNothing) {
+                        return granted;
+                    }
+                }
+            }
+
+            if (!counted.isEmpty()) {
+                int total = 0;
+                for (int i : counted) {
+                    total += bookings.get(i).getNumberOfPassengers();
+                }
+                if (tryReserve(vehicle, total)) {
+                    counted.forEach(i -> granted[i] = true);
+                } else if (allOrNothing) {
+                    return granted;
+                } else {
+                    for (int i : counted) {
+                        granted[i] = tryReserve(vehicle, bookings.get(i).getNumberOfPassengers());
+                    }
+                }
+            }
+        }
+        return granted;
+    }
+
+    /**
+     * Gives back everything a booking holds (booking deleted).
+     */
+    @Transactional
+    public void release(BookingEntity booking) {
+        SeatAvailabilityIndex.Hold hold = SeatAvailabilityIndex.Hold.of(booking);
+        if (hold != null) {
+            seatAvailabilityIndex.release(hold);
+        }
+        release(booking.getVehicle(), counterSeats(booking));
+    }
+
+    /**
+     * {@link #release(BookingEntity)} for many bookings at once, with one UPDATE per vehicle
+     * for the ones drawing from the global counter.
+     */
+    @Transactional
+    public void releaseAll(List<BookingEntity> bookings) {
+        Map<VehicleEntity, Integer> counted = new LinkedHashMap<>();
+        for (BookingEntity booking : bookings) {
+            SeatAvailabilityIndex.Hold hold = SeatAvailabilityIndex.Hold.of(booking);
+            if (hold != null) {
+                seatAvailabilityIndex.release(hold);
+            } else if (counterSeats(booking) > 0) {
+                counted.merge(booking.getVehicle(), counterSeats(booking), Integer::sum);
+            }
+        }
+        counted.forEach(this::release);
+    }
+
+    /**
+     * Captures what a booking holds before it is edited; pass it to {@link #reconcile}.
+     */
+    public Snapshot snapshot(BookingEntity booking) {
+        return new Snapshot(SeatAvailabilityIndex.Hold.of(booking), booking.getVehicle(), counterSeats(booking));
+    }
+
+    /**
+     * Brings the seats held by an edited booking in line with its new window, passenger count
+     * and status. A booking that gains a window (a date set by an admin, or stamped on approval)
+     * gives its seats back to the global counter and takes them from the index instead; one that
+     * loses its window does the opposite. Canceled bookings hold nothing in either.
+     *
+     * @throws IllegalArgumentException if the booking grows, moves or is restored into seats its
+     *         vehicle no longer has; nothing is changed
+     */
+    @Transactional
+    public void reconcile(Snapshot before, BookingEntity after) {
+        if (!move(before, after, null)) {
+            VehicleEntity vehicle = after.getVehicle();
+            throw new IllegalArgumentException(SeatAvailabilityIndex.Hold.isWindowed(after)
+                    ? "Not enough seats available in vehicle with plate number: " + vehicle.getPlateNumber()
+                            + " between " + after.getStartDate() + " and " + after.getEndDate()
+                    : "Not enough seats available in vehicle with plate number: " + vehicle.getPlateNumber());
+        }
+    }
+
+    /**
+     * {@link #reconcile} for many edited bookings at once; seats returned to the global
+     * counter are summed into one UPDATE per vehicle. Bookings that no longer fit are reported
+     * instead of failing the others.
+     *
+     * @return which bookings were reconciled; the caller must not save the others
+     */
+    @Transactional
+    public boolean[] reconcileAll(List<Snapshot> before, List<BookingEntity> after) {
+        boolean[] reconciled = new boolean[after.size()];
+        Map<VehicleEntity, Integer> released = new LinkedHashMap<>();
+        for (int i = 0; i < after.size(); i++) {
+            reconciled[i] = move(before.get(i), after.get(i), released);
+        }
+        released.forEach(this::release);
+        return reconciled;
+    }
+
+    // Takes what the edited booking needs before giving back what it held, so a failure only has
+    // to undo a take. Counter seats given back go into released when given, otherwise straight back.
+    private boolean move(Snapshot before, BookingEntity after, Map<VehicleEntity, Integer> released) {
+        VehicleEntity vehicle = after.getVehicle();
+        int needed = counterSeats(after);
+        boolean sameVehicle = before.vehicle != null && vehicle != null
+                && Objects.equals(before.vehicle.getVehicleId(), vehicle.getVehicleId());
+        int take = sameVehicle ? Math.max(0, needed - before.counterSeats) : needed;
+        int give = sameVehicle ? Math.max(0, before.counterSeats - needed) : before.counterSeats;
+
+        if (take > 0 && !tryReserve(vehicle, take)) {
+            return false;
+        }
+        SeatAvailabilityIndex.Hold hold = SeatAvailabilityIndex.Hold.of(after);
+        if (!seatAvailabilityIndex.tryReplace(before.hold, hold, hold != null ? vehicle.getCapacity() : 0)) {
+            release(vehicle, take);
+            return false;
+        }
+        if (give > 0) {
+            if (released != null) {
+                released.merge(before.vehicle, give, Integer::sum);
+            } else {
+                release(before.vehicle, give);
+            }
+        }
+        return true;
+    }
+
+    // Seats the booking holds on its vehicle's global counter: every non-canceled booking without
+    // a usable window (the same rule VehicleRepository.recountAvailableSeats counts by)
+    private static int counterSeats(BookingEntity booking) {
+        if (booking.getVehicle() == null || SeatAvailabilityIndex.Hold.isWindowed(booking)
+                || booking.getStatus() == BookingEntity.Status.Canceled) {
+            return 0;
+        }
+        return Math.max(0, booking.getNumberOfPassengers());
+    }
+
+    /**
+     * Atomically takes {@code seats} seats from the vehicle.
+     *
+     * @return false if the vehicle does not have enough seats left
+     */
+    @Transactional
+    public boolean tryReserve(VehicleEntity vehicle, int seats) {
+        if (seats < 0) {
+            throw new IllegalArgumentException("Number of passengers cannot be negative.");
+        }
+        if (vehicleRepository.reserveSeats(vehicle.getVehicleId(), seats) == 0) {
+            return false;
+        }
+        refresh(vehicle);
+        vehicleCatalogCache.invalidate(vehicle.getVehicleId());
+        return true;
+    }
+
+    /**
+     * Same as {@link #tryReserve} but fails the surrounding transaction when the seats are gone.
+     */
+    @Transactional
+    public void reserve(VehicleEntity vehicle, int seats) {
+        if (!tryReserve(vehicle, seats)) {
+            throw new IllegalArgumentException("Not enough seats available in vehicle with plate number: " + vehicle.getPlateNumber());
+        }
+    }
+
+    /**
+     * Gives {@code seats} seats back to the vehicle (booking deleted or canceled).
+     */
+    @Transactional
+    public void release(VehicleEntity vehicle, int seats) {
+        if (vehicle == null || seats <= 0) {
+            return;
+        }
+        vehicleRepository.releaseSeats(vehicle.getVehicleId(), seats);
+        refresh(vehicle);
+        vehicleCatalogCache.invalidate(vehicle.getVehicleId());
+    }
+
+    // The bulk UPDATE bypasses the persistence context, so re-read the managed copy
+    // to keep the seat count returned to the client in sync with the row.
+    private void refresh(VehicleEntity vehicle) {
+        if (entityManager.contains(vehicle)) {
+            entityManager.refresh(vehicle);
+        }
+    }
+
+    public static final class Snapshot {
+        private final SeatAvailabilityIndex.Hold hold;
+        private final VehicleEntity vehicle;
+        private final int counterSeats;
+
+        private Snapshot(SeatAvailabilityIndex.Hold hold, VehicleEntity vehicle, int counterSeats) {
+            this.hold = hold;
+            this.vehicle = vehicle;
+            this.counterSeats = counterSeats;
+        }
+    }
+}
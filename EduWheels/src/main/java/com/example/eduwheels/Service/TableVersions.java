@@ -0,0 +1,94 @@
+package com.example.eduwheels.Service;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Change counters for the tables behind the cached GET endpoints, used as strong ETags.
+ *
+ * Every service that writes one of these tables calls {@link #changed} and the counter moves
+ * once the transaction commits. A controller builds the ETag from the counters its response
+ * depends on and checks If-None-Match before loading anything, so an unchanged list costs
+ * no query and no JSON. Counters are read before the data is loaded, which means a response
+ * is never older than the ETag it is sent with.
+ *
+ * Counters live in memory and restart at zero, so ETags carry the boot time as well and an
+ * old tag can never match after a restart. Like {@link SeatAvailabilityIndex} this assumes a
+ * single backend instance writes the database.
+ */
+@Service
+public class TableVersions {
+
+    public enum Table { VEHICLES, BOOKINGS, REVIEWS, USERS }
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLongArray versions = new AtomicLongArray(Table.values().length);
+
+    /**
+     * Moves the table's version once the current transaction commits (right away when there is none).
+     */
+    public void changed(Table table) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            versions.incrementAndGet(table.ordinal());
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                versions.incrementAndGet(table.ordinal());
+            }
+        });
+    }
+
+    public long version(Table table) {
+        return versions.get(table.ordinal());
+    }
+
+    /**
+     * Strong ETag over the given tables; {@code scope} separates responses that differ per
+     * caller (e.g. a user's own bookings) and may be null.
+     */
+    public String etag(String scope, Table... tables) {
+        StringBuilder tag = new StringBuilder("\"");
+        if (scope != null) {
+            tag.append(scope).append('-');
+        }
+        tag.append(epoch);
+        for (Table table : tables) {
+            tag.append('.').append(version(table));
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * ETag scope for a response that belongs to one caller: the SHA-256 of the principal name.
+     * Unlike a String hashCode it doesn't collide for different callers, and it keeps the name
+     * itself out of the header.
+     */
+    public static String callerScope(String principalName) {
+        return HexFormat.of().formatHex(VehicleService.sha256().digest(principalName.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Sets the ETag and answers true when the client already has it; the controller then
+     * returns null and Spring sends 304 without a body.
+     */
+    public boolean notModified(WebRequest request, String etag) {
+        // Spring Security sends no-store by default, which would stop browsers from keeping
+        // the copy they revalidate; no-cache still makes them ask every time
+        if (request instanceof ServletWebRequest servletRequest && servletRequest.getResponse() != null) {
+            servletRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL,
+                    CacheControl.noCache().cachePrivate().getHeaderValue());
+        }
+        return request.checkNotModified(etag);
+    }
+}
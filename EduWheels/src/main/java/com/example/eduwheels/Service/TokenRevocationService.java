@@ -0,0 +1,177 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Entity.RevokedTokenEntity;
+import com.example.eduwheels.Repository.RevokedTokenRepository;
+import com.example.eduwheels.Utils.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Which JWTs no longer count although they are correctly signed and unexpired: single tokens
+ * (logout) by their jti, and everything issued to a user up to some moment (account deleted,
+ * role or email changed) by userid.
+ *
+ * Rows go to tblrevoked_token and every instance mirrors the table in memory, polling it every
+ * {@code jwt.revocation.refresh} for rows revoked since the last poll (minus
+ * {@code jwt.revocation.overlap}, for transactions that committed late). A Bloom filter in
+ * front of the exact map answers the common case, a token nobody revoked, without touching
+ * it. Rows are kept until every token they could match has expired, so the table stays small.
+ *
+ * Revocations made on this instance apply at once; elsewhere, within one refresh interval.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    @Value("${jwt.revocation.expected-entries:100000}")
+    private int expectedEntries;
+
+    // Revocations only need to outlast the tokens they apply to
+    @Value("${jwt.access-token-lifetime:PT15M}")
+    private Duration accessTokenLifetime;
+
+    @Value("${jwt.revocation.overlap:PT1M}")
+    private Duration overlap;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private record Revocation(long revokedAtMillis, long expiresAtMillis) {
+    }
+
+    private final Map<String, Revocation> revoked = new ConcurrentHashMap<>();
+    // Swapped for a fresh one on purge; adds and the swap hold the lock, lookups don't
+    private volatile BloomFilter bloom;
+    private final Object lock = new Object();
+    private LocalDateTime pollFrom = BEGINNING;
+    private Counter rejected;
+    private Counter falsePositives;
+
+    @PostConstruct
+    void init() {
+        bloom = new BloomFilter(expectedEntries, 0.01);
+        rejected = Counter.builder("jwt.revocations.rejected")
+                .description("Requests whose token was revoked")
+                .register(meterRegistry);
+        falsePositives = Counter.builder("jwt.revocations.bloom.false-positives")
+                .description("Bloom filter hits that the exact check then cleared")
+                .register(meterRegistry);
+        Gauge.builder("jwt.revocations.size", revoked, Map::size)
+                .register(meterRegistry);
+    }
+
+    // Log out one token
+    public void revokeToken(String tokenId, Date expiresAt) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expires = expiresAt != null
+                ? LocalDateTime.ofInstant(expiresAt.toInstant(), ZoneId.systemDefault())
+                : now.plus(accessTokenLifetime);
+        save("jti:" + tokenId, now, expires);
+    }
+
+    // Every token issued to the user until now; the tokens they get afterwards are fine
+    public void revokeUser(Long userid) {
+        LocalDateTime now = LocalDateTime.now();
+        save("user:" + userid, now, now.plus(accessTokenLifetime));
+    }
+
+    /**
+     * Hot path, called on every authenticated request: no database and, unless the Bloom filter
+     * says maybe, no map lookup either.
+     */
+    public boolean isRevoked(String tokenId, Long userid, Date issuedAt) {
+        BloomFilter filter = bloom;
+        if (tokenId != null) {
+            String key = "jti:" + tokenId;
+            if (filter.mightContain(key)) {
+                if (revoked.containsKey(key)) {
+                    rejected.increment();
+                    return true;
+                }
+                falsePositives.increment();
+            }
+        }
+        if (userid != null) {
+            String key = "user:" + userid;
+            if (filter.mightContain(key)) {
+                Revocation revocation = revoked.get(key);
+                // iat only has whole seconds, so a token from the same second counts as revoked
+                if (revocation != null && (issuedAt == null || issuedAt.getTime() <= revocation.revokedAtMillis())) {
+                    rejected.increment();
+                    return true;
+                }
+                if (revocation == null) {
+                    falsePositives.increment();
+                }
+            }
+        }
+        return false;
+    }
+
+    // Picks up what other instances revoked
+    @Scheduled(fixedDelayString = "${jwt.revocation.refresh:PT10S}")
+    public int refresh() {
+        LocalDateTime now = LocalDateTime.now();
+        int seen = 0;
+        synchronized (lock) {
+            for (RevokedTokenEntity row : revokedTokenRepository.findRevokedSince(pollFrom, now)) {
+                add(row.getRevokedKey(), row.getRevokedAt(), row.getExpiresAt());
+                seen++;
+            }
+            pollFrom = now.minus(overlap);
+        }
+        return seen;
+    }
+
+    // Drops revocations that can no longer match an unexpired token, here and in the table
+    @Scheduled(fixedDelayString = "${jwt.revocation.purge-interval:PT1H}", initialDelayString = "${jwt.revocation.purge-interval:PT1H}")
+    @Transactional
+    public int purgeExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (lock) {
+            revoked.values().removeIf(revocation -> revocation.expiresAtMillis() < now);
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, 2 * revoked.size()), 0.01);
+            revoked.keySet().forEach(rebuilt::add);
+            bloom = rebuilt;
+        }
+        return revokedTokenRepository.deleteExpired(LocalDateTime.now());
+    }
+
+    private void save(String key, LocalDateTime revokedAt, LocalDateTime expiresAt) {
+        revokedTokenRepository.save(new RevokedTokenEntity(key, revokedAt, expiresAt));
+        synchronized (lock) {
+            add(key, revokedAt, expiresAt);
+        }
+    }
+
+    // Caller holds the lock. A later revocation of the same key wins.
+    private void add(String key, LocalDateTime revokedAt, LocalDateTime expiresAt) {
+        Revocation revocation = new Revocation(millis(revokedAt), millis(expiresAt));
+        revoked.merge(key, revocation, (old, latest) -> new Revocation(
+                Math.max(old.revokedAtMillis(), latest.revokedAtMillis()),
+                Math.max(old.expiresAtMillis(), latest.expiresAtMillis())));
+        bloom.add(key);
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
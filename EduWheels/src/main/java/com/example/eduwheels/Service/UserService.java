@@ -14,6 +14,9 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private TableVersions tableVersions;
+
     public List<UserEntity> getAllUsers() {
         return userRepository.findAll();
     }
@@ -23,11 +26,14 @@ public class UserService {
     }
 
     public UserEntity createUser(UserEntity user) {
-        return userRepository.save(user);
+        UserEntity saved = userRepository.save(user);
+        tableVersions.changed(TableVersions.Table.USERS);
+        return saved;
     }
 
     public void deleteUser(Long id) {
         userRepository.deleteById(id);
+        tableVersions.changed(TableVersions.Table.USERS);
     }
 
     // Method to check if a user exists by email
@@ -0,0 +1,211 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Entity.VehicleEntity;
+import com.example.eduwheels.Repository.VehicleRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-through cache in front of {@link VehicleRepository} for the public vehicle catalog.
+ *
+ * Every BookingPage load asks for the whole fleet, which only changes a few times a day
+ * (admin edits) plus whenever a booking without a time window takes or returns seats. So the
+ * full list and single vehicles by ID are kept in memory until something invalidates them:
+ * {@link VehicleService} on create/update/delete, {@link SeatReservationEngine} on seat
+ * changes and {@link BookingService} when a booking registers a new plate. Entries also
+ * expire after {@code vehicles.cache.ttl-seconds} in case the table is edited behind the
+ * app's back, and at most {@code vehicles.cache.max-entries} vehicles are kept by ID (LRU).
+ *
+ * Invalidation inside a transaction waits for the commit, and a load that raced with an
+ * invalidation is not stored, so the cache never ends up holding rows older than the last
+ * committed change. Callers get their own copies; the cached ones are never handed out.
+ *
+ * Every invalidation also moves the vehicles' {@link TableVersions} counter behind the ETags.
+ *
+ * Per JVM, like {@link SeatAvailabilityIndex}: other instances only see changes after the TTL.
+ */
+@Service
+public class VehicleCatalogCache {
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TableVersions tableVersions;
+
+    @Value("${vehicles.cache.max-entries:1000}")
+    private int maxEntries;
+
+    @Value("${vehicles.cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private Map<Long, Entry<VehicleEntity>> byId;
+    private Entry<List<VehicleEntity>> catalog;
+    // Bumped by every invalidation; a load only stores its result if nothing changed meanwhile
+    private long generation;
+    private Counter hits;
+    private Counter misses;
+    private Counter evictions;
+
+    @PostConstruct
+    void init() {
+        hits = meterRegistry.counter("vehicles.cache.hits");
+        misses = meterRegistry.counter("vehicles.cache.misses");
+        evictions = meterRegistry.counter("vehicles.cache.evictions");
+        byId = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry<VehicleEntity>> eldest) {
+                if (size() > maxEntries) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public List<VehicleEntity> getAll() {
+        long loading;
+        synchronized (this) {
+            if (catalog != null && catalog.isFresh()) {
+                hits.increment();
+                return copyAll(catalog.value);
+            }
+            if (catalog != null) {
+                catalog = null;
+                evictions.increment();
+            }
+            loading = generation;
+        }
+        misses.increment();
+        List<VehicleEntity> loaded = copyAll(vehicleRepository.findAll());
+        synchronized (this) {
+            if (generation == loading) {
+                catalog = new Entry<>(loaded, expiry());
+            }
+        }
+        return copyAll(loaded);
+    }
+
+    public VehicleEntity get(Long id) {
+        long loading;
+        synchronized (this) {
+            Entry<VehicleEntity> entry = byId.get(id);
+            if (entry != null && entry.isFresh()) {
+                hits.increment();
+                return copy(entry.value);
+            }
+            if (entry != null) {
+                byId.remove(id);
+                evictions.increment();
+            }
+            loading = generation;
+        }
+        misses.increment();
+        VehicleEntity loaded = vehicleRepository.findById(id).map(VehicleCatalogCache::copy).orElse(null);
+        if (loaded == null) {
+            return null; // unknown IDs are not cached, so probing cannot flush real entries
+        }
+        synchronized (this) {
+            if (generation == loading) {
+                byId.put(id, new Entry<>(loaded, expiry()));
+            }
+        }
+        return copy(loaded);
+    }
+
+    /**
+     * Drops the vehicle and the full list, after the current transaction commits if there is one.
+     */
+    public void invalidate(Long vehicleId) {
+        tableVersions.changed(TableVersions.Table.VEHICLES);
+        afterCommit(() -> {
+            synchronized (this) {
+                generation++;
+                catalog = null;
+                byId.remove(vehicleId);
+            }
+        });
+    }
+
+    /**
+     * Drops everything, after the current transaction commits if there is one.
+     */
+    public void invalidateAll() {
+        tableVersions.changed(TableVersions.Table.VEHICLES);
+        afterCommit(() -> {
+            synchronized (this) {
+                generation++;
+                catalog = null;
+                byId.clear();
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        // Dropping right away as well keeps this transaction's own reads from being served stale
+        action.run();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                action.run();
+            }
+        });
+    }
+
+    private long expiry() {
+        return System.nanoTime() + ttlSeconds * 1_000_000_000L;
+    }
+
+    private static List<VehicleEntity> copyAll(List<VehicleEntity> vehicles) {
+        List<VehicleEntity> copies = new ArrayList<>(vehicles.size());
+        for (VehicleEntity vehicle : vehicles) {
+            copies.add(copy(vehicle));
+        }
+        return copies;
+    }
+
+    // Detached copy: callers may edit what they get (the photo endpoints do) without touching the cache
+    private static VehicleEntity copy(VehicleEntity vehicle) {
+        VehicleEntity copy = new VehicleEntity(vehicle.getPlateNumber(), vehicle.getType(), vehicle.getCapacity(),
+                vehicle.getAvailableSeats(), vehicle.getStatus(), vehicle.getPhotoPath(), vehicle.getVehicleName());
+        copy.setVehicleId(vehicle.getVehicleId());
+        copy.setPhotoStatus(vehicle.getPhotoStatus());
+        copy.setPhotoThumbnailUrl(vehicle.getPhotoThumbnailUrl());
+        copy.setPhotoCardUrl(vehicle.getPhotoCardUrl());
+        copy.setPhotoFullUrl(vehicle.getPhotoFullUrl());
+        return copy;
+    }
+
+    private static final class Entry<T> {
+        private final T value;
+        private final long expiresAt;
+
+        private Entry(T value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isFresh() {
+            return System.nanoTime() - expiresAt < 0;
+        }
+    }
+}
@@ -2,18 +2,28 @@ package com.example.eduwheels.Service;
 
 import com.example.eduwheels.Entity.VehicleEntity;
 import com.example.eduwheels.Repository.VehicleRepository;
-import com.google.cloud.storage.BlobId;
-import com.google.cloud.storage.BlobInfo;
-import com.google.cloud.storage.Storage;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
 import java.util.List;
-import java.util.Optional;
-import java.util.UUID;
+import java.util.Locale;
+import java.util.function.BooleanSupplier;
 
 @Service
 public class VehicleService {
@@ -22,38 +32,223 @@ public class VehicleService {
     private VehicleRepository vehicleRepository;
 
     @Autowired
-    private Storage storage; // Inject the Google Cloud Storage client
+    private BlobStore blobStore; // GCS or a local directory, depending on blobstore.type
 
-    @Value("${gcs.bucket.name}")
-    private String bucketName;
+    @Autowired
+    private SeatAvailabilityIndex seatAvailabilityIndex;
+
+    @Autowired
+    private VehicleCatalogCache vehicleCatalogCache;
+
+    @Autowired
+    private PhotoBlobService photoBlobService;
+
+    // Uploads used to be staged here until their digest was known; leftovers are never served and
+    // can be cleared with a bucket lifecycle rule on this prefix
+    public static final String STAGING_PREFIX = "vehicles/staging/";
+
+    @Value("${uploads.photo.max-bytes:10485760}")
+    private long maxPhotoBytes;
+
+    @Value("${uploads.photo.buffer-bytes:65536}")
+    private int bufferBytes;
+
+    // Base URL new photos are linked under; empty links straight into the blob store
+    @Value("${photos.public-url:}")
+    private String photosPublicUrl;
 
     // CRUD methods (getAllVehicles, getVehicleById, createVehicle, updateVehicle, deleteVehicle) remain largely the same
     // You'll only need to adjust how the photoPath is handled
 
+    /**
+     * Streams the photo to the bucket through a resumable upload instead of reading it into a
+     * byte array: the multipart part is spooled to disk by the container, and at most one read
+     * buffer plus one upload chunk of it is on the heap at a time, whatever the file size.
+     * {@code writer.write} blocks while a chunk is in flight, so a slow bucket slows the reads
+     * down rather than letting data pile up in memory.
+     *
+     * The object ends up named after the SHA-256 of its bytes. The photo is hashed while it is
+     * spooled to a local temp file, so the name is known before anything reaches the bucket, and a
+     * photo that is already stored isn't transferred again (as in {@link PhotoRenditionService}).
+     *
+     * @throws MaxUploadSizeExceededException if the photo is over {@code uploads.photo.max-bytes};
+     *                                        nothing is stored in that case
+     */
     public String uploadImageToGCS(MultipartFile file) throws IOException {
-        String imageName = "vehicles/" + UUID.randomUUID().toString() + "-" + file.getOriginalFilename();
-        BlobId blobId = BlobId.of(bucketName, imageName);
-        BlobInfo blobInfo = BlobInfo.newBuilder(blobId)
-                .setContentType(file.getContentType())
-                .build();
+        checkPhotoSize(file.getSize());
+        Path spooled = Files.createTempFile("vehicle-photo-", ".upload");
+        try {
+            MessageDigest sha256 = sha256();
+            try (InputStream in = new DigestInputStream(file.getInputStream(), sha256)) {
+                spool(in, spooled);
+            }
 
-        storage.create(blobInfo, file.getBytes());
+            String imageName = photoObjectName(HexFormat.of().formatHex(sha256.digest()), file.getOriginalFilename());
+            if (photoBlobService.reuse(imageName)) {
+                return publicUrl(imageName);
+            }
+            try (InputStream in = Files.newInputStream(spooled)) {
+                return storeImage(imageName, file.getContentType(), in);
+            }
+        } finally {
+            Files.deleteIfExists(spooled);
+        }
+    }
 
-        // Return the public URL of the uploaded image
-        return String.format("https://storage.googleapis.com/%s/%s", bucketName, imageName);
+    public void checkPhotoSize(long bytes) {
+        if (bytes > maxPhotoBytes) {
+            throw new MaxUploadSizeExceededException(maxPhotoBytes);
+        }
+    }
+
+    // Streams the bytes to the bucket under imageName, registers the blob and returns its public URL
+    public String storeImage(String imageName, String contentType, InputStream in) throws IOException {
+        long size = writeObject(imageName, contentType, in);
+        photoBlobService.register(imageName, size);
+        return publicUrl(imageName);
+    }
+
+    // The content-addressed name a photo with this digest is stored under
+    public static String photoObjectName(String sha256Hex, String originalFilename) {
+        String extension = "";
+        if (originalFilename != null && originalFilename.lastIndexOf('.') >= 0) {
+            extension = originalFilename.substring(originalFilename.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        }
+        return "vehicles/" + sha256Hex + (extension.matches("[a-z0-9]{1,5}") ? "." + extension : "");
     }
 
+    public static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public String publicUrl(String imageName) {
+        if (photosPublicUrl.isEmpty()) {
+            return blobStore.publicUrl(imageName);
+        }
+        return (photosPublicUrl.endsWith("/") ? photosPublicUrl : photosPublicUrl + "/") + imageName;
+    }
+
+    private void spool(InputStream in, Path target) throws IOException {
+        try (OutputStream out = Files.newOutputStream(target)) {
+            byte[] buffer = new byte[bufferBytes];
+            long total = 0;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                total += read;
+                if (total > maxPhotoBytes) { // the declared size was wrong
+                    throw new MaxUploadSizeExceededException(maxPhotoBytes);
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+    }
+
+    private long writeObject(String imageName, String contentType, InputStream in) throws IOException {
+        BlobStore.Upload upload = blobStore.create(imageName, contentType);
+        try {
+            byte[] buffer = new byte[bufferBytes];
+            long total = 0;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                total += read;
+                if (total > maxPhotoBytes) { // the declared size was wrong
+                    throw new MaxUploadSizeExceededException(maxPhotoBytes);
+                }
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                while (chunk.hasRemaining()) {
+                    upload.write(chunk);
+                }
+            }
+            // Only a finished upload is closed: closing is what makes the object appear
+            upload.close();
+            return total;
+        } catch (IOException | RuntimeException e) {
+            upload.abort();
+            throw e;
+        }
+    }
+
+    /**
+     * Records the pipeline's result for a vehicle and moves the blob references from the photo
+     * it replaces to the new one. Null URLs leave the current ones in place. {@code current} is
+     * checked once the vehicle's row is locked, so a result that was superseded while waiting for
+     * the lock is not written over the newer one.
+     *
+     * @return false if the vehicle no longer exists or the result is no longer current
+     */
+    @Transactional
+    public boolean recordPhoto(Long id, BooleanSupplier current, String status, String original, String thumbnail,
+                               String card, String full) {
+        VehicleEntity existing = vehicleRepository.lockById(id).orElse(null);
+        if (existing == null || !current.getAsBoolean()) {
+            return false;
+        }
+        List<String> replaced = new ArrayList<>();
+        List<String> added = new ArrayList<>();
+        String[][] columns = {
+                {existing.getPhotoPath(), original},
+                {existing.getPhotoThumbnailUrl(), thumbnail},
+                {existing.getPhotoCardUrl(), card},
+                {existing.getPhotoFullUrl(), full}};
+        for (String[] column : columns) {
+            if (column[1] != null) {
+                addObjectName(replaced, column[0]);
+                addObjectName(added, column[1]);
+            }
+        }
+        vehicleRepository.updatePhoto(id, status, original, thumbnail, card, full);
+        photoBlobService.removeReferences(replaced);
+        photoBlobService.addReferences(added);
+        vehicleCatalogCache.invalidate(id);
+        return true;
+    }
+
+    private List<String> photoObjectNames(VehicleEntity vehicle) {
+        List<String> names = new ArrayList<>();
+        addObjectName(names, vehicle.getPhotoPath());
+        addObjectName(names, vehicle.getPhotoThumbnailUrl());
+        addObjectName(names, vehicle.getPhotoCardUrl());
+        addObjectName(names, vehicle.getPhotoFullUrl());
+        return names;
+    }
+
+    // Only URLs into our bucket count, directly or through the photo cache; anything else was never registered
+    private void addObjectName(List<String> names, String url) {
+        if (url == null) {
+            return;
+        }
+        for (String prefix : List.of(publicUrl(""), blobStore.publicUrl(""))) {
+            if (url.startsWith(prefix)) {
+                names.add(url.substring(prefix.length()));
+                return;
+            }
+        }
+    }
+
+    // Served from VehicleCatalogCache; every write below invalidates it
     public List<VehicleEntity> getAllVehicles() {
-        return vehicleRepository.findAll();
+        return vehicleCatalogCache.getAll();
     }
 
     public VehicleEntity getVehicleById(Long id) {
-        Optional<VehicleEntity> opt = vehicleRepository.findById(id);
-        return opt.orElse(null);
+        return vehicleCatalogCache.get(id);
+    }
+
+    // Seats still free for the whole [from, to) window, answered from the in-memory index
+    public int getAvailableSeats(VehicleEntity vehicle, LocalDateTime from, LocalDateTime to) {
+        return seatAvailabilityIndex.availableSeats(vehicle.getVehicleId(), vehicle.getCapacity(), from, to);
     }
 
+    @Transactional
     public VehicleEntity createVehicle(VehicleEntity vehicle) {
-        return vehicleRepository.save(vehicle);
+        VehicleEntity created = vehicleRepository.save(vehicle);
+        photoBlobService.addReferences(photoObjectNames(created));
+        vehicleCatalogCache.invalidate(created.getVehicleId());
+        return created;
     }
 
     public VehicleEntity updateVehicle(Long id, VehicleEntity updated) {
@@ -64,17 +259,23 @@ public class VehicleService {
                     existing.setCapacity(updated.getCapacity());
                     existing.setAvailableSeats(updated.getAvailableSeats()); // Ensure this is mapped
                     existing.setStatus(updated.getStatus());
-                    existing.setPhotoPath(updated.getPhotoPath()); // Will now be a GCS URL
+                    // photoPath is left alone: photos only change through the upload endpoints, which keep the blob counts
                     existing.setVehicleName(updated.getVehicleName());
-                    return vehicleRepository.save(existing);
+                    VehicleEntity saved = vehicleRepository.save(existing);
+                    vehicleCatalogCache.invalidate(id);
+                    return saved;
                 })
                 .orElse(null);
     }
 
+    // The photo objects stay in the bucket until PhotoBlobService's sweep finds nothing else uses them
+    @Transactional
     public boolean deleteVehicle(Long id) {
-        if (vehicleRepository.existsById(id)) {
-            // Consider deleting the image from GCS here if needed
-            vehicleRepository.deleteById(id);
+        VehicleEntity existing = vehicleRepository.lockById(id).orElse(null);
+        if (existing != null) {
+            photoBlobService.removeReferences(photoObjectNames(existing));
+            vehicleRepository.delete(existing);
+            vehicleCatalogCache.invalidate(id);
             return true;
         }
         return false;
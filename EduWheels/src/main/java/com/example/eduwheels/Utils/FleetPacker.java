@@ -0,0 +1,107 @@
+package com.example.eduwheels.Utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Packs trips onto vehicles by seats and time window.
+ *
+ * Every vehicle gets its own {@link SeatTimeline}, so "does this trip still fit on vehicle V"
+ * costs O(log range) and one placement over a fleet of a few hundred vehicles is a few
+ * thousand operations. Placement is best fit: the vehicle whose peak load over the trip's
+ * window leaves the fewest seats unused wins, so trips stack onto vehicles that are already
+ * running before an empty one is taken. {@link #pack} runs it as best fit decreasing, biggest
+ * groups first.
+ *
+ * Not thread-safe; build one per planning run.
+ */
+public class FleetPacker {
+
+    public static final long NONE = -1;
+
+    private final List<Vehicle> vehicles;
+    private final SeatTimeline[] timelines;
+    private final Map<Long, Integer> positions = new HashMap<>();
+
+    public FleetPacker(List<Vehicle> vehicles) {
+        this.vehicles = new ArrayList<>(vehicles);
+        // Smallest first so that ties on leftover seats go to the smaller vehicle
+        this.vehicles.sort(Comparator.comparingInt(Vehicle::capacity).thenComparingLong(Vehicle::id));
+        this.timelines = new SeatTimeline[this.vehicles.size()];
+        for (int i = 0; i < this.vehicles.size(); i++) {
+            timelines[i] = new SeatTimeline();
+            positions.put(this.vehicles.get(i).id(), i);
+        }
+    }
+
+    /**
+     * Books seats on a vehicle without a capacity check: load that is not up for placement.
+     * Unknown vehicles are ignored.
+     */
+    public void hold(long vehicleId, long from, long to, int seats) {
+        Integer position = positions.get(vehicleId);
+        if (position != null) {
+            timelines[position].add(from, to, seats);
+        }
+    }
+
+    /**
+     * The vehicle the trip fits best on, or {@link #NONE}. On equal fit {@code preferredVehicleId}
+     * wins, so re-planning does not shuffle trips between interchangeable vehicles.
+     */
+    public long bestFit(long from, long to, int seats, long preferredVehicleId) {
+        long best = NONE;
+        int bestLeft = Integer.MAX_VALUE;
+        for (int i = 0; i < vehicles.size(); i++) {
+            Vehicle vehicle = vehicles.get(i);
+            if (vehicle.capacity() < seats) {
+                continue;
+            }
+            int left = vehicle.capacity() - timelines[i].maxBooked(from, to) - seats;
+            if (left < 0) {
+                continue;
+            }
+            if (left < bestLeft || (left == bestLeft && vehicle.id() == preferredVehicleId)) {
+                best = vehicle.id();
+                bestLeft = left;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Places every trip, biggest groups and longest windows first, and books it on the chosen
+     * vehicle.
+     *
+     * @return trip id to vehicle id; trips that fit nowhere are left out
+     */
+    public Map<Long, Long> pack(List<Trip> trips) {
+        List<Trip> sorted = new ArrayList<>(trips);
+        sorted.sort(Comparator.comparingInt(Trip::seats).reversed()
+                .thenComparing(Comparator.comparingLong((Trip trip) -> trip.to() - trip.from()).reversed())
+                .thenComparingLong(Trip::from)
+                .thenComparingLong(Trip::id));
+        Map<Long, Long> placed = new HashMap<>();
+        for (Trip trip : sorted) {
+            long vehicleId = bestFit(trip.from(), trip.to(), trip.seats(), trip.vehicleId());
+            if (vehicleId != NONE) {
+                hold(vehicleId, trip.from(), trip.to(), trip.seats());
+                placed.put(trip.id(), vehicleId);
+            }
+        }
+        return placed;
+    }
+
+    public record Vehicle(long id, int capacity) {
+    }
+
+    /**
+     * A trip to place; {@code vehicleId} is where it sits today ({@link #NONE} if nowhere) and
+     * times are minutes on any common clock, half-open.
+     */
+    public record Trip(long id, long vehicleId, long from, long to, int seats) {
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.eduwheels.Utils;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Fixed lat/lng grid used to bucket booking locations. A cell is {@value #CELL_DEGREES} degrees
+ * on each side, about 550 m north-south, and is packed into one long so it can be a map key.
+ */
+public final class GeoGrid {
+
+    public static final double CELL_DEGREES = 0.005;
+    public static final double METERS_PER_DEGREE_LAT = 111_320;
+
+    private static final int LNG_CELLS = (int) Math.round(360 / CELL_DEGREES);
+    private static final int LAT_CELLS = (int) Math.round(180 / CELL_DEGREES);
+    private static final int LNG_BITS = 32 - Integer.numberOfLeadingZeros(LNG_CELLS);
+
+    private GeoGrid() {
+    }
+
+    public static long cell(double lat, double lng) {
+        return pack(latCell(lat), lngCell(lng));
+    }
+
+    /**
+     * Calls {@code action} with every cell that may hold a point within {@code radiusM} meters
+     * of (lat, lng). Callers still check the exact distance; the cells are a superset.
+     */
+    public static void forEachCellWithin(double lat, double lng, double radiusM, LongConsumer action) {
+        double dLat = radiusM / METERS_PER_DEGREE_LAT;
+        int minLat = latCell(Math.max(-90, lat - dLat));
+        int maxLat = latCell(Math.min(90, lat + dLat));
+
+        // Meridians converge, so the longitude span grows towards the poles; use the widest row
+        double widestLat = Math.min(90, Math.max(Math.abs(lat - dLat), Math.abs(lat + dLat)));
+        double cos = Math.cos(Math.toRadians(widestLat));
+        double dLng = cos < 1e-9 ? 360 : radiusM / (METERS_PER_DEGREE_LAT * cos);
+        int firstLng;
+        int lngCells;
+        if (dLng >= 180) {
+            firstLng = 0;
+            lngCells = LNG_CELLS;
+        } else {
+            // Count from the western edge, wrapping across the antimeridian if needed
+            int reach = (int) Math.ceil(dLng / CELL_DEGREES);
+            firstLng = Math.floorMod(lngCell(lng) - reach, LNG_CELLS);
+            lngCells = Math.min(LNG_CELLS, 2 * reach + 1);
+        }
+
+        for (int latCell = minLat; latCell <= maxLat; latCell++) {
+            for (int i = 0; i < lngCells; i++) {
+                action.accept(pack(latCell, (firstLng + i) % LNG_CELLS));
+            }
+        }
+    }
+
+    private static int latCell(double lat) {
+        return Math.min(LAT_CELLS - 1, (int) Math.floor((lat + 90) / CELL_DEGREES));
+    }
+
+    private static int lngCell(double lng) {
+        return Math.floorMod((int) Math.floor((lng + 180) / CELL_DEGREES), LNG_CELLS);
+    }
+
+    private static long pack(int latCell, int lngCell) {
+        return ((long) latCell << LNG_BITS) | lngCell;
+    }
+}
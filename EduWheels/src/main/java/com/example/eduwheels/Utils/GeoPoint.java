@@ -0,0 +1,60 @@
+package com.example.eduwheels.Utils;
+
+/**
+ * A latitude/longitude pair, as the booking page writes it into pickUp/dropOff ("10.295600, 123.880100").
+ */
+public final class GeoPoint {
+
+    private static final double EARTH_RADIUS_M = 6_371_008.8;
+
+    private final double lat;
+    private final double lng;
+
+    public GeoPoint(double lat, double lng) {
+        this.lat = lat;
+        this.lng = lng;
+    }
+
+    /**
+     * Parses "lat, lng"; returns null for anything else (free-text addresses from older clients,
+     * blanks, out-of-range values).
+     */
+    public static GeoPoint parse(String text) {
+        if (text == null) {
+            return null;
+        }
+        int comma = text.indexOf(',');
+        if (comma < 0 || text.indexOf(',', comma + 1) >= 0) {
+            return null;
+        }
+        try {
+            double lat = Double.parseDouble(text.substring(0, comma).trim());
+            double lng = Double.parseDouble(text.substring(comma + 1).trim());
+            return isValid(lat, lng) ? new GeoPoint(lat, lng) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public static boolean isValid(double lat, double lng) {
+        return lat >= -90 && lat <= 90 && lng >= -180 && lng <= 180;
+    }
+
+    /**
+     * Great-circle (haversine) distance in meters.
+     */
+    public static double distanceMeters(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_M * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    public double distanceMeters(GeoPoint other) {
+        return distanceMeters(lat, lng, other.lat, other.lng);
+    }
+
+    public double getLat() { return lat; }
+    public double getLng() { return lng; }
+}
@@ -0,0 +1,134 @@
+package com.example.eduwheels.Utils;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel: schedule an item for a deadline in O(1), and get every item that
+ * came due when the clock is advanced, without ever looking at the items that are not due.
+ *
+ * Time is counted in ticks of {@code tickMillis}. Level 0 has one slot per tick, and each
+ * higher level has one slot per full turn of the level below. An item sits on the lowest level
+ * where its deadline and the current tick agree on all higher digits. When the clock enters a
+ * higher-level slot, that slot is cascaded down one level, so each item moves at most
+ * {@code levels} times. Deadlines beyond the top level wait in an overflow list that is
+ * re-placed once per full turn of the top level.
+ *
+ * Items fire at the first advance at or after their deadline, at most one tick late.
+ * Deadlines already in the past fire on the next advance.
+ *
+ * Not thread-safe; callers synchronize on the instance.
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final long tickMillis;
+    private final int bits;
+    private final int levels;
+    private final long mask;
+    private final ArrayDeque<Entry<T>>[][] slots;
+    private final ArrayDeque<Entry<T>> overflow = new ArrayDeque<>();
+    private final ArrayDeque<Entry<T>> overdue = new ArrayDeque<>();
+    private long currentTick; // every tick before this one has been fired
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMillis, int bits, int levels, long startMillis) {
+        if (tickMillis <= 0 || bits <= 0 || levels <= 0 || bits * levels > 62) {
+            throw new IllegalArgumentException("Invalid timing wheel shape");
+        }
+        this.tickMillis = tickMillis;
+        this.bits = bits;
+        this.levels = levels;
+        this.mask = (1L << bits) - 1;
+        this.slots = new ArrayDeque[levels][1 << bits];
+        for (ArrayDeque<Entry<T>>[] level : slots) {
+            for (int i = 0; i < level.length; i++) {
+                level[i] = new ArrayDeque<>();
+            }
+        }
+        this.currentTick = Math.floorDiv(startMillis, tickMillis);
+    }
+
+    public void schedule(T item, long deadlineMillis) {
+        // Round up so an item never fires before its deadline
+        long tick = -Math.floorDiv(-deadlineMillis, tickMillis);
+        if (tick < currentTick) {
+            overdue.add(new Entry<>(item, tick));
+        } else {
+            place(new Entry<>(item, tick));
+        }
+        size++;
+    }
+
+    /**
+     * Moves the clock to {@code nowMillis} and hands every item that is now due to {@code expired},
+     * in deadline order.
+     */
+    public void advance(long nowMillis, Consumer<T> expired) {
+        long target = Math.floorDiv(nowMillis, tickMillis);
+        Entry<T> late;
+        while ((late = overdue.poll()) != null) {
+            size--;
+            expired.accept(late.item);
+        }
+        while (currentTick <= target) {
+            cascade();
+            ArrayDeque<Entry<T>> due = slots[0][(int) (currentTick & mask)];
+            Entry<T> entry;
+            while ((entry = due.poll()) != null) {
+                size--;
+                expired.accept(entry.item);
+            }
+            currentTick++;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // At a level boundary, pull the slot the clock just entered one level down (highest first)
+    private void cascade() {
+        if ((currentTick & lowBits(levels)) == 0 && !overflow.isEmpty()) {
+            int pending = overflow.size();
+            for (int i = 0; i < pending; i++) {
+                place(overflow.poll());
+            }
+        }
+        for (int level = levels - 1; level >= 1; level--) {
+            if ((currentTick & lowBits(level)) != 0) {
+                continue;
+            }
+            ArrayDeque<Entry<T>> slot = slots[level][(int) ((currentTick >>> (bits * level)) & mask)];
+            int pending = slot.size();
+            for (int i = 0; i < pending; i++) {
+                place(slot.poll());
+            }
+        }
+    }
+
+    private void place(Entry<T> entry) {
+        for (int level = 0; level < levels; level++) {
+            int above = bits * (level + 1);
+            if ((entry.tick >>> above) == (currentTick >>> above)) {
+                slots[level][(int) ((entry.tick >>> (bits * level)) & mask)].add(entry);
+                return;
+            }
+        }
+        overflow.add(entry);
+    }
+
+    private long lowBits(int level) {
+        return (1L << (bits * level)) - 1;
+    }
+
+    private static final class Entry<T> {
+        private final T item;
+        private final long tick;
+
+        private Entry(T item, long tick) {
+            this.item = item;
+            this.tick = tick;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.eduwheels.Utils;
+
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Decodes a photo once and produces downscaled JPEG renditions of it.
+ *
+ * Large photos are subsampled while decoding, down to about twice the biggest rendition, so a
+ * 24 MP phone picture never gets fully expanded in memory. Renditions are made largest first,
+ * each from the previous one, by repeated halving with bilinear filtering: close to bicubic
+ * quality at a fraction of the cost. Images are never scaled up.
+ */
+public final class ImageRenditions {
+
+    /** Refuse anything bigger before decoding (a tiny file can claim huge dimensions). */
+    public static final long MAX_SOURCE_PIXELS = 60_000_000L;
+
+    public record Size(String name, int maxWidth, int maxHeight) {
+    }
+
+    public record Rendition(Size size, int width, int height, byte[] jpeg) {
+    }
+
+    private ImageRenditions() {
+    }
+
+    /**
+     * @throws IllegalArgumentException if the file is not an image ImageIO can read, is corrupt, or too large
+     */
+    public static List<Rendition> render(Path source, List<Size> sizes, float jpegQuality) throws IOException {
+        List<Size> largestFirst = new ArrayList<>(sizes);
+        largestFirst.sort(Comparator.comparingInt((Size s) -> s.maxWidth() * s.maxHeight()).reversed());
+
+        BufferedImage image = decode(source, largestFirst.get(0));
+        List<Rendition> renditions = new ArrayList<>();
+        for (Size size : largestFirst) {
+            image = scaleToFit(image, size.maxWidth(), size.maxHeight());
+            renditions.add(new Rendition(size, image.getWidth(), image.getHeight(), encodeJpeg(image, jpegQuality)));
+        }
+        return renditions;
+    }
+
+    private static BufferedImage decode(Path source, Size largest) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IllegalArgumentException("Not a supported image format.");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_SOURCE_PIXELS) {
+                    throw new IllegalArgumentException("Image is " + width + "x" + height + "; that is too many pixels.");
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = Math.max(1, Math.min(width / (2 * largest.maxWidth()), height / (2 * largest.maxHeight())));
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                return reader.read(0, param);
+            } catch (IIOException e) { // truncated or corrupt
+                throw new IllegalArgumentException("Photo could not be decoded: " + e.getMessage());
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    static BufferedImage scaleToFit(BufferedImage image, int maxWidth, int maxHeight) {
+        double scale = Math.min(1.0, Math.min((double) maxWidth / image.getWidth(), (double) maxHeight / image.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        // Every draw lands in TYPE_INT_RGB (alpha goes onto white, as JPEG wants), so the first step
+        // doubles as the format conversion
+        BufferedImage current = image;
+        while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= targetHeight) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        if (current.getWidth() != targetWidth || current.getHeight() != targetHeight
+                || current.getType() != BufferedImage.TYPE_INT_RGB) {
+            current = draw(current, targetWidth, targetHeight);
+        }
+        return current;
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = target.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(source, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            g.dispose();
+        }
+        return target;
+    }
+
+    private static byte[] encodeJpeg(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(image.getWidth() * image.getHeight() / 4);
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            writer.setOutput(out);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT); // renders blurry-to-sharp on slow links
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -1,19 +1,47 @@
 package com.example.eduwheels.Utils;
 
 import com.example.eduwheels.Service.CustomUserDetailsService;
+import com.example.eduwheels.Service.TokenRevocationService;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.*;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+/**
+ * Authenticates requests carrying "Authorization: Bearer <jwt>" without touching the database.
+ *
+ * The principal is a {@link JwtPrincipal} built from the token's claims (email, userid, role).
+ * Tokens issued before those claims existed fall back to loading the user by email; they are
+ * gone once the last of them expires.
+ *
+ * A token is verified (signature and expiry, in one parse) once; after that the principal comes
+ * from a small in-memory LRU keyed by the token's SHA-256, until the token expires or
+ * {@code jwt.cache.max-age} passes, whichever is first. Tokens that fail verification aren't
+ * cached. Revocation ({@link TokenRevocationService}, also in memory) is checked on every
+ * request, cached or not.
+ */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
@@ -23,24 +51,49 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${jwt.cache.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${jwt.cache.max-age:PT5M}")
+    private Duration maxAge;
+
+    private Map<String, Verified> verified; // guarded by itself
+    private Counter hits;
+    private Counter misses;
+
+    private record Verified(UserDetails user, String tokenId, Long userid, Date issuedAt, long expiresAtMillis) {
+    }
+
+    @PostConstruct
+    void init() {
+        hits = meterRegistry.counter("jwt.cache.hits");
+        misses = meterRegistry.counter("jwt.cache.misses");
+        verified = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Verified> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
 
         final String authHeader = request.getHeader("Authorization");
-        String email = null;
-        String jwtToken = null;
 
-        if (authHeader != null && authHeader.startsWith("Bearer ")) {
-            jwtToken = authHeader.substring(7);
-            email = jwtUtil.extractEmail(jwtToken);
-        }
-
-        if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = userDetailsService.loadUserByUsername(email);
+        if (authHeader != null && authHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = authenticate(authHeader.substring(7));
 
-            if (jwtUtil.validateToken(jwtToken)) {
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities()
                 );
@@ -51,4 +104,65 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
+
+    // The user a valid, unrevoked token belongs to, or null
+    UserDetails authenticate(String token) {
+        Verified entry = lookup(token);
+        if (entry == null
+                || tokenRevocationService.isRevoked(entry.tokenId(), entry.userid(), entry.issuedAt())) {
+            return null;
+        }
+        return entry.user();
+    }
+
+    private Verified lookup(String token) {
+        String key = sha256(token);
+        long now = System.currentTimeMillis();
+        synchronized (verified) {
+            Verified entry = verified.get(key);
+            if (entry != null) {
+                if (entry.expiresAtMillis() > now) {
+                    hits.increment();
+                    return entry;
+                }
+                verified.remove(key);
+            }
+        }
+        misses.increment();
+
+        Claims claims = jwtUtil.verify(token);
+        if (claims == null || claims.getSubject() == null) {
+            return null;
+        }
+        Long userid = claims.get("userid", Long.class);
+        String role = claims.get("role", String.class);
+        UserDetails userDetails;
+        if (userid != null && role != null) {
+            userDetails = new JwtPrincipal(claims.getSubject(), userid, role);
+        } else {
+            try { // issued before tokens carried the claims
+                userDetails = userDetailsService.loadUserByUsername(claims.getSubject());
+            } catch (UsernameNotFoundException e) {
+                return null;
+            }
+        }
+        long expiresAt = now + maxAge.toMillis();
+        if (claims.getExpiration() != null) {
+            expiresAt = Math.min(expiresAt, claims.getExpiration().getTime());
+        }
+        Verified entry = new Verified(userDetails, claims.getId(), userid, claims.getIssuedAt(), expiresAt);
+        synchronized (verified) {
+            verified.put(key, entry);
+        }
+        return entry;
+    }
+
+    private static String sha256(String token) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
@@ -0,0 +1,37 @@
+package com.example.eduwheels.Utils;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The caller as described by their JWT's claims, so authenticating a request needs no user
+ * lookup. The username is the email, as with the {@link User} it replaces; the role also
+ * comes through as a "ROLE_" authority for hasRole() checks.
+ */
+public class JwtPrincipal extends User {
+
+    private final Long userid;
+    private final String role;
+
+    public JwtPrincipal(String email, Long userid, String role) {
+        super(email, "", authorities(role));
+        this.userid = userid;
+        this.role = role;
+    }
+
+    public Long getUserid() { return userid; }
+    public String getRole() { return role; }
+
+    private static List<GrantedAuthority> authorities(String role) {
+        List<GrantedAuthority> authorities = new ArrayList<>();
+        authorities.add(new SimpleGrantedAuthority("USER"));
+        if (role != null && !role.isBlank()) {
+            authorities.add(new SimpleGrantedAuthority("ROLE_" + role));
+        }
+        return authorities;
+    }
+}
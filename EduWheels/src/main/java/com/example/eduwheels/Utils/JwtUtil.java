@@ -1,45 +1,62 @@
 package com.example.eduwheels.Utils;
 
+import com.example.eduwheels.Entity.UserEntity;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.Base64;
 import java.util.Date;
+import java.util.UUID;
 
 @Component
 public class JwtUtil {
 
+    // Short, so a token that leaks or outlives a change to the account doesn't last; clients get a
+    // new one from their refresh token (RefreshTokenService) instead of logging in again
+    @Value("${jwt.access-token-lifetime:PT15M}")
+    private Duration accessTokenLifetime = Duration.ofMinutes(15);
+
     // Replace with a more secure key in production (Base64-encoded)
     private final String SECRET_KEY = "2bf3d6f5d0839c89b1a3f9d4c76c2b5fa453b3cf5f6b3f7b21b38c9f45a5ef8e";
 
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = Base64.getEncoder()
-                .encode(SECRET_KEY.getBytes(StandardCharsets.UTF_8));
-        return Keys.hmacShaKeyFor(keyBytes);
-    }
+    // Built once: deriving the key and the parser used to happen twice per authenticated request.
+    // Parsers are immutable and safe to share between threads.
+    private final SecretKey signingKey = Keys.hmacShaKeyFor(Base64.getEncoder()
+            .encode(SECRET_KEY.getBytes(StandardCharsets.UTF_8)));
+    private final JwtParser parser = Jwts.parserBuilder()
+            .setSigningKey(signingKey)
+            .build();
 
     /**
-     * Generate a JWT token containing the email as subject and username as a custom claim.
+     * Generate a JWT token for the user: email as subject, plus the username, userid and role the
+     * request filter builds its principal from without loading the user, and a unique ID (jti)
+     * so this one token can be revoked on logout.
      *
-     * @param email    the user email to be set as subject
-     * @param username the user username to be set as a custom claim
+     * @param user the user the token is issued to
      * @return the JWT token string
      */
-    public String generateToken(String email, String username) {
-        long expirationTime = 1000 * 60 * 60 * 10; // 10 hours
-
+    public String generateToken(UserEntity user) {
         return Jwts.builder()
-                .setSubject(email)
-                .claim("username", username)
+                .setSubject(user.getEmail())
+                .setId(UUID.randomUUID().toString())
+                .claim("username", user.getUsername())
+                .claim("userid", user.getUserid())
+                .claim("role", user.getRole())
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + expirationTime))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS512)
+                .setExpiration(new Date(System.currentTimeMillis() + accessTokenLifetime.toMillis()))
+                .signWith(signingKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
+    public Duration getAccessTokenLifetime() {
+        return accessTokenLifetime;
+    }
+
     /**
      * Extract email (subject) from JWT token
      */
@@ -58,19 +75,21 @@ public class JwtUtil {
      * Validate the token (signature and expiration)
      */
     public boolean validateToken(String token) {
+        return verify(token) != null;
+    }
+
+    /**
+     * Parse and validate in one pass: the claims of a correctly signed, unexpired token, or null
+     */
+    public Claims verify(String token) {
         try {
-            parseClaims(token);
-            return true;
+            return parseClaims(token);
         } catch (JwtException | IllegalArgumentException e) {
-            return false;
+            return null;
         }
     }
 
     private Claims parseClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 }
@@ -0,0 +1,189 @@
+package com.example.eduwheels.Utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Groups trip requests that start near each other, end near each other and overlap in time
+ * into shared runs, then puts each run on a vehicle that is big enough and free for it.
+ *
+ * Requests are bucketed by (pickup {@link GeoGrid} cell, drop-off cell); buckets share nothing,
+ * so they are clustered in parallel as a fork-join task tree. Inside a bucket the requests are
+ * swept in start order and each one joins the first open run it is compatible with:
+ * <ul>
+ *   <li>pickup and drop-off within {@code radiusM} of the run's first request,</li>
+ *   <li>start within {@code maxStartGapMinutes} of the run's first start,</li>
+ *   <li>a time window that still overlaps every other request in the run,</li>
+ *   <li>enough seats left in the largest vehicle.</li>
+ * </ul>
+ * Vehicle assignment is a single greedy pass over all runs in start order: the smallest free
+ * vehicle that fits wins, which leaves the big ones for the big runs.
+ *
+ * Stateless; the inputs are not modified.
+ */
+public class RidePooler {
+
+    private static final int SEQUENTIAL_BUCKETS = 64;
+
+    private final double radiusM;
+    private final long maxStartGapMinutes;
+    private final ForkJoinPool pool;
+
+    public RidePooler(double radiusM, long maxStartGapMinutes, ForkJoinPool pool) {
+        this.radiusM = radiusM;
+        this.maxStartGapMinutes = maxStartGapMinutes;
+        this.pool = pool;
+    }
+
+    public List<Run> plan(List<Trip> trips, List<Vehicle> vehicles) {
+        int maxCapacity = vehicles.stream().mapToInt(Vehicle::capacity).max().orElse(0);
+        if (maxCapacity == 0) {
+            return List.of();
+        }
+        Map<Bucket, List<Trip>> byBucket = new HashMap<>();
+        for (Trip trip : trips) {
+            if (trip.passengers() <= 0 || trip.passengers() > maxCapacity || trip.endMinute() <= trip.startMinute()) {
+                continue; // can never be placed; left to the admin
+            }
+            Bucket bucket = new Bucket(GeoGrid.cell(trip.pickUpLat(), trip.pickUpLng()),
+                    GeoGrid.cell(trip.dropOffLat(), trip.dropOffLng()));
+            byBucket.computeIfAbsent(bucket, k -> new ArrayList<>()).add(trip);
+        }
+
+        List<Run> runs = pool.invoke(new ClusterTask(new ArrayList<>(byBucket.values()), maxCapacity));
+        assignVehicles(runs, vehicles);
+        return runs;
+    }
+
+    private List<Run> cluster(List<Trip> bucket, int maxCapacity) {
+        List<Trip> sorted = new ArrayList<>(bucket);
+        sorted.sort(Comparator.comparingLong(Trip::startMinute).thenComparing(Trip::id));
+        List<Run> open = new ArrayList<>();
+        List<Run> done = new ArrayList<>();
+        for (Trip trip : sorted) {
+            Run joined = null;
+            for (int i = 0; i < open.size(); i++) {
+                Run run = open.get(i);
+                if (trip.startMinute() - run.firstStart > maxStartGapMinutes) {
+                    // Later requests start even later, so this run can take nobody else
+                    done.add(run);
+                    open.remove(i--);
+                    continue;
+                }
+                if (joined == null && run.accepts(trip, maxCapacity, radiusM)) {
+                    joined = run;
+                }
+            }
+            if (joined != null) {
+                joined.add(trip);
+            } else {
+                open.add(new Run(trip));
+            }
+        }
+        done.addAll(open);
+        return done;
+    }
+
+    private static void assignVehicles(List<Run> runs, List<Vehicle> vehicles) {
+        runs.sort(Comparator.comparingLong(Run::getStartMinute).thenComparing(run -> run.trips.get(0).id()));
+        List<Vehicle> bySize = new ArrayList<>(vehicles);
+        bySize.sort(Comparator.comparingInt(Vehicle::capacity).thenComparing(Vehicle::id));
+        long[] busyUntil = new long[bySize.size()];
+        Arrays.fill(busyUntil, Long.MIN_VALUE);
+        for (Run run : runs) {
+            for (int v = 0; v < bySize.size(); v++) {
+                if (bySize.get(v).capacity() >= run.seats && busyUntil[v] <= run.startMinute) {
+                    run.vehicle = bySize.get(v);
+                    busyUntil[v] = run.endMinute;
+                    break;
+                }
+            }
+        }
+    }
+
+    private final class ClusterTask extends RecursiveTask<List<Run>> {
+        private final List<List<Trip>> buckets;
+        private final int maxCapacity;
+
+        private ClusterTask(List<List<Trip>> buckets, int maxCapacity) {
+            this.buckets = buckets;
+            this.maxCapacity = maxCapacity;
+        }
+
+        @Override
+        protected List<Run> compute() {
+            if (buckets.size() <= SEQUENTIAL_BUCKETS) {
+                List<Run> runs = new ArrayList<>();
+                for (List<Trip> bucket : buckets) {
+                    runs.addAll(cluster(bucket, maxCapacity));
+                }
+                return runs;
+            }
+            int middle = buckets.size() / 2;
+            ClusterTask left = new ClusterTask(buckets.subList(0, middle), maxCapacity);
+            ClusterTask right = new ClusterTask(buckets.subList(middle, buckets.size()), maxCapacity);
+            left.fork();
+            List<Run> runs = right.compute();
+            runs.addAll(left.join());
+            return runs;
+        }
+    }
+
+    private record Bucket(long pickUpCell, long dropOffCell) {
+    }
+
+    /**
+     * One booking to pool; times are minutes on any common clock.
+     */
+    public record Trip(long id, double pickUpLat, double pickUpLng, double dropOffLat, double dropOffLng,
+                       long startMinute, long endMinute, int passengers) {
+    }
+
+    public record Vehicle(long id, int capacity) {
+    }
+
+    public static final class Run {
+        private final List<Trip> trips = new ArrayList<>();
+        private final long firstStart;
+        private long startMinute;
+        private long endMinute;
+        private int seats;
+        private Vehicle vehicle;
+
+        private Run(Trip first) {
+            this.firstStart = first.startMinute();
+            this.startMinute = first.startMinute();
+            this.endMinute = first.endMinute();
+            add(first);
+        }
+
+        private boolean accepts(Trip trip, int maxCapacity, double radiusM) {
+            Trip first = trips.get(0);
+            return seats + trip.passengers() <= maxCapacity
+                    && Math.max(startMinute, trip.startMinute()) < Math.min(endMinute, trip.endMinute())
+                    && GeoPoint.distanceMeters(first.pickUpLat(), first.pickUpLng(), trip.pickUpLat(), trip.pickUpLng()) <= radiusM
+                    && GeoPoint.distanceMeters(first.dropOffLat(), first.dropOffLng(), trip.dropOffLat(), trip.dropOffLng()) <= radiusM;
+        }
+
+        private void add(Trip trip) {
+            trips.add(trip);
+            seats += trip.passengers();
+            // The run leaves when the last rider is ready and must finish by the earliest end
+            startMinute = Math.max(startMinute, trip.startMinute());
+            endMinute = Math.min(endMinute, trip.endMinute());
+        }
+
+        public List<Trip> getTrips() { return trips; }
+        public long getStartMinute() { return startMinute; }
+        public long getEndMinute() { return endMinute; }
+        public int getSeats() { return seats; }
+        /** Null when every vehicle that fits is already busy at that time. */
+        public Vehicle getVehicle() { return vehicle; }
+    }
+}
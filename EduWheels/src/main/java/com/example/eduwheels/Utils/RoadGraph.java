@@ -0,0 +1,236 @@
+package com.example.eduwheels.Utils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only road network in compressed sparse row form, memory-mapped from a file.
+ *
+ * File layout (little-endian):
+ * <pre>
+ *   int    magic "EWRG", int version, int nodeCount, int edgeCount
+ *   int    lat[nodeCount], lng[nodeCount]       degrees * 1e7
+ *   int    firstEdge[nodeCount + 1]             edges of node n are firstEdge[n] until firstEdge[n + 1]
+ *   int    target[edgeCount]
+ *   float  meters[edgeCount], seconds[edgeCount]
+ * </pre>
+ * The file is produced offline from an OpenStreetMap extract (see {@link Builder}) and mapped
+ * as is: the arrays are read straight from the page cache and never copied onto the heap.
+ * Opening scans the edges once for the A* speed bound; only a grid of node IDs for snapping
+ * coordinates is kept on the heap.
+ *
+ * Safe for concurrent readers.
+ */
+public final class RoadGraph {
+
+    static final int MAGIC = 0x45575247; // "EWRG"
+    static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final double E7 = 1e7;
+
+    private final int nodeCount;
+    private final int edgeCount;
+    private final IntBuffer lat;
+    private final IntBuffer lng;
+    private final IntBuffer firstEdge;
+    private final IntBuffer target;
+    private final FloatBuffer meters;
+    private final FloatBuffer seconds;
+    private final double maxSpeed;
+    private final Map<Long, int[]> nodesByCell;
+
+    private RoadGraph(ByteBuffer buffer) {
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Not a road graph file (version " + VERSION + ")");
+        }
+        nodeCount = buffer.getInt(8);
+        edgeCount = buffer.getInt(12);
+        long expected = HEADER_BYTES + 4L * (3L * nodeCount + 1 + 3L * edgeCount);
+        if (nodeCount < 0 || edgeCount < 0 || buffer.capacity() != expected) {
+            throw new IllegalArgumentException("Road graph file is truncated or corrupt");
+        }
+        int offset = HEADER_BYTES;
+        lat = slice(buffer, offset, nodeCount).asIntBuffer();
+        offset += 4 * nodeCount;
+        lng = slice(buffer, offset, nodeCount).asIntBuffer();
+        offset += 4 * nodeCount;
+        firstEdge = slice(buffer, offset, nodeCount + 1).asIntBuffer();
+        offset += 4 * (nodeCount + 1);
+        target = slice(buffer, offset, edgeCount).asIntBuffer();
+        offset += 4 * edgeCount;
+        meters = slice(buffer, offset, edgeCount).asFloatBuffer();
+        offset += 4 * edgeCount;
+        seconds = slice(buffer, offset, edgeCount).asFloatBuffer();
+
+        // Fastest straight-line pace on any edge keeps the A* estimate a lower bound
+        double fastest = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            for (int edge = firstEdge(node), end = firstEdge(node + 1); edge < end; edge++) {
+                double time = seconds(edge);
+                if (time > 0) {
+                    double length = Math.max(meters(edge), straightLineMeters(node, target(edge)));
+                    fastest = Math.max(fastest, length / time);
+                }
+            }
+        }
+        maxSpeed = fastest > 0 ? fastest : 1;
+
+        Map<Long, List<Integer>> cells = new HashMap<>();
+        for (int node = 0; node < nodeCount; node++) {
+            cells.computeIfAbsent(GeoGrid.cell(lat(node), lng(node)), k -> new ArrayList<>()).add(node);
+        }
+        nodesByCell = new HashMap<>(cells.size() * 2);
+        cells.forEach((cell, nodes) -> nodesByCell.put(cell, nodes.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    public static RoadGraph open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Road graph files over 2 GB are not supported");
+            }
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new RoadGraph(buffer);
+        }
+    }
+
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int ints) {
+        return buffer.slice(offset, 4 * ints).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public int nodeCount() { return nodeCount; }
+    public int edgeCount() { return edgeCount; }
+    public double lat(int node) { return lat.get(node) / E7; }
+    public double lng(int node) { return lng.get(node) / E7; }
+    public int firstEdge(int node) { return firstEdge.get(node); }
+    public int target(int edge) { return target.get(edge); }
+    public float meters(int edge) { return meters.get(edge); }
+    public float seconds(int edge) { return seconds.get(edge); }
+
+    /** Meters per second of the fastest edge; no path can beat straight line at this pace. */
+    public double maxSpeed() { return maxSpeed; }
+
+    public double straightLineMeters(int from, int to) {
+        return GeoPoint.distanceMeters(lat(from), lng(from), lat(to), lng(to));
+    }
+
+    /**
+     * The node closest to (lat, lng), or -1 when none is within {@code maxMeters}.
+     */
+    public int nearestNode(double lat, double lng, double maxMeters) {
+        int[] best = {-1};
+        double[] bestMeters = {maxMeters};
+        GeoGrid.forEachCellWithin(lat, lng, maxMeters, cell -> {
+            int[] nodes = nodesByCell.get(cell);
+            if (nodes == null) {
+                return;
+            }
+            for (int node : nodes) {
+                double d = GeoPoint.distanceMeters(lat, lng, lat(node), lng(node));
+                if (d <= bestMeters[0]) {
+                    bestMeters[0] = d;
+                    best[0] = node;
+                }
+            }
+        });
+        return best[0];
+    }
+
+    /**
+     * Collects nodes and directed edges and writes them in the file layout above. Used by the
+     * offline OSM import and by tests; the server only ever reads.
+     */
+    public static final class Builder {
+        private int[] lats = new int[16];
+        private int[] lngs = new int[16];
+        private int nodes;
+        private int[] from = new int[16];
+        private int[] to = new int[16];
+        private float[] edgeMeters = new float[16];
+        private float[] edgeSeconds = new float[16];
+        private int edges;
+
+        public int addNode(double lat, double lng) {
+            if (nodes == lats.length) {
+                lats = Arrays.copyOf(lats, nodes * 2);
+                lngs = Arrays.copyOf(lngs, nodes * 2);
+            }
+            lats[nodes] = (int) Math.round(lat * E7);
+            lngs[nodes] = (int) Math.round(lng * E7);
+            return nodes++;
+        }
+
+        public Builder addEdge(int fromNode, int toNode, double meters, double seconds) {
+            if (fromNode < 0 || fromNode >= nodes || toNode < 0 || toNode >= nodes) {
+                throw new IllegalArgumentException("Unknown node in edge " + fromNode + " -> " + toNode);
+            }
+            if (edges == from.length) {
+                from = Arrays.copyOf(from, edges * 2);
+                to = Arrays.copyOf(to, edges * 2);
+                edgeMeters = Arrays.copyOf(edgeMeters, edges * 2);
+                edgeSeconds = Arrays.copyOf(edgeSeconds, edges * 2);
+            }
+            from[edges] = fromNode;
+            to[edges] = toNode;
+            edgeMeters[edges] = (float) meters;
+            edgeSeconds[edges] = (float) seconds;
+            edges++;
+            return this;
+        }
+
+        /**
+         * A two-way road between two nodes at {@code kmh}, as long as the straight line.
+         */
+        public Builder addRoad(int a, int b, double kmh) {
+            double length = GeoPoint.distanceMeters(lats[a] / E7, lngs[a] / E7, lats[b] / E7, lngs[b] / E7);
+            double time = length / (kmh / 3.6);
+            addEdge(a, b, length, time);
+            return addEdge(b, a, length, time);
+        }
+
+        public void write(Path path) throws IOException {
+            // Counting sort by source node gives the CSR order in O(nodes + edges)
+            int[] first = new int[nodes + 1];
+            for (int e = 0; e < edges; e++) {
+                first[from[e] + 1]++;
+            }
+            for (int n = 0; n < nodes; n++) {
+                first[n + 1] += first[n];
+            }
+            int[] next = Arrays.copyOf(first, nodes);
+            int[] order = new int[edges];
+            for (int e = 0; e < edges; e++) {
+                order[next[from[e]]++] = e;
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + 4 * (3 * nodes + 1 + 3 * edges)).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(nodes).putInt(edges);
+            for (int n = 0; n < nodes; n++) buffer.putInt(lats[n]);
+            for (int n = 0; n < nodes; n++) buffer.putInt(lngs[n]);
+            for (int n = 0; n <= nodes; n++) buffer.putInt(first[n]);
+            for (int e : order) buffer.putInt(to[e]);
+            for (int e : order) buffer.putFloat(edgeMeters[e]);
+            for (int e : order) buffer.putFloat(edgeSeconds[e]);
+            buffer.flip();
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,342 @@
+package com.example.eduwheels.Utils;
+
+import java.util.Arrays;
+
+/**
+ * Fastest-path queries on a {@link RoadGraph} with A* and landmarks (ALT).
+ *
+ * The cost is travel time. The estimate for a node is the best lower bound out of:
+ * <ul>
+ *   <li>the straight-line distance at the graph's top speed, and</li>
+ *   <li>the triangle inequality over a few landmarks whose travel times to and from every node
+ *       are worked out once when the planner is built:
+ *       {@code d(v, t) >= d(L, t) - d(L, v)} and {@code d(v, t) >= d(v, L) - d(t, L)}.</li>
+ * </ul>
+ * Both never overshoot, so the first time the target is settled its time is optimal. On a
+ * street grid the straight line alone undershoots a lot (no diagonal streets, slow side
+ * roads) and A* ends up settling most of a disc around the origin; landmarks picked on the
+ * edge of the map, farthest from each other, cut that down to a narrow band along the route.
+ * Each query only consults the {@link #ACTIVE_LANDMARKS} landmarks with the best bound for its
+ * origin and target. The distance reported is the length of the fastest path.
+ *
+ * Straight lines use a flat-earth approximation around the target instead of haversine: no
+ * trigonometry per node, and at city scale it is within a fraction of a percent, which
+ * {@link #ESTIMATE_SLACK} absorbs.
+ *
+ * Landmark tables take 8 bytes per node and landmark on the heap (128 bytes per node with the
+ * default 16) and cost two Dijkstra runs per landmark when the planner is built. Search state is allocated
+ * once per thread and reused (a stamp per node instead of clearing arrays), so a query
+ * allocates nothing but its result. Thread-safe.
+ */
+public class RoutePlanner {
+
+    public static final int DEFAULT_LANDMARKS = 16;
+    /** Landmarks consulted per query: the ones giving the tightest bound at the origin. */
+    static final int ACTIVE_LANDMARKS = 4;
+
+    /** Shrinks the straight-line estimate so the flat-earth approximation stays below the true distance. */
+    static final double ESTIMATE_SLACK = 0.995;
+    private static final double METERS_PER_DEGREE = 6_371_008.8 * Math.PI / 180;
+
+    private final RoadGraph graph;
+    private final float[][] fromLandmark; // [landmark][node] seconds from the landmark to the node
+    private final float[][] toLandmark;   // [landmark][node] seconds from the node to the landmark
+    private final ThreadLocal<Search> searches;
+
+    public RoutePlanner(RoadGraph graph) {
+        this(graph, DEFAULT_LANDMARKS);
+    }
+
+    public RoutePlanner(RoadGraph graph, int landmarks) {
+        this.graph = graph;
+        int count = Math.min(Math.max(0, landmarks), graph.nodeCount());
+        this.fromLandmark = new float[count][];
+        this.toLandmark = new float[count][];
+        pickLandmarks();
+        this.searches = ThreadLocal.withInitial(() -> new Search(graph.nodeCount()));
+    }
+
+    /**
+     * The fastest route between two nodes, or null when {@code to} cannot be reached.
+     */
+    public Route route(int from, int to) {
+        if (from == to) {
+            return new Route(0, 0);
+        }
+        return searches.get().run(from, to);
+    }
+
+    public record Route(double meters, double seconds) {
+    }
+
+    // Farthest-first: each landmark is the node hardest to reach from the ones already picked,
+    // which spreads them around the edge of the map
+    private void pickLandmarks() {
+        if (fromLandmark.length == 0) {
+            return;
+        }
+        int nodes = graph.nodeCount();
+        int[] reverseFirst = new int[nodes + 1];
+        int[] reverseSource = new int[graph.edgeCount()];
+        float[] reverseSeconds = new float[graph.edgeCount()];
+        for (int edge = 0; edge < graph.edgeCount(); edge++) {
+            reverseFirst[graph.target(edge) + 1]++;
+        }
+        for (int node = 0; node < nodes; node++) {
+            reverseFirst[node + 1] += reverseFirst[node];
+        }
+        int[] next = Arrays.copyOf(reverseFirst, nodes);
+        for (int node = 0; node < nodes; node++) {
+            for (int edge = graph.firstEdge(node), end = graph.firstEdge(node + 1); edge < end; edge++) {
+                int slot = next[graph.target(edge)]++;
+                reverseSource[slot] = node;
+                reverseSeconds[slot] = graph.seconds(edge);
+            }
+        }
+
+        float[] closest = new float[nodes];
+        Arrays.fill(closest, Float.POSITIVE_INFINITY);
+        float[] seed = dijkstra(0, null, null, null);
+        int landmark = farthest(seed, null);
+        for (int i = 0; i < fromLandmark.length; i++) {
+            fromLandmark[i] = dijkstra(landmark, null, null, null);
+            toLandmark[i] = dijkstra(landmark, reverseFirst, reverseSource, reverseSeconds);
+            for (int node = 0; node < nodes; node++) {
+                closest[node] = Math.min(closest[node], fromLandmark[i][node]);
+            }
+            landmark = farthest(closest, closest);
+        }
+    }
+
+    private static int farthest(float[] times, float[] mask) {
+        int best = 0;
+        float bestTime = -1;
+        for (int node = 0; node < times.length; node++) {
+            float time = times[node];
+            if (time != Float.POSITIVE_INFINITY && time > bestTime && (mask == null || mask[node] > 0)) {
+                best = node;
+                bestTime = time;
+            }
+        }
+        return best;
+    }
+
+    // Plain Dijkstra over the whole graph, or over the reverse graph when one is given
+    private float[] dijkstra(int source, int[] reverseFirst, int[] reverseSource, float[] reverseSeconds) {
+        double[] best = new double[graph.nodeCount()];
+        Arrays.fill(best, Double.POSITIVE_INFINITY);
+        best[source] = 0;
+        NodeHeap heap = new NodeHeap();
+        heap.push(source, 0);
+        while (heap.size > 0) {
+            double key = heap.keys[0];
+            int node = heap.pop();
+            if (key > best[node]) {
+                continue;
+            }
+            if (reverseFirst == null) {
+                for (int edge = graph.firstEdge(node), end = graph.firstEdge(node + 1); edge < end; edge++) {
+                    relax(best, heap, graph.target(edge), key + graph.seconds(edge));
+                }
+            } else {
+                for (int edge = reverseFirst[node], end = reverseFirst[node + 1]; edge < end; edge++) {
+                    relax(best, heap, reverseSource[edge], key + reverseSeconds[edge]);
+                }
+            }
+        }
+        float[] times = new float[best.length];
+        for (int node = 0; node < best.length; node++) {
+            times[node] = (float) best[node];
+        }
+        return times;
+    }
+
+    private static void relax(double[] best, NodeHeap heap, int node, double time) {
+        if (time < best[node]) {
+            best[node] = time;
+            heap.push(node, time);
+        }
+    }
+
+    private final class Search {
+        private final double[] time;
+        private final double[] length;
+        private final int[] stamp;
+        private final boolean[] settled;
+        private final NodeHeap heap = new NodeHeap();
+        private final int active = Math.min(ACTIVE_LANDMARKS, fromLandmark.length);
+        private final float[][] activeFrom = new float[active][];
+        private final float[][] activeTo = new float[active][];
+        private final float[] landmarkToTarget = new float[active];
+        private final float[] targetToLandmark = new float[active];
+        private int run;
+        private double targetLat;
+        private double targetLng;
+        private double lngScale;
+        private double secondsPerMeter;
+
+        private Search(int nodes) {
+            time = new double[nodes];
+            length = new double[nodes];
+            stamp = new int[nodes];
+            settled = new boolean[nodes];
+        }
+
+        private Route run(int from, int to) {
+            if (++run == 0) { // stamps wrapped around: forget everything once
+                Arrays.fill(stamp, 0);
+                run = 1;
+            }
+            heap.size = 0;
+            targetLat = graph.lat(to);
+            targetLng = graph.lng(to);
+            // Meridians are closest together on the side of the target nearer the pole; the
+            // cosine half a degree (~55 km) poleward keeps east-west distances understated
+            lngScale = Math.cos(Math.toRadians(Math.min(90, Math.abs(targetLat) + 0.5)));
+            secondsPerMeter = ESTIMATE_SLACK / graph.maxSpeed();
+            pickActive(from, to);
+
+            reach(from, 0, 0);
+            heap.push(from, estimate(from));
+            while (heap.size > 0) {
+                int node = heap.pop();
+                if (settled[node]) {
+                    continue; // stale heap entry
+                }
+                if (node == to) {
+                    return new Route(length[node], time[node]);
+                }
+                settled[node] = true;
+                for (int edge = graph.firstEdge(node), end = graph.firstEdge(node + 1); edge < end; edge++) {
+                    int next = graph.target(edge);
+                    double nextTime = time[node] + graph.seconds(edge);
+                    if (stamp[next] != run) {
+                        reach(next, nextTime, length[node] + graph.meters(edge));
+                    } else if (!settled[next] && nextTime < time[next]) {
+                        time[next] = nextTime;
+                        length[next] = length[node] + graph.meters(edge);
+                    } else {
+                        continue;
+                    }
+                    heap.push(next, nextTime + estimate(next));
+                }
+            }
+            return null;
+        }
+
+        // Keeps the landmarks with the best lower bound for the whole trip; the rest would mostly
+        // cost table reads without raising the estimate
+        private void pickActive(int from, int to) {
+            int taken = 0;
+            double[] bounds = new double[active];
+            for (int i = 0; i < fromLandmark.length; i++) {
+                double bound = Math.max(bound(fromLandmark[i][to] - fromLandmark[i][from]),
+                        bound(toLandmark[i][from] - toLandmark[i][to]));
+                int slot = taken < active ? taken++ : active;
+                while (slot > 0 && bounds[slot - 1] < bound) {
+                    if (slot < active) {
+                        bounds[slot] = bounds[slot - 1];
+                        activeFrom[slot] = activeFrom[slot - 1];
+                        activeTo[slot] = activeTo[slot - 1];
+                    }
+                    slot--;
+                }
+                if (slot < active) {
+                    bounds[slot] = bound;
+                    activeFrom[slot] = fromLandmark[i];
+                    activeTo[slot] = toLandmark[i];
+                }
+            }
+            for (int i = 0; i < active; i++) {
+                landmarkToTarget[i] = activeFrom[i][to];
+                targetToLandmark[i] = activeTo[i][to];
+            }
+        }
+
+        private static double bound(float difference) {
+            return Float.isFinite(difference) ? difference : -1;
+        }
+
+        private void reach(int node, double nodeTime, double nodeLength) {
+            stamp[node] = run;
+            settled[node] = false;
+            time[node] = nodeTime;
+            length[node] = nodeLength;
+        }
+
+        private double estimate(int node) {
+            double dLat = graph.lat(node) - targetLat;
+            double dLng = Math.abs(graph.lng(node) - targetLng);
+            if (dLng > 180) {
+                dLng = 360 - dLng;
+            }
+            dLng *= lngScale;
+            double best = Math.sqrt(dLat * dLat + dLng * dLng) * METERS_PER_DEGREE * secondsPerMeter;
+            for (int i = 0; i < landmarkToTarget.length; i++) {
+                // Unreachable pairs (infinity) say nothing useful; skip them instead of risking NaN
+                float ahead = landmarkToTarget[i] - activeFrom[i][node];
+                if (ahead > best && ahead != Float.POSITIVE_INFINITY) {
+                    best = ahead;
+                }
+                float behind = activeTo[i][node] - targetToLandmark[i];
+                if (behind > best && behind != Float.POSITIVE_INFINITY) {
+                    best = behind;
+                }
+            }
+            // Tables are floats: take off a little so rounding cannot push the bound past the truth
+            return best * ESTIMATE_SLACK;
+        }
+    }
+
+    // Binary min-heap of node IDs with lazy deletion: an improved node is pushed again and the
+    // old entry is skipped when popped
+    private static final class NodeHeap {
+        private int[] nodes = new int[64];
+        private double[] keys = new double[64];
+        private int size;
+
+        private void push(int node, double key) {
+            if (size == nodes.length) {
+                nodes = Arrays.copyOf(nodes, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key) {
+                    break;
+                }
+                nodes[i] = nodes[parent];
+                keys[i] = keys[parent];
+                i = parent;
+            }
+            nodes[i] = node;
+            keys[i] = key;
+        }
+
+        private int pop() {
+            int top = nodes[0];
+            int lastNode = nodes[--size];
+            double lastKey = keys[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (keys[child] >= lastKey) {
+                    break;
+                }
+                nodes[i] = nodes[child];
+                keys[i] = keys[child];
+                i = child;
+            }
+            nodes[i] = lastNode;
+            keys[i] = lastKey;
+            return top;
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.example.eduwheels.Utils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Booked seats of one vehicle over time.
+ *
+ * A dynamic segment tree over minutes since the epoch with range-add / range-max, so both
+ * "book n seats between t1 and t2" and "most seats booked at any moment between t1 and t2"
+ * cost O(log range) no matter how many bookings the vehicle has. Nodes are only allocated
+ * for touched ranges. Intervals are half-open: [from, to).
+ *
+ * {@link #discardBefore} forgets everything before a given minute and rebuilds the tree from
+ * what is left, so nodes of windows that have ended (or were released) are given back.
+ *
+ * Not thread-safe; callers synchronize on the instance.
+ */
+public class SeatTimeline {
+
+    private static final int DEPTH = 26;
+    /** 2^26 minutes is about 127 years, so the timeline covers 1970 to 2097. */
+    public static final long DOMAIN = 1L << DEPTH;
+
+    private static final int NONE = 0; // the root lives at index 0 and is never anyone's child
+
+    private int[] left = new int[64];
+    private int[] right = new int[64];
+    private int[] max = new int[64];   // max over the node's range, including its own add
+    private int[] add = new int[64];   // seats added to the whole node range
+    private int size = 1;
+    private long floor = 0;            // nothing before this minute is kept
+
+    public void add(LocalDateTime from, LocalDateTime to, int seats) {
+        add(floorMinute(from), ceilMinute(to), seats);
+    }
+
+    public int maxBooked(LocalDateTime from, LocalDateTime to) {
+        return maxBooked(floorMinute(from), ceilMinute(to));
+    }
+
+    public void add(long from, long to, int seats) {
+        from = Math.max(from, floor);
+        if (from >= to || seats == 0) {
+            return;
+        }
+        add(0, 0, DOMAIN, from, to, seats);
+    }
+
+    public int maxBooked(long from, long to) {
+        from = Math.max(from, floor);
+        if (from >= to) {
+            return 0;
+        }
+        return query(0, 0, DOMAIN, from, to);
+    }
+
+    /**
+     * Drops every booked range before {@code minute}, keeping the seats from then on as they
+     * were. Later adds and queries before that minute are ignored.
+     */
+    public void discardBefore(long minute) {
+        if (minute <= floor) {
+            return;
+        }
+        SeatTimeline kept = new SeatTimeline();
+        copyFrom(kept, 0, 0, DOMAIN, 0, minute);
+        left = kept.left;
+        right = kept.right;
+        max = kept.max;
+        add = kept.add;
+        size = kept.size;
+        floor = minute;
+    }
+
+    // Allocated nodes, root included
+    public int nodeCount() {
+        return size;
+    }
+
+    // Re-adds the piecewise-constant seat levels of [max(lo, from), hi) to the target
+    private void copyFrom(SeatTimeline target, int node, long lo, long hi, int above, long from) {
+        if (hi <= from) {
+            return;
+        }
+        int level = above + add[node];
+        if (left[node] == NONE && right[node] == NONE) {
+            target.add(Math.max(lo, from), hi, level);
+            return;
+        }
+        long mid = (lo + hi) >>> 1;
+        if (left[node] != NONE) {
+            copyFrom(target, left[node], lo, mid, level, from);
+        } else {
+            target.add(Math.max(lo, from), mid, level);
+        }
+        if (right[node] != NONE) {
+            copyFrom(target, right[node], mid, hi, level, from);
+        } else {
+            target.add(Math.max(mid, from), hi, level);
+        }
+    }
+
+    private void add(int node, long lo, long hi, long from, long to, int seats) {
+        if (from <= lo && hi <= to) {
+            add[node] += seats;
+            max[node] += seats;
+            return;
+        }
+        long mid = (lo + hi) >>> 1;
+        if (from < mid) {
+            if (left[node] == NONE) {
+                int child = allocate();
+                left[node] = child;
+            }
+            add(left[node], lo, mid, from, to, seats);
+        }
+        if (to > mid) {
+            if (right[node] == NONE) {
+                int child = allocate();
+                right[node] = child;
+            }
+            add(right[node], mid, hi, from, to, seats);
+        }
+        max[node] = add[node] + Math.max(maxOf(left[node]), maxOf(right[node]));
+    }
+
+    private int query(int node, long lo, long hi, long from, long to) {
+        if (from <= lo && hi <= to) {
+            return max[node];
+        }
+        long mid = (lo + hi) >>> 1;
+        int best = 0;
+        if (from < mid && left[node] != NONE) {
+            best = query(left[node], lo, mid, from, to);
+        }
+        if (to > mid && right[node] != NONE) {
+            best = Math.max(best, query(right[node], mid, hi, from, to));
+        }
+        return add[node] + best;
+    }
+
+    private int maxOf(int node) {
+        return node == NONE ? 0 : max[node];
+    }
+
+    private int allocate() {
+        if (size == max.length) {
+            int grown = size * 2;
+            left = Arrays.copyOf(left, grown);
+            right = Arrays.copyOf(right, grown);
+            max = Arrays.copyOf(max, grown);
+            add = Arrays.copyOf(add, grown);
+        }
+        return size++;
+    }
+
+    public static long floorMinute(LocalDateTime time) {
+        return clamp(Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60));
+    }
+
+    public static long ceilMinute(LocalDateTime time) {
+        long seconds = time.toEpochSecond(ZoneOffset.UTC);
+        long minute = Math.floorDiv(seconds, 60) + (Math.floorMod(seconds, 60) > 0 || time.getNano() > 0 ? 1 : 0);
+        return clamp(minute);
+    }
+
+    private static long clamp(long minute) {
+        return Math.max(0, Math.min(DOMAIN, minute));
+    }
+}
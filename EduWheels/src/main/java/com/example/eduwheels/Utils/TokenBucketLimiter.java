@@ -0,0 +1,94 @@
+package com.example.eduwheels.Utils;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A token bucket per key: up to {@code capacity} attempts at once, then one more every
+ * {@code refillEvery}. Buckets are refilled lazily, from the time since the key was last seen,
+ * so nothing runs in the background and idle keys cost nothing but their entry.
+ *
+ * Keys are spread over a fixed number of stripes, each an access-ordered map behind its own
+ * lock, so threads checking different keys rarely meet. Each stripe keeps at most its share of
+ * {@code maxEntries} and drops its least recently used bucket past that. A dropped bucket
+ * comes back full, which at worst lets one evicted key start over.
+ */
+public class TokenBucketLimiter {
+
+    private static final class Bucket {
+        double tokens;
+        long refilledAt;
+
+        Bucket(double tokens, long refilledAt) {
+            this.tokens = tokens;
+            this.refilledAt = refilledAt;
+        }
+    }
+
+    private final int capacity;
+    private final long refillNanos;
+    private final LinkedHashMap<String, Bucket>[] stripes; // each guarded by itself
+    private final int mask;
+
+    @SuppressWarnings("unchecked")
+    public TokenBucketLimiter(int capacity, Duration refillEvery, int maxEntries, int stripeCount) {
+        this.capacity = Math.max(1, capacity);
+        this.refillNanos = Math.max(1, refillEvery.toNanos());
+        int n = stripeCount <= 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1; // next power of two
+        int perStripe = Math.max(1, maxEntries / n);
+        this.stripes = new LinkedHashMap[n];
+        for (int i = 0; i < n; i++) {
+            stripes[i] = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Bucket> eldest) {
+                    return size() > perStripe;
+                }
+            };
+        }
+        this.mask = n - 1;
+    }
+
+    /**
+     * Takes one token for the key: 0 if there was one, otherwise how many nanoseconds until there
+     * will be. A refused attempt takes nothing.
+     */
+    public long tryAcquire(String key) {
+        return tryAcquire(key, System.nanoTime());
+    }
+
+    long tryAcquire(String key, long now) {
+        LinkedHashMap<String, Bucket> stripe = stripe(key);
+        synchronized (stripe) {
+            Bucket bucket = stripe.get(key);
+            if (bucket == null) {
+                stripe.put(key, new Bucket(capacity - 1, now));
+                return 0;
+            }
+            double tokens = Math.min(capacity, bucket.tokens + (double) (now - bucket.refilledAt) / refillNanos);
+            bucket.refilledAt = now;
+            if (tokens >= 1) {
+                bucket.tokens = tokens - 1;
+                return 0;
+            }
+            bucket.tokens = tokens;
+            return (long) Math.ceil((1 - tokens) * refillNanos);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (LinkedHashMap<String, Bucket> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private LinkedHashMap<String, Bucket> stripe(String key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        return stripes[h & mask];
+    }
+}
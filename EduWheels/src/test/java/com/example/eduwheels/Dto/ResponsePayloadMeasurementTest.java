@@ -0,0 +1,116 @@
+package com.example.eduwheels.Dto;
+
+import com.example.eduwheels.Entity.BookingEntity;
+import com.example.eduwheels.Entity.ReportEntity;
+import com.example.eduwheels.Entity.UserEntity;
+import com.example.eduwheels.Entity.VehicleEntity;
+import com.example.eduwheels.Repository.BookingRepository;
+import com.example.eduwheels.Repository.ReportRepository;
+import com.example.eduwheels.Repository.UserRepository;
+import com.example.eduwheels.Repository.VehicleRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Before/after numbers for the booking and review list endpoints: JSON bytes and bytes
+ * allocated on the request thread (query + serialization) when returning entities versus the
+ * constructor-expression DTOs.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+class ResponsePayloadMeasurementTest {
+
+    private static final int BOOKINGS = 200;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ReportRepository reportRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void summariesAreSmallerAndNeverLeakPasswords() throws Exception {
+        seed();
+
+        Measurement bookingsBefore = measure(() -> bookingRepository.findAll());
+        Measurement bookingsAfter = measure(() -> bookingRepository.findSummaryPage(
+                null, null, null, null, null, null, null, Limit.of(BOOKINGS)));
+        Measurement reviewsBefore = measure(() -> reportRepository.findAll());
+        Measurement reviewsAfter = measure(() -> reportRepository.findAllSummaries());
+
+        System.out.printf("GET /api/bookings (%d rows): %,d -> %,d bytes, %,d -> %,d bytes allocated%n",
+                BOOKINGS, bookingsBefore.bytes, bookingsAfter.bytes, bookingsBefore.allocated, bookingsAfter.allocated);
+        System.out.printf("GET /api/reviews  (%d rows): %,d -> %,d bytes, %,d -> %,d bytes allocated%n",
+                BOOKINGS / 2, reviewsBefore.bytes, reviewsAfter.bytes, reviewsBefore.allocated, reviewsAfter.allocated);
+
+        assertTrue(bookingsAfter.bytes < bookingsBefore.bytes);
+        assertTrue(reviewsAfter.bytes < reviewsBefore.bytes);
+        assertTrue(bookingsBefore.json.contains("\"password\""), "the entity graph leaks the hash");
+        assertFalse(bookingsAfter.json.contains("password"));
+        assertFalse(reviewsAfter.json.contains("password"));
+        assertFalse(bookingsAfter.json.contains("photoPath"));
+    }
+
+    private Measurement measure(Supplier<List<?>> request) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        // Warm up, then measure one cold-cache request the way a fresh HTTP request would see it
+        for (int i = 0; i < 5; i++) {
+            entityManager.clear();
+            objectMapper.writeValueAsString(request.get());
+        }
+        entityManager.clear();
+        long before = threads.getThreadAllocatedBytes(thread);
+        String json = objectMapper.writeValueAsString(request.get());
+        long allocated = threads.getThreadAllocatedBytes(thread) - before;
+        return new Measurement(json, json.getBytes().length, allocated);
+    }
+
+    private void seed() {
+        String photo = "https://storage.googleapis.com/eduwheels_bucket/vehicles/" + "x".repeat(200) + ".jpg";
+        VehicleEntity bus = vehicleRepository.save(new VehicleEntity("BUS-001", "Bus", 40, 40, "Available", photo, "Campus Bus"));
+        VehicleEntity van = vehicleRepository.save(new VehicleEntity("VAN-002", "Van", 12, 12, "Available", photo, "Shuttle Van"));
+        LocalDateTime start = LocalDateTime.of(2025, 2, 3, 8, 0);
+        for (int i = 0; i < BOOKINGS; i++) {
+            UserEntity user = userRepository.save(new UserEntity(String.format("%09d", i), "First" + i, "Last" + i,
+                    "user" + i, "user" + i + "@cit.edu", "{bcrypt}$2a$10$abcdefghijklmnopqrstuuJ3Yx1o4k2m3n4o5p6q7r8s9t0u1v2w3", "User"));
+            BookingEntity booking = bookingRepository.save(new BookingEntity(user, i % 2 == 0 ? bus : van,
+                    "10.2950, 123.8810", "10.3157, 123.8854", 2, start.plusMinutes(i), start.plusDays(1),
+                    start.plusDays(1).plusHours(1), BookingEntity.Status.Done));
+            if (i % 2 == 0) {
+                reportRepository.save(new ReportEntity(user, booking, 5, "Smooth ride, on time.", start.plusDays(2)));
+            }
+        }
+        entityManager.flush();
+    }
+
+    private record Measurement(String json, int bytes, long allocated) {
+    }
+}
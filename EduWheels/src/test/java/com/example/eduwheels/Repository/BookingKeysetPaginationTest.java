@@ -0,0 +1,167 @@
+package com.example.eduwheels.Repository;
+
+import com.example.eduwheels.Dto.BookingSummary;
+import com.example.eduwheels.Entity.BookingEntity;
+import com.example.eduwheels.Entity.UserEntity;
+import com.example.eduwheels.Entity.VehicleEntity;
+import com.example.eduwheels.Service.BookingEventHub;
+import com.example.eduwheels.Service.BookingLocationIndex;
+import com.example.eduwheels.Service.BookingService;
+import com.example.eduwheels.Service.FleetAssignmentService;
+import com.example.eduwheels.Service.PendingBookingExpiryService;
+import com.example.eduwheels.Service.RidePoolingService;
+import com.example.eduwheels.Service.RoutingService;
+import com.example.eduwheels.Service.SeatAvailabilityIndex;
+import com.example.eduwheels.Service.SeatReservationEngine;
+import com.example.eduwheels.Service.TableVersions;
+import com.example.eduwheels.Service.VehicleCatalogCache;
+import com.example.eduwheels.Utils.KeysetPage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@Import({BookingService.class, SeatReservationEngine.class, SeatAvailabilityIndex.class,
+        PendingBookingExpiryService.class, BookingEventHub.class, BookingLocationIndex.class, RidePoolingService.class,
+        FleetAssignmentService.class, RoutingService.class, VehicleCatalogCache.class, TableVersions.class, SimpleMeterRegistry.class,
+        JacksonAutoConfiguration.class})
+class BookingKeysetPaginationTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 6, 7, 0);
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void pagesCoverEveryRowOnceInKeysetOrder() {
+        Fixture fixture = seed(23);
+
+        Set<Long> seen = new HashSet<>();
+        LocalDateTime previous = null;
+        String cursor = null;
+        int pages = 0;
+        do {
+            KeysetPage<BookingSummary> page = bookingService.getBookingsPage(null, null, null, null, null, cursor, 5);
+            for (BookingSummary booking : page.getItems()) {
+                assertTrue(seen.add(booking.getBookingID()), "no row is returned twice");
+                if (previous != null) {
+                    assertTrue(!booking.getRequestDate().isAfter(previous), "newest first");
+                }
+                previous = booking.getRequestDate();
+            }
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(fixture.count, seen.size());
+        assertEquals(5, pages);
+    }
+
+    @Test
+    void filtersNarrowThePage() {
+        Fixture fixture = seed(20);
+
+        KeysetPage<BookingSummary> pending = bookingService.getBookingsPage(
+                BookingEntity.Status.Pending, fixture.vehicle.getVehicleId(), fixture.user.getUserid(),
+                BASE.plusMinutes(4), BASE.plusMinutes(16), null, 50);
+
+        assertTrue(pending.getItems().stream().allMatch(b -> b.getStatus() == BookingEntity.Status.Pending));
+        assertTrue(pending.getItems().stream().allMatch(b -> !b.getRequestDate().isBefore(BASE.plusMinutes(4))
+                && b.getRequestDate().isBefore(BASE.plusMinutes(16))));
+        // Rows are a minute apart and cycle through the six statuses: minutes 6 and 12 are Pending
+        assertEquals(2, pending.getItems().size());
+        assertNull(pending.getNextCursor());
+    }
+
+    /**
+     * Run with -Dbenchmarks=true. Times the first page and a page 90% into the listing at
+     * 10k, 100k and 1M rows; with keyset seeks both stay flat as the table grows.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void latencyStaysFlatAsTheTableGrows() {
+        Fixture fixture = seed(0);
+        int inserted = 0;
+        for (int target : new int[]{10_000, 100_000, 1_000_000}) {
+            insertBulk(fixture, inserted, target);
+            inserted = target;
+
+            LocalDateTime deepDate = BASE.plusMinutes(target / 10);
+            String deepCursor = KeysetPage.encodeCursor(deepDate, Long.MAX_VALUE);
+
+            double first = time(() -> bookingService.getBookingsPage(null, null, null, null, null, null, 50));
+            double deep = time(() -> bookingService.getBookingsPage(null, null, null, null, null, deepCursor, 50));
+            double filtered = time(() -> bookingService.getBookingsPage(BookingEntity.Status.Approved,
+                    fixture.vehicle.getVehicleId(), null, null, null, deepCursor, 50));
+            System.out.printf("Keyset listing @ %,d rows: first page %.2f ms, deep page %.2f ms, filtered deep page %.2f ms%n",
+                    target, first, deep, filtered);
+        }
+    }
+
+    private double time(Runnable query) {
+        for (int i = 0; i < 20; i++) {
+            query.run();
+        }
+        int runs = 100;
+        long start = System.nanoTime();
+        for (int i = 0; i < runs; i++) {
+            query.run();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / runs;
+    }
+
+    private void insertBulk(Fixture fixture, int from, int to) {
+        BookingEntity.Status[] statuses = BookingEntity.Status.values();
+        int chunk = 10_000;
+        for (int start = from; start < to; start += chunk) {
+            List<Object[]> rows = new ArrayList<>(chunk);
+            for (int i = start; i < Math.min(to, start + chunk); i++) {
+                LocalDateTime requested = BASE.plusMinutes(i);
+                rows.add(new Object[]{fixture.user.getUserid(), fixture.vehicle.getVehicleId(), "10.3, 123.9", "10.2, 123.8", 1,
+                        Timestamp.valueOf(requested), Timestamp.valueOf(requested.plusDays(1)),
+                        Timestamp.valueOf(requested.plusDays(1).plusHours(1)), statuses[i % statuses.length].name()});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO tblbooking (userid, vehicleid, pick_up, drop_off, number_of_passengers, " +
+                    "request_date, start_date, end_date, status) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", rows);
+        }
+    }
+
+    private Fixture seed(int count) {
+        UserEntity user = userRepository.save(new UserEntity("000000001", "Ana", "Cruz", "ana", "ana@cit.edu", "x", "User"));
+        VehicleEntity vehicle = vehicleRepository.save(new VehicleEntity("ABC-123", "Bus", 40, 40, "Available", null, "Campus Bus"));
+        Fixture fixture = new Fixture(user, vehicle, count);
+        insertBulk(fixture, 0, count);
+        return fixture;
+    }
+
+    private record Fixture(UserEntity user, VehicleEntity vehicle, int count) {
+    }
+}
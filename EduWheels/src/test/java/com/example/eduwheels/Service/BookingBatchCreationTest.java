@@ -0,0 +1,201 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Controller.BookingController.BookingRequest;
+import com.example.eduwheels.Dto.BatchBookingResult;
+import com.example.eduwheels.Entity.UserEntity;
+import com.example.eduwheels.Entity.VehicleEntity;
+import com.example.eduwheels.Repository.BookingRepository;
+import com.example.eduwheels.Repository.UserRepository;
+import com.example.eduwheels.Repository.VehicleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@Import({BookingService.class, SeatReservationEngine.class, SeatAvailabilityIndex.class,
+        PendingBookingExpiryService.class, BookingEventHub.class, BookingLocationIndex.class, RidePoolingService.class,
+        FleetAssignmentService.class, RoutingService.class, VehicleCatalogCache.class, TableVersions.class, SimpleMeterRegistry.class,
+        JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // the service must commit or roll back on its own
+class BookingBatchCreationTest {
+
+    private static final LocalDateTime TRIP = LocalDateTime.of(2025, 4, 7, 8, 0);
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private SeatAvailabilityIndex seatAvailabilityIndex;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @BeforeEach
+    void signIn() {
+        String email = "faculty" + System.nanoTime() + "@cit.edu";
+        userRepository.save(new UserEntity(String.valueOf(System.nanoTime() % 1_000_000_000), "Fe", "Lopez",
+                email.substring(0, email.indexOf('@')), email, "x", "Teacher"));
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(email, null, List.of()));
+    }
+
+    // Nothing here runs in a test transaction, so remove what was committed; the cached
+    // context and its database are shared with other @DataJpaTest classes
+    @AfterEach
+    void cleanUp() {
+        SecurityContextHolder.clearContext();
+        bookingRepository.deleteAllInBatch();
+        vehicleRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        seatAvailabilityIndex.rebuild();
+    }
+
+    @Test
+    void bestEffortCreatesWhatFitsAndReportsTheRest() {
+        VehicleEntity bus = vehicleRepository.save(new VehicleEntity("BATCH-1", "Bus", 10, 10, "Available", null, "Bus"));
+        List<BookingRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            requests.add(request("BATCH-1", 3, "Pending", TRIP, TRIP.plusHours(4)));
+        }
+        requests.add(request("BATCH-1", 1, "Nope", TRIP, TRIP.plusHours(4)));
+
+        BatchBookingResult result = bookingService.createBookings(requests, false);
+
+        assertEquals(3, result.getCreated());
+        assertEquals(2, result.getRejected());
+        assertFalse(result.getItems().get(3).isCreated());
+        assertTrue(result.getItems().get(3).getMessage().startsWith("Not enough seats"));
+        assertTrue(result.getItems().get(4).getMessage().startsWith("Invalid booking status"));
+        for (int i = 0; i < 3; i++) {
+            Long id = result.getItems().get(i).getBooking().getBookingID();
+            assertNotNull(id);
+            assertTrue(bookingRepository.existsById(id));
+        }
+        assertEquals(9, seatAvailabilityIndex.bookedSeats(bus.getVehicleId(), TRIP, TRIP.plusHours(4)));
+    }
+
+    @Test
+    void allOrNothingRollsBackEverySeatAndRow() {
+        VehicleEntity van = vehicleRepository.save(new VehicleEntity("BATCH-2", "Van", 10, 10, "Available", null, "Van"));
+        VehicleEntity counted = vehicleRepository.save(new VehicleEntity("BATCH-3", "Van", 10, 10, "Available", null, "Van"));
+        long before = bookingRepository.count();
+
+        BatchBookingResult result = bookingService.createBookings(List.of(
+                request("BATCH-3", 4, "Pending", null, null),
+                request("BATCH-2", 6, "Pending", TRIP, TRIP.plusHours(2)),
+                request("BATCH-2", 6, "Pending", TRIP.plusHours(1), TRIP.plusHours(3))), true);
+
+        assertEquals(0, result.getCreated());
+        assertTrue(result.getItems().get(2).getMessage().startsWith("Not enough seats"));
+        assertEquals(before, bookingRepository.count());
+        assertEquals(0, seatAvailabilityIndex.bookedSeats(van.getVehicleId(), TRIP, TRIP.plusHours(3)));
+        assertEquals(10, vehicleRepository.findById(counted.getVehicleId()).orElseThrow().getAvailableSeats());
+    }
+
+    @Test
+    void countedSeatsFallBackToOneByOneWhenTheSumDoesNotFit() {
+        VehicleEntity car = vehicleRepository.save(new VehicleEntity("BATCH-4", "Car", 5, 5, "Available", null, "Car"));
+
+        BatchBookingResult result = bookingService.createBookings(List.of(
+                request("BATCH-4", 2, "Pending", null, null),
+                request("BATCH-4", 2, "Pending", null, null),
+                request("BATCH-4", 2, "Pending", null, null)), false);
+
+        assertEquals(2, result.getCreated());
+        assertFalse(result.getItems().get(2).isCreated());
+        assertEquals(1, vehicleRepository.findById(car.getVehicleId()).orElseThrow().getAvailableSeats());
+    }
+
+    @Test
+    void newPlatesAreSizedFromTheSeatsGiven() {
+        BookingRequest single = request("NEW-1", 3, "Pending", TRIP, TRIP.plusHours(2));
+        single.setVehicleAvailableSeats(4);
+        bookingService.createBooking(single);
+
+        BookingRequest first = request("NEW-2", 2, "Pending", TRIP, TRIP.plusHours(2));
+        first.setVehicleAvailableSeats(6);
+        BatchBookingResult result = bookingService.createBookings(List.of(first,
+                request("NEW-2", 4, "Pending", TRIP.plusHours(1), TRIP.plusHours(3)),
+                request("NEW-2", 1, "Pending", TRIP.plusHours(1), TRIP.plusHours(2))), false);
+
+        VehicleEntity car = vehicleRepository.findByPlateNumber("NEW-1").orElseThrow();
+        VehicleEntity van = vehicleRepository.findByPlateNumber("NEW-2").orElseThrow();
+        assertEquals(4, car.getCapacity());
+        assertEquals(3, seatAvailabilityIndex.bookedSeats(car.getVehicleId(), TRIP, TRIP.plusHours(2)));
+        assertEquals(6, van.getCapacity());
+        assertEquals(2, result.getCreated());
+        assertFalse(result.getItems().get(2).isCreated());
+    }
+
+    /**
+     * Run with -Dbenchmarks=true. A 40-student field trip: 40 POST /api/bookings calls against
+     * one POST /api/bookings/batch.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void batchBeatsLooping() {
+        int students = 40;
+        int rounds = 50;
+        vehicleRepository.save(new VehicleEntity("BENCH-BUS", "Bus", 1_000_000, 1_000_000, "Available", null, "Bus"));
+
+        long loop = 0;
+        long batch = 0;
+        for (int round = 0; round < rounds * 2; round++) {
+            LocalDateTime day = TRIP.plusDays(round);
+            List<BookingRequest> requests = new ArrayList<>();
+            for (int i = 0; i < students; i++) {
+                requests.add(request("BENCH-BUS", 1, "Pending", day, day.plusHours(8)));
+            }
+            long start = System.nanoTime();
+            if (round % 2 == 0) {
+                requests.forEach(bookingService::createBooking);
+                loop += round >= rounds ? System.nanoTime() - start : 0;
+            } else {
+                bookingService.createBookings(requests, true);
+                batch += round >= rounds ? System.nanoTime() - start : 0;
+            }
+        }
+        int measured = rounds / 2; // first half of the rounds is warm-up
+        System.out.printf("%d bookings: loop %.2f ms, batch %.2f ms%n",
+                students, loop / 1_000_000.0 / measured, batch / 1_000_000.0 / measured);
+    }
+
+    private static BookingRequest request(String plate, int passengers, String status, LocalDateTime start, LocalDateTime end) {
+        BookingRequest request = new BookingRequest();
+        request.setPlateNumber(plate);
+        request.setNumberOfPassengers(passengers);
+        request.setStatus(status);
+        request.setStartDate(start);
+        request.setEndDate(end);
+        request.setPickUp("CIT-U Main Gate");
+        request.setDropOff("Museo Sugbo");
+        return request;
+    }
+}
@@ -0,0 +1,281 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Dto.BulkStatusResult;
+import com.example.eduwheels.Entity.BookingEntity;
+import com.example.eduwheels.Entity.UserEntity;
+import com.example.eduwheels.Entity.VehicleEntity;
+import com.example.eduwheels.Repository.BookingRepository;
+import com.example.eduwheels.Repository.DataMigrationRepository;
+import com.example.eduwheels.Repository.UserRepository;
+import com.example.eduwheels.Repository.VehicleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@Import({BookingService.class, SeatReservationEngine.class, SeatAvailabilityIndex.class,
+        PendingBookingExpiryService.class, BookingEventHub.class, BookingLocationIndex.class, RidePoolingService.class,
+        FleetAssignmentService.class, RoutingService.class, VehicleCatalogCache.class, TableVersions.class, SimpleMeterRegistry.class,
+        JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookingBulkStatusTest {
+
+    private static final LocalDateTime TRIP = LocalDateTime.of(2025, 5, 5, 8, 0);
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private SeatAvailabilityIndex seatAvailabilityIndex;
+
+    @Autowired
+    private SeatReservationEngine seatReservationEngine;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private DataMigrationRepository dataMigrationRepository;
+
+    @AfterEach
+    void cleanUp() {
+        SecurityContextHolder.clearContext();
+        bookingRepository.deleteAllInBatch();
+        vehicleRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        dataMigrationRepository.deleteAllInBatch();
+        seatAvailabilityIndex.rebuild();
+    }
+
+    @Test
+    void cancelingReturnsSeatsAndReportsEveryId() {
+        UserEntity student = signIn("Admin");
+        // 5 of 12 seats taken by the two bookings without a window
+        VehicleEntity van = vehicleRepository.save(new VehicleEntity("BULK-1", "Van", 12, 7, "Available", null, "Van"));
+        BookingEntity counted1 = save(student, van, 2, null, null, BookingEntity.Status.Pending);
+        BookingEntity counted2 = save(student, van, 3, null, null, BookingEntity.Status.Approved);
+        BookingEntity windowed = save(student, van, 4, TRIP, TRIP.plusHours(2), BookingEntity.Status.Pending);
+        BookingEntity alreadyCanceled = save(student, van, 1, null, null, BookingEntity.Status.Canceled);
+        seatAvailabilityIndex.tryHold(SeatAvailabilityIndex.Hold.of(windowed), van.getCapacity());
+
+        BulkStatusResult result = bookingService.updateStatuses(List.of(counted1.getBookingID(), counted2.getBookingID(),
+                windowed.getBookingID(), alreadyCanceled.getBookingID(), -1L, counted1.getBookingID()),
+                BookingEntity.Status.Canceled);
+
+        assertEquals(5, result.getItems().size());
+        assertEquals(3, result.getUpdated());
+        assertEquals(BulkStatusResult.Outcome.UPDATED, result.getItems().get(0).getOutcome());
+        assertEquals(BookingEntity.Status.Approved, result.getItems().get(1).getPreviousStatus());
+        assertEquals(BulkStatusResult.Outcome.UNCHANGED, result.getItems().get(3).getOutcome());
+        assertEquals(BulkStatusResult.Outcome.NOT_FOUND, result.getItems().get(4).getOutcome());
+
+        assertEquals(12, vehicleRepository.findById(van.getVehicleId()).orElseThrow().getAvailableSeats());
+        assertEquals(0, seatAvailabilityIndex.bookedSeats(van.getVehicleId(), TRIP, TRIP.plusHours(2)));
+        for (BookingEntity booking : List.of(counted1, counted2, windowed)) {
+            assertEquals(BookingEntity.Status.Canceled, bookingRepository.findById(booking.getBookingID()).orElseThrow().getStatus());
+        }
+    }
+
+    @Test
+    void approvingAndFinishingStampTheMissingDatesOnly() {
+        UserEntity student = signIn("Admin");
+        VehicleEntity car = vehicleRepository.save(new VehicleEntity("BULK-2", "Car", 4, 4, "Available", null, "Car"));
+        BookingEntity unscheduled = save(student, car, 1, null, null, BookingEntity.Status.Pending);
+        BookingEntity scheduled = save(student, car, 1, TRIP, TRIP.plusHours(1), BookingEntity.Status.Pending);
+
+        bookingService.updateStatuses(List.of(unscheduled.getBookingID(), scheduled.getBookingID()), BookingEntity.Status.Approved);
+
+        assertNotNull(bookingRepository.findById(unscheduled.getBookingID()).orElseThrow().getStartDate());
+        assertEquals(TRIP, bookingRepository.findById(scheduled.getBookingID()).orElseThrow().getStartDate());
+
+        bookingService.updateStatuses(List.of(unscheduled.getBookingID(), scheduled.getBookingID()), BookingEntity.Status.Done);
+
+        BookingEntity done = bookingRepository.findById(unscheduled.getBookingID()).orElseThrow();
+        assertEquals(BookingEntity.Status.Done, done.getStatus());
+        assertNotNull(done.getEndDate());
+        assertEquals(TRIP.plusHours(1), bookingRepository.findById(scheduled.getBookingID()).orElseThrow().getEndDate());
+    }
+
+    @Test
+    void editsAndRestoresMustFitTheWindow() {
+        UserEntity admin = signIn("Admin");
+        VehicleEntity car = vehicleRepository.save(new VehicleEntity("BULK-4", "Car", 4, 4, "Available", null, "Car"));
+        BookingEntity kept = save(admin, car, 3, TRIP, TRIP.plusHours(2), BookingEntity.Status.Approved);
+        BookingEntity canceled = save(admin, car, 2, TRIP.plusHours(1), TRIP.plusHours(3), BookingEntity.Status.Canceled);
+        seatAvailabilityIndex.tryHold(SeatAvailabilityIndex.Hold.of(kept), car.getCapacity());
+
+        // Restoring the canceled trip would put 5 riders in a 4-seat car
+        BulkStatusResult result = bookingService.updateStatuses(List.of(canceled.getBookingID()), BookingEntity.Status.Pending);
+        assertEquals(BulkStatusResult.Outcome.NO_SEATS, result.getItems().get(0).getOutcome());
+        assertEquals(BookingEntity.Status.Canceled, bookingRepository.findById(canceled.getBookingID()).orElseThrow().getStatus());
+
+        BookingEntity grown = bookingRepository.findById(kept.getBookingID()).orElseThrow();
+        grown.setNumberOfPassengers(5);
+        assertThrows(IllegalArgumentException.class, () -> bookingService.updateBooking(kept.getBookingID(), grown));
+        assertEquals(3, seatAvailabilityIndex.bookedSeats(car.getVehicleId(), TRIP, TRIP.plusHours(3)));
+
+        // Moving it later in the day is fine, and then the restore fits next to it
+        BookingEntity moved = bookingRepository.findById(kept.getBookingID()).orElseThrow();
+        moved.setStartDate(TRIP.plusHours(4));
+        moved.setEndDate(TRIP.plusHours(6));
+        bookingService.updateBooking(kept.getBookingID(), moved);
+        result = bookingService.updateStatuses(List.of(canceled.getBookingID()), BookingEntity.Status.Pending);
+        assertEquals(BulkStatusResult.Outcome.UPDATED, result.getItems().get(0).getOutcome());
+        assertEquals(3, seatAvailabilityIndex.bookedSeats(car.getVehicleId(), TRIP, TRIP.plusHours(6)));
+    }
+
+    @Test
+    void recountGivesLegacyWindowedSeatsBackToTheCounterOnce() {
+        UserEntity admin = signIn("Admin");
+        // Counter left at 3 by a 2-rider booking without a window and a 5-rider windowed one made before the index
+        VehicleEntity van = vehicleRepository.save(new VehicleEntity("BULK-5", "Van", 10, 3, "Available", null, "Van"));
+        save(admin, van, 2, null, null, BookingEntity.Status.Approved);
+        save(admin, van, 5, TRIP, TRIP.plusHours(2), BookingEntity.Status.Canceled);
+        save(admin, van, 4, null, null, BookingEntity.Status.Canceled);
+        // Created by a booking without a capacity; 2 of its seats are taken
+        VehicleEntity unsized = vehicleRepository.save(new VehicleEntity("BULK-6", "Van", 0, 7, "Available", null, "Van"));
+        save(admin, unsized, 2, null, null, BookingEntity.Status.Pending);
+
+        seatReservationEngine.recountAvailableSeats();
+
+        assertEquals(8, vehicleRepository.findById(van.getVehicleId()).orElseThrow().getAvailableSeats());
+        VehicleEntity sized = vehicleRepository.findById(unsized.getVehicleId()).orElseThrow();
+        assertEquals(9, sized.getCapacity());
+        assertEquals(7, sized.getAvailableSeats());
+
+        // A counter an admin sets afterwards survives the next boot
+        VehicleEntity edited = vehicleRepository.findById(van.getVehicleId()).orElseThrow();
+        edited.setAvailableSeats(6);
+        vehicleRepository.save(edited);
+        seatReservationEngine.recountAvailableSeats();
+        assertEquals(6, vehicleRepository.findById(van.getVehicleId()).orElseThrow().getAvailableSeats());
+    }
+
+    @Test
+    void losingItsWindowMovesABookingOntoTheCounter() {
+        UserEntity admin = signIn("Admin");
+        VehicleEntity van = vehicleRepository.save(new VehicleEntity("BULK-7", "Van", 10, 10, "Available", null, "Van"));
+        BookingEntity windowed = save(admin, van, 4, TRIP, TRIP.plusHours(2), BookingEntity.Status.Approved);
+        seatAvailabilityIndex.tryHold(SeatAvailabilityIndex.Hold.of(windowed), van.getCapacity());
+
+        // An admin clears the end date
+        BookingEntity edited = bookingRepository.findById(windowed.getBookingID()).orElseThrow();
+        edited.setEndDate(null);
+        bookingService.updateBooking(windowed.getBookingID(), edited);
+        assertEquals(0, seatAvailabilityIndex.bookedSeats(van.getVehicleId(), TRIP, TRIP.plusHours(2)));
+        assertEquals(6, vehicleRepository.findById(van.getVehicleId()).orElseThrow().getAvailableSeats());
+
+        // Canceling, then deleting, gives the seats back once
+        bookingService.updateStatuses(List.of(windowed.getBookingID()), BookingEntity.Status.Canceled);
+        bookingService.deleteBooking(windowed.getBookingID());
+        assertEquals(10, vehicleRepository.findById(van.getVehicleId()).orElseThrow().getAvailableSeats());
+    }
+
+    @Test
+    void gainingAWindowMovesABookingOffTheCounter() {
+        UserEntity admin = signIn("Admin");
+        LocalDateTime tomorrow = LocalDateTime.now().plusDays(1);
+        // 3 riders on the counter; approving stamps a start date in front of the end date already set
+        VehicleEntity van = vehicleRepository.save(new VehicleEntity("BULK-8", "Van", 10, 7, "Available", null, "Van"));
+        BookingEntity counted = save(admin, van, 3, null, tomorrow, BookingEntity.Status.Pending);
+
+        bookingService.updateStatuses(List.of(counted.getBookingID()), BookingEntity.Status.Approved);
+        assertEquals(10, vehicleRepository.findById(van.getVehicleId()).orElseThrow().getAvailableSeats());
+        assertEquals(3, seatAvailabilityIndex.bookedSeats(van.getVehicleId(), tomorrow.minusHours(1), tomorrow));
+
+        bookingService.deleteBooking(counted.getBookingID());
+        assertEquals(10, vehicleRepository.findById(van.getVehicleId()).orElseThrow().getAvailableSeats());
+        assertEquals(0, seatAvailabilityIndex.bookedSeats(van.getVehicleId(), LocalDateTime.now(), tomorrow));
+
+        // A window set through PUT on a full counter frees the counter as well
+        VehicleEntity car = vehicleRepository.save(new VehicleEntity("BULK-9", "Car", 4, 0, "Available", null, "Car"));
+        BookingEntity full = save(admin, car, 4, null, null, BookingEntity.Status.Pending);
+        BookingEntity scheduled = bookingRepository.findById(full.getBookingID()).orElseThrow();
+        scheduled.setStartDate(TRIP);
+        scheduled.setEndDate(TRIP.plusHours(1));
+        bookingService.updateBooking(full.getBookingID(), scheduled);
+        assertEquals(4, vehicleRepository.findById(car.getVehicleId()).orElseThrow().getAvailableSeats());
+        assertEquals(4, seatAvailabilityIndex.bookedSeats(car.getVehicleId(), TRIP, TRIP.plusHours(1)));
+    }
+
+    @Test
+    void onlyAdminsMayBulkUpdate() {
+        UserEntity student = signIn("Student");
+        VehicleEntity car = vehicleRepository.save(new VehicleEntity("BULK-3", "Car", 4, 4, "Available", null, "Car"));
+        BookingEntity booking = save(student, car, 1, null, null, BookingEntity.Status.Pending);
+
+        assertThrows(AccessDeniedException.class,
+                () -> bookingService.updateStatuses(List.of(booking.getBookingID()), BookingEntity.Status.Approved));
+        assertEquals(BookingEntity.Status.Pending, bookingRepository.findById(booking.getBookingID()).orElseThrow().getStatus());
+    }
+
+    /**
+     * Run with -Dbenchmarks=true. Monday morning: approve 1,000 Pending bookings one PUT at a
+     * time, then the next 1,000 with one bulk call.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void bulkBeatsOneUpdateAtATime() {
+        UserEntity admin = signIn("Admin");
+        VehicleEntity bus = vehicleRepository.save(new VehicleEntity("BENCH-BULK", "Bus", 1_000_000, 1_000_000, "Available", null, "Bus"));
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            LocalDateTime day = TRIP.plusDays(i);
+            ids.add(save(admin, bus, 1, day, day.plusHours(8), BookingEntity.Status.Pending).getBookingID());
+        }
+
+        long start = System.nanoTime();
+        for (Long id : ids.subList(0, 1000)) {
+            BookingEntity update = bookingRepository.findById(id).orElseThrow();
+            update.setStatus(BookingEntity.Status.Approved);
+            bookingService.updateBooking(id, update);
+        }
+        long loop = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        bookingService.updateStatuses(ids.subList(1000, 2000), BookingEntity.Status.Approved);
+        long bulk = System.nanoTime() - start;
+
+        System.out.printf("1000 approvals: one at a time %.1f ms, bulk %.1f ms%n", loop / 1_000_000.0, bulk / 1_000_000.0);
+    }
+
+    private UserEntity signIn(String role) {
+        String email = "admin" + System.nanoTime() + "@cit.edu";
+        UserEntity user = userRepository.save(new UserEntity(String.valueOf(System.nanoTime() % 1_000_000_000), "Ana", "Reyes",
+                email.substring(0, email.indexOf('@')), email, "x", role));
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(email, null, List.of()));
+        return user;
+    }
+
+    private BookingEntity save(UserEntity user, VehicleEntity vehicle, int passengers, LocalDateTime start, LocalDateTime end,
+                               BookingEntity.Status status) {
+        return bookingRepository.save(new BookingEntity(user, vehicle, "A", "B", passengers, LocalDateTime.now(), start, end, status));
+    }
+}
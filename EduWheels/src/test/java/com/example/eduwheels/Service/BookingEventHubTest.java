@@ -0,0 +1,302 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Dto.BookingStatusEvent;
+import com.example.eduwheels.Entity.BookingEntity.Status;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(classes = {BookingEventHub.class, SimpleMeterRegistry.class, JacksonAutoConfiguration.class}, properties = {
+        "booking.stream.buffer-size=4",
+        "booking.stream.heartbeat=PT0.2S",
+        "booking.stream.sender-threads=2",
+        "booking.stream.send-timeout=PT1S"
+})
+class BookingEventHubTest {
+
+    @Autowired
+    private BookingEventHub hub;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void ownersSeeTheirOwnBookingsAndAdminsSeeEverything() throws Exception {
+        RecordingEmitter owner = new RecordingEmitter();
+        RecordingEmitter otherUser = new RecordingEmitter();
+        RecordingEmitter admin = new RecordingEmitter();
+        hub.subscribe(1L, false, owner);
+        hub.subscribe(2L, false, otherUser);
+        hub.subscribe(99L, true, admin);
+
+        hub.publish(event(10L, 1L, Status.Pending, Status.Approved));
+
+        awaitUntil(() -> owner.statusEvents().size() == 1 && admin.statusEvents().size() == 1);
+        JsonNode received = objectMapper.readTree(owner.statusEvents().get(0));
+        assertEquals(10, received.get("bookingID").asLong());
+        assertEquals("Approved", received.get("status").asText());
+        assertEquals("Pending", received.get("previousStatus").asText());
+        assertTrue(otherUser.statusEvents().isEmpty());
+
+        owner.complete();
+        otherUser.complete();
+        admin.complete();
+    }
+
+    @Test
+    void rapidChangesToOneBookingAreCoalescedWhileTheClientIsBusy() throws Exception {
+        RecordingEmitter slow = new RecordingEmitter();
+        slow.blockFirstSend();
+        hub.subscribe(3L, false, slow);
+        double coalescedBefore = meterRegistry.get("bookings.stream.coalesced").counter().count();
+
+        hub.publish(event(20L, 3L, Status.Pending, Status.Approved));
+        awaitUntil(slow::isBlocked);
+        hub.publish(event(21L, 3L, Status.Pending, Status.Approved));
+        hub.publish(event(21L, 3L, Status.Approved, Status.Going));
+        hub.publish(event(21L, 3L, Status.Going, Status.Done));
+        slow.unblock();
+
+        awaitUntil(() -> slow.statusEvents().size() == 2);
+        JsonNode folded = objectMapper.readTree(slow.statusEvents().get(1));
+        assertEquals(21, folded.get("bookingID").asLong());
+        assertEquals("Pending", folded.get("previousStatus").asText());
+        assertEquals("Done", folded.get("status").asText());
+        assertEquals(coalescedBefore + 2, meterRegistry.get("bookings.stream.coalesced").counter().count());
+
+        slow.complete();
+    }
+
+    @Test
+    void aSubscriberThatFallsTooFarBehindIsToldToResync() throws Exception {
+        RecordingEmitter slow = new RecordingEmitter();
+        slow.blockFirstSend();
+        hub.subscribe(4L, false, slow);
+
+        hub.publish(event(30L, 4L, Status.Pending, Status.Approved));
+        awaitUntil(slow::isBlocked);
+        for (long id = 31; id <= 40; id++) {
+            hub.publish(event(id, 4L, Status.Pending, Status.Canceled));
+        }
+        slow.unblock();
+
+        // The first event, then the resync marker, then only the newest buffer-size events
+        awaitUntil(() -> slow.statusEvents().size() == 5);
+        assertEquals(List.of(BookingEventHub.STATUS_EVENT, BookingEventHub.RESYNC_EVENT), slow.eventNames().subList(0, 2));
+        List<Long> ids = new ArrayList<>();
+        for (String data : slow.statusEvents()) {
+            ids.add(objectMapper.readTree(data).get("bookingID").asLong());
+        }
+        assertEquals(List.of(30L, 37L, 38L, 39L, 40L), ids);
+
+        slow.complete();
+    }
+
+    @Test
+    void idleConnectionsGetHeartbeatsWithoutAThreadEach() throws Exception {
+        int threadsBefore = Thread.activeCount();
+        List<RecordingEmitter> idle = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            RecordingEmitter emitter = new RecordingEmitter();
+            hub.subscribe(1000L + i, false, emitter);
+            idle.add(emitter);
+        }
+        assertTrue(Thread.activeCount() - threadsBefore < 10);
+
+        awaitUntil(() -> idle.stream().allMatch(e -> e.heartbeats() > 0));
+
+        idle.forEach(SseEmitter::complete);
+    }
+
+    @Test
+    void aClientThatWentAwayIsDropped() throws Exception {
+        RecordingEmitter gone = new RecordingEmitter();
+        gone.failSends();
+        int before = hub.subscriberCount();
+        hub.subscribe(5L, false, gone);
+        assertEquals(before + 1, hub.subscriberCount());
+
+        hub.publish(event(50L, 5L, Status.Pending, Status.Approved));
+
+        awaitUntil(() -> hub.subscriberCount() == before);
+    }
+
+    @Test
+    void clientsThatStopReadingAreClosedWithoutStallingTheOthers() throws Exception {
+        int before = hub.subscriberCount();
+        double stalledBefore = meterRegistry.get("bookings.stream.stalled").counter().count();
+        // As many stuck clients as there are sender threads
+        List<RecordingEmitter> stuck = new ArrayList<>();
+        for (long i = 0; i < 2; i++) {
+            RecordingEmitter emitter = new RecordingEmitter();
+            emitter.blockFirstSend();
+            hub.subscribe(60L + i, false, emitter);
+            hub.publish(event(60L + i, 60L + i, Status.Pending, Status.Approved));
+            stuck.add(emitter);
+        }
+        awaitUntil(() -> stuck.stream().allMatch(RecordingEmitter::isBlocked));
+
+        RecordingEmitter healthy = new RecordingEmitter();
+        hub.subscribe(70L, false, healthy);
+        hub.publish(event(70L, 70L, Status.Pending, Status.Approved));
+
+        awaitUntil(() -> healthy.statusEvents().size() == 1);
+        awaitUntil(() -> hub.subscriberCount() == before + 1);
+        assertEquals(stalledBefore + 2, meterRegistry.get("bookings.stream.stalled").counter().count());
+
+        healthy.complete();
+    }
+
+    @Test
+    void anEventThatCannotBeSerializedIsSkipped() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter();
+        int before = hub.subscriberCount();
+        hub.subscribe(8L, false, emitter);
+
+        hub.publish(new BookingStatusEvent(80L, 8L, Status.Pending, Status.Approved, LocalDateTime.now()) {
+            @Override
+            public Status getStatus() {
+                throw new IllegalStateException("not serializable");
+            }
+        });
+        hub.publish(event(81L, 8L, Status.Pending, Status.Approved));
+
+        awaitUntil(() -> emitter.statusEvents().size() == 1);
+        assertEquals(81, objectMapper.readTree(emitter.statusEvents().get(0)).get("bookingID").asLong());
+        assertEquals(before + 1, hub.subscriberCount());
+
+        emitter.complete();
+    }
+
+    private static BookingStatusEvent event(Long bookingId, Long userId, Status from, Status to) {
+        return new BookingStatusEvent(bookingId, userId, from, to, LocalDateTime.now());
+    }
+
+    private static void awaitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "condition not met in time");
+            Thread.sleep(10);
+        }
+    }
+
+    // Records what would have been written to the response instead of needing a servlet container
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> frames = new ArrayList<>();
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean blockFirst;
+        private volatile boolean blocked;
+        private volatile boolean fail;
+        private volatile Runnable onCompletion = () -> {
+        };
+
+        void blockFirstSend() {
+            blockFirst = true;
+        }
+
+        void failSends() {
+            fail = true;
+        }
+
+        boolean isBlocked() {
+            return blocked;
+        }
+
+        void unblock() {
+            release.countDown();
+        }
+
+        // Without a container nothing calls back on complete(), so do what the container would
+        @Override
+        public synchronized void onCompletion(Runnable callback) {
+            super.onCompletion(callback);
+            onCompletion = callback;
+        }
+
+        @Override
+        public synchronized void complete() {
+            super.complete();
+            onCompletion.run();
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            if (fail) {
+                throw new IOException("Broken pipe");
+            }
+            String frame = builder.build().stream().map(part -> part.getData().toString()).collect(Collectors.joining());
+            // Heartbeats may come first; hold up the first real event
+            if (blockFirst && frame.contains("event:" + BookingEventHub.STATUS_EVENT)) {
+                blockFirst = false;
+                synchronized (frames) {
+                    frames.add(frame);
+                }
+                blocked = true;
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return;
+            }
+            synchronized (frames) {
+                frames.add(frame);
+            }
+        }
+
+        List<String> eventNames() {
+            return lines("event:");
+        }
+
+        List<String> statusEvents() {
+            List<String> data = new ArrayList<>();
+            List<String> names = lines("event:");
+            List<String> payloads = lines("data:");
+            for (int i = 0; i < names.size(); i++) {
+                if (BookingEventHub.STATUS_EVENT.equals(names.get(i))) {
+                    data.add(payloads.get(i));
+                }
+            }
+            return data;
+        }
+
+        long heartbeats() {
+            return lines(":").size();
+        }
+
+        private List<String> lines(String prefix) {
+            List<String> found = new ArrayList<>();
+            synchronized (frames) {
+                for (String frame : frames) {
+                    for (String line : frame.split("\n")) {
+                        if (line.startsWith(prefix)) {
+                            found.add(line.substring(prefix.length()));
+                        }
+                    }
+                }
+            }
+            return found;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Entity.BookingEntity;
+import com.example.eduwheels.Entity.UserEntity;
+import com.example.eduwheels.Entity.VehicleEntity;
+import com.example.eduwheels.Repository.BookingRepository;
+import com.example.eduwheels.Repository.UserRepository;
+import com.example.eduwheels.Repository.VehicleRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "booking.location.backfill-chunk=2"
+})
+@Import(BookingLocationIndex.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BookingLocationIndexTest {
+
+    // Around the CIT-U campus in Cebu
+    private static final double CAMPUS_LAT = 10.2946;
+    private static final double CAMPUS_LNG = 123.8811;
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2025, 6, 2, 0, 0);
+
+    @Autowired
+    private BookingLocationIndex index;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        bookingRepository.deleteAllInBatch();
+        vehicleRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        index.rebuild();
+    }
+
+    @Test
+    void oldRowsAreBackfilledAndIndexed() {
+        UserEntity user = userRepository.save(new UserEntity("000000010", "Lia", "Tan", "lia", "lia@cit.edu", "x", "Student"));
+        VehicleEntity van = vehicleRepository.save(new VehicleEntity("GEO-1", "Van", 10, 10, "Available", null, "Van"));
+        // Rows as the old schema wrote them: text only
+        long near = insertLegacy(user, van, "10.294700, 123.881200", MONDAY.plusHours(8));
+        long far = insertLegacy(user, van, "10.330000, 123.900000", MONDAY.plusHours(8));
+        long text = insertLegacy(user, van, "Main gate", MONDAY.plusHours(8));
+        insertLegacy(user, van, "10.294650, 123.881150", MONDAY.plusDays(1).plusHours(8));
+        insertLegacy(user, van, "10.294600, 123.881100", MONDAY.plusHours(9));
+
+        index.rebuild();
+
+        BookingEntity backfilled = bookingRepository.findById(near).orElseThrow();
+        assertEquals(10.2947, backfilled.getPickUpLat(), 1e-9);
+        assertEquals(123.8812, backfilled.getPickUpLng(), 1e-9);
+        assertNull(bookingRepository.findById(text).orElseThrow().getPickUpLat());
+        assertTrue(bookingRepository.findById(far).orElseThrow().getPickUpLat() != null);
+
+        List<BookingLocationIndex.Hit> hits = index.near(CAMPUS_LAT, CAMPUS_LNG, 500, MONDAY, MONDAY.plusDays(1), 10);
+        assertEquals(2, hits.size());
+        assertTrue(hits.get(0).distanceMeters() <= hits.get(1).distanceMeters());
+        assertEquals(4, index.size());
+    }
+
+    @Test
+    void savedBookingsGetCoordinatesAndMoveWithTheirDate() {
+        UserEntity user = userRepository.save(new UserEntity("000000011", "Ken", "Lim", "ken", "ken@cit.edu", "x", "Student"));
+        VehicleEntity van = vehicleRepository.save(new VehicleEntity("GEO-2", "Van", 10, 10, "Available", null, "Van"));
+        BookingEntity booking = bookingRepository.save(new BookingEntity(user, van, "10.294600, 123.881100", "10.3, 123.9", 1,
+                MONDAY, MONDAY.plusHours(7), MONDAY.plusHours(9), BookingEntity.Status.Pending));
+        assertEquals(10.3, booking.getDropOffLat(), 1e-9);
+
+        BookingLocationIndex.Location before = BookingLocationIndex.locationOf(booking);
+        index.replaceAfterCommit(null, before);
+        assertEquals(1, index.near(CAMPUS_LAT, CAMPUS_LNG, 100, MONDAY, MONDAY.plusDays(1), 10).size());
+
+        booking.setStartDate(MONDAY.plusDays(2).plusHours(7));
+        index.replaceAfterCommit(before, BookingLocationIndex.locationOf(booking));
+        assertTrue(index.near(CAMPUS_LAT, CAMPUS_LNG, 100, MONDAY, MONDAY.plusDays(1), 10).isEmpty());
+        assertEquals(booking.getBookingID(),
+                index.near(CAMPUS_LAT, CAMPUS_LNG, 100, MONDAY.plusDays(2), MONDAY.plusDays(3), 10).get(0).bookingId());
+    }
+
+    /**
+     * Run with -Dbenchmarks=true. A million pickups spread over a 10 km square around campus
+     * and one semester; average time of a 500 m, one-day lookup.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void nearbyLookupAtAMillionBookings() {
+        Random random = new Random(11);
+        for (long id = 1; id <= 1_000_000; id++) {
+            double lat = CAMPUS_LAT + (random.nextDouble() - 0.5) * 0.09;
+            double lng = CAMPUS_LNG + (random.nextDouble() - 0.5) * 0.09;
+            index.add(new BookingLocationIndex.Location(id, lat, lng, MONDAY.plusMinutes(random.nextInt(120 * 24 * 60))));
+        }
+
+        int queries = 20_000;
+        long found = 0;
+        long start = 0;
+        for (int i = 0; i < queries * 2; i++) {
+            if (i == queries) {
+                start = System.nanoTime(); // first half is warm-up
+            }
+            double lat = CAMPUS_LAT + (random.nextDouble() - 0.5) * 0.08;
+            double lng = CAMPUS_LNG + (random.nextDouble() - 0.5) * 0.08;
+            LocalDateTime day = MONDAY.plusDays(random.nextInt(120));
+            found += index.near(lat, lng, 500, day, day.plusDays(1), 50).size();
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("1M pickups: %.1f us per 500 m / 1 day lookup (%d hits in total)%n",
+                elapsed / 1000.0 / queries, found);
+    }
+
+    private long insertLegacy(UserEntity user, VehicleEntity vehicle, String pickUp, LocalDateTime start) {
+        jdbcTemplate.update("INSERT INTO tblbooking (userid, vehicleid, pick_up, drop_off, number_of_passengers, " +
+                        "request_date, start_date, end_date, status) VALUES (?, ?, ?, ?, 1, ?, ?, ?, 'Pending')",
+                user.getUserid(), vehicle.getVehicleId(), pickUp, "CIT-U", Timestamp.valueOf(start.minusDays(3)),
+                Timestamp.valueOf(start), Timestamp.valueOf(start.plusHours(2)));
+        return jdbcTemplate.queryForObject("SELECT MAX(bookingid) FROM tblbooking", Long.class);
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Controller.BookingController.BookingRequest;
+import com.example.eduwheels.Dto.BatchBookingResult;
+import com.example.eduwheels.Dto.FleetAssignmentResult;
+import com.example.eduwheels.Entity.BookingEntity;
+import com.example.eduwheels.Entity.UserEntity;
+import com.example.eduwheels.Entity.VehicleEntity;
+import com.example.eduwheels.Repository.BookingRepository;
+import com.example.eduwheels.Repository.UserRepository;
+import com.example.eduwheels.Repository.VehicleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@Import({BookingService.class, SeatReservationEngine.class, SeatAvailabilityIndex.class,
+        PendingBookingExpiryService.class, BookingEventHub.class, BookingLocationIndex.class, RidePoolingService.class,
+        FleetAssignmentService.class, RoutingService.class, VehicleCatalogCache.class, TableVersions.class, SimpleMeterRegistry.class,
+        JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED) // the service must commit or roll back on its own
+class FleetAssignmentServiceTest {
+
+    private static final LocalDateTime TRIP = LocalDateTime.of(2025, 5, 12, 8, 0);
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private SeatAvailabilityIndex seatAvailabilityIndex;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @AfterEach
+    void cleanUp() {
+        SecurityContextHolder.clearContext();
+        bookingRepository.deleteAllInBatch();
+        vehicleRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+        seatAvailabilityIndex.rebuild();
+    }
+
+    @Test
+    void bookingWithoutPlateGoesOnTheTightestFittingVehicle() {
+        signIn("Student");
+        VehicleEntity bus = vehicleRepository.save(new VehicleEntity("FLEET-BUS", "Bus", 30, 30, "Available", null, "Bus"));
+        VehicleEntity van = vehicleRepository.save(new VehicleEntity("FLEET-VAN", "Van", 12, 12, "Available", null, "Van"));
+        vehicleRepository.save(new VehicleEntity("FLEET-CAR", "Car", 4, 4, "Available", null, "Car"));
+        vehicleRepository.save(new VehicleEntity("FLEET-OFF", "Van", 12, 12, "Maintenance", null, "Van"));
+
+        BookingEntity first = bookingService.createBooking(request(null, 6, TRIP, TRIP.plusHours(1)));
+        BookingEntity second = bookingService.createBooking(request(null, 6, TRIP, TRIP.plusHours(1)));
+        BookingEntity third = bookingService.createBooking(request(null, 6, TRIP, TRIP.plusHours(1)));
+
+        assertEquals(van.getVehicleId(), first.getVehicle().getVehicleId());
+        assertEquals(van.getVehicleId(), second.getVehicle().getVehicleId()); // fills the van to 12
+        assertEquals(bus.getVehicleId(), third.getVehicle().getVehicleId());
+        assertEquals(12, seatAvailabilityIndex.bookedSeats(van.getVehicleId(), TRIP, TRIP.plusHours(1)));
+
+        IllegalArgumentException full = assertThrows(IllegalArgumentException.class,
+                () -> bookingService.createBooking(request(null, 25, TRIP, TRIP.plusHours(1))));
+        assertTrue(full.getMessage().startsWith("No available vehicle has 25 seats free"));
+    }
+
+    @Test
+    void batchMixesPlatesAndServerChoice() {
+        signIn("Teacher");
+        VehicleEntity van = vehicleRepository.save(new VehicleEntity("FLEET-VAN", "Van", 12, 12, "Available", null, "Van"));
+        VehicleEntity car = vehicleRepository.save(new VehicleEntity("FLEET-CAR", "Car", 4, 4, "Available", null, "Car"));
+
+        BatchBookingResult result = bookingService.createBookings(List.of(
+                request("FLEET-VAN", 10, TRIP, TRIP.plusHours(2)),
+                request(null, 2, TRIP, TRIP.plusHours(2)),
+                request(null, 4, TRIP, TRIP.plusHours(2))), true);
+
+        assertEquals(3, result.getCreated());
+        assertEquals("FLEET-VAN", result.getItems().get(1).getBooking().getVehicle().getPlateNumber());
+        assertEquals("FLEET-CAR", result.getItems().get(2).getBooking().getVehicle().getPlateNumber());
+        assertEquals(12, seatAvailabilityIndex.bookedSeats(van.getVehicleId(), TRIP, TRIP.plusHours(2)));
+        assertEquals(4, seatAvailabilityIndex.bookedSeats(car.getVehicleId(), TRIP, TRIP.plusHours(2)));
+    }
+
+    @Test
+    void reoptimizeConsolidatesTheDay() {
+        signIn("Student");
+        List<VehicleEntity> vans = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            vans.add(vehicleRepository.save(new VehicleEntity("FLEET-V" + i, "Van", 12, 12, "Available", null, "Van")));
+        }
+        // First come, first picked: one small group on every van
+        for (VehicleEntity van : vans) {
+            bookingService.createBooking(request(van.getPlateNumber(), 3, TRIP, TRIP.plusHours(1)));
+        }
+        // and a bigger group later in the morning
+        bookingService.createBooking(request("FLEET-V0", 9, TRIP.plusMinutes(30), TRIP.plusHours(2)));
+
+        assertThrows(AccessDeniedException.class, () -> bookingService.reoptimizeFleet(TRIP.toLocalDate()));
+
+        signIn("Admin");
+        FleetAssignmentResult result = bookingService.reoptimizeFleet(TRIP.toLocalDate());
+
+        assertEquals(5, result.getBookings());
+        assertEquals(0, result.getUnplaced());
+        assertEquals(4, result.getVehiclesBefore());
+        assertEquals(2, result.getVehiclesAfter());
+        for (VehicleEntity van : vans) {
+            assertTrue(seatAvailabilityIndex.bookedSeats(van.getVehicleId(), TRIP, TRIP.plusHours(2)) <= 12);
+        }
+        long total = 0;
+        for (VehicleEntity van : vans) {
+            total += seatAvailabilityIndex.bookedSeats(van.getVehicleId(), TRIP, TRIP.plusMinutes(30));
+        }
+        assertEquals(12, total);
+        assertEquals(2, new HashSet<>(bookingRepository.findAll().stream()
+                .map(booking -> booking.getVehicle().getVehicleId()).toList()).size());
+    }
+
+    /**
+     * Run with -Dbenchmarks=true. POST /api/bookings without a plate against 400 Available
+     * vehicles that already carry 20,000 trips, vehicle query and seat reservation included.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void assignmentLatencyOverSeveralHundredVehicles() {
+        signIn("Student");
+        Random random = new Random(12);
+        List<VehicleEntity> fleet = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            int capacity = new int[]{4, 12, 15, 30}[i % 4];
+            fleet.add(new VehicleEntity("BENCH-" + i, "Van", capacity, capacity, "Available", null, "Van"));
+        }
+        fleet = vehicleRepository.saveAll(fleet);
+        for (int i = 0; i < 20_000; i++) {
+            VehicleEntity vehicle = fleet.get(random.nextInt(fleet.size()));
+            LocalDateTime start = TRIP.plusMinutes(random.nextInt(10 * 60));
+            seatAvailabilityIndex.tryHold(new SeatAvailabilityIndex.Hold(vehicle.getVehicleId(), start, start.plusMinutes(45), 1), Integer.MAX_VALUE);
+        }
+
+        // Alternate plated and plate-less bookings so the difference is the assignment itself
+        int bookings = 500;
+        long[] assigned = new long[bookings];
+        long[] plated = new long[bookings];
+        for (int i = 0; i < bookings * 4; i++) {
+            LocalDateTime start = TRIP.plusMinutes(random.nextInt(10 * 60));
+            String plate = i % 2 == 0 ? null : fleet.get(random.nextInt(fleet.size() / 4) * 4 + 3).getPlateNumber();
+            long started = System.nanoTime();
+            bookingService.createBooking(request(plate, 1, start, start.plusHours(1)));
+            long took = System.nanoTime() - started;
+            if (i >= bookings * 2) { // first half is warm-up
+                (plate == null ? assigned : plated)[(i - bookings * 2) / 2] = took;
+            }
+        }
+        Arrays.sort(assigned);
+        Arrays.sort(plated);
+        System.out.printf("400 vehicles: without plate p50 %.2f ms / p99 %.2f ms, with plate p50 %.2f ms / p99 %.2f ms%n",
+                assigned[bookings / 2] / 1_000_000.0, assigned[bookings * 99 / 100] / 1_000_000.0,
+                plated[bookings / 2] / 1_000_000.0, plated[bookings * 99 / 100] / 1_000_000.0);
+    }
+
+    private void signIn(String role) {
+        String email = role.toLowerCase() + System.nanoTime() + "@cit.edu";
+        userRepository.save(new UserEntity(String.valueOf(System.nanoTime() % 1_000_000_000), "Jo", "Reyes",
+                email.substring(0, email.indexOf('@')), email, "x", role));
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(email, null, List.of()));
+    }
+
+    private static BookingRequest request(String plate, int passengers, LocalDateTime start, LocalDateTime end) {
+        BookingRequest request = new BookingRequest();
+        request.setPlateNumber(plate);
+        request.setNumberOfPassengers(passengers);
+        request.setStatus("Pending");
+        request.setStartDate(start);
+        request.setEndDate(end);
+        request.setPickUp("CIT-U Main Gate");
+        request.setDropOff("SM Seaside");
+        return request;
+    }
+}
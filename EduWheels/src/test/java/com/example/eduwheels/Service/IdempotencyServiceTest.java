@@ -0,0 +1,198 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Controller.BookingController.BookingRequest;
+import com.example.eduwheels.Dto.BookingSummary;
+import com.example.eduwheels.Entity.UserEntity;
+import com.example.eduwheels.Entity.VehicleEntity;
+import com.example.eduwheels.Repository.BookingRepository;
+import com.example.eduwheels.Repository.IdempotencyKeyRepository;
+import com.example.eduwheels.Repository.UserRepository;
+import com.example.eduwheels.Repository.VehicleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "idempotency.max-entries=50"
+})
+@Import({IdempotencyService.class, BookingService.class, SeatReservationEngine.class, SeatAvailabilityIndex.class,
+        PendingBookingExpiryService.class, BookingEventHub.class, BookingLocationIndex.class, RidePoolingService.class,
+        FleetAssignmentService.class, RoutingService.class, VehicleCatalogCache.class, TableVersions.class, SimpleMeterRegistry.class,
+        JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyServiceTest {
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private VehicleEntity van;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.save(new UserEntity("000000002", "Lia", "Santos", "lia", "lia@cit.edu", "x", "User"));
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("lia@cit.edu", null, List.of()));
+        van = vehicleRepository.save(new VehicleEntity("IDEM-1", "Van", 12, 12, "Available", null, "Van"));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        SecurityContextHolder.clearContext();
+        idempotencyKeyRepository.deleteAllInBatch();
+        bookingRepository.deleteAllInBatch();
+        vehicleRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void replayReturnsTheOriginalResponseWithoutBookingAgain() {
+        BookingRequest request = request(3);
+
+        IdempotencyService.StoredResponse first = create("tap-1", request);
+        IdempotencyService.StoredResponse second = create("tap-1", request);
+
+        assertFalse(first.isReplayed());
+        assertTrue(second.isReplayed());
+        assertEquals(201, second.getStatus());
+        assertEquals(first.getBody(), second.getBody());
+        assertEquals(1, bookingRepository.count());
+        assertEquals(9, vehicleRepository.findById(van.getVehicleId()).orElseThrow().getAvailableSeats());
+    }
+
+    @Test
+    void concurrentDoubleTapsBookOnce() throws Exception {
+        BookingRequest request = request(1);
+        SecurityContext context = SecurityContextHolder.getContext();
+        int taps = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(taps);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<IdempotencyService.StoredResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < taps; i++) {
+            responses.add(pool.submit(() -> {
+                SecurityContextHolder.setContext(context);
+                start.await();
+                return create("double-tap", request);
+            }));
+        }
+        start.countDown();
+        Set<String> bodies = new HashSet<>();
+        int replays = 0;
+        for (Future<IdempotencyService.StoredResponse> response : responses) {
+            bodies.add(response.get().getBody());
+            replays += response.get().isReplayed() ? 1 : 0;
+        }
+        pool.shutdown();
+
+        assertEquals(1, bodies.size());
+        assertEquals(taps - 1, replays);
+        assertEquals(1, bookingRepository.count());
+        assertEquals(11, vehicleRepository.findById(van.getVehicleId()).orElseThrow().getAvailableSeats());
+    }
+
+    @Test
+    void reusingAKeyForAnotherRequestIsRefused() {
+        create("reused", request(1));
+
+        IdempotencyService.ConflictException e = assertThrows(IdempotencyService.ConflictException.class,
+                () -> create("reused", request(2)));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, e.getStatus());
+        assertEquals(1, bookingRepository.count());
+    }
+
+    @Test
+    void aKeyReusedAfterItsTtlRunsAgainBeforeThePurge() throws Exception {
+        Duration ttl = (Duration) ReflectionTestUtils.getField(idempotencyService, "ttl");
+        ReflectionTestUtils.setField(idempotencyService, "ttl", Duration.ofMillis(200));
+        try {
+            IdempotencyService.StoredResponse first = create("weekly-ride", request(1));
+            Thread.sleep(300);
+            // The expired row is still in the table: no purge has run
+            assertEquals(1, idempotencyKeyRepository.count());
+
+            IdempotencyService.StoredResponse second = create("weekly-ride", request(2));
+
+            assertFalse(second.isReplayed());
+            assertEquals(201, second.getStatus());
+            assertNotEquals(first.getBody(), second.getBody());
+        } finally {
+            ReflectionTestUtils.setField(idempotencyService, "ttl", ttl);
+        }
+        assertEquals(2, bookingRepository.count());
+        assertEquals(1, idempotencyKeyRepository.count());
+        assertEquals(9, vehicleRepository.findById(van.getVehicleId()).orElseThrow().getAvailableSeats());
+    }
+
+    @Test
+    void memoryStaysBoundedAndTheTableStillAnswers() {
+        BookingRequest request = request(0);
+        IdempotencyService.StoredResponse firstEver = create("key-0", request);
+        for (int i = 1; i < 200; i++) {
+            create("key-" + i, request);
+        }
+
+        assertTrue(idempotencyService.cachedKeys() <= 50);
+        IdempotencyService.StoredResponse replay = create("key-0", request);
+        assertTrue(replay.isReplayed());
+        assertEquals(firstEver.getBody(), replay.getBody());
+        assertEquals(200, bookingRepository.count());
+    }
+
+    private IdempotencyService.StoredResponse create(String key, BookingRequest request) {
+        return idempotencyService.execute(key, request, HttpStatus.CREATED,
+                () -> BookingSummary.from(bookingService.createBooking(request), false));
+    }
+
+    private static BookingRequest request(int passengers) {
+        BookingRequest request = new BookingRequest();
+        request.setPlateNumber("IDEM-1");
+        request.setNumberOfPassengers(passengers);
+        request.setStatus("Pending");
+        request.setPickUp("CIT-U");
+        request.setDropOff("SM Seaside");
+        return request;
+    }
+}
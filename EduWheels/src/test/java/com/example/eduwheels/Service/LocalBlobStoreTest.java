@@ -0,0 +1,150 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Controller.LocalBlobController;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class LocalBlobStoreTest {
+
+    private static final String URL = "/api/vehicles/uploads/vehicles/abc.jpg";
+
+    @TempDir
+    Path root;
+
+    private LocalBlobStore store;
+    private MockMvc mvc;
+    private byte[] photo;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = new LocalBlobStore(root.toString(), "http://localhost:8080/api/vehicles/uploads/");
+        LocalBlobController controller = new LocalBlobController();
+        ReflectionTestUtils.setField(controller, "localBlobStore", store);
+        mvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        photo = new byte[100_000];
+        for (int i = 0; i < photo.length; i++) {
+            photo[i] = (byte) (i * 31);
+        }
+        BlobStore.Upload upload = store.create("vehicles/abc.jpg", "image/jpeg");
+        upload.write(ByteBuffer.wrap(photo));
+        upload.close();
+    }
+
+    @Test
+    void objectsAppearOnlyWhenTheUploadIsClosed() throws Exception {
+        BlobStore.Upload upload = store.create("vehicles/new.jpg", "image/jpeg");
+        upload.write(ByteBuffer.wrap(new byte[]{1, 2, 3}));
+        assertNull(store.find("vehicles/new.jpg"));
+        upload.abort();
+        try (Stream<Path> files = Files.list(root.resolve("vehicles"))) {
+            assertEquals(1, files.count()); // just abc.jpg, no leftover .part
+        }
+
+        store.copy("vehicles/abc.jpg", "vehicles/copy.jpg");
+        assertArrayEquals(photo, Files.readAllBytes(store.find("vehicles/copy.jpg")));
+        assertTrue(store.delete("vehicles/copy.jpg"));
+        assertFalse(store.delete("vehicles/copy.jpg"));
+        assertEquals("http://localhost:8080/api/vehicles/uploads/vehicles/abc.jpg", store.publicUrl("vehicles/abc.jpg"));
+        assertNull(store.find("../outside.jpg"));
+        assertNull(store.find("/etc/passwd"));
+        assertNull(store.find("vehicles"));
+    }
+
+    @Test
+    void stagedUploadsAndPartFilesAreNeverServed() throws Exception {
+        BlobStore.Upload staged = store.create(VehicleService.STAGING_PREFIX + "upload-1", "image/jpeg");
+        staged.write(ByteBuffer.wrap(photo));
+        staged.close();
+        Path staging = root.resolve(VehicleService.STAGING_PREFIX);
+        Files.write(staging.resolve("upload-2.tmp.part"), photo);
+        Files.write(root.resolve("vehicles/abc.jpg.1234.part"), photo);
+
+        mvc.perform(get("/api/vehicles/uploads/" + VehicleService.STAGING_PREFIX + "upload-1")).andExpect(status().isNotFound());
+        mvc.perform(get("/api/vehicles/uploads/vehicles/./staging/upload-1")).andExpect(status().isNotFound());
+        mvc.perform(get("/api/vehicles/uploads/vehicles//staging/upload-1")).andExpect(status().isNotFound());
+        mvc.perform(get("/api/vehicles/uploads/" + VehicleService.STAGING_PREFIX + "upload-2.tmp.part")).andExpect(status().isNotFound());
+        mvc.perform(get("/api/vehicles/uploads/vehicles/abc.jpg.1234.part")).andExpect(status().isNotFound());
+        mvc.perform(get(URL)).andExpect(status().isOk());
+    }
+
+    @Test
+    void servesTheWholeFileWithLongLivedCacheHeaders() throws Exception {
+        MvcResult result = mvc.perform(get(URL))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/jpeg"))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, photo.length))
+                .andExpect(content().bytes(photo))
+                .andReturn();
+
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        mvc.perform(get(URL).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        mvc.perform(get("/api/vehicles/uploads/vehicles/missing.jpg")).andExpect(status().isNotFound());
+        mvc.perform(get("/api/vehicles/uploads/vehicles/../../secret")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void servesByteRanges() throws Exception {
+        mvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=1000-1999"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 1000-1999/100000"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 1000))
+                .andExpect(content().bytes(Arrays.copyOfRange(photo, 1000, 2000)));
+        mvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=99000-"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(Arrays.copyOfRange(photo, 99000, 100000)));
+        mvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=-10"))
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 99990-99999/100000"))
+                .andExpect(content().bytes(Arrays.copyOfRange(photo, 99990, 100000)));
+        mvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=100000-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */100000"));
+        // A stale If-Range, or a range we don't do, gets the whole file
+        mvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=0-9").header(HttpHeaders.IF_RANGE, "\"old\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(photo));
+        mvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=0-9,20-29"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void handsTheFileToSendfileWhenTheConnectorSupportsIt() throws Exception {
+        MvcResult result = mvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=500-")
+                        .requestAttr("org.apache.tomcat.sendfile.support", Boolean.TRUE))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 99500))
+                .andExpect(content().bytes(new byte[0])) // Tomcat sends it after the servlet returns
+                .andReturn();
+
+        assertEquals(store.find("vehicles/abc.jpg").toString(),
+                result.getRequest().getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(500L, result.getRequest().getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals(100000L, result.getRequest().getAttribute("org.apache.tomcat.sendfile.end"));
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.eduwheels.Service;
+
+import com.google.cloud.RestorableState;
+import com.google.cloud.WriteChannel;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.CopyWriter;
+import com.google.cloud.storage.Storage;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Offline stand-in for the few {@link Storage} calls the app makes, backed by a directory
+ * ({@code root/bucket/object}). Like a GCS resumable upload, a writer keeps one chunk in
+ * memory, flushes it when full and only makes the object visible on close; an upload that is
+ * never closed leaves nothing behind but a ".part" file.
+ */
+final class LocalFileStorage {
+
+    private LocalFileStorage() {
+    }
+
+    static Storage create(Path root) {
+        return (Storage) Proxy.newProxyInstance(Storage.class.getClassLoader(), new Class<?>[]{Storage.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "writer" -> new FileWriteChannel(objectPath(root, ((BlobInfo) args[0]).getBlobId()));
+                    case "create" -> {
+                        Path path = objectPath(root, ((BlobInfo) args[0]).getBlobId());
+                        Files.createDirectories(path.getParent());
+                        Files.write(path, (byte[]) args[1]);
+                        yield null;
+                    }
+                    case "copy" -> {
+                        Storage.CopyRequest request = (Storage.CopyRequest) args[0];
+                        Path target = objectPath(root, request.getTarget().getBlobId());
+                        Files.createDirectories(target.getParent());
+                        Files.copy(objectPath(root, request.getSource()), target, StandardCopyOption.REPLACE_EXISTING);
+                        yield Mockito.mock(CopyWriter.class);
+                    }
+                    case "delete" -> Files.deleteIfExists(objectPath(root, (BlobId) args[0]));
+                    case "toString" -> "LocalFileStorage[" + root + "]";
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> throw new UnsupportedOperationException("Storage." + method.getName());
+                });
+    }
+
+    static Path objectPath(Path root, BlobId blobId) {
+        return root.resolve(blobId.getBucket()).resolve(blobId.getName());
+    }
+
+    private static final class FileWriteChannel implements WriteChannel {
+        private final Path target;
+        private final Path part;
+        private final FileChannel file;
+        private ByteBuffer chunk = ByteBuffer.allocate(256 * 1024);
+        private boolean open = true;
+
+        private FileWriteChannel(Path target) throws IOException {
+            this.target = target;
+            this.part = target.resolveSibling(target.getFileName() + ".part");
+            Files.createDirectories(target.getParent());
+            this.file = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        @Override
+        public void setChunkSize(int chunkSize) {
+            chunk = ByteBuffer.allocate(chunkSize);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            int written = 0;
+            while (src.hasRemaining()) {
+                if (!chunk.hasRemaining()) {
+                    flush();
+                }
+                int n = Math.min(src.remaining(), chunk.remaining());
+                ByteBuffer slice = src.slice(src.position(), n);
+                chunk.put(slice);
+                src.position(src.position() + n);
+                written += n;
+            }
+            return written;
+        }
+
+        private void flush() throws IOException {
+            chunk.flip();
+            while (chunk.hasRemaining()) {
+                file.write(chunk);
+            }
+            chunk.clear();
+        }
+
+        @Override
+        public boolean isOpen() {
+            return open;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!open) {
+                return;
+            }
+            open = false;
+            flush();
+            file.close();
+            Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+
+        @Override
+        public RestorableState<WriteChannel> capture() {
+            throw new UnsupportedOperationException("capture");
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Controller.UserController;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class LoginRateLimiterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private LoginRateLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        limiter = new LoginRateLimiter();
+        ReflectionTestUtils.setField(limiter, "ipCapacity", 5);
+        ReflectionTestUtils.setField(limiter, "ipRefill", Duration.ofSeconds(10));
+        ReflectionTestUtils.setField(limiter, "accountCapacity", 2);
+        ReflectionTestUtils.setField(limiter, "accountRefill", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(limiter, "maxEntries", 1000);
+        ReflectionTestUtils.setField(limiter, "meterRegistry", meterRegistry);
+        limiter.init();
+    }
+
+    @Test
+    void limitsEachAccountAndEachAddress() {
+        assertEquals(0, limiter.check("21-0000-001", "198.51.100.1"));
+        assertEquals(0, limiter.check("210000001", "198.51.100.2"));
+        // Same account however it's spelled, from wherever
+        long wait = limiter.check("21-0000-001", "198.51.100.3");
+        assertTrue(wait > 30 && wait <= 60, wait + "s");
+
+        // One address trying many accounts
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.check("21000010" + i, "203.0.113.9"));
+        }
+        assertTrue(limiter.check("210000200", "203.0.113.9") > 0);
+        // ...without using up the allowance of the account it was refused for
+        assertEquals(0, limiter.check("210000200", "198.51.100.4"));
+
+        assertEquals(1.0, meterRegistry.counter("login.rate-limit.rejected", "limit", "account").count());
+        assertEquals(1.0, meterRegistry.counter("login.rate-limit.rejected", "limit", "ip").count());
+        assertEquals(8.0, meterRegistry.counter("login.rate-limit.allowed").count());
+    }
+
+    @Test
+    void loginIsRefusedBeforeTheLookup() throws Exception {
+        // No repository or hashing wired in: getting past the limiter would fail
+        UserController controller = new UserController();
+        ReflectionTestUtils.setField(controller, "loginRateLimiter", limiter);
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(controller).build();
+        for (int i = 0; i < 5; i++) {
+            limiter.check("21000030" + i, "127.0.0.1");
+        }
+
+        MvcResult result = mvc.perform(post("/users/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"schoolid\":\"210000001\",\"password\":\"guess\"}"))
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+    }
+}
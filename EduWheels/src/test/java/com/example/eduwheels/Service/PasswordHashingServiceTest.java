@@ -0,0 +1,249 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Controller.UserController;
+import com.example.eduwheels.Entity.UserEntity;
+import com.example.eduwheels.Repository.RefreshTokenRepository;
+import com.example.eduwheels.Repository.UserRepository;
+import com.example.eduwheels.Utils.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "passwords.bcrypt.cost=5",
+        "passwords.workers=1",
+        "passwords.queue-capacity=2"
+})
+@Import({PasswordHashingService.class, LoginRateLimiter.class, UserService.class, TableVersions.class,
+        RefreshTokenService.class, TokenRevocationService.class, JwtUtil.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PasswordHashingServiceTest {
+
+    // The SecurityConfig encoder at cost 5, with a gate that holds every hash while closed
+    static class GatedEncoder implements PasswordEncoder {
+        private final DelegatingPasswordEncoder delegate;
+        volatile CountDownLatch gate = new CountDownLatch(0);
+
+        GatedEncoder() {
+            delegate = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", new BCryptPasswordEncoder(5)));
+            delegate.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder(5));
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            await();
+            return delegate.encode(rawPassword);
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            await();
+            return delegate.matches(rawPassword, encodedPassword);
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            return delegate.upgradeEncoding(encodedPassword);
+        }
+
+        private void await() {
+            try {
+                gate.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @TestConfiguration
+    static class EncoderConfig {
+        @Bean
+        GatedEncoder passwordEncoder() {
+            return new GatedEncoder();
+        }
+    }
+
+    @Autowired
+    private PasswordHashingService passwordHashingService;
+
+    @Autowired
+    private GatedEncoder encoder;
+
+    @Autowired
+    private LoginRateLimiter loginRateLimiter;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        UserController controller = new UserController();
+        ReflectionTestUtils.setField(controller, "userRepository", userRepository);
+        ReflectionTestUtils.setField(controller, "userService", userService);
+        ReflectionTestUtils.setField(controller, "refreshTokenService", refreshTokenService);
+        ReflectionTestUtils.setField(controller, "passwordHashingService", passwordHashingService);
+        ReflectionTestUtils.setField(controller, "loginRateLimiter", loginRateLimiter);
+        mvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        encoder.gate.countDown();
+        refreshTokenRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void loginRehashesPasswordsMadeAtAnotherCost() throws Exception {
+        // Stored before the encoder prefixed its hashes, and at cost 4
+        String old = new BCryptPasswordEncoder(4).encode("correct horse");
+        UserEntity ana = userRepository.save(new UserEntity("210000001", "Ana", "Cruz", "ana", "ana@cit.edu", old, "Student"));
+        double upgradedBefore = meterRegistry.counter("passwords.upgraded").count();
+
+        login("210000001", "wrong horse", 401);
+        assertEquals(old, userRepository.findById(ana.getUserid()).get().getPassword());
+
+        login("210000001", "correct horse", 200);
+        String upgraded = userRepository.findById(ana.getUserid()).get().getPassword();
+        assertTrue(upgraded.startsWith("{bcrypt}$2a$05$"), upgraded);
+
+        // Once is enough
+        login("210000001", "correct horse", 200);
+        assertEquals(upgraded, userRepository.findById(ana.getUserid()).get().getPassword());
+        assertEquals(upgradedBefore + 1, meterRegistry.counter("passwords.upgraded").count());
+        assertFalse(passwordHashingService.needsUpgrade(upgraded));
+        assertTrue(passwordHashingService.needsUpgrade("{bcrypt}" + new BCryptPasswordEncoder(6).encode("x")));
+    }
+
+    @Test
+    void signupHashesOffTheRequestThread() throws Exception {
+        MvcResult started = mvc.perform(post("/users/signup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"schoolid\":\"21-0000-002\",\"firstName\":\"Ben\",\"lastName\":\"Reyes\","
+                                + "\"username\":\"ben\",\"email\":\"ben@cit.edu\",\"password\":\"hunter22\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(started)).andExpect(status().isCreated());
+
+        String stored = userRepository.findBySchoolid("210000002").get().getPassword();
+        assertTrue(stored.startsWith("{bcrypt}$2a$05$"), stored);
+        assertTrue(encoder.matches("hunter22", stored));
+        assertTrue(meterRegistry.get("passwords.hash").tag("operation", "encode").timer().count() > 0);
+    }
+
+    @Test
+    void whatFollowsAHashRunsOffTheHashingThreads() throws Exception {
+        String stored = encoder.encode("pw");
+        // Chained while the hashes are held, so the continuations run wherever the futures complete
+        encoder.gate = new CountDownLatch(1);
+        CompletableFuture<String> encodedOn = passwordHashingService.encode("pw")
+                .thenApply(hash -> Thread.currentThread().getName());
+        CompletableFuture<String> verifiedOn = passwordHashingService.verify("pw", stored)
+                .thenApply(result -> Thread.currentThread().getName());
+        encoder.gate.countDown();
+
+        assertTrue(encodedOn.get(10, TimeUnit.SECONDS).startsWith("password-then-"), encodedOn.get());
+        assertTrue(verifiedOn.get(10, TimeUnit.SECONDS).startsWith("password-then-"), verifiedOn.get());
+    }
+
+    @Test
+    void fullQueueIsTurnedAwayWith503() throws Exception {
+        userRepository.save(new UserEntity("210000003", "Cy", "Lim", "cy", "cy@cit.edu",
+                encoder.encode("pass1234"), "Student"));
+        double rejectedBefore = meterRegistry.counter("passwords.rejected").count();
+        encoder.gate = new CountDownLatch(1);
+
+        // One hashing, two waiting: that's all one worker and a queue of two take
+        List<CompletableFuture<String>> accepted = new ArrayList<>();
+        accepted.add(passwordHashingService.encode("pw0"));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("passwords.active").gauge().value() < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        accepted.add(passwordHashingService.encode("pw1"));
+        accepted.add(passwordHashingService.encode("pw2"));
+        assertThrows(RejectedExecutionException.class, () -> passwordHashingService.encode("one too many"));
+        assertEquals(2.0, meterRegistry.get("passwords.queue.size").gauge().value());
+
+        long start = System.nanoTime();
+        MvcResult busy = mvc.perform(post("/users/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"schoolid\":\"210000003\",\"password\":\"pass1234\"}"))
+                .andReturn();
+        mvc.perform(asyncDispatch(busy))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(jsonPath("$.message").exists());
+        // Turned away at once, not after waiting for the queue
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(2));
+        assertEquals(rejectedBefore + 2, meterRegistry.counter("passwords.rejected").count());
+
+        encoder.gate.countDown();
+        for (CompletableFuture<String> hash : accepted) {
+            assertNotEquals("", hash.get(10, TimeUnit.SECONDS));
+        }
+        login("210000003", "pass1234", 200);
+    }
+
+    private void login(String schoolid, String password, int expectedStatus) throws Exception {
+        MvcResult started = mvc.perform(post("/users/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"schoolid\":\"" + schoolid + "\",\"password\":\"" + password + "\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(started)).andExpect(status().is(expectedStatus));
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Entity.BookingEntity;
+import com.example.eduwheels.Entity.UserEntity;
+import com.example.eduwheels.Entity.VehicleEntity;
+import com.example.eduwheels.Repository.BookingRepository;
+import com.example.eduwheels.Repository.UserRepository;
+import com.example.eduwheels.Repository.VehicleRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "booking.pending-hold=PT1H",
+        "booking.expiry-batch-size=1",
+        "booking.expiry-retry=PT0.5S"
+})
+@Import({PendingBookingExpiryService.class, SeatReservationEngine.class, SeatAvailabilityIndex.class, BookingEventHub.class,
+        VehicleCatalogCache.class, TableVersions.class, SimpleMeterRegistry.class, JacksonAutoConfiguration.class})
+class PendingBookingExpiryServiceTest {
+
+    @Autowired
+    private PendingBookingExpiryService expiryService;
+
+    @Autowired
+    private SeatAvailabilityIndex seatAvailabilityIndex;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    void stalePendingBookingsAreCanceledAndTheirSeatsReturned() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime tripStart = now.plusDays(2);
+        UserEntity user = userRepository.save(new UserEntity("000000003", "Rey", "Uy", "rey", "rey@cit.edu", "x", "User"));
+        // 3 seats already taken from the global counter by the booking without a window
+        VehicleEntity van = vehicleRepository.save(new VehicleEntity("EXP-1", "Van", 10, 7, "Available", null, "Van"));
+
+        BookingEntity counted = bookingRepository.save(new BookingEntity(user, van, "A", "B", 3, now.minusHours(2), null, null,
+                BookingEntity.Status.Pending));
+        BookingEntity windowed = bookingRepository.save(new BookingEntity(user, van, "A", "B", 4, now.minusHours(2),
+                tripStart, tripStart.plusHours(3), BookingEntity.Status.Pending));
+        BookingEntity fresh = bookingRepository.save(new BookingEntity(user, van, "A", "B", 1, now.minusMinutes(10), null, null,
+                BookingEntity.Status.Pending));
+        BookingEntity approved = bookingRepository.save(new BookingEntity(user, van, "A", "B", 2, now.minusHours(2), null, null,
+                BookingEntity.Status.Approved));
+        seatAvailabilityIndex.tryHold(SeatAvailabilityIndex.Hold.of(windowed), van.getCapacity());
+        entityManager.flush();
+
+        // Counters are shared with the other tests in this context
+        double expiredBefore = meterRegistry.get("bookings.pending.expired").counter().count();
+        long lagBefore = meterRegistry.get("bookings.pending.expiry.lag").timer().count();
+        expiryService.seed();
+        assertEquals(3, expiryService.queued());
+
+        expiryService.expireDue();
+        entityManager.clear();
+
+        assertEquals(BookingEntity.Status.Canceled, bookingRepository.findById(counted.getBookingID()).orElseThrow().getStatus());
+        assertEquals(BookingEntity.Status.Canceled, bookingRepository.findById(windowed.getBookingID()).orElseThrow().getStatus());
+        assertEquals(BookingEntity.Status.Pending, bookingRepository.findById(fresh.getBookingID()).orElseThrow().getStatus());
+        assertEquals(BookingEntity.Status.Approved, bookingRepository.findById(approved.getBookingID()).orElseThrow().getStatus());
+        assertEquals(10, vehicleRepository.findById(van.getVehicleId()).orElseThrow().getAvailableSeats());
+        assertEquals(0, seatAvailabilityIndex.bookedSeats(van.getVehicleId(), tripStart, tripStart.plusHours(3)));
+
+        assertEquals(1, expiryService.queued());
+        assertEquals(expiredBefore + 2, meterRegistry.get("bookings.pending.expired").counter().count());
+        assertEquals(1.0, meterRegistry.get("bookings.pending.expiry.queue").gauge().value());
+        assertEquals(lagBefore + 2, meterRegistry.get("bookings.pending.expiry.lag").timer().count());
+    }
+
+    @Test
+    void aFailedBatchIsRetriedWithoutDroppingTheOthers() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        UserEntity user = userRepository.save(new UserEntity("000000005", "Lia", "Ong", "lia", "lia@cit.edu", "x", "User"));
+        VehicleEntity van = vehicleRepository.save(new VehicleEntity("EXP-3", "Van", 10, 6, "Available", null, "Van"));
+        BookingEntity first = bookingRepository.save(new BookingEntity(user, van, "A", "B", 2, now.minusHours(2), null, null,
+                BookingEntity.Status.Pending));
+        BookingEntity second = bookingRepository.save(new BookingEntity(user, van, "A", "B", 2, now.minusHours(2), null, null,
+                BookingEntity.Status.Pending));
+        entityManager.flush();
+        expiryService.track(first);
+        expiryService.track(second);
+
+        // The first batch (of one) hits a lock timeout, then the database recovers
+        BookingRepository flaky = mock(BookingRepository.class, AdditionalAnswers.delegatesTo(bookingRepository));
+        doThrow(new QueryTimeoutException("Lock wait timeout exceeded"))
+                .doAnswer(AdditionalAnswers.delegatesTo(bookingRepository))
+                .when(flaky).lockExpiredPending(anyCollection(), any());
+        ReflectionTestUtils.setField(expiryService, "bookingRepository", flaky);
+        double failedBefore = meterRegistry.get("bookings.pending.expiry.failed").counter().count();
+        try {
+            expiryService.expireDue();
+            entityManager.clear();
+            long canceled = Stream.of(first, second)
+                    .filter(b -> bookingRepository.findById(b.getBookingID()).orElseThrow().getStatus() == BookingEntity.Status.Canceled)
+                    .count();
+            assertEquals(1, canceled);
+            assertEquals(1, expiryService.queued());
+            assertEquals(failedBefore + 1, meterRegistry.get("bookings.pending.expiry.failed").counter().count());
+
+            Thread.sleep(1500); // past the retry delay, on the wheel's next tick
+            expiryService.expireDue();
+            entityManager.clear();
+        } finally {
+            ReflectionTestUtils.setField(expiryService, "bookingRepository", bookingRepository);
+        }
+
+        assertEquals(BookingEntity.Status.Canceled, bookingRepository.findById(first.getBookingID()).orElseThrow().getStatus());
+        assertEquals(BookingEntity.Status.Canceled, bookingRepository.findById(second.getBookingID()).orElseThrow().getStatus());
+        assertEquals(10, vehicleRepository.findById(van.getVehicleId()).orElseThrow().getAvailableSeats());
+        assertEquals(0, expiryService.queued());
+    }
+
+    @Test
+    void approvingStopsTheClock() {
+        LocalDateTime now = LocalDateTime.now();
+        UserEntity user = userRepository.save(new UserEntity("000000004", "Joy", "Go", "joy", "joy@cit.edu", "x", "User"));
+        VehicleEntity car = vehicleRepository.save(new VehicleEntity("EXP-2", "Car", 4, 2, "Available", null, "Car"));
+        BookingEntity booking = bookingRepository.save(new BookingEntity(user, car, "A", "B", 2, now.minusHours(3), null, null,
+                BookingEntity.Status.Pending));
+        expiryService.track(booking);
+
+        booking.setStatus(BookingEntity.Status.Approved);
+        bookingRepository.saveAndFlush(booking);
+        expiryService.track(booking);
+        expiryService.expireDue();
+        entityManager.clear();
+
+        assertEquals(BookingEntity.Status.Approved, bookingRepository.findById(booking.getBookingID()).orElseThrow().getStatus());
+        assertEquals(2, vehicleRepository.findById(car.getVehicleId()).orElseThrow().getAvailableSeats());
+    }
+}
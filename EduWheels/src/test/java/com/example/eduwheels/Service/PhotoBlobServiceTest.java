@@ -0,0 +1,182 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Entity.VehicleEntity;
+import com.example.eduwheels.Repository.PhotoBlobRepository;
+import com.example.eduwheels.Repository.VehicleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@Import({PhotoBlobService.class, PhotoRenditionService.class, VehicleService.class, VehicleCatalogCache.class,
+        TableVersions.class, SeatAvailabilityIndex.class, SimpleMeterRegistry.class, PhotoBlobServiceTest.BucketConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PhotoBlobServiceTest {
+
+    @TestConfiguration
+    static class BucketConfig {
+        static final Path ROOT = createRoot();
+        static final AtomicInteger UPLOADS = new AtomicInteger();
+
+        // Local disk store that counts uploads
+        @Bean
+        BlobStore blobStore() throws IOException {
+            BlobStore local = new LocalBlobStore(ROOT.toString(), "http://localhost:8080/api/vehicles/uploads");
+            return (BlobStore) Proxy.newProxyInstance(BlobStore.class.getClassLoader(), new Class<?>[]{BlobStore.class},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("create")) {
+                            UPLOADS.incrementAndGet();
+                        }
+                        try {
+                            return method.invoke(local, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+
+        private static Path createRoot() {
+            try {
+                return Files.createTempDirectory("eduwheels-bucket-");
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @Autowired
+    private PhotoBlobService photoBlobService;
+
+    @Autowired
+    private PhotoRenditionService photoRenditionService;
+
+    @Autowired
+    private VehicleService vehicleService;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private PhotoBlobRepository photoBlobRepository;
+
+    @AfterEach
+    void cleanUp() throws IOException {
+        vehicleRepository.deleteAllInBatch();
+        photoBlobRepository.deleteAllInBatch();
+        try (Stream<Path> files = Files.walk(BucketConfig.ROOT)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Test
+    void samePhotoIsStoredOnceAndCountedPerVehicle() throws Exception {
+        byte[] photo = jpeg(900, 600, 0x3366aa);
+        VehicleEntity van = upload(vehicle("BLOB-VAN"), photo);
+        int uploads = BucketConfig.UPLOADS.get();
+        VehicleEntity bus = upload(vehicle("BLOB-BUS"), photo);
+
+        assertEquals(uploads, BucketConfig.UPLOADS.get()); // neither the original nor a rendition went out again
+        assertEquals(van.getPhotoPath(), bus.getPhotoPath());
+        assertEquals(van.getPhotoCardUrl(), bus.getPhotoCardUrl());
+        assertEquals(PhotoRenditionService.READY, bus.getPhotoStatus());
+        assertEquals(4, photoBlobRepository.count());
+        photoBlobRepository.findAll().forEach(blob -> assertEquals(2, blob.getRefCount(), blob.getObjectName()));
+    }
+
+    @Test
+    void blobsAreCollectedOnlyOnceNoVehicleUsesThem() throws Exception {
+        byte[] shared = jpeg(900, 600, 0xaa3366);
+        VehicleEntity van = upload(vehicle("GC-VAN"), shared);
+        VehicleEntity bus = upload(vehicle("GC-BUS"), shared);
+        VehicleEntity car = upload(vehicle("GC-CAR"), jpeg(900, 600, 0x66aa33));
+        upload(car, jpeg(900, 600, 0x999999)); // replaces its first photo
+
+        assertEquals(4, photoBlobService.sweep(LocalDateTime.now().plusSeconds(1))); // the car's first photo
+        assertEquals(8, storedObjects());
+
+        vehicleService.deleteVehicle(van.getVehicleId());
+        assertEquals(0, photoBlobService.sweep(LocalDateTime.now().plusSeconds(1))); // the bus still shows it
+        vehicleService.deleteVehicle(bus.getVehicleId());
+        assertEquals(0, photoBlobService.sweep(LocalDateTime.now().minusMinutes(1))); // still in its grace period
+        assertEquals(4, photoBlobService.sweep(LocalDateTime.now().plusSeconds(1)));
+
+        assertEquals(4, storedObjects());
+        assertEquals(4, photoBlobRepository.count());
+        VehicleEntity stillThere = vehicleService.getVehicleById(car.getVehicleId());
+        assertTrue(Files.exists(objectPath(stillThere.getPhotoCardUrl())));
+    }
+
+    @Test
+    void streamedUploadsAreNamedByContentAndDeduplicated() throws Exception {
+        byte[] photo = jpeg(300, 200, 0x123456);
+        String first = vehicleService.uploadImageToGCS(new MockMultipartFile("photo", "a.JPG", "image/jpeg", photo));
+        String second = vehicleService.uploadImageToGCS(new MockMultipartFile("photo", "b.jpg", "image/jpeg", photo));
+
+        assertEquals(first, second);
+        assertTrue(first.matches(".*/vehicles/[0-9a-f]{64}\\.jpg"), first);
+        assertEquals(1, storedObjects()); // the second one was never written
+    }
+
+    private VehicleEntity vehicle(String plate) {
+        return vehicleService.createVehicle(new VehicleEntity(plate, "Van", 12, 12, "Available", null, plate));
+    }
+
+    private VehicleEntity upload(VehicleEntity vehicle, byte[] photo) throws Exception {
+        PhotoRenditionService.Job job = photoRenditionService.accept(
+                new MockMultipartFile("photo", "photo.jpg", "image/jpeg", photo));
+        photoRenditionService.start(job, vehicle);
+        assertTrue(job.await(Duration.ofSeconds(30)));
+        return vehicleService.getVehicleById(vehicle.getVehicleId());
+    }
+
+    private static long storedObjects() throws IOException {
+        try (Stream<Path> files = Files.walk(BucketConfig.ROOT)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+
+    private static Path objectPath(String url) {
+        return BucketConfig.ROOT.resolve(url.substring("http://localhost:8080/api/vehicles/uploads/".length()));
+    }
+
+    private static byte[] jpeg(int width, int height, int rgb) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                image.setRGB(x, y, rgb ^ (x * 7 + y * 3) & 0xff);
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Controller.VehicleController;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class PhotoCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private final RemoteStore remote = new RemoteStore();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void servesRepeatsFromDiskAndCountsTheSavings() throws Exception {
+        byte[] photo = bytes(1000, 7);
+        remote.put("vehicles/a.jpg", photo);
+        PhotoCache cache = new PhotoCache(remote, meterRegistry, dir.toString(), 10_000);
+
+        for (int i = 0; i < 4; i++) {
+            assertArrayEquals(photo, read(cache.open("vehicles/a.jpg")));
+        }
+        assertNull(cache.open("vehicles/missing.jpg"));
+
+        assertEquals(2, remote.opens.get()); // one fetch for the photo, one for the missing name
+        assertEquals(3, meterRegistry.counter("photos.cache.hits").count());
+        assertEquals(2, meterRegistry.counter("photos.cache.misses").count());
+        assertEquals(3000, meterRegistry.counter("photos.cache.bytes.saved").count());
+        assertEquals(0.6, meterRegistry.get("photos.cache.hit.ratio").gauge().value(), 1e-9);
+        assertEquals(1000, cache.sizeBytes());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyServedToStayUnderTheLimit() throws Exception {
+        for (String name : List.of("a", "b", "c")) {
+            remote.put("vehicles/" + name + ".jpg", bytes(400, name.charAt(0)));
+        }
+        PhotoCache cache = new PhotoCache(remote, meterRegistry, dir.toString(), 1000);
+
+        cache.open("vehicles/a.jpg").close();
+        cache.open("vehicles/b.jpg").close();
+        cache.open("vehicles/a.jpg").close(); // b is now the oldest
+        cache.open("vehicles/c.jpg").close();
+
+        assertEquals(800, cache.sizeBytes());
+        assertTrue(Files.exists(dir.resolve("vehicles/a.jpg")));
+        assertFalse(Files.exists(dir.resolve("vehicles/b.jpg")));
+        assertEquals(1, meterRegistry.counter("photos.cache.evictions").count());
+
+        cache.open("vehicles/b.jpg").close(); // back from the remote, pushing a out
+        assertEquals(4, remote.opens.get());
+        assertFalse(Files.exists(dir.resolve("vehicles/a.jpg")));
+
+        // A restart picks the files back up in the same order
+        PhotoCache restarted = new PhotoCache(remote, new SimpleMeterRegistry(), dir.toString(), 1000);
+        assertEquals(800, restarted.sizeBytes());
+        restarted.open("vehicles/c.jpg").close();
+        assertEquals(4, remote.opens.get());
+    }
+
+    @Test
+    void concurrentMissesShareOneFetch() throws Exception {
+        byte[] photo = bytes(200_000, 3);
+        remote.put("vehicles/big.jpg", photo);
+        remote.gate = new CountDownLatch(1);
+        PhotoCache cache = new PhotoCache(remote, meterRegistry, dir.toString(), 10_000_000);
+
+        int clients = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<byte[]>> reads = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                reads.add(pool.submit(() -> read(cache.open("vehicles/big.jpg"))));
+            }
+            assertTrue(remote.fetching.await(5, TimeUnit.SECONDS));
+            Thread.sleep(200); // let the rest pile up behind the first fetch
+            remote.gate.countDown();
+            for (Future<byte[]> read : reads) {
+                assertArrayEquals(photo, read.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, remote.opens.get());
+        assertEquals(1, meterRegistry.counter("photos.cache.misses").count());
+        assertEquals(clients - 1, meterRegistry.counter("photos.cache.hits").count());
+    }
+
+    @Test
+    void photoEndpointServesThroughTheCache() throws Exception {
+        byte[] photo = bytes(5000, 11);
+        remote.put("vehicles/abc.jpg", photo);
+        remote.put("vehicles/staging/x.jpg", photo);
+        VehicleController controller = new VehicleController();
+        ReflectionTestUtils.setField(controller, "photoCache", new PhotoCache(remote, meterRegistry, dir.toString(), 10_000));
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        for (int i = 0; i < 2; i++) {
+            mvc.perform(get("/api/vehicles/photos/vehicles/abc.jpg"))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "image/jpeg"))
+                    .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"))
+                    .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, photo.length))
+                    .andExpect(content().bytes(photo));
+        }
+        assertEquals(1, remote.opens.get());
+
+        mvc.perform(get("/api/vehicles/photos/vehicles/nope.jpg")).andExpect(status().isNotFound());
+        mvc.perform(get("/api/vehicles/photos/vehicles/staging/x.jpg")).andExpect(status().isNotFound());
+        mvc.perform(get("/api/vehicles/photos/vehicles/../../etc/passwd")).andExpect(status().isNotFound());
+    }
+
+    private static byte[] read(FileChannel channel) throws IOException {
+        try (channel) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) != -1) {
+            }
+            return buffer.array();
+        }
+    }
+
+    private static byte[] bytes(int length, int seed) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * seed);
+        }
+        return bytes;
+    }
+
+    // Stands in for the bucket: objects in memory, reads counted, and optionally held until released
+    private static class RemoteStore implements BlobStore {
+        final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+        final AtomicInteger opens = new AtomicInteger();
+        final CountDownLatch fetching = new CountDownLatch(1);
+        volatile CountDownLatch gate;
+
+        void put(String name, byte[] bytes) {
+            objects.put(name, bytes);
+        }
+
+        @Override
+        public ReadableByteChannel open(String name) throws IOException {
+            opens.incrementAndGet();
+            fetching.countDown();
+            if (gate != null) {
+                try {
+                    gate.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }
+            byte[] bytes = objects.get(name);
+            return bytes != null ? Channels.newChannel(new ByteArrayInputStream(bytes)) : null;
+        }
+
+        @Override
+        public Upload create(String name, String contentType) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void copy(String sourceName, String targetName) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean delete(String name) {
+            return objects.remove(name) != null;
+        }
+
+        @Override
+        public String publicUrl(String name) {
+            return "https://remote.example/" + name;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Entity.VehicleEntity;
+import com.example.eduwheels.Repository.PhotoBlobRepository;
+import com.example.eduwheels.Repository.VehicleRepository;
+import com.google.cloud.storage.BlobId;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "photos.workers=2",
+        "photos.queue-capacity=3"
+})
+@Import({PhotoRenditionService.class, VehicleService.class, PhotoBlobService.class, VehicleCatalogCache.class, TableVersions.class,
+        SeatAvailabilityIndex.class, SimpleMeterRegistry.class, PhotoRenditionServiceTest.BucketConfig.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PhotoRenditionServiceTest {
+
+    private static final String BUCKET = "eduwheels-test";
+    private static final String URL_PREFIX = "https://storage.googleapis.com/" + BUCKET + "/";
+
+    @TestConfiguration
+    static class BucketConfig {
+        static final Path ROOT = createRoot();
+
+        @Bean
+        BlobStore blobStore() {
+            return new GcsBlobStore(LocalFileStorage.create(ROOT), BUCKET, 256 * 1024);
+        }
+
+        private static Path createRoot() {
+            try {
+                return Files.createTempDirectory("eduwheels-bucket-");
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    @Autowired
+    private PhotoRenditionService photoRenditionService;
+
+    @Autowired
+    private VehicleService vehicleService;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private PhotoBlobRepository photoBlobRepository;
+
+    @AfterEach
+    void cleanUp() {
+        vehicleRepository.deleteAllInBatch();
+        photoBlobRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void uploadIsStoredWithThreeRenditions() throws Exception {
+        VehicleEntity van = vehicleService.createVehicle(new VehicleEntity("PHOTO-1", "Van", 12, 12, "Available", null, "Van"));
+
+        PhotoRenditionService.Job job = photoRenditionService.accept(photo("van.jpg", jpeg(2400, 1600, 1)));
+        photoRenditionService.start(job, van);
+        assertEquals(PhotoRenditionService.PROCESSING, van.getPhotoStatus());
+        assertTrue(job.await(Duration.ofSeconds(30)));
+
+        VehicleEntity stored = vehicleService.getVehicleById(van.getVehicleId());
+        assertEquals(PhotoRenditionService.READY, stored.getPhotoStatus());
+        byte[] bytes = jpeg(2400, 1600, 1);
+        String sha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        assertEquals(URL_PREFIX + "vehicles/" + sha256 + ".jpg", stored.getPhotoPath());
+        assertEquals(2400, read(stored.getPhotoPath()).getWidth()); // original kept as uploaded
+        assertFits(read(stored.getPhotoThumbnailUrl()), 160, 120);
+        assertFits(read(stored.getPhotoCardUrl()), 640, 480);
+        BufferedImage full = read(stored.getPhotoFullUrl());
+        assertEquals(1600, full.getWidth());
+        assertEquals(1067, full.getHeight());
+        assertNotNull(job.getFinishedAt());
+    }
+
+    @Test
+    void unreadablePhotoFailsAndKeepsThePreviousOne() throws Exception {
+        VehicleEntity van = vehicleService.createVehicle(new VehicleEntity("PHOTO-2", "Van", 12, 12, "Available", null, "Van"));
+        PhotoRenditionService.Job first = photoRenditionService.accept(photo("first.png", png(400, 300)));
+        photoRenditionService.start(first, van);
+        assertTrue(first.await(Duration.ofSeconds(30)));
+        VehicleEntity before = vehicleService.getVehicleById(van.getVehicleId());
+        assertEquals(400, read(before.getPhotoFullUrl()).getWidth()); // never scaled up
+
+        PhotoRenditionService.Job broken = photoRenditionService.accept(
+                photo("broken.jpg", Arrays.copyOf(jpeg(800, 600, 2), 40)));
+        photoRenditionService.start(broken, van);
+        assertTrue(broken.await(Duration.ofSeconds(30)));
+
+        VehicleEntity after = vehicleService.getVehicleById(van.getVehicleId());
+        assertEquals(PhotoRenditionService.FAILED, after.getPhotoStatus());
+        assertNotNull(broken.getError());
+        assertEquals(before.getPhotoPath(), after.getPhotoPath());
+        assertEquals(before.getPhotoCardUrl(), after.getPhotoCardUrl());
+    }
+
+    @Test
+    void refusesPhotosOnceWorkersAndQueueAreFull() throws Exception {
+        byte[] bytes = jpeg(64, 48, 3);
+        List<PhotoRenditionService.Job> held = new ArrayList<>();
+        try {
+            for (int i = 0; i < 5; i++) { // 2 workers + 3 queued
+                held.add(photoRenditionService.accept(photo("held.jpg", bytes)));
+            }
+            assertThrows(RejectedExecutionException.class, () -> photoRenditionService.accept(photo("one-too-many.jpg", bytes)));
+        } finally {
+            held.forEach(photoRenditionService::discard);
+        }
+        photoRenditionService.discard(photoRenditionService.accept(photo("room-again.jpg", bytes)));
+        assertNull(photoRenditionService.getJob(-1L));
+    }
+
+    /**
+     * Run with -Dbenchmarks=true. 100 distinct 12-megapixel JPEGs (about 1.3 MB each) uploaded back to back
+     * by one client that waits and retries when it gets the "queue full" answer, like the admin page
+     * would after a 503: how long an upload request takes, how long until its renditions are in,
+     * and photos per second overall.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void batchOfHundredPhotos() throws Exception {
+        List<byte[]> sources = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            sources.add(jpeg(4000, 3000, i));
+        }
+        List<VehicleEntity> vehicles = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            vehicles.add(vehicleService.createVehicle(new VehicleEntity("BENCH-" + i, "Van", 12, 12, "Available", null, "Van " + i)));
+        }
+        warmUp(sources.get(0));
+
+        List<PhotoRenditionService.Job> jobs = new ArrayList<>();
+        long[] acceptNanos = new long[vehicles.size()];
+        int retries = 0;
+        long started = System.nanoTime();
+        for (int i = 0; i < vehicles.size(); i++) {
+            // Distinct bytes for every upload, or content addressing would turn most of them into no-ops
+            MockMultipartFile upload = photo("bench-" + i + ".jpg", withComment(sources.get(i % sources.size()), "bench " + i));
+            while (true) {
+                long t = System.nanoTime();
+                try {
+                    PhotoRenditionService.Job job = photoRenditionService.accept(upload);
+                    photoRenditionService.start(job, vehicles.get(i));
+                    acceptNanos[i] = System.nanoTime() - t;
+                    jobs.add(job);
+                    break;
+                } catch (RejectedExecutionException e) {
+                    retries++;
+                    Thread.sleep(20);
+                }
+            }
+        }
+        for (PhotoRenditionService.Job job : jobs) {
+            assertTrue(job.await(Duration.ofMinutes(5)));
+            assertEquals(PhotoRenditionService.READY, job.getStatus());
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        long[] processingMillis = jobs.stream()
+                .mapToLong(j -> Duration.between(j.getStartedAt(), j.getFinishedAt()).toMillis()).sorted().toArray();
+        long[] endToEndMillis = jobs.stream()
+                .mapToLong(j -> Duration.between(j.getSubmittedAt(), j.getFinishedAt()).toMillis()).sorted().toArray();
+        Arrays.sort(acceptNanos);
+        System.out.printf("100 photos of 4000x3000 (%d-%d KB), 2 workers: %.1f photos/s, %.1f s total, %d queue-full retries%n",
+                sources.stream().mapToInt(b -> b.length).min().getAsInt() / 1024,
+                sources.stream().mapToInt(b -> b.length).max().getAsInt() / 1024, jobs.size() / seconds, seconds, retries);
+        System.out.printf("  upload request: p50 %.1f ms, p99 %.1f ms%n",
+                acceptNanos[49] / 1e6, acceptNanos[98] / 1e6);
+        System.out.printf("  decode+resize+store per photo: p50 %d ms, p99 %d ms%n",
+                processingMillis[49], processingMillis[98]);
+        System.out.printf("  accepted to renditions recorded: p50 %d ms, p99 %d ms%n",
+                endToEndMillis[49], endToEndMillis[98]);
+    }
+
+    private void warmUp(byte[] source) throws Exception {
+        VehicleEntity vehicle = vehicleService.createVehicle(new VehicleEntity("WARM-UP", "Van", 12, 12, "Available", null, "Warm-up"));
+        for (int i = 0; i < 4; i++) {
+            PhotoRenditionService.Job job = photoRenditionService.accept(photo("warm-up.jpg", withComment(source, "warm-up " + i)));
+            photoRenditionService.start(job, vehicle);
+            assertTrue(job.await(Duration.ofMinutes(1)));
+        }
+    }
+
+    // Same picture, different bytes: a JPEG comment segment right after the start-of-image marker
+    private static byte[] withComment(byte[] jpeg, String comment) {
+        byte[] text = comment.getBytes(StandardCharsets.US_ASCII);
+        byte[] out = new byte[jpeg.length + text.length + 4];
+        out[0] = jpeg[0];
+        out[1] = jpeg[1];
+        out[2] = (byte) 0xFF;
+        out[3] = (byte) 0xFE;
+        out[4] = (byte) ((text.length + 2) >> 8);
+        out[5] = (byte) (text.length + 2);
+        System.arraycopy(text, 0, out, 6, text.length);
+        System.arraycopy(jpeg, 2, out, 6 + text.length, jpeg.length - 2);
+        return out;
+    }
+
+    private static void assertFits(BufferedImage image, int maxWidth, int maxHeight) {
+        assertTrue(image.getWidth() <= maxWidth && image.getHeight() <= maxHeight,
+                image.getWidth() + "x" + image.getHeight() + " in " + maxWidth + "x" + maxHeight);
+        assertTrue(image.getWidth() == maxWidth || image.getHeight() == maxHeight);
+    }
+
+    private static BufferedImage read(String url) throws IOException {
+        assertTrue(url.startsWith(URL_PREFIX), url);
+        Path object = LocalFileStorage.objectPath(BucketConfig.ROOT, BlobId.of(BUCKET, url.substring(URL_PREFIX.length())));
+        return ImageIO.read(object.toFile());
+    }
+
+    private static MockMultipartFile photo(String name, byte[] bytes) {
+        return new MockMultipartFile("photo", name, name.endsWith(".png") ? "image/png" : "image/jpeg", bytes);
+    }
+
+    // Gradient plus noise and a few shapes, so it compresses about like a real photo
+    private static byte[] jpeg(int width, int height, long seed) throws IOException {
+        return encode(picture(width, height, seed, BufferedImage.TYPE_INT_RGB), "jpeg");
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        return encode(picture(width, height, 7, BufferedImage.TYPE_INT_ARGB), "png");
+    }
+
+    private static BufferedImage picture(int width, int height, long seed, int type) {
+        Random random = new Random(seed);
+        BufferedImage image = new BufferedImage(width, height, type);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int noise = random.nextInt(24);
+                int r = Math.min(255, x * 200 / width + noise);
+                int g = Math.min(255, y * 200 / height + noise);
+                int b = Math.min(255, (x + y) * 100 / (width + height) + 80 + noise);
+                image.setRGB(x, y, 0xff000000 | r << 16 | g << 8 | b);
+            }
+        }
+        Graphics2D graphics = image.createGraphics();
+        for (int i = 0; i < 12; i++) {
+            graphics.setColor(new Color(random.nextInt(0xffffff)));
+            graphics.fillOval(random.nextInt(width), random.nextInt(height), width / 6, height / 6);
+        }
+        graphics.dispose();
+        return image;
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Entity.RefreshTokenEntity;
+import com.example.eduwheels.Entity.UserEntity;
+import com.example.eduwheels.Repository.RefreshTokenRepository;
+import com.example.eduwheels.Repository.RevokedTokenRepository;
+import com.example.eduwheels.Repository.UserRepository;
+import com.example.eduwheels.Utils.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@Import({RefreshTokenService.class, TokenRevocationService.class, JwtUtil.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RefreshTokenServiceTest {
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // The registry is shared by every test in this context, so compare counts from the start of each
+    private double outcomes(String outcome) {
+        return meterRegistry.counter("jwt.refresh", "outcome", outcome).count();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        refreshTokenRepository.deleteAllInBatch();
+        revokedTokenRepository.deleteAllInBatch();
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void rotatesIntoANewPairAndKeepsOnlyHashes() {
+        UserEntity ana = userRepository.save(new UserEntity("21-0001", "Ana", "Cruz", "ana", "ana@cit.edu", "x", "Student"));
+        double rotatedBefore = outcomes("rotated");
+        long timedBefore = meterRegistry.get("jwt.refresh.latency").timer().count();
+
+        RefreshTokenService.Tokens first = refreshTokenService.issue(ana);
+        Claims claims = jwtUtil.verify(first.accessToken());
+        assertEquals(Duration.ofMinutes(15).toMillis(),
+                claims.getExpiration().getTime() - claims.getIssuedAt().getTime());
+        assertFalse(refreshTokenRepository.existsById(first.refreshToken()));
+
+        // The next access token has whatever the account says now
+        ana.setRole("Admin");
+        userRepository.save(ana);
+        RefreshTokenService.Tokens second = refreshTokenService.rotate(first.refreshToken());
+        assertNotNull(second);
+        assertNotEquals(first.refreshToken(), second.refreshToken());
+        assertEquals("Admin", jwtUtil.verify(second.accessToken()).get("role", String.class));
+
+        List<RefreshTokenEntity> rows = refreshTokenRepository.findAll();
+        assertEquals(2, rows.size());
+        assertEquals(rows.get(0).getFamilyId(), rows.get(1).getFamilyId());
+        assertEquals(1, rows.stream().filter(row -> row.getUsedAt() != null).count());
+        assertEquals(rotatedBefore + 1, outcomes("rotated"));
+        assertEquals(timedBefore + 1, meterRegistry.get("jwt.refresh.latency").timer().count());
+    }
+
+    @Test
+    void reusingASpentTokenEndsTheWholeFamily() {
+        UserEntity ben = userRepository.save(new UserEntity("21-0002", "Ben", "Reyes", "ben", "ben@cit.edu", "x", "Student"));
+        RefreshTokenService.Tokens login = refreshTokenService.issue(ben);
+        RefreshTokenService.Tokens rotated = refreshTokenService.rotate(login.refreshToken());
+        // A second device of Ben's is a separate family and isn't touched
+        RefreshTokenService.Tokens otherDevice = refreshTokenService.issue(ben);
+        double reusedBefore = outcomes("reused");
+        double revokedBefore = outcomes("revoked");
+
+        // Someone replays the token that was already exchanged
+        assertNull(refreshTokenService.rotate(login.refreshToken()));
+        assertEquals(reusedBefore + 1, outcomes("reused"));
+
+        // ...so the latest one of that chain is dead as well, and so are the access tokens out there
+        assertNull(refreshTokenService.rotate(rotated.refreshToken()));
+        assertEquals(revokedBefore + 1, outcomes("revoked"));
+        Claims claims = jwtUtil.verify(rotated.accessToken());
+        assertTrue(tokenRevocationService.isRevoked(claims.getId(), ben.getUserid(),
+                new Date(System.currentTimeMillis() - 1_000)));
+
+        assertNotNull(refreshTokenService.rotate(otherDevice.refreshToken()));
+    }
+
+    @Test
+    void logoutRevokesTheFamily() {
+        UserEntity cy = userRepository.save(new UserEntity("21-0003", "Cy", "Lim", "cy", "cy@cit.edu", "x", "Student"));
+        RefreshTokenService.Tokens login = refreshTokenService.issue(cy);
+        RefreshTokenService.Tokens rotated = refreshTokenService.rotate(login.refreshToken());
+
+        refreshTokenService.revoke(rotated.refreshToken());
+
+        assertNull(refreshTokenService.rotate(rotated.refreshToken()));
+        assertTrue(refreshTokenRepository.findAll().stream().allMatch(row -> row.getRevokedAt() != null));
+    }
+
+    @Test
+    void rejectsUnknownExpiredAndOrphanedTokensAndPurgesExpiredRows() {
+        UserEntity dee = userRepository.save(new UserEntity("21-0004", "Dee", "Tan", "dee", "dee@cit.edu", "x", "Student"));
+        double unknownBefore = outcomes("unknown");
+        double expiredBefore = outcomes("expired");
+        assertNull(refreshTokenService.rotate("made-up"));
+        assertNull(refreshTokenService.rotate(null));
+        assertEquals(unknownBefore + 2, outcomes("unknown"));
+
+        RefreshTokenService.Tokens live = refreshTokenService.issue(dee);
+        ReflectionTestUtils.setField(refreshTokenService, "refreshTokenLifetime", Duration.ofSeconds(-1));
+        try {
+            RefreshTokenService.Tokens stale = refreshTokenService.issue(dee);
+            assertNull(refreshTokenService.rotate(stale.refreshToken()));
+            assertEquals(expiredBefore + 1, outcomes("expired"));
+        } finally {
+            ReflectionTestUtils.setField(refreshTokenService, "refreshTokenLifetime", Duration.ofDays(14));
+        }
+
+        assertEquals(1, refreshTokenService.purgeExpired());
+        assertEquals(1, refreshTokenRepository.count());
+
+        // Account deleted since: nothing to issue a token for
+        userRepository.delete(dee);
+        assertNull(refreshTokenService.rotate(live.refreshToken()));
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Entity.BookingEntity;
+import com.example.eduwheels.Utils.RoadGraph;
+import com.example.eduwheels.Utils.RoutePlanner;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringJUnitConfig({RoutingService.class, SimpleMeterRegistry.class})
+@TestPropertySource(properties = {"routing.cache-size=2", "routing.snap-radius-m=50"})
+class RoutingServiceTest {
+
+    // Main gate -> library -> science building along one street, 30 km/h
+    private static final double[][] STOPS = {{10.2946, 123.8811}, {10.2955, 123.8811}, {10.2964, 123.8811}};
+
+    @TempDir
+    Path dir;
+
+    @Autowired
+    private RoutingService routingService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void unload() {
+        routingService.use(null);
+    }
+
+    @Test
+    void routesBookingsBetweenCoordinates() throws IOException {
+        routingService.use(street());
+        BookingEntity booking = new BookingEntity();
+        booking.setPickUp("10.294610, 123.881100");
+        booking.setDropOff("10.296390, 123.881100");
+
+        routingService.attachRoute(booking);
+
+        assertEquals(200, booking.getRouteDistanceMeters(), 1);
+        assertEquals(24, booking.getRouteDurationSeconds());
+
+        booking.setDropOff("Main Library"); // free text: nothing to route
+        routingService.attachRoute(booking);
+        assertNull(booking.getRouteDistanceMeters());
+        assertNull(booking.getRouteDurationSeconds());
+    }
+
+    @Test
+    void hotPairsComeFromTheCache() throws IOException {
+        routingService.use(street());
+        double hits = meterRegistry.counter("routing.cache.hits").count();
+        double misses = meterRegistry.counter("routing.cache.misses").count();
+
+        Optional<RoutePlanner.Route> first = routingService.route(STOPS[0][0], STOPS[0][1], STOPS[2][0], STOPS[2][1]);
+        Optional<RoutePlanner.Route> again = routingService.route(STOPS[0][0] + 0.00005, STOPS[0][1], STOPS[2][0], STOPS[2][1]);
+        routingService.route(STOPS[1][0], STOPS[1][1], STOPS[2][0], STOPS[2][1]);
+        routingService.route(STOPS[2][0], STOPS[2][1], STOPS[0][0], STOPS[0][1]); // evicts the first pair
+        routingService.route(STOPS[0][0], STOPS[0][1], STOPS[2][0], STOPS[2][1]);
+
+        assertEquals(first, again);
+        assertEquals(hits + 1, meterRegistry.counter("routing.cache.hits").count());
+        assertEquals(misses + 4, meterRegistry.counter("routing.cache.misses").count());
+    }
+
+    @Test
+    void offWithoutAGraphOrAwayFromRoads() throws IOException {
+        assertFalse(routingService.isEnabled());
+        assertTrue(routingService.route(STOPS[0][0], STOPS[0][1], STOPS[2][0], STOPS[2][1]).isEmpty());
+
+        routingService.use(street());
+        assertTrue(routingService.route(STOPS[0][0], STOPS[0][1], 10.31, 123.90).isEmpty());
+    }
+
+    private RoadGraph street() throws IOException {
+        RoadGraph.Builder builder = new RoadGraph.Builder();
+        for (double[] stop : STOPS) {
+            builder.addNode(stop[0], stop[1]);
+        }
+        builder.addRoad(0, 1, 30).addRoad(1, 2, 30);
+        Path file = dir.resolve("street.ewrg");
+        builder.write(file);
+        return RoadGraph.open(file);
+    }
+}
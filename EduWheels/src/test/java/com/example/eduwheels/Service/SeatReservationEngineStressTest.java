@@ -0,0 +1,129 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Entity.VehicleEntity;
+import com.example.eduwheels.Repository.VehicleRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "spring.datasource.hikari.maximum-pool-size=64"
+})
+@Import({SeatReservationEngine.class, SeatAvailabilityIndex.class, VehicleCatalogCache.class, TableVersions.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SeatReservationEngineStressTest {
+
+    private static final int SEATS = 500;
+    private static final int ATTEMPTS_PER_CALLER = 40;
+
+    @Autowired
+    private SeatReservationEngine engine;
+
+    @Autowired
+    private SeatAvailabilityIndex seatAvailabilityIndex;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Test
+    void neverOversellsUnderContention() throws Exception {
+        for (int callers : new int[]{1, 8, 64}) {
+            VehicleEntity vehicle = vehicleRepository.save(
+                    new VehicleEntity("STRESS-" + callers, "Bus", SEATS, SEATS, "Available", null, "Stress Bus"));
+
+            // Ask for more seats than exist so the tail of the run has to be rejected.
+            int totalAttempts = Math.max(callers * ATTEMPTS_PER_CALLER, SEATS + 100);
+            int perCaller = (totalAttempts + callers - 1) / callers;
+
+            AtomicInteger granted = new AtomicInteger();
+            ExecutorService pool = Executors.newFixedThreadPool(callers);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < callers; c++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perCaller; i++) {
+                        if (engine.tryReserve(vehicle, 1)) {
+                            granted.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            long began = System.nanoTime();
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get();
+            }
+            long elapsed = System.nanoTime() - began;
+            pool.shutdown();
+
+            int left = vehicleRepository.findById(vehicle.getVehicleId()).orElseThrow().getAvailableSeats();
+            assertEquals(SEATS, granted.get(), "every seat is sold exactly once");
+            assertEquals(0, left, "no seat is oversold or lost");
+
+            double perSecond = (callers * perCaller) / (elapsed / 1_000_000_000.0);
+            System.out.printf("SeatReservationEngine: %d callers -> %.0f reservation attempts/s%n", callers, perSecond);
+        }
+    }
+
+    @Test
+    void releaseReturnsSeats() {
+        VehicleEntity vehicle = vehicleRepository.save(
+                new VehicleEntity("RELEASE-1", "Van", 10, 10, "Available", null, "Release Van"));
+
+        assertEquals(true, engine.tryReserve(vehicle, 7));
+        assertEquals(false, engine.tryReserve(vehicle, 4));
+        engine.release(vehicle, 7);
+
+        assertEquals(10, vehicleRepository.findById(vehicle.getVehicleId()).orElseThrow().getAvailableSeats());
+    }
+
+    @Test
+    void windowedHoldsNeverExceedCapacity() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2025, 3, 4, 8, 0);
+        int capacity = 30;
+        int callers = 64;
+
+        AtomicInteger granted = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int c = 0; c < callers; c++) {
+            int offset = c % 4;
+            futures.add(pool.submit(() -> {
+                // Staggered, overlapping windows that all cover 09:00-09:30
+                LocalDateTime from = start.plusMinutes(offset * 15L);
+                SeatAvailabilityIndex.Hold hold = new SeatAvailabilityIndex.Hold(42L, from, from.plusHours(2), 1);
+                if (seatAvailabilityIndex.tryHold(hold, capacity)) {
+                    granted.incrementAndGet();
+                }
+            }));
+        }
+        for (Future<?> f : futures) {
+            f.get();
+        }
+        pool.shutdown();
+
+        assertEquals(capacity, granted.get());
+        assertEquals(capacity, seatAvailabilityIndex.bookedSeats(42L, start, start.plusHours(3)));
+        assertEquals(0, seatAvailabilityIndex.bookedSeats(42L, start.plusDays(3), start.plusDays(3).plusHours(2)));
+    }
+}
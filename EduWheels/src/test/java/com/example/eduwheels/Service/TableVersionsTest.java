@@ -0,0 +1,98 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Controller.BookingController;
+import com.example.eduwheels.Controller.VehicleController;
+import com.example.eduwheels.Entity.VehicleEntity;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class TableVersionsTest {
+
+    private final TableVersions tableVersions = new TableVersions();
+
+    @Test
+    void versionsMoveOnlyOnceTheTransactionCommits() {
+        String before = tableVersions.etag(null, TableVersions.Table.BOOKINGS, TableVersions.Table.USERS);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            tableVersions.changed(TableVersions.Table.BOOKINGS);
+            assertEquals(before, tableVersions.etag(null, TableVersions.Table.BOOKINGS, TableVersions.Table.USERS));
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertNotEquals(before, tableVersions.etag(null, TableVersions.Table.BOOKINGS, TableVersions.Table.USERS));
+        assertEquals(0, tableVersions.version(TableVersions.Table.USERS));
+        assertNotEquals(tableVersions.etag("my1", TableVersions.Table.BOOKINGS),
+                tableVersions.etag("my2", TableVersions.Table.BOOKINGS));
+    }
+
+    @Test
+    void myBookingsTagsNeverMatchAnotherCaller() throws Exception {
+        BookingService bookingService = mock(BookingService.class);
+        when(bookingService.getBookingsForCurrentUser()).thenReturn(List.of());
+        BookingController controller = new BookingController();
+        ReflectionTestUtils.setField(controller, "bookingService", bookingService);
+        ReflectionTestUtils.setField(controller, "tableVersions", tableVersions);
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(controller).build();
+        // Same String.hashCode(), different people
+        assertEquals("Aa@cit.edu".hashCode(), "BB@cit.edu".hashCode());
+
+        String etag = mvc.perform(get("/api/bookings/my").principal(() -> "Aa@cit.edu"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mvc.perform(get("/api/bookings/my").principal(() -> "Aa@cit.edu").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        mvc.perform(get("/api/bookings/my").principal(() -> "BB@cit.edu").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        verify(bookingService, times(2)).getBookingsForCurrentUser();
+    }
+
+    @Test
+    void matchingIfNoneMatchSkipsLoadingTheCatalog() throws Exception {
+        VehicleService vehicleService = mock(VehicleService.class);
+        when(vehicleService.getAllVehicles()).thenReturn(List.of(
+                new VehicleEntity("ETAG-1", "Van", 12, 12, "Available", null, "Van")));
+        VehicleController controller = new VehicleController();
+        ReflectionTestUtils.setField(controller, "vehicleService", vehicleService);
+        ReflectionTestUtils.setField(controller, "tableVersions", tableVersions);
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(controller).build();
+
+        String etag = mvc.perform(get("/api/vehicles"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache, private"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mvc.perform(get("/api/vehicles").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+        verify(vehicleService, times(1)).getAllVehicles();
+
+        tableVersions.changed(TableVersions.Table.VEHICLES);
+        mvc.perform(get("/api/vehicles").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+        verify(vehicleService, times(2)).getAllVehicles();
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Entity.RevokedTokenEntity;
+import com.example.eduwheels.Repository.RevokedTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@Import({TokenRevocationService.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TokenRevocationServiceTest {
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @AfterEach
+    void cleanUp() {
+        revokedTokenRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void revokesSingleTokensAndEverythingAUserWasIssuedSoFar() {
+        Date hourFromNow = new Date(System.currentTimeMillis() + 3_600_000);
+        Date minuteAgo = new Date(System.currentTimeMillis() - 60_000);
+        tokenRevocationService.revokeToken("logged-out", hourFromNow);
+        tokenRevocationService.revokeUser(42L);
+
+        assertTrue(tokenRevocationService.isRevoked("logged-out", 7L, minuteAgo));
+        assertFalse(tokenRevocationService.isRevoked("still-fine", 7L, minuteAgo));
+        assertTrue(tokenRevocationService.isRevoked("still-fine", 42L, minuteAgo));
+        // Logging in again afterwards gives a token that works
+        assertFalse(tokenRevocationService.isRevoked("new-login", 42L, new Date(System.currentTimeMillis() + 1_000)));
+        assertEquals(2, revokedTokenRepository.count());
+    }
+
+    @Test
+    void picksUpRevocationsFromOtherInstancesOnRefresh() {
+        tokenRevocationService.refresh();
+        LocalDateTime now = LocalDateTime.now();
+        revokedTokenRepository.save(new RevokedTokenEntity("jti:elsewhere", now, now.plusHours(1)));
+        revokedTokenRepository.save(new RevokedTokenEntity("user:99", now, now.plusHours(1)));
+        // Committed late, just inside the overlap
+        revokedTokenRepository.save(new RevokedTokenEntity("jti:late", now.minusSeconds(20), now.plusHours(1)));
+
+        assertFalse(tokenRevocationService.isRevoked("elsewhere", null, null));
+        assertEquals(3, tokenRevocationService.refresh());
+
+        Date before = new Date(System.currentTimeMillis() - 60_000);
+        assertTrue(tokenRevocationService.isRevoked("elsewhere", null, null));
+        assertTrue(tokenRevocationService.isRevoked("late", null, null));
+        assertTrue(tokenRevocationService.isRevoked(null, 99L, before));
+    }
+
+    @Test
+    void purgeForgetsRevocationsOnceTheirTokensHaveExpired() {
+        tokenRevocationService.revokeToken("long-gone", new Date(System.currentTimeMillis() - 1_000));
+        tokenRevocationService.revokeToken("current", new Date(System.currentTimeMillis() + 3_600_000));
+
+        assertEquals(1, tokenRevocationService.purgeExpired());
+
+        assertEquals(1, revokedTokenRepository.count());
+        assertFalse(tokenRevocationService.isRevoked("long-gone", null, null));
+        assertTrue(tokenRevocationService.isRevoked("current", null, null));
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Controller.UserController;
+import com.example.eduwheels.Entity.UserEntity;
+import com.example.eduwheels.Repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@Import(TableVersions.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserProfileUpdateTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TableVersions tableVersions;
+
+    private UserController controller;
+    private UserEntity student;
+    private Authentication signedIn;
+
+    @BeforeEach
+    void setUp() {
+        controller = new UserController();
+        ReflectionTestUtils.setField(controller, "userRepository", userRepository);
+        ReflectionTestUtils.setField(controller, "tableVersions", tableVersions);
+        student = userRepository.save(new UserEntity("210000011", "Dee", "Santos", "dee", "dee@cit.edu", "x", "Student"));
+        signedIn = new UsernamePasswordAuthenticationToken(
+                User.withUsername("dee@cit.edu").password("x").roles("Student").build(), null, List.of());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void callersCannotMakeThemselvesAdmin() {
+        ResponseEntity<?> response = controller.updateUser(Map.of("firstName", "Mallory", "role", "Admin"), signedIn);
+
+        assertEquals(HttpStatus.FORBIDDEN, response.getStatusCode());
+        assertFalse(((Map<?, ?>) response.getBody()).containsKey("token"));
+        UserEntity stored = userRepository.findById(student.getUserid()).orElseThrow();
+        // BookingService.requireAdmin reads this column
+        assertEquals("Student", stored.getRole());
+        assertEquals("Dee", stored.getFirstName());
+    }
+
+    @Test
+    void sendingTheCurrentRoleBackStillUpdatesTheProfile() {
+        ResponseEntity<?> response = controller.updateUser(Map.of("firstName", "Dina", "role", "Student"), signedIn);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertFalse(((Map<?, ?>) response.getBody()).containsKey("token"));
+        UserEntity stored = userRepository.findById(student.getUserid()).orElseThrow();
+        assertEquals("Dina", stored.getFirstName());
+        assertEquals("Student", stored.getRole());
+    }
+}
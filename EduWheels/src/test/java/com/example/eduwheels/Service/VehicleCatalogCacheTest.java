@@ -0,0 +1,149 @@
+package com.example.eduwheels.Service;
+
+import com.example.eduwheels.Entity.VehicleEntity;
+import com.example.eduwheels.Repository.VehicleRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "vehicles.cache.max-entries=2"
+})
+@Import({VehicleCatalogCache.class, TableVersions.class, SeatReservationEngine.class, SeatAvailabilityIndex.class,
+        SimpleMeterRegistry.class, JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class VehicleCatalogCacheTest {
+
+    @Autowired
+    private VehicleCatalogCache cache;
+
+    @Autowired
+    private SeatReservationEngine seatReservationEngine;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void cleanUp() {
+        vehicleRepository.deleteAllInBatch();
+        cache.invalidateAll();
+    }
+
+    @Test
+    void repeatReadsComeFromMemoryAsPrivateCopies() {
+        vehicleRepository.save(new VehicleEntity("CACHE-1", "Van", 12, 12, "Available", null, "Van 1"));
+        vehicleRepository.save(new VehicleEntity("CACHE-2", "Bus", 30, 30, "Available", null, "Bus 2"));
+        double hits = count("vehicles.cache.hits");
+        double misses = count("vehicles.cache.misses");
+
+        List<VehicleEntity> first = cache.getAll();
+        first.get(0).setStatus("Scribbled on"); // the photo endpoints edit what they get back
+        vehicleRepository.save(new VehicleEntity("CACHE-3", "Car", 4, 4, "Available", null, "Car 3")); // behind its back
+        List<VehicleEntity> second = cache.getAll();
+
+        assertEquals(2, second.size());
+        assertEquals("Available", second.get(0).getStatus());
+        assertEquals(hits + 1, count("vehicles.cache.hits"));
+        assertEquals(misses + 1, count("vehicles.cache.misses"));
+
+        cache.invalidateAll();
+        assertEquals(3, cache.getAll().size());
+    }
+
+    @Test
+    void seatChangesShowUpOnlyOnceCommitted() {
+        VehicleEntity van = vehicleRepository.save(new VehicleEntity("CACHE-VAN", "Van", 12, 12, "Available", null, "Van"));
+        assertEquals(12, cache.get(van.getVehicleId()).getAvailableSeats());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            seatReservationEngine.reserve(van, 5);
+            status.setRollbackOnly();
+        });
+        assertEquals(12, cache.get(van.getVehicleId()).getAvailableSeats());
+
+        transactionTemplate.executeWithoutResult(status -> seatReservationEngine.reserve(van, 5));
+        assertEquals(7, cache.get(van.getVehicleId()).getAvailableSeats());
+        assertEquals(7, cache.getAll().get(0).getAvailableSeats());
+
+        seatReservationEngine.release(van, 5);
+        assertEquals(12, cache.get(van.getVehicleId()).getAvailableSeats());
+    }
+
+    @Test
+    void keepsAtMostMaxEntriesById() {
+        VehicleEntity a = vehicleRepository.save(new VehicleEntity("CACHE-A", "Car", 4, 4, "Available", null, "A"));
+        VehicleEntity b = vehicleRepository.save(new VehicleEntity("CACHE-B", "Car", 4, 4, "Available", null, "B"));
+        VehicleEntity c = vehicleRepository.save(new VehicleEntity("CACHE-C", "Car", 4, 4, "Available", null, "C"));
+        double evictions = count("vehicles.cache.evictions");
+
+        cache.get(a.getVehicleId());
+        cache.get(b.getVehicleId());
+        cache.get(a.getVehicleId()); // A is now the most recently used
+        cache.get(c.getVehicleId()); // pushes out B
+
+        assertEquals(evictions + 1, count("vehicles.cache.evictions"));
+        assertNull(cache.get(-1L));
+    }
+
+    /**
+     * Run with -Dbenchmarks=true. What GET /api/vehicles does per request (load the fleet,
+     * serialize it) against H2, straight from the repository vs through the cache.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void catalogThroughput() throws Exception {
+        for (int i = 0; i < 60; i++) {
+            vehicleRepository.save(new VehicleEntity("BENCH-" + i, "Van", 12, 12, "Available",
+                    "https://storage.googleapis.com/eduwheels/vehicles/" + i + ".jpg", "Van " + i));
+        }
+        double direct = perSecond(() -> objectMapper.writeValueAsBytes(vehicleRepository.findAll()).length);
+        double cached = perSecond(() -> objectMapper.writeValueAsBytes(cache.getAll()).length);
+        System.out.printf("GET /api/vehicles, 60 vehicles: %.0f req/s from the repository, %.0f req/s cached (%.1fx)%n",
+                direct, cached, cached / direct);
+    }
+
+    private static double perSecond(Callable<Integer> request) throws Exception {
+        long sink = 0;
+        for (int i = 0; i < 2_000; i++) { // warm-up
+            sink += request.call();
+        }
+        int requests = 20_000;
+        long started = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            sink += request.call();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        return sink > 0 ? requests / seconds : 0;
+    }
+
+    private double count(String name) {
+        return meterRegistry.counter(name).count();
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.eduwheels.Service;
+
+import com.google.cloud.storage.BlobId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class VehiclePhotoUploadTest {
+
+    private static final String BUCKET = "eduwheels-test";
+    private static final long MB = 1024 * 1024;
+
+    @TempDir
+    Path root;
+
+    private VehicleService vehicleService;
+
+    @BeforeEach
+    void setUp() {
+        vehicleService = new VehicleService();
+        ReflectionTestUtils.setField(vehicleService, "blobStore",
+                new GcsBlobStore(LocalFileStorage.create(root), BUCKET, (int) MB));
+        ReflectionTestUtils.setField(vehicleService, "maxPhotoBytes", 256 * MB);
+        ReflectionTestUtils.setField(vehicleService, "bufferBytes", 64 * 1024);
+        ReflectionTestUtils.setField(vehicleService, "photosPublicUrl", "");
+        ReflectionTestUtils.setField(vehicleService, "photoBlobService", mock(PhotoBlobService.class));
+    }
+
+    @Test
+    void streamsThePhotoIntoTheBucket() throws Exception {
+        String url = vehicleService.uploadImageToGCS(new GeneratedPhoto(3 * MB + 123, 3 * MB + 123));
+
+        String prefix = "https://storage.googleapis.com/" + BUCKET + "/";
+        assertTrue(url.startsWith(prefix));
+        Path stored = LocalFileStorage.objectPath(root, BlobId.of(BUCKET, url.substring(prefix.length())));
+        byte[] bytes = Files.readAllBytes(stored);
+        assertEquals(3 * MB + 123, bytes.length);
+        for (int i = 0; i < bytes.length; i += 4099) {
+            assertEquals(GeneratedPhoto.byteAt(i), bytes[i]);
+        }
+    }
+
+    @Test
+    void aPhotoThatIsAlreadyStoredIsNotTransferredAgain() throws Exception {
+        BlobStore blobStore = spy(new GcsBlobStore(LocalFileStorage.create(root), BUCKET, (int) MB));
+        PhotoBlobService photoBlobService = mock(PhotoBlobService.class);
+        when(photoBlobService.reuse(anyString())).thenReturn(false, true);
+        ReflectionTestUtils.setField(vehicleService, "blobStore", blobStore);
+        ReflectionTestUtils.setField(vehicleService, "photoBlobService", photoBlobService);
+
+        String first = vehicleService.uploadImageToGCS(new GeneratedPhoto(2 * MB, 2 * MB));
+        String second = vehicleService.uploadImageToGCS(new GeneratedPhoto(2 * MB, 2 * MB));
+
+        assertEquals(first, second);
+        verify(blobStore, times(1)).create(anyString(), any());
+        verify(blobStore, never()).copy(anyString(), anyString());
+        try (Stream<Path> files = Files.walk(root)) {
+            assertEquals(1, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    void heapUsedPerUploadDoesNotGrowWithTheFile() throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        vehicleService.uploadImageToGCS(new GeneratedPhoto(MB, MB)); // warm-up
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        vehicleService.uploadImageToGCS(new GeneratedPhoto(4 * MB, 4 * MB));
+        long small = threads.getCurrentThreadAllocatedBytes() - before;
+
+        before = threads.getCurrentThreadAllocatedBytes();
+        vehicleService.uploadImageToGCS(new GeneratedPhoto(128 * MB, 128 * MB));
+        long large = threads.getCurrentThreadAllocatedBytes() - before;
+
+        // 32x the bytes; with getBytes() the large upload alone would allocate 128 MB
+        assertTrue(large < small + MB, "4 MB upload allocated " + small + " bytes, 128 MB upload " + large);
+    }
+
+    @Test
+    void oversizedPhotosAreRejectedAndNothingIsStored() throws Exception {
+        ReflectionTestUtils.setField(vehicleService, "maxPhotoBytes", 2 * MB);
+
+        assertThrows(MaxUploadSizeExceededException.class,
+                () -> vehicleService.uploadImageToGCS(new GeneratedPhoto(3 * MB, 3 * MB)));
+        // Declared small, turns out big: caught while streaming
+        assertThrows(MaxUploadSizeExceededException.class,
+                () -> vehicleService.uploadImageToGCS(new GeneratedPhoto(MB, 3 * MB)));
+
+        try (Stream<Path> files = Files.walk(root)) {
+            assertTrue(files.filter(Files::isRegularFile).allMatch(p -> p.toString().endsWith(".part")));
+        }
+    }
+
+    // Deterministic bytes produced on the fly, so the test itself holds no file in memory
+    private static final class GeneratedPhoto implements MultipartFile {
+        private final long declaredSize;
+        private final long actualSize;
+
+        private GeneratedPhoto(long declaredSize, long actualSize) {
+            this.declaredSize = declaredSize;
+            this.actualSize = actualSize;
+        }
+
+        static byte byteAt(long i) {
+            return (byte) (i * 31 + (i >>> 8));
+        }
+
+        @Override public String getName() { return "photo"; }
+        @Override public String getOriginalFilename() { return "van.jpg"; }
+        @Override public String getContentType() { return "image/jpeg"; }
+        @Override public boolean isEmpty() { return actualSize == 0; }
+        @Override public long getSize() { return declaredSize; }
+
+        @Override
+        public byte[] getBytes() {
+            throw new AssertionError("upload must not buffer the whole file");
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new InputStream() {
+                private long position;
+
+                @Override
+                public int read() {
+                    return position < actualSize ? byteAt(position++) & 0xff : -1;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    if (position >= actualSize) {
+                        return -1;
+                    }
+                    int n = (int) Math.min(len, actualSize - position);
+                    for (int i = 0; i < n; i++) {
+                        b[off + i] = byteAt(position++);
+                    }
+                    return n;
+                }
+            };
+        }
+
+        @Override
+        public void transferTo(File dest) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
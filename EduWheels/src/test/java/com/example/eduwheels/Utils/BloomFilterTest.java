@@ -0,0 +1,59 @@
+package com.example.eduwheels.Utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    void neverMissesAnAddedKeyAndRarelyClaimsOthers() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        List<String> added = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            String key = "jti:" + UUID.randomUUID();
+            filter.add(key);
+            added.add(key);
+        }
+        for (String key : added) {
+            assertTrue(filter.mightContain(key), key);
+        }
+
+        int falsePositives = 0;
+        int lookups = 100_000;
+        for (int i = 0; i < lookups; i++) {
+            if (filter.mightContain("jti:" + UUID.randomUUID())) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < lookups * 0.02, falsePositives + " false positives");
+        assertTrue(filter.sizeBits() < 10_000 * 10 + 64);
+    }
+
+    @Test
+    void concurrentAddsAreAllKept() throws Exception {
+        BloomFilter filter = new BloomFilter(40_000, 0.01);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int thread = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    filter.add("user:" + thread + "-" + i);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int t = 0; t < 4; t++) {
+            for (int i = 0; i < 10_000; i++) {
+                assertTrue(filter.mightContain("user:" + t + "-" + i));
+            }
+        }
+    }
+}
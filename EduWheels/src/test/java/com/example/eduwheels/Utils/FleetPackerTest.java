@@ -0,0 +1,102 @@
+package com.example.eduwheels.Utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FleetPackerTest {
+
+    private static final long EIGHT_AM = 8 * 60;
+
+    @Test
+    void fillsARunningVehicleBeforeStartingAnEmptyOne() {
+        FleetPacker packer = new FleetPacker(List.of(new FleetPacker.Vehicle(1, 15), new FleetPacker.Vehicle(2, 15)));
+        packer.hold(1, EIGHT_AM, EIGHT_AM + 60, 10);
+
+        assertEquals(1, packer.bestFit(EIGHT_AM, EIGHT_AM + 60, 5, FleetPacker.NONE));
+        assertEquals(2, packer.bestFit(EIGHT_AM, EIGHT_AM + 60, 6, FleetPacker.NONE));
+        // Vehicle 1 is free again after nine, and then both fit the same
+        assertEquals(1, packer.bestFit(EIGHT_AM + 60, EIGHT_AM + 120, 15, FleetPacker.NONE));
+        assertEquals(2, packer.bestFit(EIGHT_AM + 60, EIGHT_AM + 120, 15, 2));
+    }
+
+    @Test
+    void packsSpreadOutTripsOntoFewerVehicles() {
+        List<FleetPacker.Vehicle> fleet = new ArrayList<>();
+        for (int id = 1; id <= 6; id++) {
+            fleet.add(new FleetPacker.Vehicle(id, 12));
+        }
+        // Six groups of three, each on its own vehicle today
+        List<FleetPacker.Trip> trips = new ArrayList<>();
+        for (int id = 1; id <= 6; id++) {
+            trips.add(new FleetPacker.Trip(id, id, EIGHT_AM, EIGHT_AM + 60, 3));
+        }
+        trips.add(new FleetPacker.Trip(7, FleetPacker.NONE, EIGHT_AM, EIGHT_AM + 60, 13)); // too big for anything
+
+        Map<Long, Long> placed = new FleetPacker(fleet).pack(trips);
+
+        assertEquals(6, placed.size());
+        assertFalse(placed.containsKey(7L));
+        // 18 seats: one full van plus one half-full one, both already running today
+        assertEquals(2, new HashSet<>(placed.values()).size());
+        assertTrue(placed.values().stream().allMatch(id -> id == 1 || id == 5));
+    }
+
+    @Test
+    void prefersTheCurrentVehicleOnATie() {
+        FleetPacker packer = new FleetPacker(List.of(new FleetPacker.Vehicle(1, 4), new FleetPacker.Vehicle(2, 4)));
+
+        Map<Long, Long> placed = packer.pack(List.of(new FleetPacker.Trip(10, 2, EIGHT_AM, EIGHT_AM + 30, 2)));
+
+        assertEquals(2L, placed.get(10L));
+    }
+
+    /**
+     * Run with -Dbenchmarks=true. Placement latency over a 400-vehicle fleet that already
+     * carries a busy day, and a full re-pack of 5,000 trips.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void placementOverSeveralHundredVehicles() {
+        Random random = new Random(12);
+        List<FleetPacker.Vehicle> fleet = new ArrayList<>();
+        for (int id = 0; id < 400; id++) {
+            fleet.add(new FleetPacker.Vehicle(id, new int[]{4, 12, 15, 30}[id % 4]));
+        }
+        List<FleetPacker.Trip> trips = new ArrayList<>();
+        for (int id = 0; id < 5_000; id++) {
+            long start = 6 * 60 + random.nextInt(13 * 60);
+            trips.add(new FleetPacker.Trip(id, FleetPacker.NONE, start, start + 30 + random.nextInt(150), 1 + random.nextInt(6)));
+        }
+
+        long pack = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long started = System.nanoTime();
+            new FleetPacker(fleet).pack(trips);
+            pack = Math.min(pack, System.nanoTime() - started);
+        }
+
+        FleetPacker loaded = new FleetPacker(fleet);
+        loaded.pack(trips);
+        int lookups = 20_000;
+        long started = System.nanoTime();
+        long sink = 0;
+        for (int i = 0; i < lookups; i++) {
+            long start = 6 * 60 + random.nextInt(13 * 60);
+            sink += loaded.bestFit(start, start + 60, 1 + random.nextInt(4), FleetPacker.NONE);
+        }
+        long perLookup = (System.nanoTime() - started) / lookups;
+
+        System.out.printf("400 vehicles: re-pack of 5000 trips %d ms, one placement %.1f us (%d)%n",
+                pack / 1_000_000, perLookup / 1000.0, sink % 2);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.eduwheels.Utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GeoGridTest {
+
+    @Test
+    void coveringCellsContainEveryPointWithinTheRadius() {
+        Random random = new Random(5);
+        // Campus, the antimeridian and near the pole
+        double[][] centers = {{10.2946, 123.8811}, {-16.5, 179.999}, {89.99, 12.0}};
+        for (double[] center : centers) {
+            for (double radius : new double[]{50, 500, 5000}) {
+                Set<Long> cells = new HashSet<>();
+                GeoGrid.forEachCellWithin(center[0], center[1], radius, cells::add);
+                for (int i = 0; i < 2000; i++) {
+                    double lat = Math.max(-90, Math.min(90, center[0] + (random.nextDouble() - 0.5) * 3 * radius / 111_320));
+                    double lng = center[1] + (random.nextDouble() - 0.5) * 0.2;
+                    lng = lng > 180 ? lng - 360 : lng;
+                    if (GeoPoint.distanceMeters(center[0], center[1], lat, lng) <= radius) {
+                        assertTrue(cells.contains(GeoGrid.cell(lat, lng)), lat + ", " + lng + " within " + radius + " m");
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void parsesWhatTheBookingPageSends() {
+        GeoPoint point = GeoPoint.parse("10.294600, 123.881100");
+        assertEquals(10.2946, point.getLat(), 1e-9);
+        assertEquals(123.8811, point.getLng(), 1e-9);
+        assertNull(GeoPoint.parse("Main gate"));
+        assertNull(GeoPoint.parse("95.0, 10.0"));
+        assertNull(GeoPoint.parse("1, 2, 3"));
+        assertEquals(111_195, GeoPoint.distanceMeters(0, 0, 1, 0), 1);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.eduwheels.Utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchicalTimingWheelTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    void itemsFireAtTheirTickAcrossEveryLevelAndTheOverflow() {
+        // 4 slots x 3 levels = 64 ticks before the overflow list
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(1000, 2, 3, START);
+        Random random = new Random(7);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            long deadline = START + random.nextInt(500_000);
+            deadlines.add(deadline);
+            wheel.schedule(deadline, deadline);
+        }
+
+        int fired = 0;
+        for (long now = START; now <= START + 503_000; now += 1000 + random.nextInt(3) * 1000L) {
+            long clock = now;
+            List<Long> batch = new ArrayList<>();
+            wheel.advance(clock, batch::add);
+            for (Long deadline : batch) {
+                assertTrue(deadline <= clock, "never early");
+                assertTrue(deadline > clock - 4000, "at the first advance that reaches it");
+            }
+            fired += batch.size();
+        }
+
+        assertEquals(deadlines.size(), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void pastDeadlinesFireOnTheNextAdvance() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, 6, 4, START);
+        wheel.schedule("late", START - 86_400_000);
+
+        List<String> fired = new ArrayList<>();
+        wheel.advance(START, fired::add);
+
+        assertEquals(List.of("late"), fired);
+    }
+
+    @Test
+    void itemsComeOutInDeadlineOrder() {
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(1000, 6, 4, START);
+        for (int i = 99; i >= 0; i--) {
+            wheel.schedule(i, START + i * 60_000L);
+        }
+
+        List<Integer> fired = new ArrayList<>();
+        wheel.advance(START + 100 * 60_000L, fired::add);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, fired.get(i));
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.eduwheels.Utils;
+
+import com.example.eduwheels.Controller.BookingController;
+import com.example.eduwheels.Entity.UserEntity;
+import com.example.eduwheels.Repository.RevokedTokenRepository;
+import com.example.eduwheels.Repository.UserRepository;
+import com.example.eduwheels.Service.BookingEventHub;
+import com.example.eduwheels.Service.BookingLocationIndex;
+import com.example.eduwheels.Service.BookingService;
+import com.example.eduwheels.Service.CustomUserDetailsService;
+import com.example.eduwheels.Service.FleetAssignmentService;
+import com.example.eduwheels.Service.PendingBookingExpiryService;
+import com.example.eduwheels.Service.RidePoolingService;
+import com.example.eduwheels.Service.RoutingService;
+import com.example.eduwheels.Service.SeatAvailabilityIndex;
+import com.example.eduwheels.Service.SeatReservationEngine;
+import com.example.eduwheels.Service.TableVersions;
+import com.example.eduwheels.Service.TokenRevocationService;
+import com.example.eduwheels.Service.VehicleCatalogCache;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@DataJpaTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@Import({JwtAuthenticationFilter.class, JwtUtil.class, CustomUserDetailsService.class, TokenRevocationService.class,
+        BookingService.class, SeatReservationEngine.class, SeatAvailabilityIndex.class, PendingBookingExpiryService.class,
+        BookingEventHub.class, BookingLocationIndex.class, RidePoolingService.class, FleetAssignmentService.class,
+        RoutingService.class, VehicleCatalogCache.class, TableVersions.class, SimpleMeterRegistry.class,
+        JacksonAutoConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JwtAuthenticationFilterTest {
+
+    private static final FilterChain NOTHING = (request, response) -> { };
+
+    @Autowired
+    private JwtAuthenticationFilter filter;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CustomUserDetailsService userDetailsService;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private TableVersions tableVersions;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @AfterEach
+    void cleanUp() {
+        userRepository.deleteAllInBatch();
+        revokedTokenRepository.deleteAllInBatch();
+        SecurityContextHolder.clearContext();
+        ReflectionTestUtils.setField(filter, "maxAge", Duration.ofMinutes(5));
+    }
+
+    @Test
+    void buildsThePrincipalFromClaimsWithoutLoadingTheUser() throws Exception {
+        UserEntity ana = userRepository.save(new UserEntity("21-0001", "Ana", "Cruz", "ana", "ana@cit.edu", "x", "Admin"));
+        String token = jwtUtil.generateToken(ana);
+        userRepository.deleteAllInBatch(); // a lookup would fail now
+        double misses = count("jwt.cache.misses");
+        double hits = count("jwt.cache.hits");
+
+        Authentication first = authenticate(token);
+        assertEquals("ana@cit.edu", first.getName());
+        JwtPrincipal principal = assertInstanceOf(JwtPrincipal.class, first.getPrincipal());
+        assertEquals(ana.getUserid(), principal.getUserid());
+        assertEquals("Admin", principal.getRole());
+        assertTrue(first.getAuthorities().stream().anyMatch(a -> a.getAuthority().equals("ROLE_Admin")));
+        assertEquals("ana@cit.edu", authenticate(token).getName());
+
+        assertEquals(misses + 1, count("jwt.cache.misses"));
+        assertEquals(hits + 1, count("jwt.cache.hits"));
+    }
+
+    @Test
+    void tokensWithoutClaimsStillWorkThroughTheUserLookup() throws Exception {
+        userRepository.save(new UserEntity("21-0002", "Ben", "Reyes", "ben", "ben@cit.edu", "x", "Student"));
+        ReflectionTestUtils.setField(filter, "maxAge", Duration.ofMillis(50));
+        String legacy = legacyToken("ben@cit.edu");
+
+        assertEquals("ben@cit.edu", authenticate(legacy).getName());
+        userRepository.deleteAllInBatch();
+        Thread.sleep(100);
+        assertNull(authenticate(legacy)); // checked again after max-age, and the account is gone
+    }
+
+    @Test
+    void revokedTokensStopWorkingEvenWhenCached() throws Exception {
+        UserEntity cy = userRepository.save(new UserEntity("21-0003", "Cy", "Lim", "cy", "cy@cit.edu", "x", "Student"));
+        String loggedOut = jwtUtil.generateToken(cy);
+        String other = jwtUtil.generateToken(cy);
+        assertNotNull(authenticate(loggedOut));
+
+        tokenRevocationService.revokeToken(jwtUtil.verify(loggedOut).getId(), jwtUtil.verify(loggedOut).getExpiration());
+        assertNull(authenticate(loggedOut));
+        assertNotNull(authenticate(other));
+
+        tokenRevocationService.revokeUser(cy.getUserid()); // e.g. the account was deleted
+        assertNull(authenticate(other));
+    }
+
+    @Test
+    void badTokensLeaveTheRequestUnauthenticated() throws Exception {
+        UserEntity dee = userRepository.save(new UserEntity("21-0004", "Dee", "Tan", "dee", "dee@cit.edu", "x", "Student"));
+        String token = jwtUtil.generateToken(dee);
+        String tampered = token.substring(0, token.length() - 4) + (token.endsWith("AAAA") ? "BBBB" : "AAAA");
+        String otherKey = Jwts.builder()
+                .setSubject("dee@cit.edu")
+                .signWith(Keys.hmacShaKeyFor(new byte[64]))
+                .compact();
+
+        assertNull(authenticate("not-a-jwt"));
+        assertNull(authenticate(tampered));
+        assertNull(authenticate(otherKey));
+        assertNull(authenticate(legacyToken("nobody@cit.edu")));
+    }
+
+    /**
+     * Run with -Dbenchmarks=true. The filter's cost per authenticated request against H2: the
+     * old path (key and parser rebuilt, token parsed twice, user loaded every time) vs one
+     * parse into a principal from claims, vs cached. The old path is reproduced here since the
+     * code is gone.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void perRequestCost() throws Exception {
+        UserEntity fay = userRepository.save(new UserEntity("21-0006", "Fay", "Uy", "fay", "fay@cit.edu", "x", "Student"));
+        String token = jwtUtil.generateToken(fay);
+        String secret = (String) ReflectionTestUtils.getField(jwtUtil, "SECRET_KEY");
+
+        double before = nanosPerRequest(() -> {
+            String email = Jwts.parserBuilder()
+                    .setSigningKey(Keys.hmacShaKeyFor(Base64.getEncoder().encode(secret.getBytes(StandardCharsets.UTF_8))))
+                    .build().parseClaimsJws(token).getBody().getSubject();
+            UserDetails user = userDetailsService.loadUserByUsername(email);
+            Jwts.parserBuilder()
+                    .setSigningKey(Keys.hmacShaKeyFor(Base64.getEncoder().encode(secret.getBytes(StandardCharsets.UTF_8))))
+                    .build().parseClaimsJws(token);
+            return user.getUsername().length();
+        });
+        ReflectionTestUtils.setField(filter, "maxAge", Duration.ZERO);
+        double uncached = nanosPerRequest(() -> filter.authenticate(token).getUsername().length());
+        ReflectionTestUtils.setField(filter, "maxAge", Duration.ofMinutes(5));
+        double cached = nanosPerRequest(() -> authenticate(token).getName().length());
+
+        System.out.printf("JWT filter per request: before %.1f us, single parse %.1f us, cached %.2f us (%.0fx)%n",
+                before / 1000, uncached / 1000, cached / 1000, before / cached);
+    }
+
+    /**
+     * Run with -Dbenchmarks=true. Authenticated GET /api/bookings/my through the filter and
+     * BookingController against H2: a token without claims (user loaded on every request, the
+     * old behaviour) vs one with claims, both with the verification cache off, and then with
+     * it on. H2 is in-process, so against MySQL the lookup, and with it the gap, is larger.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void myBookingsThroughput() throws Exception {
+        UserEntity eve = userRepository.save(new UserEntity("21-0005", "Eve", "Sy", "eve", "eve@cit.edu", "x", "Student"));
+        BookingController controller = new BookingController();
+        ReflectionTestUtils.setField(controller, "bookingService", bookingService);
+        ReflectionTestUtils.setField(controller, "tableVersions", tableVersions);
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(controller).addFilters(filter).build();
+        String legacy = legacyToken("eve@cit.edu");
+        String withClaims = jwtUtil.generateToken(eve);
+
+        ReflectionTestUtils.setField(filter, "maxAge", Duration.ZERO);
+        double lookup = perSecond(() -> myBookings(mvc, legacy));
+        double claims = perSecond(() -> myBookings(mvc, withClaims));
+        ReflectionTestUtils.setField(filter, "maxAge", Duration.ofMinutes(5));
+        double cached = perSecond(() -> myBookings(mvc, withClaims));
+
+        System.out.printf("GET /api/bookings/my: %.0f req/s with the user lookup, %.0f req/s from claims, %.0f req/s cached%n",
+                lookup, claims, cached);
+    }
+
+    private static int myBookings(MockMvc mvc, String token) throws Exception {
+        try {
+            return mvc.perform(get("/api/bookings/my").header("Authorization", "Bearer " + token))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentLength() + 1;
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    // Runs the filter on a request carrying the token; the resulting authentication, if any
+    private Authentication authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/bookings/my");
+        request.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(request, new MockHttpServletResponse(), NOTHING);
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    // A token as issued before they carried userid and role
+    private String legacyToken(String email) {
+        return Jwts.builder()
+                .setSubject(email)
+                .claim("username", email)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith((SecretKey) ReflectionTestUtils.getField(jwtUtil, "signingKey"), SignatureAlgorithm.HS512)
+                .compact();
+    }
+
+    private double count(String name) {
+        return meterRegistry.counter(name).count();
+    }
+
+    private static double nanosPerRequest(Callable<Integer> request) throws Exception {
+        long sink = 0;
+        for (int i = 0; i < 2_000; i++) { // warm-up
+            sink += request.call();
+        }
+        int requests = 20_000;
+        long started = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            sink += request.call();
+        }
+        return sink > 0 ? (double) (System.nanoTime() - started) / requests : 0;
+    }
+
+    private static double perSecond(Callable<Integer> request) throws Exception {
+        long sink = 0;
+        for (int i = 0; i < 2_000; i++) { // warm-up
+            sink += request.call();
+        }
+        int requests = 20_000;
+        long started = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            sink += request.call();
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        return sink > 0 ? requests / seconds : 0;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.eduwheels.Utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RidePoolerTest {
+
+    private static final double DORM_LAT = 10.2960;
+    private static final double DORM_LNG = 123.8790;
+    private static final double HALL_LAT = 10.2946;
+    private static final double HALL_LNG = 123.8811;
+    private static final long EIGHT_AM = 8 * 60;
+
+    private final RidePooler pooler = new RidePooler(400, 30, ForkJoinPool.commonPool());
+
+    @Test
+    void sameDormSameHallSameHourShareOneVehicle() {
+        List<RidePooler.Trip> trips = List.of(
+                trip(1, DORM_LAT, DORM_LNG, HALL_LAT, HALL_LNG, EIGHT_AM, 2),
+                trip(2, DORM_LAT + 0.0005, DORM_LNG, HALL_LAT, HALL_LNG + 0.0005, EIGHT_AM + 10, 3),
+                trip(3, DORM_LAT, DORM_LNG, HALL_LAT, HALL_LNG, EIGHT_AM + 20, 1),
+                // Same route but in the afternoon
+                trip(4, DORM_LAT, DORM_LNG, HALL_LAT, HALL_LNG, EIGHT_AM + 6 * 60, 1),
+                // Same time but going across town
+                trip(5, DORM_LAT, DORM_LNG, 10.3300, 123.9100, EIGHT_AM, 1));
+
+        List<RidePooler.Run> runs = pooler.plan(trips, List.of(new RidePooler.Vehicle(100, 4), new RidePooler.Vehicle(101, 12)));
+
+        assertEquals(3, runs.size());
+        RidePooler.Run shared = runs.stream().filter(run -> run.getTrips().size() > 1).findFirst().orElseThrow();
+        assertEquals(Set.of(1L, 2L, 3L), ids(shared));
+        assertEquals(6, shared.getSeats());
+        assertEquals(EIGHT_AM + 20, shared.getStartMinute());
+        assertEquals(101, shared.getVehicle().id());
+    }
+
+    @Test
+    void runsNeverExceedTheLargestVehicleAndVehiclesAreNotDoubleBooked() {
+        List<RidePooler.Trip> trips = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            trips.add(trip(i, DORM_LAT, DORM_LNG, HALL_LAT, HALL_LNG, EIGHT_AM, 1));
+        }
+        trips.add(trip(99, DORM_LAT, DORM_LNG, HALL_LAT, HALL_LNG, EIGHT_AM, 20)); // bigger than any vehicle
+
+        List<RidePooler.Run> runs = pooler.plan(trips, List.of(new RidePooler.Vehicle(1, 12), new RidePooler.Vehicle(2, 12)));
+
+        assertEquals(3, runs.size()); // 12 + 12 + 6
+        runs.forEach(run -> assertTrue(run.getSeats() <= 12));
+        assertEquals(2, runs.stream().filter(run -> run.getVehicle() != null).count());
+        assertNull(runs.stream().filter(run -> run.getSeats() == 6).findFirst().orElseThrow().getVehicle());
+    }
+
+    /**
+     * Run with -Dbenchmarks=true. A 50,000-booking day on a synthetic campus: 12 dorms, 10
+     * buildings, departures every 15 minutes from 6:00 to 19:00, 300 vehicles.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void fiftyThousandBookingDay() {
+        Random random = new Random(3);
+        double[][] dorms = places(random, 12);
+        double[][] halls = places(random, 10);
+        List<RidePooler.Trip> trips = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            double[] from = dorms[random.nextInt(dorms.length)];
+            double[] to = halls[random.nextInt(halls.length)];
+            long start = 6 * 60 + 15L * random.nextInt(52) + random.nextInt(10);
+            trips.add(trip(i, jitter(random, from[0]), jitter(random, from[1]), jitter(random, to[0]), jitter(random, to[1]),
+                    start, 1 + random.nextInt(3)));
+        }
+        List<RidePooler.Vehicle> fleet = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            fleet.add(new RidePooler.Vehicle(i, i % 3 == 0 ? 30 : i % 3 == 1 ? 15 : 4));
+        }
+
+        List<RidePooler.Run> runs = null;
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            runs = pooler.plan(trips, fleet);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        Map<Long, Integer> seen = new HashMap<>();
+        long assigned = 0;
+        for (RidePooler.Run run : runs) {
+            run.getTrips().forEach(trip -> seen.merge(trip.id(), 1, Integer::sum));
+            if (run.getVehicle() != null) {
+                assigned++;
+                assertTrue(run.getVehicle().capacity() >= run.getSeats());
+            }
+        }
+        assertEquals(trips.size(), seen.size());
+        assertTrue(seen.values().stream().allMatch(count -> count == 1));
+        assertNotNull(runs);
+        System.out.printf("50k bookings -> %d runs (%d with a vehicle, %.1f riders per run) in %d ms with %d threads%n",
+                runs.size(), assigned, trips.size() / (double) runs.size(), best / 1_000_000,
+                ForkJoinPool.commonPool().getParallelism());
+    }
+
+    private static RidePooler.Trip trip(long id, double fromLat, double fromLng, double toLat, double toLng,
+                                        long start, int passengers) {
+        return new RidePooler.Trip(id, fromLat, fromLng, toLat, toLng, start, start + 90, passengers);
+    }
+
+    private static Set<Long> ids(RidePooler.Run run) {
+        Set<Long> ids = new HashSet<>();
+        run.getTrips().forEach(trip -> ids.add(trip.id()));
+        return ids;
+    }
+
+    private static double[][] places(Random random, int count) {
+        double[][] places = new double[count][];
+        for (int i = 0; i < count; i++) {
+            places[i] = new double[]{HALL_LAT + (random.nextDouble() - 0.5) * 0.04, HALL_LNG + (random.nextDouble() - 0.5) * 0.04};
+        }
+        return places;
+    }
+
+    // Riders wait within about 100 m of the dorm door
+    private static double jitter(Random random, double degrees) {
+        return degrees + (random.nextDouble() - 0.5) * 0.0018;
+    }
+}
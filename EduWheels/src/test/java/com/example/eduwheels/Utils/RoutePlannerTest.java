@@ -0,0 +1,160 @@
+package com.example.eduwheels.Utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class RoutePlannerTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void matchesDijkstraOnACityGrid() throws IOException {
+        RoadGraph graph = grid(dir.resolve("grid.ewrg"), 40, new Random(13));
+        RoutePlanner planner = new RoutePlanner(graph);
+        Random random = new Random(7);
+
+        for (int i = 0; i < 200; i++) {
+            int from = random.nextInt(graph.nodeCount());
+            int to = random.nextInt(graph.nodeCount());
+            RoutePlanner.Route route = planner.route(from, to);
+            assertNotNull(route);
+            assertEquals(dijkstraSeconds(graph, from, to), route.seconds(), 1e-3);
+        }
+    }
+
+    @Test
+    void oneWayStreetsAndDeadEnds() throws IOException {
+        RoadGraph.Builder builder = new RoadGraph.Builder();
+        int gate = builder.addNode(10.2946, 123.8811);
+        int library = builder.addNode(10.2950, 123.8811);
+        int canteen = builder.addNode(10.2950, 123.8818);
+        int island = builder.addNode(10.3000, 123.9000);
+        builder.addEdge(gate, library, 45, 10).addEdge(library, canteen, 80, 20).addEdge(canteen, gate, 90, 15);
+        Path file = dir.resolve("oneway.ewrg");
+        builder.write(file);
+        RoutePlanner planner = new RoutePlanner(RoadGraph.open(file));
+
+        assertEquals(new RoutePlanner.Route(125, 30), planner.route(gate, canteen));
+        assertEquals(new RoutePlanner.Route(90, 15), planner.route(canteen, gate));
+        assertNull(planner.route(gate, island));
+        assertEquals(new RoutePlanner.Route(0, 0), planner.route(island, island));
+    }
+
+    @Test
+    void snapsToTheNearestNodeWithinRange() throws IOException {
+        RoadGraph graph = grid(dir.resolve("snap.ewrg"), 10, new Random(1));
+
+        int node = graph.nearestNode(graph.lat(37) + 0.0001, graph.lng(37), 100);
+
+        assertEquals(37, node);
+        assertEquals(-1, graph.nearestNode(11.5, 124.5, 300));
+    }
+
+    @Test
+    void rejectsFilesThatAreNotGraphs() throws IOException {
+        Path junk = dir.resolve("junk.ewrg");
+        Files.write(junk, new byte[]{1, 2, 3});
+        assertThrows(IllegalArgumentException.class, () -> RoadGraph.open(junk));
+
+        Path file = dir.resolve("cut.ewrg");
+        grid(file, 5, new Random(2));
+        Files.write(file, Arrays.copyOf(Files.readAllBytes(file), (int) Files.size(file) - 4));
+        assertThrows(IllegalArgumentException.class, () -> RoadGraph.open(file));
+    }
+
+    /**
+     * Run with -Dbenchmarks=true. Uncached queries across a 250 x 250 street grid (62,500
+     * intersections, about 250,000 road segments, roughly 7 km across) on one thread.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void queriesPerSecondOnOneCore() throws IOException {
+        RoadGraph graph = grid(dir.resolve("city.ewrg"), 250, new Random(5));
+        RoutePlanner planner = new RoutePlanner(graph);
+        Random random = new Random(9);
+        int side = 250;
+
+        // Campus trips: a few kilometers at most, not corner to corner
+        int queries = 5_000;
+        int[] from = new int[queries];
+        int[] to = new int[queries];
+        for (int i = 0; i < queries; i++) {
+            int row = random.nextInt(side);
+            int col = random.nextInt(side);
+            from[i] = row * side + col;
+            to[i] = Math.floorMod(row + random.nextInt(81) - 40, side) * side + Math.floorMod(col + random.nextInt(81) - 40, side);
+        }
+        double sink = 0;
+        for (int i = 0; i < queries; i++) { // warm-up
+            sink += planner.route(from[i], to[i]).seconds();
+        }
+        long started = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            sink += planner.route(from[i], to[i]).seconds();
+        }
+        long elapsed = System.nanoTime() - started;
+        System.out.printf("%d nodes, %d edges: %.0f uncached queries/s, %.1f us each (%d)%n",
+                graph.nodeCount(), graph.edgeCount(), queries / (elapsed / 1e9), elapsed / 1000.0 / queries, (long) sink % 2);
+    }
+
+    // Square street grid around campus, 30 m blocks, with a mix of 20-50 km/h streets
+    static RoadGraph grid(Path file, int side, Random random) throws IOException {
+        RoadGraph.Builder builder = new RoadGraph.Builder();
+        double step = 30 / GeoGrid.METERS_PER_DEGREE_LAT;
+        for (int row = 0; row < side; row++) {
+            for (int col = 0; col < side; col++) {
+                builder.addNode(10.28 + row * step, 123.87 + col * step);
+            }
+        }
+        for (int row = 0; row < side; row++) {
+            for (int col = 0; col < side; col++) {
+                int node = row * side + col;
+                if (col + 1 < side) {
+                    builder.addRoad(node, node + 1, 20 + random.nextInt(31));
+                }
+                if (row + 1 < side) {
+                    builder.addRoad(node, node + side, 20 + random.nextInt(31));
+                }
+            }
+        }
+        builder.write(file);
+        return RoadGraph.open(file);
+    }
+
+    private static double dijkstraSeconds(RoadGraph graph, int from, int to) {
+        double[] best = new double[graph.nodeCount()];
+        Arrays.fill(best, Double.POSITIVE_INFINITY);
+        best[from] = 0;
+        PriorityQueue<double[]> queue = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+        queue.add(new double[]{0, from});
+        while (!queue.isEmpty()) {
+            double[] head = queue.poll();
+            int node = (int) head[1];
+            if (head[0] > best[node]) {
+                continue;
+            }
+            for (int edge = graph.firstEdge(node); edge < graph.firstEdge(node + 1); edge++) {
+                double time = head[0] + graph.seconds(edge);
+                if (time < best[graph.target(edge)]) {
+                    best[graph.target(edge)] = time;
+                    queue.add(new double[]{time, graph.target(edge)});
+                }
+            }
+        }
+        return best[to];
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.eduwheels.Utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SeatTimelineTest {
+
+    private static final LocalDateTime TUESDAY_8AM = LocalDateTime.of(2025, 3, 4, 8, 0);
+
+    @Test
+    void overlappingWindowsAddUp() {
+        SeatTimeline timeline = new SeatTimeline();
+        timeline.add(TUESDAY_8AM, TUESDAY_8AM.plusHours(2), 10);
+        timeline.add(TUESDAY_8AM.plusHours(1), TUESDAY_8AM.plusHours(3), 5);
+
+        assertEquals(10, timeline.maxBooked(TUESDAY_8AM, TUESDAY_8AM.plusHours(1)));
+        assertEquals(15, timeline.maxBooked(TUESDAY_8AM, TUESDAY_8AM.plusHours(3)));
+        assertEquals(5, timeline.maxBooked(TUESDAY_8AM.plusHours(2), TUESDAY_8AM.plusHours(4)));
+    }
+
+    @Test
+    void otherDaysAreUnaffected() {
+        SeatTimeline timeline = new SeatTimeline();
+        timeline.add(TUESDAY_8AM, TUESDAY_8AM.plusHours(2), 30);
+
+        LocalDateTime friday = TUESDAY_8AM.plusDays(3).plusHours(6);
+        assertEquals(0, timeline.maxBooked(friday, friday.plusHours(2)));
+    }
+
+    @Test
+    void windowsAreHalfOpen() {
+        SeatTimeline timeline = new SeatTimeline();
+        timeline.add(TUESDAY_8AM, TUESDAY_8AM.plusHours(1), 4);
+
+        assertEquals(0, timeline.maxBooked(TUESDAY_8AM.plusHours(1), TUESDAY_8AM.plusHours(2)));
+        assertEquals(4, timeline.maxBooked(TUESDAY_8AM.plusMinutes(59), TUESDAY_8AM.plusHours(2)));
+    }
+
+    @Test
+    void removingRestoresAvailability() {
+        SeatTimeline timeline = new SeatTimeline();
+        for (int i = 0; i < 1000; i++) {
+            LocalDateTime start = TUESDAY_8AM.plusMinutes(i * 7L);
+            timeline.add(start, start.plusMinutes(90), 1);
+        }
+        for (int i = 0; i < 1000; i++) {
+            LocalDateTime start = TUESDAY_8AM.plusMinutes(i * 7L);
+            timeline.add(start, start.plusMinutes(90), -1);
+        }
+
+        assertEquals(0, timeline.maxBooked(TUESDAY_8AM.minusDays(1), TUESDAY_8AM.plusDays(30)));
+    }
+
+    @Test
+    void discardingThePastKeepsWhatIsAheadAndFreesNodes() {
+        SeatTimeline timeline = new SeatTimeline();
+        for (int day = 0; day < 365; day++) {
+            LocalDateTime start = TUESDAY_8AM.plusDays(day);
+            timeline.add(start, start.plusHours(2), 1 + day % 5);
+        }
+        int before = timeline.nodeCount();
+        LocalDateTime cut = TUESDAY_8AM.plusDays(360).plusHours(1); // in the middle of a trip
+
+        timeline.discardBefore(SeatTimeline.floorMinute(cut));
+
+        assertTrue(timeline.nodeCount() < before / 20, timeline.nodeCount() + " of " + before + " nodes");
+        assertEquals(0, timeline.maxBooked(TUESDAY_8AM, TUESDAY_8AM.plusDays(300)));
+        assertEquals(1, timeline.maxBooked(cut, cut.plusMinutes(30)));
+        assertEquals(5, timeline.maxBooked(cut, cut.plusDays(30)));
+
+        // Giving back a trip that started before the cut only touches what is left of it
+        timeline.add(TUESDAY_8AM.plusDays(360), TUESDAY_8AM.plusDays(360).plusHours(2), -1);
+        assertEquals(0, timeline.maxBooked(cut, cut.plusMinutes(30)));
+        assertEquals(0, timeline.maxBooked(TUESDAY_8AM.plusDays(360), cut));
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.eduwheels.Utils;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void allowsABurstThenOneAttemptPerRefill() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(3, Duration.ofSeconds(10), 1000, 4);
+        long now = 1_000 * SECOND;
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("210000001", now));
+        }
+        assertEquals(10 * SECOND, limiter.tryAcquire("210000001", now));
+        // Other keys have their own bucket
+        assertEquals(0, limiter.tryAcquire("210000002", now));
+
+        // Refused attempts don't push the next token further out
+        assertEquals(4 * SECOND, limiter.tryAcquire("210000001", now + 6 * SECOND));
+        assertEquals(0, limiter.tryAcquire("210000001", now + 10 * SECOND));
+        assertTrue(limiter.tryAcquire("210000001", now + 10 * SECOND) > 0);
+
+        // Long idle: back to a full bucket, not more
+        long later = now + 3_600 * SECOND;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("210000001", later));
+        }
+        assertTrue(limiter.tryAcquire("210000001", later) > 0);
+    }
+
+    @Test
+    void keepsAtMostMaxEntriesBuckets() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, Duration.ofMinutes(1), 256, 16);
+        for (int i = 0; i < 10_000; i++) {
+            limiter.tryAcquire("10.0." + (i / 256) + "." + (i % 256));
+        }
+        assertTrue(limiter.size() <= 256, limiter.size() + " buckets");
+
+        // The least recently used go first
+        TokenBucketLimiter lru = new TokenBucketLimiter(1, Duration.ofMinutes(1), 4, 1);
+        lru.tryAcquire("hot");
+        for (int i = 0; i < 10; i++) {
+            for (int j = 0; j < 3; j++) {
+                lru.tryAcquire("cold-" + i + "-" + j);
+            }
+            assertTrue(lru.tryAcquire("hot") > 0);
+        }
+        for (int j = 0; j < 4; j++) {
+            lru.tryAcquire("newer-" + j);
+        }
+        // Evicted, so it starts over with a full bucket
+        assertEquals(0, lru.tryAcquire("hot"));
+        assertEquals(4, lru.size());
+    }
+
+    @Test
+    void concurrentAttemptsOnOneKeyNeverExceedTheBucket() throws Exception {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(500, Duration.ofHours(1), 1000, 64);
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 1_000; i++) {
+                    if (limiter.tryAcquire("203.0.113.7") == 0) {
+                        allowed.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(500, allowed.get());
+    }
+
+    /**
+     * Run with -Dbenchmarks=true. Four threads checking a login's pair of keys (IP, then schoolid)
+     * against 20k IPs and 50k accounts, as LoginRateLimiter does; prints the cost of one check.
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+    void checkOverheadUnderConcurrency() throws Exception {
+        TokenBucketLimiter byIp = new TokenBucketLimiter(20, Duration.ofSeconds(3), 100_000, 64);
+        TokenBucketLimiter byAccount = new TokenBucketLimiter(10, Duration.ofSeconds(30), 100_000, 64);
+        String[] ips = new String[20_000];
+        for (int i = 0; i < ips.length; i++) {
+            ips[i] = "10." + (i >> 16 & 255) + "." + (i >> 8 & 255) + "." + (i & 255);
+        }
+        String[] accounts = new String[50_000];
+        for (int i = 0; i < accounts.length; i++) {
+            accounts[i] = String.format("21%07d", i);
+        }
+
+        int threads = 4;
+        int checks = 200_000;
+        AtomicLong sink = new AtomicLong();
+        Runnable warmUp = () -> {
+            for (int i = 0; i < 20_000; i++) {
+                sink.addAndGet(byIp.tryAcquire(ips[i % ips.length]) + byAccount.tryAcquire(accounts[i % accounts.length]));
+            }
+        };
+        warmUp.run();
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t * 7_919;
+            workers.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long local = 0;
+                for (int i = 0; i < checks; i++) {
+                    int n = offset + i * 31;
+                    local += byIp.tryAcquire(ips[n % ips.length]);
+                    local += byAccount.tryAcquire(accounts[n % accounts.length]);
+                }
+                sink.addAndGet(local);
+            }));
+        }
+        workers.forEach(Thread::start);
+        long started = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - started;
+        double nanosPerCheck = (double) elapsed * Math.min(threads, Runtime.getRuntime().availableProcessors())
+                / (2L * threads * checks);
+
+        System.out.printf("Token bucket check: %.0f ns per key on %d threads (%d CPUs), %d buckets (%d)%n",
+                nanosPerCheck, threads, Runtime.getRuntime().availableProcessors(),
+                byIp.size() + byAccount.size(), sink.get() & 1);
+        assertTrue(nanosPerCheck < 1_000, nanosPerCheck + " ns per check");
+    }
+}
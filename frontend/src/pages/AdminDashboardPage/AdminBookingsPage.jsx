@@ -36,6 +36,7 @@ import {
     ErrorOutline as ErrorOutlineIcon,
 } from '@mui/icons-material';
 import { format } from 'date-fns';
+import { subscribeToBookingStatus } from '../Handler/bookingStream';
 
 const getAuthToken = () => {
     return localStorage.getItem('token'); // Replace with your actual token retrieval
@@ -94,6 +95,7 @@ export default function AdminBookingsPage() {
     const [rowsPerPage, setRowsPerPage] = useState(5);
     const [users, setUsers] = useState([]);
     const [vehicles, setVehicles] = useState([]);
+    const [nextCursor, setNextCursor] = useState(null);
 
     // Fetch Users and Vehicles for dropdowns
     const fetchUsersAndVehicles = useCallback(async () => {
@@ -123,22 +125,28 @@ export default function AdminBookingsPage() {
         }
     }, []);
 
-    const fetchBookings = useCallback(async () => {
+    // The bookings API is keyset-paginated: each response carries the cursor of the
+    // next page in the X-Next-Cursor header (absent on the last page).
+    const fetchBookings = useCallback(async (cursor = null) => {
         setLoading(true);
         setError(null);
         try {
             const token = getAuthToken();
-            const response = await fetch(BOOKINGS_API, {
+            const url = cursor ? `${BOOKINGS_API}?cursor=${encodeURIComponent(cursor)}` : BOOKINGS_API;
+            const response = await fetch(url, {
                 headers: token ? { 'Authorization': `Bearer ${token}` } : {},
             });
             if (!response.ok) {
                 throw new Error(`HTTP error! Status: ${response.status}`);
             }
             const data = await response.json();
-            setBookings(data || []);
+            setBookings(prev => (cursor ? [...prev, ...(data || [])] : (data || [])));
+            setNextCursor(response.headers.get('X-Next-Cursor'));
         } catch (e) {
             setError(e.message || "Failed to fetch bookings.");
-            setBookings([]);
+            if (!cursor) {
+                setBookings([]);
+            }
         } finally {
             setLoading(false);
         }
@@ -149,6 +157,13 @@ export default function AdminBookingsPage() {
         fetchUsersAndVehicles();
     }, [fetchBookings, fetchUsersAndVehicles]);
 
+    // Admins get every booking's status changes; a resync means we missed some, so reload
+    useEffect(() => subscribeToBookingStatus(API_BASE_URL, {
+        onStatus: (event) => setBookings(prev => prev.map(booking =>
+            booking.bookingID === event.bookingID ? { ...booking, status: event.status } : booking)),
+        onResync: () => fetchBookings(),
+    }), [fetchBookings]);
+
     const handleOpenCreateDialog = () => {
         setSelectedBooking(null);
         setBookingFormData({
@@ -465,6 +480,14 @@ export default function AdminBookingsPage() {
                 </StyledTableContainer>
             )}
 
+            {nextCursor && (
+                <Box sx={{ display: 'flex', justifyContent: 'center', mt: 2 }}>
+                    <Button variant="outlined" onClick={() => fetchBookings(nextCursor)} disabled={loading}>
+                        Load More Bookings
+                    </Button>
+                </Box>
+            )}
+
             {/* Create/Edit Booking Dialog */}
             <Dialog
                 open={openDialog}
@@ -23,6 +23,17 @@ export default function AdminDashboardPage() {
     };
 
     const handleLogout = () => {
+        const token = localStorage.getItem('token');
+        const refreshToken = localStorage.getItem('refreshToken');
+        if (token || refreshToken) {
+            // Revoke the tokens on the server too; no need to wait for it
+            fetch('https://it342-eduwheels.onrender.com/users/logout', {
+                method: 'POST',
+                headers: { Authorization: `Bearer ${token}`, 'Content-Type': 'application/json' },
+                body: JSON.stringify({ refreshToken }),
+                keepalive: true,
+            }).catch(() => {});
+        }
         localStorage.clear();
         navigate('/login'); // Redirect to login page after logout
     };
@@ -184,7 +184,7 @@ export default function AdminVehiclesPage() {
             status: vehicle.status || 'Available',
             vehicleName: vehicle.vehicleName || '',
             photo: null, // Clear photo input, preview existing one
-            photoPreview: getImageUrl(vehicle.photoPath), // Show current photo
+            photoPreview: getImageUrl(vehicle.photoCardUrl || vehicle.photoPath), // Show current photo
         });
         setDialogType('edit');
         setDialogError('');
@@ -442,11 +442,11 @@ export default function AdminVehiclesPage() {
                                         <TableCell>
                                             <StyledAvatar
                                                 variant="rounded"
-                                                src={getImageUrl(vehicle.photoPath)}
+                                                src={getImageUrl(vehicle.photoThumbnailUrl || vehicle.photoPath)}
                                                 alt={vehicle.vehicleName || 'Vehicle'}
                                             >
                                                 {/* Fallback Icon or Initials */}
-                                                {!getImageUrl(vehicle.photoPath) && <ImageIcon />}
+                                                {!getImageUrl(vehicle.photoThumbnailUrl || vehicle.photoPath) && <ImageIcon />}
                                             </StyledAvatar>
                                         </TableCell>
                                         <TableCell>{vehicle.vehicleName || 'N/A'}</TableCell>
@@ -38,6 +38,9 @@ export default function BookingPage() {
     const [showDropoffMap, setShowDropoffMap] = useState(false);
     const [passengers, setPassengers] = useState(1);
     const mapRef = useRef(null);
+    // The booking being sent: its Idempotency-Key, the exact payload and the choices it was built from
+    const pendingBookingRef = useRef(null);
+    const [submitting, setSubmitting] = useState(false);
     const defaultCenter = [10.2914, 123.8943];
     const defaultZoom = 13;
 
@@ -67,8 +70,12 @@ export default function BookingPage() {
         }
     }, [passengers]);
 
-    const handleBookNow = async () => {
-        if (!vehicles[currentIndex]) {
+    // anyVehicle leaves the plate number out and lets the server pick the vehicle that fits best
+    const handleBookNow = async (anyVehicle = false) => {
+        if (submitting) {
+            return;
+        }
+        if (!anyVehicle && !vehicles[currentIndex]) {
             alert("No vehicle selected.");
             return;
         }
@@ -76,7 +83,7 @@ export default function BookingPage() {
             alert("Please select both pick-up and drop-off locations.");
             return;
         }
-        if (passengers <= 0 || passengers > vehicles[currentIndex].capacity) {
+        if (!anyVehicle && (passengers <= 0 || passengers > vehicles[currentIndex].capacity)) {
             alert(`Please enter a valid number of passengers (1-${vehicles[currentIndex].capacity}).`);
             return;
         }
@@ -88,26 +95,61 @@ export default function BookingPage() {
             return;
         }
 
-        const bookingData = {
-            plateNumber: vehicles[currentIndex].plateNumber,
-            pickUp: addresses.pickup,
-            dropOff: addresses.dropoff,
-            requestDate: new Date().toISOString(),
-            startDate: new Date().toISOString(),
-            endDate: new Date(new Date().getTime() + 60 * 60 * 1000).toISOString(),
-            status: "Pending",
-            numberOfPassengers: passengers
-        };
+        // Build the payload and its key once and send both, unchanged, on every retry until the booking
+        // goes through: a double tap or a retry on flaky Wi-Fi then gets the original booking back instead
+        // of a second one. Changing the vehicle, places or passenger count starts a new booking.
+        const choice = JSON.stringify([
+            anyVehicle ? null : vehicles[currentIndex].plateNumber,
+            addresses.pickup,
+            addresses.dropoff,
+            passengers
+        ]);
+        if (pendingBookingRef.current?.choice !== choice) {
+            const now = new Date();
+            pendingBookingRef.current = {
+                choice,
+                key: crypto.randomUUID(),
+                payload: {
+                    plateNumber: anyVehicle ? undefined : vehicles[currentIndex].plateNumber,
+                    pickUp: addresses.pickup,
+                    dropOff: addresses.dropoff,
+                    requestDate: now.toISOString(),
+                    startDate: now.toISOString(),
+                    endDate: new Date(now.getTime() + 60 * 60 * 1000).toISOString(),
+                    status: "Pending",
+                    numberOfPassengers: passengers
+                }
+            };
+        }
+        const { key, payload } = pendingBookingRef.current;
 
+        setSubmitting(true);
         try {
-            await axios.post("https://it342-eduwheels.onrender.com/api/bookings", bookingData, {
-                headers: { Authorization: `Bearer ${token}`, 'Content-Type': 'application/json' }
-            });
-            alert("Booking successful!");
-            navigate("/profile");
-        } catch (error) {
-            console.error("Error creating booking:", error);
-            alert(`Failed to create booking: ${error.message}`);
+            for (let attempt = 1; ; attempt++) {
+                try {
+                    await axios.post("https://it342-eduwheels.onrender.com/api/bookings", payload, {
+                        headers: {
+                            Authorization: `Bearer ${token}`,
+                            'Content-Type': 'application/json',
+                            'Idempotency-Key': key
+                        }
+                    });
+                    pendingBookingRef.current = null;
+                    alert("Booking successful!");
+                    navigate("/profile");
+                    return;
+                } catch (error) {
+                    // No response means the request may or may not have reached the server: retry it
+                    if (!error.response && attempt < 3) {
+                        continue;
+                    }
+                    console.error("Error creating booking:", error);
+                    alert(`Failed to create booking: ${error.response?.data?.message || error.message}`);
+                    return;
+                }
+            }
+        } finally {
+            setSubmitting(false);
         }
     };
 
@@ -233,7 +275,7 @@ export default function BookingPage() {
                             </button>
                             <div className="vehicle-card">
                                 <img
-                                    src={getImageUrl(vehicles[currentIndex]?.photoPath)}
+                                    src={getImageUrl(vehicles[currentIndex]?.photoCardUrl || vehicles[currentIndex]?.photoPath)}
                                     alt={vehicles[currentIndex]?.name || vehicles[currentIndex]?.type || 'Vehicle'}
                                     onError={(e) => { e.target.onerror = null; e.target.src="https://placehold.co/300x200/cccccc/ffffff?text=No+Image"; }}
                                     className="vehicle-image"
@@ -244,8 +286,11 @@ export default function BookingPage() {
                                     <p>Available Seats: {vehicles[currentIndex]?.availableSeats ?? vehicles[currentIndex]?.capacity}</p>
                                     <p>Plate Number: {vehicles[currentIndex]?.plateNumber}</p>
                                 </div>
-                                <button type="button" className="book-button" onClick={handleBookNow}>
-                                    Book This Vehicle
+                                <button type="button" className="book-button" onClick={() => handleBookNow()} disabled={submitting}>
+                                    {submitting ? 'Booking...' : 'Book This Vehicle'}
+                                </button>
+                                <button type="button" className="book-button" onClick={() => handleBookNow(true)} disabled={submitting}>
+                                    Book Any Available Vehicle
                                 </button>
                             </div>
                             <button
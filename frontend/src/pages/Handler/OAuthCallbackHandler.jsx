@@ -13,6 +13,7 @@ export default function OAuthCallbackHandler() {
         const params = new URLSearchParams(search);
         const isPending = params.get('pending') === 'true';
         const token = params.get('token');
+        const refreshToken = params.get('refreshToken');
 
         if (isPending) {
             navigate('/complete-profile');
@@ -20,8 +21,9 @@ export default function OAuthCallbackHandler() {
         }
 
         if (token) {
-            // Store JWT
+            // Store JWT and the refresh token that renews it
             localStorage.setItem('token', token);
+            if (refreshToken) localStorage.setItem('refreshToken', refreshToken);
 
             // Parse out the username claim
             const claims = parseJwt(token);
@@ -0,0 +1,62 @@
+// Listens to GET /api/bookings/stream (Server-Sent Events). EventSource can't send the
+// Authorization header, so this reads the stream with fetch and parses the frames itself.
+// Reconnects with backoff until the returned stop function is called.
+export function subscribeToBookingStatus(baseUrl, { onStatus, onResync }) {
+    const controller = new AbortController();
+    let retryDelay = 1000;
+
+    const handleFrame = (frame) => {
+        let eventName = 'message';
+        const data = [];
+        for (const line of frame.split('\n')) {
+            if (line.startsWith(':')) continue; // heartbeat
+            if (line.startsWith('event:')) eventName = line.slice(6).trim();
+            else if (line.startsWith('data:')) data.push(line.slice(5).trimStart());
+        }
+        if (eventName === 'booking-status' && data.length > 0) {
+            onStatus(JSON.parse(data.join('\n')));
+        } else if (eventName === 'resync' && onResync) {
+            onResync();
+        }
+    };
+
+    const connect = async () => {
+        while (!controller.signal.aborted) {
+            const token = localStorage.getItem('token');
+            if (!token) return;
+            try {
+                const response = await fetch(`${baseUrl}/api/bookings/stream`, {
+                    headers: { Authorization: `Bearer ${token}`, Accept: 'text/event-stream' },
+                    signal: controller.signal,
+                });
+                if (response.status === 401 || response.status === 403) return;
+                if (!response.ok || !response.body) throw new Error(`Stream failed: ${response.status}`);
+
+                // Anything may have changed while we were disconnected
+                if (retryDelay > 1000 && onResync) onResync();
+                retryDelay = 1000;
+
+                const reader = response.body.pipeThrough(new TextDecoderStream()).getReader();
+                let buffer = '';
+                for (;;) {
+                    const { value, done } = await reader.read();
+                    if (done) break;
+                    buffer += value.replace(/\r/g, '');
+                    let end;
+                    while ((end = buffer.indexOf('\n\n')) >= 0) {
+                        handleFrame(buffer.slice(0, end));
+                        buffer = buffer.slice(end + 2);
+                    }
+                }
+            } catch (err) {
+                if (controller.signal.aborted) return;
+                console.warn('Booking status stream interrupted:', err);
+            }
+            await new Promise(resolve => setTimeout(resolve, retryDelay));
+            retryDelay = Math.min(retryDelay * 2, 30000);
+        }
+    };
+
+    connect();
+    return () => controller.abort();
+}
@@ -0,0 +1,60 @@
+import axios from 'axios';
+
+const API_BASE_URL = "https://it342-eduwheels.onrender.com";
+
+// Access tokens only last minutes. When a request comes back 401, this swaps the stored refresh
+// token for a new pair on POST /users/refresh and replays the request once. Refresh tokens are
+// single-use, so concurrent 401s share the one refresh instead of each spending the token.
+let pending = null;
+const originalFetch = window.fetch.bind(window);
+
+export function refreshAccessToken() {
+    if (!pending) {
+        pending = (async () => {
+            const refreshToken = localStorage.getItem('refreshToken');
+            if (!refreshToken) return null;
+            const response = await originalFetch(`${API_BASE_URL}/users/refresh`, {
+                method: 'POST',
+                headers: { 'Content-Type': 'application/json' },
+                body: JSON.stringify({ refreshToken }),
+            });
+            if (!response.ok) {
+                localStorage.removeItem('refreshToken');
+                return null;
+            }
+            const data = await response.json();
+            localStorage.setItem('token', data.token);
+            localStorage.setItem('refreshToken', data.refreshToken);
+            return data.token;
+        })().catch(() => null).finally(() => { pending = null; });
+    }
+    return pending;
+}
+
+const isAuthCall = (url) => /\/users\/(login|refresh|logout)\b/.test(url || '');
+
+axios.interceptors.response.use(undefined, async (error) => {
+    const config = error.config;
+    if (error.response?.status !== 401 || !config || config._retried || isAuthCall(config.url)) {
+        throw error;
+    }
+    const token = await refreshAccessToken();
+    if (!token) throw error;
+    config._retried = true;
+    config.headers = { ...config.headers, Authorization: `Bearer ${token}` };
+    return axios(config);
+});
+
+// Same for fetch (the admin pages and the booking stream use it)
+window.fetch = async (input, init = {}) => {
+    const response = await originalFetch(input, init);
+    const url = typeof input === 'string' ? input : input.url;
+    const headers = new Headers(init.headers || (typeof input === 'string' ? undefined : input.headers));
+    if (response.status !== 401 || !headers.get('Authorization') || isAuthCall(url)) {
+        return response;
+    }
+    const token = await refreshAccessToken();
+    if (!token) return response;
+    headers.set('Authorization', `Bearer ${token}`);
+    return originalFetch(input, { ...init, headers });
+};
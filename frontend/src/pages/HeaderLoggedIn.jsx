@@ -19,6 +19,17 @@ export default function HeaderLoggedIn() {
 
 
     const handleLogoutClick = () => {
+        const token = localStorage.getItem('token');
+        const refreshToken = localStorage.getItem('refreshToken');
+        if (token || refreshToken) {
+            // Revoke the tokens on the server too; no need to wait for it
+            fetch('https://it342-eduwheels.onrender.com/users/logout', {
+                method: 'POST',
+                headers: { Authorization: `Bearer ${token}`, 'Content-Type': 'application/json' },
+                body: JSON.stringify({ refreshToken }),
+                keepalive: true,
+            }).catch(() => {});
+        }
         localStorage.clear();
         window.location.href = '/';
     };
@@ -47,8 +47,9 @@ export default function Login() {
             );
 
             if (response.status === 200) {
-                const { user, token } = response.data;
+                const { user, token, refreshToken } = response.data;
                 localStorage.setItem('token', token);
+                localStorage.setItem('refreshToken', refreshToken);
                 localStorage.setItem('user', JSON.stringify(user));
                 window.location.href = '/';
             }
@@ -56,6 +57,9 @@ export default function Login() {
             console.error('Login error:', err);
             if (err.response?.status === 401) {
                 alert('Invalid credentials. Please try again.');
+            } else if (err.response?.status === 429 || err.response?.status === 503) {
+                const wait = err.response.headers['retry-after'];
+                alert(`Too many login attempts right now. Please try again${wait ? ` in ${wait} seconds` : ' shortly'}.`);
             } else {
                 alert('Login failed! Please try again later.');
             }
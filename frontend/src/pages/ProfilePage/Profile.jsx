@@ -28,6 +28,7 @@ import {
 import { AccountCircle, Email, School, Person, ArrowBack, CalendarToday, RateReview } from '@mui/icons-material';
 import './Profile.css';
 import axios from 'axios';
+import { subscribeToBookingStatus } from '../Handler/bookingStream';
 import { useNavigate } from 'react-router-dom';
 
 const API_BASE_URL = "https://it342-eduwheels.onrender.com";
@@ -146,6 +147,25 @@ export default function Profile() {
         }
     }, [userData]);
 
+    // Live status updates (Pending -> Approved -> Going -> Done/Canceled) for the booking history
+    useEffect(() => {
+        if (!userData) return undefined;
+        return subscribeToBookingStatus(API_BASE_URL, {
+            onStatus: (event) => setUserBookings(prev => prev.map(booking =>
+                booking.bookingID === event.bookingID ? { ...booking, status: event.status } : booking)),
+            onResync: async () => {
+                try {
+                    const response = await axios.get(`${API_BASE_URL}/api/bookings/my`, {
+                        headers: { Authorization: `Bearer ${localStorage.getItem('token')}` }
+                    });
+                    setUserBookings(response.data);
+                } catch (err) {
+                    console.error("Error refreshing booking history:", err.response || err);
+                }
+            },
+        });
+    }, [userData]);
+
     const handleBackClick = () => navigate(-1);
     const handleEditClick = () => setIsEditing(true);
     const handleCancelClick = () => {
@@ -60,7 +60,13 @@ export default function CompleteProfilePage() {
                 { schoolid: rawSchoolId, password },   // include password
                 { withCredentials: true }
             );
-            if (res.status === 200) window.location.href = '/logged-in';
+            if (res.status === 200) {
+                if (res.data.token) {
+                    localStorage.setItem('token', res.data.token);
+                    localStorage.setItem('refreshToken', res.data.refreshToken);
+                }
+                window.location.href = '/logged-in';
+            }
         } catch (err) {
             const msg = err.response?.data?.message || 'Failed to complete profile.';
             setError(msg);